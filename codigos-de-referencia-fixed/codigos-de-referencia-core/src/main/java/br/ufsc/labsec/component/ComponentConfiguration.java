@@ -11,12 +11,13 @@ import java.util.Set;
 import java.util.logging.Level;
 
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 
+import br.ufsc.labsec.signature.XmlToolkit;
+
 /**
  * Classe para fazer a interpretação do arquivo de configuração dos componentes
  */
@@ -38,9 +39,8 @@ public class ComponentConfiguration extends AbstractComponentConfiguration {
 		this.connections = new HashMap<>();
 		this.componentParams = new HashMap<>();
 
-		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
 		try {
-			DocumentBuilder documentBuilder = factory.newDocumentBuilder();
+			DocumentBuilder documentBuilder = XmlToolkit.getDocumentBuilder();
 			Document document = documentBuilder.parse(configurationFile);
 			this.interpretDocument(document);
 		} catch (Exception e) {
@@ -0,0 +1,254 @@
+package br.ufsc.labsec.signature;
+
+import br.ufsc.labsec.component.Application;
+import br.ufsc.labsec.signature.conformanceVerifier.metrics.VerificationMetrics;
+import org.bouncycastle.asn1.x509.AuthorityKeyIdentifier;
+import org.bouncycastle.asn1.x509.CertificatePolicies;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.PolicyInformation;
+import org.bouncycastle.asn1.x509.SubjectKeyIdentifier;
+import org.bouncycastle.cert.jcajce.JcaX509ExtensionUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+/**
+ * Tabela do processo com uma instância única de cada certificado, indexada
+ * pelo SHA-256 da sua codificação. As assinaturas costumam trazer os mesmos
+ * certificados de ACs, que assim são decodificados uma única vez e
+ * compartilhados por todas as verificações, permitindo também que caches
+ * posteriores comparem certificados por identidade.
+ *
+ * Os certificados são mantidos por referências fracas: uma entrada existe
+ * enquanto alguma verificação ainda usa o certificado. Os dados derivados
+ * (identificadores de chave, políticas e chave pública) são calculados uma
+ * vez por certificado e descartados junto com ele.
+ */
+public final class CertificateInterner {
+
+    private static final Map<ByteBuffer, Entry> certificates = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<X509Certificate> collected = new ReferenceQueue<>();
+    private static final Map<X509Certificate, Details> details = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private static final ThreadLocal<MessageDigest> digests = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private CertificateInterner() {
+    }
+
+    /**
+     * Retorna a instância única do certificado codificado, decodificando-o
+     * apenas se ele ainda não estiver na tabela
+     * @param encoded A codificação DER do certificado
+     * @return O certificado
+     * @throws CertificateException Exceção caso a codificação seja inválida
+     */
+    public static X509Certificate intern(byte[] encoded) throws CertificateException {
+        return intern(encoded, null);
+    }
+
+    /**
+     * Retorna a instância única de um certificado já decodificado. Se ainda não
+     * houver uma, o próprio certificado passa a ser a instância da tabela.
+     * @param certificate O certificado
+     * @return A instância única, ou o próprio certificado caso não seja possível codificá-lo
+     */
+    public static X509Certificate intern(X509Certificate certificate) {
+        if (certificate == null) {
+            return null;
+        }
+        try {
+            return intern(certificate.getEncoded(), certificate);
+        } catch (CertificateException e) {
+            Application.logger.log(Level.FINE, "Certificado sem codificação válida não foi compartilhado", e);
+            return certificate;
+        }
+    }
+
+    /**
+     * Retorna as instâncias únicas dos certificados, sem repetições e na ordem dada
+     * @param certificates Os certificados
+     * @return Os certificados compartilhados
+     */
+    public static List<X509Certificate> internAll(Collection<? extends Certificate> certificates) {
+        Set<X509Certificate> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<X509Certificate> result = new ArrayList<>(certificates.size());
+        for (Certificate certificate : certificates) {
+            X509Certificate interned = intern((X509Certificate) certificate);
+            if (distinct.add(interned)) {
+                result.add(interned);
+            }
+        }
+        return result;
+    }
+
+    private static X509Certificate intern(byte[] encoded, X509Certificate parsed) throws CertificateException {
+        expunge();
+        ByteBuffer key = ByteBuffer.wrap(digests.get().digest(encoded));
+        while (true) {
+            Entry entry = certificates.get(key);
+            X509Certificate existing = entry == null ? null : entry.get();
+            if (existing != null) {
+                VerificationMetrics.increment("certificate.intern.hit");
+                return existing;
+            }
+            if (parsed == null) {
+                parsed = (X509Certificate) JcaProviders.certificateFactory("X.509")
+                        .generateCertificate(new ByteArrayInputStream(encoded));
+            }
+            Entry fresh = new Entry(parsed, key);
+            boolean stored = entry == null ? certificates.putIfAbsent(key, fresh) == null
+                    : certificates.replace(key, entry, fresh);
+            if (stored) {
+                VerificationMetrics.increment("certificate.intern.miss");
+                return parsed;
+            }
+        }
+    }
+
+    /**
+     * Remove as entradas dos certificados que não são mais usados
+     */
+    private static void expunge() {
+        Entry entry;
+        while ((entry = (Entry) collected.poll()) != null) {
+            certificates.remove(entry.key, entry);
+        }
+    }
+
+    /**
+     * Retorna o identificador da chave do titular do certificado
+     * @param certificate O certificado
+     * @return O identificador, ou nulo caso o certificado não possua a extensão
+     */
+    public static byte[] getSubjectKeyIdentifier(X509Certificate certificate) {
+        byte[] identifier = details(certificate).subjectKeyIdentifier;
+        return identifier == null ? null : identifier.clone();
+    }
+
+    /**
+     * Retorna o identificador da chave do emissor do certificado
+     * @param certificate O certificado
+     * @return O identificador, ou nulo caso o certificado não possua a extensão
+     */
+    public static byte[] getAuthorityKeyIdentifier(X509Certificate certificate) {
+        byte[] identifier = details(certificate).authorityKeyIdentifier;
+        return identifier == null ? null : identifier.clone();
+    }
+
+    /**
+     * Retorna os identificadores das políticas de certificado
+     * @param certificate O certificado
+     * @return Os OIDs das políticas, possivelmente vazio
+     */
+    public static List<String> getPolicyOids(X509Certificate certificate) {
+        return details(certificate).policyOids;
+    }
+
+    /**
+     * Retorna a chave pública do certificado
+     * @param certificate O certificado
+     * @return A chave pública
+     */
+    public static PublicKey getPublicKey(X509Certificate certificate) {
+        return details(certificate).publicKey;
+    }
+
+    private static Details details(X509Certificate certificate) {
+        Details found = details.get(certificate);
+        if (found != null) {
+            return found;
+        }
+        X509Certificate interned = intern(certificate);
+        found = details.get(interned);
+        if (found == null) {
+            found = new Details(interned);
+            details.put(interned, found);
+        }
+        return found;
+    }
+
+    /**
+     * Entrada da tabela, que guarda a chave para a remoção após a coleta do certificado
+     */
+    private static final class Entry extends WeakReference<X509Certificate> {
+
+        private final ByteBuffer key;
+
+        Entry(X509Certificate certificate, ByteBuffer key) {
+            super(certificate, collected);
+            this.key = key;
+        }
+
+    }
+
+    /**
+     * Dados derivados de um certificado. Não referenciam o certificado, para
+     * que ele possa ser coletado.
+     */
+    private static final class Details {
+
+        private final byte[] subjectKeyIdentifier;
+        private final byte[] authorityKeyIdentifier;
+        private final List<String> policyOids;
+        private final PublicKey publicKey;
+
+        Details(X509Certificate certificate) {
+            byte[] ski = null;
+            byte[] aki = null;
+            List<String> policies = new ArrayList<>();
+            try {
+                byte[] extension = certificate.getExtensionValue(Extension.subjectKeyIdentifier.getId());
+                if (extension != null) {
+                    ski = SubjectKeyIdentifier.getInstance(JcaX509ExtensionUtils.parseExtensionValue(extension))
+                            .getKeyIdentifier();
+                }
+                extension = certificate.getExtensionValue(Extension.authorityKeyIdentifier.getId());
+                if (extension != null) {
+                    aki = AuthorityKeyIdentifier.getInstance(JcaX509ExtensionUtils.parseExtensionValue(extension))
+                            .getKeyIdentifier();
+                }
+                extension = certificate.getExtensionValue(Extension.certificatePolicies.getId());
+                if (extension != null) {
+                    for (PolicyInformation policy : CertificatePolicies.getInstance(
+                            JcaX509ExtensionUtils.parseExtensionValue(extension)).getPolicyInformation()) {
+                        policies.add(policy.getPolicyIdentifier().getId());
+                    }
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                Application.logger.log(Level.FINE, "Extensão inválida no certificado "
+                        + certificate.getSubjectX500Principal(), e);
+            }
+            this.subjectKeyIdentifier = ski;
+            this.authorityKeyIdentifier = aki;
+            this.policyOids = Collections.unmodifiableList(policies);
+            this.publicKey = certificate.getPublicKey();
+        }
+
+    }
+
+}
@@ -8,6 +8,7 @@ import java.security.cert.TrustAnchor;
 import java.security.cert.X509CRL;
 import java.security.cert.X509CRLSelector;
 import java.sql.Time;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Set;
@@ -132,4 +133,21 @@ public interface CertificateValidation {
      * @return O caminho de certificação.
      */
     public CertPath generateCertPathNoSave(Certificate certificate, Set<TrustAnchor> trustAnchors, Time timeReference);
+
+    /**
+     * 
+     * Obtém antecipadamente os dados usados na validação de vários certificados,
+     * como as cadeias de certificação e as LCRs dos emissores, de forma concorrente.
+     * As validações seguintes dos certificados encontram esses dados nas caches.
+     * Apenas os repositórios que podem ser consultados concorrentemente são usados,
+     * pois o estado dos repositórios ligados à assinatura corresponde à assinatura
+     * em verificação, e não aos certificados dados.
+     * A implementação padrão não faz nada.
+     * 
+     * @param certificates Os certificados.
+     * @param trustAnchors Os trust anchors
+     * @param timeReference Tempo de referencia.
+     */
+    default void prefetch(Collection<? extends Certificate> certificates, Set<TrustAnchor> trustAnchors,
+            Time timeReference) { }
 }
@@ -0,0 +1,80 @@
+package br.ufsc.labsec.signature;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+import java.security.Provider;
+import java.security.Security;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registro único do provedor BouncyCastle no processo e reaproveitamento das
+ * instâncias de serviços JCA usadas com frequência na verificação.
+ *
+ * Cada construção de {@link BouncyCastleProvider} registra centenas de
+ * algoritmos, e {@link Security#addProvider(Provider)} disputa um bloqueio
+ * global com as demais consultas de provedores. O provedor é construído e
+ * registrado uma única vez, na inicialização desta classe, e a mesma instância
+ * é entregue a quem precisa referenciá-lo diretamente. Um provedor BC já
+ * registrado por outra parte da aplicação é reaproveitado.
+ *
+ * As fábricas de certificados não são seguras para uso concorrente; por isso
+ * são mantidas por thread, uma por tipo.
+ */
+public final class JcaProviders {
+
+    private static final Provider bouncyCastle = register();
+
+    private static final ThreadLocal<Map<String, CertificateFactory>> certificateFactories =
+            ThreadLocal.withInitial(HashMap::new);
+
+    private JcaProviders() {
+    }
+
+    private static Provider register() {
+        Provider provider = Security.getProvider(BouncyCastleProvider.PROVIDER_NAME);
+        if (provider == null) {
+            Security.addProvider(new BouncyCastleProvider());
+            // outra thread pode ter registrado o seu provedor antes deste
+            provider = Security.getProvider(BouncyCastleProvider.PROVIDER_NAME);
+        }
+        return provider;
+    }
+
+    /**
+     * Garante que o provedor BouncyCastle esteja registrado. Após a primeira
+     * chamada não há nenhum custo.
+     */
+    public static void install() {
+        // o registro é feito na inicialização da classe
+    }
+
+    /**
+     * Retorna a instância do provedor BouncyCastle registrada no processo
+     * @return O provedor
+     */
+    public static Provider bouncyCastle() {
+        return bouncyCastle;
+    }
+
+    /**
+     * Retorna a fábrica de certificados da thread atual para o tipo dado. A
+     * fábrica é compartilhada pelas chamadas na mesma thread e não deve ser
+     * guardada além do uso imediato.
+     * @param type O tipo de certificado, como "X.509"
+     * @return A fábrica de certificados
+     * @throws CertificateException Exceção caso o tipo não seja suportado
+     */
+    public static CertificateFactory certificateFactory(String type) throws CertificateException {
+        Map<String, CertificateFactory> factories = certificateFactories.get();
+        CertificateFactory factory = factories.get(type);
+        if (factory == null) {
+            factory = CertificateFactory.getInstance(type);
+            factories.put(type, factory);
+        }
+        return factory;
+    }
+
+}
@@ -0,0 +1,56 @@
+package br.ufsc.labsec.signature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+
+/**
+ * Diretórios de dados cujo conteúdo é usado no lugar de uma verificação ou
+ * de um download, como as caches em disco. Um usuário que possa gravar
+ * nesses diretórios pode plantar resultados, por isso eles devem pertencer
+ * ao usuário do processo e ser acessíveis apenas por ele.
+ */
+public final class PrivateDirectory {
+
+    private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rwx------");
+
+    private PrivateDirectory() {
+    }
+
+    /**
+     * Cria um diretório acessível apenas ao usuário do processo, ou confere as
+     * permissões de um diretório existente. Em sistemas de arquivos sem
+     * permissões POSIX o diretório é apenas criado.
+     * @param dir O diretório
+     * @return O diretório
+     * @throws IOException Exceção caso o diretório não possa ser criado, não
+     * pertença ao usuário do processo ou seja acessível a outros usuários
+     */
+    public static Path prepare(Path dir) throws IOException {
+        if (!dir.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            return Files.createDirectories(dir);
+        }
+        if (Files.notExists(dir, LinkOption.NOFOLLOW_LINKS)) {
+            Files.createDirectories(dir, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+        }
+        PosixFileAttributes attributes = Files.readAttributes(dir, PosixFileAttributes.class,
+                LinkOption.NOFOLLOW_LINKS);
+        if (!attributes.isDirectory()) {
+            throw new IOException(dir + " não é um diretório");
+        }
+        if (!attributes.owner().getName().equals(System.getProperty("user.name"))) {
+            throw new IOException("O diretório " + dir + " não pertence ao usuário do processo");
+        }
+        if (!OWNER_ONLY.containsAll(attributes.permissions())) {
+            throw new IOException("O diretório " + dir + " é acessível a outros usuários; use as permissões "
+                    + PosixFilePermissions.toString(OWNER_ONLY));
+        }
+        return dir;
+    }
+
+}
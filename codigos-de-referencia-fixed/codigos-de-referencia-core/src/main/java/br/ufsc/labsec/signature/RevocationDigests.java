@@ -0,0 +1,137 @@
+package br.ufsc.labsec.signature;
+
+import br.ufsc.labsec.signature.conformanceVerifier.metrics.VerificationMetrics;
+import org.bouncycastle.asn1.ocsp.BasicOCSPResponse;
+
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CRLException;
+import java.security.cert.X509CRL;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resumos criptográficos das LCRs e respostas OCSP usados nas referências
+ * de revogação (CompleteRevocationRefs, AttributeRevocationRefs e
+ * RevocationValues). As LCRs de ICP-Brasil chegam a dezenas de megabytes e
+ * são comparadas com várias referências em cada verificação; o resumo de cada
+ * objeto é calculado no máximo uma vez por algoritmo e mantido enquanto o
+ * objeto estiver em uso.
+ *
+ * Os objetos são identificados pela instância, e não pelo conteúdo, para que a
+ * consulta não precise percorrer a codificação. As LCRs mantidas pelos
+ * repositórios de revogação são compartilhadas entre as verificações e
+ * aproveitam os resumos já calculados.
+ */
+public final class RevocationDigests {
+
+    private static final Map<ArtifactKey, Map<String, byte[]>> digests = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+
+    private RevocationDigests() {
+    }
+
+    /**
+     * Retorna o resumo da codificação de uma LCR
+     * @param crl A LCR
+     * @param algorithm O identificador do algoritmo de resumo (OID ou URI), ou o seu nome
+     * @return O resumo
+     * @throws NoSuchAlgorithmException Exceção caso o algoritmo não seja suportado
+     * @throws CRLException Exceção caso a LCR não possa ser codificada
+     */
+    public static byte[] digest(X509CRL crl, String algorithm) throws NoSuchAlgorithmException, CRLException {
+        return digest(crl, algorithm, crl::getEncoded);
+    }
+
+    /**
+     * Retorna o resumo da codificação de uma resposta OCSP
+     * @param response A resposta OCSP
+     * @param algorithm O identificador do algoritmo de resumo (OID ou URI), ou o seu nome
+     * @return O resumo
+     * @throws NoSuchAlgorithmException Exceção caso o algoritmo não seja suportado
+     * @throws IOException Exceção caso a resposta não possa ser codificada
+     */
+    public static byte[] digest(BasicOCSPResponse response, String algorithm)
+            throws NoSuchAlgorithmException, IOException {
+        return digest(response, algorithm, response::getEncoded);
+    }
+
+    private static <E extends Exception> byte[] digest(Object artifact, String algorithm, Encoding<E> encoding)
+            throws NoSuchAlgorithmException, E {
+        String name = AlgorithmIdentifierMapper.getAlgorithmNameFromIdentifier(algorithm);
+        if (name == null) {
+            name = algorithm;
+        }
+        if (name == null) {
+            throw new NoSuchAlgorithmException("Algoritmo de resumo não informado");
+        }
+
+        expunge();
+        Map<String, byte[]> memo = digests.computeIfAbsent(new ArtifactKey(artifact, collected), key -> new HashMap<>());
+        // o cálculo é feito sob o bloqueio do objeto, de modo que chamadas concorrentes aguardam o mesmo resultado
+        synchronized (memo) {
+            byte[] digest = memo.get(name);
+            if (digest == null) {
+                digest = MessageDigest.getInstance(name).digest(encoding.encode());
+                memo.put(name, digest);
+                VerificationMetrics.increment("revocation.digest.computed");
+            } else {
+                VerificationMetrics.increment("revocation.digest.reused");
+            }
+            return digest.clone();
+        }
+    }
+
+    /**
+     * Remove os resumos dos objetos que não são mais usados
+     */
+    private static void expunge() {
+        ArtifactKey key;
+        while ((key = (ArtifactKey) collected.poll()) != null) {
+            digests.remove(key);
+        }
+    }
+
+    /**
+     * Obtém a codificação de um objeto
+     */
+    private interface Encoding<E extends Exception> {
+        byte[] encode() throws E;
+    }
+
+    /**
+     * Referência fraca a um objeto, comparada pela identidade do objeto
+     */
+    private static final class ArtifactKey extends WeakReference<Object> {
+
+        private final int hash;
+
+        ArtifactKey(Object artifact, ReferenceQueue<Object> queue) {
+            super(artifact, queue);
+            this.hash = System.identityHashCode(artifact);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof ArtifactKey)) {
+                return false;
+            }
+            Object artifact = this.get();
+            return artifact != null && artifact == ((ArtifactKey) other).get();
+        }
+
+    }
+
+}
@@ -34,4 +34,14 @@ public interface RevocationInformation {
 	}
 
     void addCrl(List<X509Certificate> certValuesCertificates, List<X509CRL> crlsList);
+
+	/**
+	 * Indica se o repositório pode ser consultado por outras threads durante a
+	 * verificação. Repositórios ligados à assinatura em verificação dependem do
+	 * estado do verificador e só podem ser consultados pela thread que o usa.
+	 * @return Verdadeiro se o repositório pode ser consultado concorrentemente
+	 */
+	default boolean isThreadSafe() {
+		return true;
+	}
 }
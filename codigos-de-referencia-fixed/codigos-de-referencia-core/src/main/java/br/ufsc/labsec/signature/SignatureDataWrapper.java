@@ -2,15 +2,38 @@ package br.ufsc.labsec.signature;
 
 import org.apache.commons.io.input.NullInputStream;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 
-public class SignatureDataWrapper {
+/**
+ * Arquivo de assinatura e conteúdo destacado de uma verificação ou de uma
+ * assinatura gerada. Os dados são mantidos como {@link SpooledContent}, que
+ * podem ser lidos várias vezes; quando criados a partir de streams, os
+ * streams são lidos apenas no primeiro acesso.
+ *
+ * Quem cria o objeto deve fechá-lo ao final do uso, removendo os arquivos
+ * temporários dos conteúdos grandes.
+ */
+public class SignatureDataWrapper implements Closeable {
 
-    private InputStream signedData;
-    private InputStream detachedData;
+    private InputStream signedStream;
+    private InputStream detachedStream;
+    private SpooledContent signedData;
+    private SpooledContent detachedData;
     private String filename;
 
     public SignatureDataWrapper(InputStream signedData, InputStream detachedData, String filename) {
+        if (signedData == null) {
+            throw new IllegalArgumentException("'signedData' cannot be null.");
+        }
+        this.signedStream = signedData;
+        this.detachedStream = detachedData;
+        this.filename = filename;
+    }
+
+    public SignatureDataWrapper(SpooledContent signedData, SpooledContent detachedData, String filename) {
         if (signedData == null) {
             throw new IllegalArgumentException("'signedData' cannot be null.");
         }
@@ -20,18 +43,110 @@ public class SignatureDataWrapper {
     }
 
     public void setDetachedData(InputStream detStream) {
-        if (detachedData == null) return;
-        detachedData = detStream;
+        if (!hasDetachedData()) return;
+        if (detachedData != null) {
+            detachedData.close();
+            detachedData = null;
+        }
+        closeQuietly(detachedStream);
+        detachedStream = detStream;
     }
 
-    public InputStream sig() {
+    /**
+     * Retorna o conteúdo do arquivo de assinatura
+     * @return O conteúdo, que pode ser lido várias vezes
+     * @throws IOException Exceção em caso de erro na leitura do stream original
+     */
+    public synchronized SpooledContent signedContent() throws IOException {
+        if (signedData == null) {
+            try (InputStream stream = signedStream) {
+                signedData = SpooledContent.read(stream);
+            }
+            signedStream = null;
+        }
         return signedData;
     }
 
+    /**
+     * Retorna o conteúdo destacado
+     * @return O conteúdo, ou um conteúdo vazio caso não haja conteúdo destacado
+     * @throws IOException Exceção em caso de erro na leitura do stream original
+     */
+    public synchronized SpooledContent detachedContent() throws IOException {
+        if (detachedData == null) {
+            if (detachedStream == null) {
+                return SpooledContent.empty();
+            }
+            try (InputStream stream = detachedStream) {
+                detachedData = SpooledContent.read(stream);
+            }
+            detachedStream = null;
+        }
+        return detachedData;
+    }
+
+    /**
+     * Indica se há conteúdo destacado
+     * @return Verdadeiro se o conteúdo destacado foi informado
+     */
+    public boolean hasDetachedData() {
+        return detachedData != null || detachedStream != null;
+    }
+
+    /**
+     * Abre um novo stream do arquivo de assinatura
+     * @return O stream, desde o início do arquivo
+     */
+    public InputStream sig() {
+        try {
+            return signedContent().openStream();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Abre um novo stream do conteúdo destacado
+     * @return O stream, ou um {@link NullInputStream} caso não haja conteúdo destacado
+     */
     public InputStream det() {
-        return (detachedData != null) ? detachedData : new NullInputStream(0);
+        if (!hasDetachedData()) {
+            return new NullInputStream(0);
+        }
+        try {
+            return detachedContent().openStream();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     public String name() {return filename;}
 
+    /**
+     * Libera os streams ainda não lidos e os arquivos temporários dos conteúdos
+     */
+    @Override
+    public synchronized void close() {
+        closeQuietly(signedStream);
+        closeQuietly(detachedStream);
+        signedStream = null;
+        detachedStream = null;
+        if (signedData != null) {
+            signedData.close();
+        }
+        if (detachedData != null) {
+            detachedData.close();
+        }
+    }
+
+    private static void closeQuietly(InputStream stream) {
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                // o stream não será mais usado
+            }
+        }
+    }
+
 }
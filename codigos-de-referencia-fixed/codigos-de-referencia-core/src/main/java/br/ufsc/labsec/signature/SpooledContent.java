@@ -0,0 +1,318 @@
+package br.ufsc.labsec.signature;
+
+import br.ufsc.labsec.component.Application;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.logging.Level;
+
+/**
+ * Conteúdo de um arquivo recebido pela aplicação, que pode ser lido quantas
+ * vezes for necessário. Arquivos até o limite configurado em
+ * {@link #configure(String, String)} são mantidos em memória; acima dele, o
+ * conteúdo é copiado em blocos para um arquivo temporário, de modo que
+ * envios grandes e simultâneos não ocupem a memória da aplicação.
+ *
+ * O arquivo temporário é removido em {@link #close()}.
+ */
+public final class SpooledContent implements Closeable {
+
+    /**
+     * Limite padrão de memória por arquivo, em bytes
+     */
+    public static final int DEFAULT_MEMORY_THRESHOLD = 8 * 1024 * 1024;
+
+    private static final int BLOCK_SIZE = 64 * 1024;
+    private static final byte[] EMPTY = new byte[0];
+
+    private static volatile int memoryThreshold = DEFAULT_MEMORY_THRESHOLD;
+    private static volatile Path directory;
+
+    /**
+     * O conteúdo, quando mantido em memória
+     */
+    private final byte[] buffer;
+    /**
+     * O arquivo temporário, quando o conteúdo excede o limite de memória
+     */
+    private final Path file;
+    private final long length;
+
+    private SpooledContent(byte[] buffer, Path file, long length) {
+        this.buffer = buffer;
+        this.file = file;
+        this.length = length;
+    }
+
+    /**
+     * Cria um conteúdo a partir de bytes já em memória, sem copiá-los
+     * @param bytes Os bytes do conteúdo
+     * @return O conteúdo
+     */
+    public static SpooledContent of(byte[] bytes) {
+        return new SpooledContent(bytes, null, bytes.length);
+    }
+
+    /**
+     * Retorna um conteúdo vazio
+     * @return O conteúdo vazio
+     */
+    public static SpooledContent empty() {
+        return of(EMPTY);
+    }
+
+    /**
+     * Lê o stream até o final, mantendo o conteúdo em memória até o limite
+     * configurado e em um arquivo temporário acima dele. O stream não é fechado.
+     * @param input O stream a ser lido
+     * @return O conteúdo lido
+     * @throws IOException Exceção em caso de erro na leitura do stream ou na
+     * escrita do arquivo temporário
+     */
+    public static SpooledContent read(InputStream input) throws IOException {
+        int threshold = memoryThreshold;
+        byte[] buffer = new byte[Math.min(BLOCK_SIZE, Math.max(threshold, 1))];
+        int count = 0;
+        int read;
+        while ((read = input.read(buffer, count, buffer.length - count)) != -1) {
+            count += read;
+            if (count == buffer.length) {
+                if (count >= threshold) {
+                    return spill(buffer, count, input);
+                }
+                buffer = Arrays.copyOf(buffer, (int) Math.min((long) threshold, buffer.length * 2L));
+            }
+        }
+        return new SpooledContent(count == buffer.length ? buffer : Arrays.copyOf(buffer, count), null, count);
+    }
+
+    /**
+     * Guarda o que for escrito pelo produtor, em memória até o limite
+     * configurado e em um arquivo temporário acima dele. Usado pelos
+     * assinadores que escrevem o arquivo assinado em um {@link OutputStream},
+     * evitando que o arquivo inteiro seja copiado entre arrays.
+     * @param producer O produtor do conteúdo
+     * @return O conteúdo escrito
+     * @throws IOException Exceção em caso de erro do produtor ou na escrita do
+     * arquivo temporário
+     */
+    public static SpooledContent capture(Producer producer) throws IOException {
+        try (SpoolingOutputStream output = new SpoolingOutputStream(memoryThreshold)) {
+            try {
+                producer.writeTo(output);
+            } catch (IOException | RuntimeException e) {
+                output.discard();
+                throw e;
+            }
+            return output.toContent();
+        }
+    }
+
+    /**
+     * Copia para um arquivo temporário a parte já lida e o restante do stream
+     */
+    private static SpooledContent spill(byte[] buffer, int count, InputStream input) throws IOException {
+        Path dir = directory;
+        Path file = dir != null ? Files.createTempFile(dir, "upload-", ".tmp")
+                : Files.createTempFile("upload-", ".tmp");
+        try (OutputStream output = Files.newOutputStream(file)) {
+            output.write(buffer, 0, count);
+            long length = count;
+            byte[] block = new byte[BLOCK_SIZE];
+            int read;
+            while ((read = input.read(block)) != -1) {
+                output.write(block, 0, read);
+                length += read;
+            }
+            return new SpooledContent(null, file, length);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    /**
+     * Abre um novo stream para a leitura do conteúdo desde o início
+     * @return O stream, que deve ser fechado por quem o abriu
+     * @throws IOException Exceção caso o arquivo temporário não possa ser aberto
+     */
+    public InputStream openStream() throws IOException {
+        return this.file != null ? Files.newInputStream(this.file) : new ByteArrayInputStream(this.buffer);
+    }
+
+    /**
+     * Retorna os bytes do conteúdo. Para conteúdos em memória, o próprio array
+     * é retornado e não deve ser alterado; para conteúdos em arquivo, o arquivo
+     * é lido a cada chamada.
+     * @return Os bytes do conteúdo
+     * @throws IOException Exceção em caso de erro na leitura do arquivo temporário
+     */
+    public byte[] toByteArray() throws IOException {
+        return this.file != null ? Files.readAllBytes(this.file) : this.buffer;
+    }
+
+    /**
+     * Retorna o tamanho do conteúdo
+     * @return O tamanho em bytes
+     */
+    public long length() {
+        return this.length;
+    }
+
+    /**
+     * Indica se o conteúdo foi copiado para um arquivo temporário
+     * @return Verdadeiro se o conteúdo está em disco
+     */
+    public boolean isSpilled() {
+        return this.file != null;
+    }
+
+    /**
+     * Remove o arquivo temporário, caso exista
+     */
+    @Override
+    public void close() {
+        if (this.file != null) {
+            try {
+                Files.deleteIfExists(this.file);
+            } catch (IOException e) {
+                Application.logger.log(Level.WARNING, "Não foi possível remover o arquivo temporário " + this.file, e);
+            }
+        }
+    }
+
+    /**
+     * Configura o limite de memória por arquivo e o diretório dos arquivos temporários
+     * @param threshold O limite em bytes; vazio ou nulo para manter o limite padrão
+     * @param tempDirectory O diretório dos arquivos temporários; vazio ou nulo para
+     * usar o diretório temporário do sistema
+     */
+    public static void configure(String threshold, String tempDirectory) {
+        memoryThreshold = threshold == null || threshold.trim().isEmpty()
+                ? DEFAULT_MEMORY_THRESHOLD : Integer.parseInt(threshold.trim());
+        Path dir = null;
+        if (tempDirectory != null && !tempDirectory.trim().isEmpty()) {
+            File candidate = new File(tempDirectory.trim());
+            if (candidate.isDirectory() || candidate.mkdirs()) {
+                dir = candidate.toPath();
+            } else {
+                Application.logger.log(Level.WARNING, "Não foi possível usar o diretório " + tempDirectory
+                        + " para os arquivos temporários dos envios");
+            }
+        }
+        directory = dir;
+    }
+
+    /**
+     * Retorna o limite de memória por arquivo
+     * @return O limite em bytes
+     */
+    public static int getMemoryThreshold() {
+        return memoryThreshold;
+    }
+
+    /**
+     * Produtor de um conteúdo escrito em um {@link OutputStream}
+     */
+    public interface Producer {
+
+        /**
+         * Escreve o conteúdo
+         * @param output O stream de destino, que não deve ser fechado pelo produtor
+         * @throws IOException Exceção em caso de erro na escrita
+         */
+        void writeTo(OutputStream output) throws IOException;
+
+    }
+
+    /**
+     * Stream que mantém os bytes em memória até o limite e passa a escrevê-los
+     * em um arquivo temporário quando ele é atingido
+     */
+    private static final class SpoolingOutputStream extends OutputStream {
+
+        private final int threshold;
+        private byte[] buffer;
+        private int count;
+        private Path file;
+        private OutputStream fileOutput;
+        private long length;
+
+        SpoolingOutputStream(int threshold) {
+            this.threshold = threshold;
+            this.buffer = new byte[Math.min(BLOCK_SIZE, Math.max(threshold, 1))];
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (this.fileOutput == null && (long) this.count + len > this.threshold) {
+                Path dir = directory;
+                this.file = dir != null ? Files.createTempFile(dir, "signed-", ".tmp")
+                        : Files.createTempFile("signed-", ".tmp");
+                this.fileOutput = Files.newOutputStream(this.file);
+                this.fileOutput.write(this.buffer, 0, this.count);
+                this.buffer = null;
+            }
+            if (this.fileOutput != null) {
+                this.fileOutput.write(b, off, len);
+            } else {
+                if (this.count + len > this.buffer.length) {
+                    this.buffer = Arrays.copyOf(this.buffer,
+                            (int) Math.min((long) this.threshold, Math.max(this.buffer.length * 2L, this.count + len)));
+                }
+                System.arraycopy(b, off, this.buffer, this.count, len);
+                this.count += len;
+            }
+            this.length += len;
+        }
+
+        /**
+         * Retorna o conteúdo escrito. O stream deve ser fechado em seguida.
+         */
+        SpooledContent toContent() throws IOException {
+            if (this.fileOutput != null) {
+                this.fileOutput.close();
+                this.fileOutput = null;
+                Path written = this.file;
+                this.file = null;
+                return new SpooledContent(null, written, this.length);
+            }
+            byte[] bytes = this.count == this.buffer.length ? this.buffer : Arrays.copyOf(this.buffer, this.count);
+            return new SpooledContent(bytes, null, this.count);
+        }
+
+        /**
+         * Descarta o conteúdo já escrito
+         */
+        void discard() {
+            this.buffer = null;
+            this.count = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.fileOutput != null) {
+                this.fileOutput.close();
+                this.fileOutput = null;
+            }
+            if (this.file != null) {
+                Files.deleteIfExists(this.file);
+                this.file = null;
+            }
+        }
+
+    }
+
+}
@@ -1,5 +1,6 @@
 package br.ufsc.labsec.signature;
 
+import java.io.IOException;
 import java.util.List;
 
 import br.ufsc.labsec.signature.conformanceVerifier.cms.exceptions.SignatureNotICPBrException;
@@ -18,6 +19,21 @@ public interface Verifier {
      */
     void selectTarget(byte[] target, byte[] signedContent) throws VerificationException;
 
+    /**
+     * Define qual o arquivo que será verificado, sendo o arquivo e o conteúdo
+     * destacado possivelmente armazenados em disco. A implementação padrão
+     * carrega ambos em memória; os verificadores capazes de ler o arquivo em
+     * sequência sobrescrevem este método
+     * @throws VerificationException Exceção caso o arquivo não possa ser lido
+     */
+    default void selectTarget(SpooledContent target, SpooledContent signedContent) throws VerificationException {
+        try {
+            this.selectTarget(target.toByteArray(), signedContent != null ? signedContent.toByteArray() : null);
+        } catch (IOException e) {
+            throw new VerificationException(e);
+        }
+    }
+
     /**
      * Informa quais as assinaturas presentes no arquivo indicado
      * 
@@ -58,6 +74,36 @@ public interface Verifier {
     boolean clear();
 
     Report report(byte[] target, byte[] signedContent, ReportType type) throws VerificationException;
+
+    /**
+     * Gera o relatório de um arquivo de assinatura cujo conteúdo destacado pode
+     * estar armazenado em disco. A implementação padrão carrega o conteúdo em
+     * memória; os verificadores capazes de resumir o conteúdo em blocos
+     * sobrescrevem este método
+     * @throws VerificationException Exceção caso o conteúdo não possa ser lido
+     */
+    default Report report(byte[] target, SpooledContent signedContent, ReportType type) throws VerificationException {
+        try {
+            return this.report(target, signedContent != null ? signedContent.toByteArray() : null, type);
+        } catch (IOException e) {
+            throw new VerificationException(e);
+        }
+    }
+
+    /**
+     * Gera o relatório de um arquivo de assinatura que, assim como o conteúdo
+     * destacado, pode estar armazenado em disco. A implementação padrão carrega
+     * o arquivo de assinatura em memória
+     * @throws VerificationException Exceção caso o arquivo não possa ser lido
+     */
+    default Report report(SpooledContent target, SpooledContent signedContent, ReportType type)
+            throws VerificationException {
+        try {
+            return this.report(target.toByteArray(), signedContent, type);
+        } catch (IOException e) {
+            throw new VerificationException(e);
+        }
+    }
     
 	boolean isSignature(String filePath);
 
@@ -67,4 +113,34 @@ public interface Verifier {
 
 	boolean supports(byte[] signature, byte[] detached) throws SignatureNotICPBrException;
 
+	/**
+	 * Verifica se o arquivo de assinatura é suportado, sendo o conteúdo
+	 * destacado possivelmente armazenado em disco. A implementação padrão
+	 * carrega o conteúdo em memória
+	 * @throws SignatureNotICPBrException Exceção caso a assinatura não seja
+	 *      feita com um certificado ICP-Brasil
+	 */
+	default boolean supports(byte[] signature, SpooledContent detached) throws SignatureNotICPBrException {
+		try {
+			return this.supports(signature, detached != null ? detached.toByteArray() : null);
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Verifica se o arquivo de assinatura é suportado, sendo o arquivo e o
+	 * conteúdo destacado possivelmente armazenados em disco. A implementação
+	 * padrão carrega o arquivo de assinatura em memória
+	 * @throws SignatureNotICPBrException Exceção caso a assinatura não seja
+	 *      feita com um certificado ICP-Brasil
+	 */
+	default boolean supports(SpooledContent signature, SpooledContent detached) throws SignatureNotICPBrException {
+		try {
+			return this.supports(signature.toByteArray(), detached);
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
 }
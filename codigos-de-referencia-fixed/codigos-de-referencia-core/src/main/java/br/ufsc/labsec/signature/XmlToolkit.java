@@ -0,0 +1,225 @@
+package br.ufsc.labsec.signature;
+
+import br.ufsc.labsec.component.Application;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+import org.w3c.dom.Document;
+
+/**
+ * Ponto único de acesso às fábricas XML do processo. As fábricas são obtidas
+ * uma única vez, já configuradas com suporte a espaços de nomes e sem acesso
+ * a entidades, DTDs e esquemas externos, evitando a busca de implementações
+ * JAXP a cada documento. Leitores StAX são criados pela mesma fábrica para
+ * os documentos que são processados sem uma árvore DOM.
+ *
+ * Os objetos {@link DocumentBuilder}, {@link Transformer} e {@link XPath} não
+ * são seguros para uso concorrente; cada thread recebe as suas instâncias,
+ * que são restauradas ao estado inicial a cada chamada. Uma instância não
+ * deve ser guardada além do uso imediato, já que a próxima chamada da mesma
+ * thread a restaura.
+ */
+public final class XmlToolkit {
+
+    private static final DocumentBuilderFactory documentBuilderFactory = createDocumentBuilderFactory();
+    private static final TransformerFactory transformerFactory = createTransformerFactory();
+    private static final XPathFactory xPathFactory = XPathFactory.newInstance();
+    private static final XMLInputFactory xmlInputFactory = createXMLInputFactory();
+
+    private static final ThreadLocal<DocumentBuilder> documentBuilders = new ThreadLocal<>();
+    private static final ThreadLocal<Transformer> transformers = new ThreadLocal<>();
+    private static final ThreadLocal<XPath> xPaths = new ThreadLocal<>();
+    /**
+     * Folhas de estilo já compiladas, indexadas pelo caminho do recurso
+     */
+    private static final Map<String, Templates> templates = new ConcurrentHashMap<>();
+
+    private XmlToolkit() {
+    }
+
+    /**
+     * Retorna o {@link DocumentBuilder} da thread
+     * @return O {@link DocumentBuilder} restaurado ao estado inicial
+     * @throws ParserConfigurationException Exceção caso a fábrica não consiga criar o objeto
+     */
+    public static DocumentBuilder getDocumentBuilder() throws ParserConfigurationException {
+        DocumentBuilder builder = documentBuilders.get();
+        if (builder == null) {
+            synchronized (documentBuilderFactory) {
+                builder = documentBuilderFactory.newDocumentBuilder();
+            }
+            documentBuilders.set(builder);
+        } else {
+            builder.reset();
+        }
+        return builder;
+    }
+
+    /**
+     * Cria um novo documento XML vazio
+     * @return O documento criado
+     * @throws ParserConfigurationException Exceção caso a fábrica não consiga criar o documento
+     */
+    public static Document newDocument() throws ParserConfigurationException {
+        return getDocumentBuilder().newDocument();
+    }
+
+    /**
+     * Retorna o {@link Transformer} identidade da thread, usado para serializar documentos
+     * @return O {@link Transformer} restaurado ao estado inicial
+     * @throws TransformerConfigurationException Exceção caso a fábrica não consiga criar o objeto
+     */
+    public static Transformer getTransformer() throws TransformerConfigurationException {
+        Transformer transformer = transformers.get();
+        if (transformer == null) {
+            synchronized (transformerFactory) {
+                transformer = transformerFactory.newTransformer();
+            }
+            transformers.set(transformer);
+        } else {
+            transformer.reset();
+        }
+        return transformer;
+    }
+
+    /**
+     * Cria um {@link Transformer} a partir de uma folha de estilo
+     * @param xslt A folha de estilo
+     * @return O {@link Transformer} criado
+     * @throws TransformerConfigurationException Exceção caso a folha de estilo seja inválida
+     */
+    public static Transformer newTransformer(Source xslt) throws TransformerConfigurationException {
+        synchronized (transformerFactory) {
+            return transformerFactory.newTransformer(xslt);
+        }
+    }
+
+    /**
+     * Retorna a folha de estilo compilada de um recurso da aplicação. A folha
+     * é compilada apenas na primeira chamada, e o resultado pode ser usado
+     * por várias threads para criar os seus objetos {@link Transformer}.
+     * @param resource O caminho do recurso
+     * @return A folha de estilo compilada
+     * @throws TransformerConfigurationException Exceção caso o recurso não exista ou
+     * a folha de estilo seja inválida
+     */
+    public static Templates getTemplates(String resource) throws TransformerConfigurationException {
+        Templates compiled = templates.get(resource);
+        if (compiled == null) {
+            try (InputStream stylesheet = Application.class.getResourceAsStream("/" + resource)) {
+                if (stylesheet == null) {
+                    throw new TransformerConfigurationException("Folha de estilo não encontrada: " + resource);
+                }
+                synchronized (transformerFactory) {
+                    compiled = transformerFactory.newTemplates(new StreamSource(stylesheet));
+                }
+            } catch (IOException e) {
+                throw new TransformerConfigurationException(e);
+            }
+            templates.putIfAbsent(resource, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * Retorna o {@link XPath} da thread
+     * @return O {@link XPath} restaurado ao estado inicial
+     */
+    public static XPath getXPath() {
+        XPath xPath = xPaths.get();
+        if (xPath == null) {
+            synchronized (xPathFactory) {
+                xPath = xPathFactory.newXPath();
+            }
+            xPaths.set(xPath);
+        } else {
+            xPath.reset();
+        }
+        return xPath;
+    }
+
+    /**
+     * Cria um leitor StAX para o documento. Entidades externas não são
+     * resolvidas, e referências a entidades internas são substituídas pelo
+     * seu valor.
+     * @param input O documento
+     * @return O leitor, que deve ser fechado por quem o criou
+     * @throws XMLStreamException Exceção caso o início do documento seja inválido
+     */
+    public static XMLStreamReader createXMLStreamReader(InputStream input) throws XMLStreamException {
+        synchronized (xmlInputFactory) {
+            return xmlInputFactory.createXMLStreamReader(input);
+        }
+    }
+
+    private static XMLInputFactory createXMLInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        factory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, true);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        return factory;
+    }
+
+    private static DocumentBuilderFactory createDocumentBuilderFactory() {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        factory.setXIncludeAware(false);
+        setFeature(factory, XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        setFeature(factory, "http://xml.org/sax/features/external-general-entities", false);
+        setFeature(factory, "http://xml.org/sax/features/external-parameter-entities", false);
+        setFeature(factory, "http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        try {
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+        } catch (IllegalArgumentException e) {
+            Application.logger.log(Level.WARNING, "O acesso externo não pôde ser desabilitado no DocumentBuilderFactory", e);
+        }
+        return factory;
+    }
+
+    private static void setFeature(DocumentBuilderFactory factory, String feature, boolean value) {
+        try {
+            factory.setFeature(feature, value);
+        } catch (ParserConfigurationException e) {
+            Application.logger.log(Level.WARNING, "Recurso não suportado pelo DocumentBuilderFactory: " + feature, e);
+        }
+    }
+
+    private static TransformerFactory createTransformerFactory() {
+        TransformerFactory factory = TransformerFactory.newInstance();
+        try {
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        } catch (TransformerConfigurationException e) {
+            Application.logger.log(Level.WARNING, "Processamento seguro não suportado pelo TransformerFactory", e);
+        }
+        try {
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_STYLESHEET, "");
+        } catch (IllegalArgumentException e) {
+            Application.logger.log(Level.WARNING, "O acesso externo não pôde ser desabilitado no TransformerFactory", e);
+        }
+        return factory;
+    }
+
+}
@@ -1,14 +1,16 @@
 package br.ufsc.labsec.signature.conformanceVerifier;
 
-import br.ufsc.labsec.component.Component;
 import br.ufsc.labsec.component.Application;
+import br.ufsc.labsec.signature.JcaProviders;
 import br.ufsc.labsec.signature.SignatureDataWrapper;
+import br.ufsc.labsec.signature.SpooledContent;
+import br.ufsc.labsec.signature.XmlToolkit;
 import br.ufsc.labsec.signature.conformanceVerifier.report.Report;
 import br.ufsc.labsec.signature.exceptions.NullSignatureFileNameException;
 import br.ufsc.labsec.signature.conformanceVerifier.report.SignatureReport;
-import br.ufsc.labsec.signature.conformanceVerifier.gui.ReportGuiComponent;
+import br.ufsc.labsec.signature.conformanceVerifier.metrics.Span;
+import br.ufsc.labsec.signature.conformanceVerifier.metrics.VerificationMetrics;
 import br.ufsc.labsec.signature.exceptions.EmptySignatureReportListException;
-import br.ufsc.labsec.signature.conformanceVerifier.cades.CadesSignatureComponent;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.MultipartConfig;
 import jakarta.servlet.http.HttpServletRequest;
@@ -17,13 +19,11 @@ import jakarta.servlet.http.HttpSession;
 import jakarta.servlet.http.Part;
 import org.bouncycastle.util.io.Streams;
 import org.apache.fop.apps.FOPException;
-import org.apache.commons.io.input.NullInputStream;
 
 
 import javax.xml.transform.*;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
-import javax.xml.transform.stream.StreamSource;
 import java.io.*;
 import java.text.SimpleDateFormat;
 import java.util.*;
@@ -60,8 +60,16 @@ public class CompleteServlet extends ReportServlet {
      */
     @Override
     public void init() {
+        JcaProviders.install();
         this.configTrustAnchorComponent(this.getServletContext().getInitParameter("trustAnchorsDirectory"),
                 this.getServletContext().getInitParameter("trustAnchorsURLs"));
+        this.configVerificationCache(this.getServletContext());
+        this.configTimeStampValidationCache(this.getServletContext());
+        this.configUriContentCache(this.getServletContext());
+        this.configValidationBundle(this.getServletContext());
+        this.configPdfScratchMemory(this.getServletContext());
+        this.configXadesStreaming(this.getServletContext());
+        this.configUploadSpool(this.getServletContext());
     }
 
 	/**
@@ -86,82 +94,97 @@ public class CompleteServlet extends ReportServlet {
             type = Report.ReportType.valueOf(new String(typePartStream, UTF8_CHARSET).toUpperCase());
         }
 
-        //!< HashMap that provides the bytes of signatures to be verified.
-        Map<String, byte[]> signaturesMap = super.extractSignatures(request.getParts());
+        //!< HashMap that provides the contents of signatures to be verified.
+        Map<String, SpooledContent> signaturesMap = super.extractSignatures(request.getParts());
         session.setAttribute("numOfSignatures", signaturesMap.size());
 
-        String signature_text = request.getParameter("signature_text_box0");
-        if (signature_text != null && signature_text.equals("")) {
-            //! Unexpected use of POST (the request was sent without selecting a signature file).
-            response.sendRedirect(request.getContextPath());
-            return;
-        }
-
         List<SignatureDataWrapper> streamPairs = new ArrayList<>();  //!< data do be verified.
-        Object[] parts = request.getParts().toArray();
-        for (int i = 0; i < signaturesMap.size(); ++i) {
-            //!< The name of the i-th signature file selected in the web page.
-            String sigFileName = request.getParameter("signature_text_box" + i);
-            InputStream sigStream = new ByteArrayInputStream(signaturesMap.get(sigFileName));
-            InputStream detStream = new NullInputStream(0);
-            Part detachedPart = this.findDetachedPart("detached_file" + i, parts);
-            if (detachedPart != null) {
-                //! sigFileName in a detached signature.
-                detStream = detachedPart.getInputStream();
+        boolean submitted = false;
+        try {
+            String signature_text = request.getParameter("signature_text_box0");
+            if (signature_text != null && signature_text.equals("")) {
+                //! Unexpected use of POST (the request was sent without selecting a signature file).
+                response.sendRedirect(request.getContextPath());
+                return;
             }
-            streamPairs.add(new SignatureDataWrapper(sigStream, detStream, sigFileName));
-        }
 
-        Application app = new Application(streamPairs);
-        app.setup();
+            Object[] parts = request.getParts().toArray();
+            for (int i = 0; i < signaturesMap.size(); ++i) {
+                //!< The name of the i-th signature file selected in the web page.
+                String sigFileName = request.getParameter("signature_text_box" + i);
+                SpooledContent sigContent = signaturesMap.get(sigFileName);
+                SpooledContent detContent = null;
+                Part detachedPart = this.findDetachedPart("detached_file" + i, parts);
+                if (detachedPart != null) {
+                    //! sigFileName in a detached signature.
+                    try (InputStream detStream = detachedPart.getInputStream()) {
+                        detContent = SpooledContent.read(detStream);
+                    }
+                }
+                streamPairs.add(new SignatureDataWrapper(sigContent, detContent, sigFileName));
+            }
 
-        Component rgc = app.getComponent(ReportGuiComponent.class.getName());
-        List<Report> reportList = ((ReportGuiComponent) rgc).startVerification();
-        if (type == Report.ReportType.PDF) {
-            try {
-                String sigFileName;
+            boolean revalidate = Boolean.parseBoolean(request.getParameter("revalidate"));
+            //! O trabalho de verificação fecha os dados quando termina.
+            submitted = true;
+            List<Report> reportList = super.verify(streamPairs, revalidate, response);
+            if (reportList == null) {
+                return;
+            }
+            if (type == Report.ReportType.PDF) {
+                try {
+                    String sigFileName;
+
+                    if (request.getParameter("signature_text_box1") == null) {
+                        sigFileName = request.getParameter("signature_text_box0") + "-verificado.pdf";
+                    } else {
+                        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMdd");
+                        sigFileName = "relatorio-verificador-" + dateFormat.format(new Date()) + ".pdf";
+                    }
 
-                if (request.getParameter("signature_text_box1") == null) {
-                    sigFileName = request.getParameter("signature_text_box0") + "-verificado.pdf";
-                } else {
-                    SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMdd");
-                    sigFileName = "relatorio-verificador-" + dateFormat.format(new Date()) + ".pdf";
+                    response.setHeader("Content-Disposition", String.format("attachment; filename=%s", sigFileName));
+                    super.generatePDFReports(reportList, response, request);
+                    return;
+                } catch(FOPException e) {
+                    Application.logger.log(Level.SEVERE, "Erro na trasformação do arquivo de configuração.", e);
+                } catch (TransformerException e) {
+                    Application.logger.log(Level.SEVERE, "Erro no arquivo de configuração do relatório.", e);
                 }
+            } else {
+                try {  //!< TODO revisar os tratamentos de exceção que alteram o estado de response.
+                    this.generateHTMLReports(reportList, request);
+                    request.getRequestDispatcher("report.jsp").forward(request, response);
+                    return;
+                } catch (NullSignatureFileNameException e) {
+                    Report r = e.getSignatureReport();
+                    response.setCharacterEncoding(UTF8_CHARSET.name());
+                    response.setContentType("application/json");
+                    response.getWriter().write(super.reportToJsonString(r));
+                    return;
+                } catch (EmptySignatureReportListException e) {
+                    response.sendRedirect(request.getContextPath());
+                    return;
+                } catch (TransformerConfigurationException e) {
+                    Application.logger.log(Level.SEVERE, "Erro no arquivo de configuração do relatório.", e);
+                    return;
+                }
+            }
 
-                response.setHeader("Content-Disposition", String.format("attachment; filename=%s", sigFileName));
-                super.generatePDFReports(app, reportList, response, request);
-                return;
-            } catch(FOPException e) {
-                Application.logger.log(Level.SEVERE, "Erro na trasformação do arquivo de configuração.", e);
-            } catch (TransformerException e) {
-                Application.logger.log(Level.SEVERE, "Erro no arquivo de configuração do relatório.", e);
+            request.getRequestDispatcher("report.jsp").forward(request, response);
+        } finally {
+            if (!submitted) {
+                for (SignatureDataWrapper streamPair : streamPairs) {
+                    streamPair.close();
+                }
             }
-        } else {
-            try {  //!< TODO revisar os tratamentos de exceção que alteram o estado de response.
-                this.generateHTMLReports(app, reportList, request);
-                request.getRequestDispatcher("report.jsp").forward(request, response);
-                return;
-            } catch (NullSignatureFileNameException e) {
-                Report r = e.getSignatureReport();
-                response.setCharacterEncoding(UTF8_CHARSET.name());
-                response.setContentType("application/json");
-                response.getWriter().write(super.reportToJsonString(r));
-                return;
-            } catch (EmptySignatureReportListException e) {
-                response.sendRedirect(request.getContextPath());
-                return;
-            } catch (TransformerConfigurationException e) {
-                Application.logger.log(Level.SEVERE, "Erro no arquivo de configuração do relatório.", e);
-                return;
+            for (SpooledContent signature : signaturesMap.values()) {
+                signature.close();
             }
         }
-
-        request.getRequestDispatcher("report.jsp").forward(request, response);
     }
 
 	/**
 	 * Preenche a sessão da requisição HTTP dada com os atributos de cada relatório na lista
-	 * @param app a aplicação do Verificador de Conformidade
 	 * @param reportList a lista de relatórios de verificação
 	 * @param request representa a requisição HTTP
 	 * @throws TransformerConfigurationException exceção em caso de erro na criação da instância
@@ -169,12 +192,10 @@ public class CompleteServlet extends ReportServlet {
 	 * @throws NullSignatureFileNameException exceção em caso de nome nulo no arquivo de assinatura
 	 * @throws EmptySignatureReportListException exceção em caso de relatório sem nenhuma assinatura
 	 */
-    private void generateHTMLReports(Application app, List<Report> reportList, HttpServletRequest request)
+    private void generateHTMLReports(List<Report> reportList, HttpServletRequest request)
             throws TransformerConfigurationException, NullSignatureFileNameException, EmptySignatureReportListException {
-        Component csc = app.getComponent(CadesSignatureComponent.class.getName());
-        String xslPath = app.getComponentParam(csc, "reportStylePathHTML");
-        Source xslt = new StreamSource(Application.class.getResourceAsStream("/" + xslPath));
-        Transformer t = TransformerFactory.newInstance().newTransformer(xslt);
+        String xslPath = reportStylePath("reportStylePathHTML");
+        Transformer t = XmlToolkit.getTemplates(xslPath).newTransformer();
 
         for (int i = 0; i < reportList.size(); ++i) {
             Report r = reportList.get(i);
@@ -207,12 +228,16 @@ public class CompleteServlet extends ReportServlet {
 
 
             ByteArrayOutputStream os = new ByteArrayOutputStream();
-            DOMSource d = new DOMSource(r.generate());
+            Span span = VerificationMetrics.span(VerificationMetrics.REPORT_RENDER);
             try {
+                DOMSource d = new DOMSource(r.generate());
                 t.transform(d, new StreamResult(os));
             } catch (TransformerException e) {
+                span.fail();
                 Application.logger.log(
                         Level.SEVERE, "Não foi possível fazer a transformação do relatório em formato DOM.", e);
+            } finally {
+                span.close();
             }
 
             String reportAttr = "report" + i;
@@ -13,6 +13,7 @@ import br.ufsc.labsec.signature.conformanceVerifier.validationService.Validation
 import br.ufsc.labsec.signature.conformanceVerifier.xades.XadesSignatureComponent;
 import br.ufsc.labsec.signature.conformanceVerifier.xml.XmlSignatureComponent;
 import br.ufsc.labsec.signature.repository.PKCS12IdentityService.PKCS12Repository;
+import br.ufsc.labsec.signature.repository.bundle.ValidationBundleRepository;
 import br.ufsc.labsec.signature.tsa.TimeStampVerifierInterface;
 
 import java.security.Security;
@@ -76,13 +77,18 @@ public class ConformanceVerifier extends AbstractComponentConfiguration {
 				.param("xadesSchema", "resources/XAdESv141.xsd")
 				.param("reportStylePathHTML", "resources/report.xsl")
 				.param("reportStylePathPDF", "resources/reportPdf.xsl")
-				.param("xmlDsigSchema", "resources/xmldsig.xsd");
+				.param("xmlDsigSchema", "resources/xmldsig.xsd")
+				.param("streamingThreshold", String.valueOf(XadesSignatureComponent.DEFAULT_STREAMING_THRESHOLD));
 
 		//--Validation Service Repository
 		component(ValidationServiceRepository.class).connect(PKCS12Repository.class)
 				.on(CertificateCollection.class)
 				.on(RevocationInformation.class);
 
+		component(ValidationServiceRepository.class).connect(ValidationBundleRepository.class)
+				.on(CertificateCollection.class)
+				.on(RevocationInformation.class);
+
 		component(ValidationServiceRepository.class).connect(CadesSignatureComponent.class)
 				.on(CertificateCollection.class)
 				.on(RevocationInformation.class);
@@ -99,6 +105,9 @@ public class ConformanceVerifier extends AbstractComponentConfiguration {
 				.on(CertificateCollection.class)
 				.on(RevocationInformation.class);
 
+		component(ValidationServiceRepository.class)
+				.param("revocationDeadline", "10000");
+
 		//--PKCS12 Repository
 		component(PKCS12Repository.class).connect(CadesSignatureComponent.class)
 				.on(CertificateCollection.class)
@@ -112,6 +121,11 @@ public class ConformanceVerifier extends AbstractComponentConfiguration {
 				.param("cachePath", "/tmp/verificador-de-conformidade/Cache")
 				.param("repositoryPath", "/tmp/verificador-de-conformidade/Repository");
 
+		//--Validation Bundle Repository
+		component(ValidationBundleRepository.class)
+				.param("bundlePath", "")
+				.param("bundleTrustAnchors", "");
+
 		//--Report Gui Component
 		component(ReportGuiComponent.class).connect(CadesSignatureComponent.class)
 				.on(Verifier.class);
@@ -131,6 +145,9 @@ public class ConformanceVerifier extends AbstractComponentConfiguration {
 		component(ReportGuiComponent.class).connect(PadesSignatureComponent.class)
 				.on(Verifier.class);
 
+		component(ReportGuiComponent.class).connect(TrustAnchorComponent.class)
+				.on(TrustAnchorInterface.class);
+
 		//--CMS Signature Component
 		component(CmsSignatureComponent.class).connect(ValidationServiceRepository.class)
 				.on(CertificateValidation.class);
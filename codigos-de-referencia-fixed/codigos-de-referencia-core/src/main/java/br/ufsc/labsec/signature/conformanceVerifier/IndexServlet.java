@@ -3,6 +3,8 @@ package br.ufsc.labsec.signature.conformanceVerifier;
 import br.ufsc.labsec.component.Application;
 import br.ufsc.labsec.component.Component;
 import br.ufsc.labsec.signature.Constants;
+import br.ufsc.labsec.signature.SignatureDataWrapper;
+import br.ufsc.labsec.signature.SpooledContent;
 import br.ufsc.labsec.signature.Verifier;
 import br.ufsc.labsec.signature.conformanceVerifier.cms.exceptions.SignatureNotICPBrException;
 import br.ufsc.labsec.signature.conformanceVerifier.gui.ReportGuiComponent;
@@ -12,7 +14,6 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 import jakarta.servlet.http.Part;
-import org.apache.commons.io.input.NullInputStream;
 import org.json.JSONObject;
 import java.io.*;
 import java.util.*;
@@ -134,16 +135,22 @@ public class IndexServlet extends ReportServlet {
 
         Collection<Part> parts = req.getParts();
 
-        HashMap<String, byte[]> sigsFromRequest = super.extractSignatures(parts);
-
-        if (sigsFromRequest.size() > SIG_LIMIT) {
-            resp.getWriter().write("{\"limit\":" + SIG_LIMIT + "}");
-            return;
-        }
+        HashMap<String, SpooledContent> sigsFromRequest = super.extractSignatures(parts);
 
         HashMap<String, HashMap<String, Boolean>> result = new HashMap<>();
-        for (Map.Entry<String, byte[]> entry : sigsFromRequest.entrySet()) {
-            result.put(entry.getKey(), signatureValues(entry.getKey(), entry.getValue()));
+        try {
+            if (sigsFromRequest.size() > SIG_LIMIT) {
+                resp.getWriter().write("{\"limit\":" + SIG_LIMIT + "}");
+                return;
+            }
+
+            for (Map.Entry<String, SpooledContent> entry : sigsFromRequest.entrySet()) {
+                result.put(entry.getKey(), signatureValues(entry.getKey(), entry.getValue()));
+            }
+        } finally {
+            for (SpooledContent signature : sigsFromRequest.values()) {
+                signature.close();
+            }
         }
 
         resp.setCharacterEncoding(UTF8_CHARSET.name());
@@ -156,11 +163,11 @@ public class IndexServlet extends ReportServlet {
      * do assinante possui um caminho de certificação aceito, se o arquivo é um arquivo de
      * assinatura e se a assinatura é destacada.
      * @param filename nome do arquivo a ser verificado
-     * @param signature os bytes do arquivo
+     * @param signature o conteúdo do arquivo
      * @return mapa que relaciona os itens verificados com os seus valores
      */
-    private HashMap<String, Boolean> signatureValues(String filename, byte[] signature) {
-        if (signature.length == 0) {
+    private HashMap<String, Boolean> signatureValues(String filename, SpooledContent signature) {
+        if (signature.length() == 0) {
             /*
              * Could happen if some user "accidentally" removes the
              * "required" field from the HTML source.
@@ -168,10 +175,8 @@ public class IndexServlet extends ReportServlet {
             return null;
         }
 
-        Application app = new Application(
-                new ByteArrayInputStream(signature),
-                new NullInputStream(0),
-                filename);
+        Application app = new Application(new ArrayList<>(Collections.singletonList(
+                new SignatureDataWrapper(signature, null, filename))));
         app.setup();
 
         Component rgc = app.getComponent(ReportGuiComponent.class.getName());
@@ -0,0 +1,57 @@
+package br.ufsc.labsec.signature.conformanceVerifier;
+
+import br.ufsc.labsec.signature.conformanceVerifier.metrics.VerificationMetrics;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Servlet que expõe as métricas de verificação em formato texto, uma métrica por linha.
+ * Exemplo usando a ferramenta CURL:
+ *      {@code curl <URL>/metrics}
+ *      {@code curl <URL>/metrics?traces=true}
+ *
+ * O parâmetro <code>traces</code> inclui as árvores de trechos das verificações mais recentes.
+ * As métricas revelam os hosts consultados e o volume de verificações, por isso o servlet responde
+ * 404 a menos que o parâmetro de contexto <code>metricsEnabled</code> seja <code>true</code>. Ao
+ * habilitá-lo, restrinja o acesso com o mesmo filtro de endereços descrito em {@link SimpleServlet}.
+ */
+public class MetricsServlet extends HttpServlet {
+
+    private static final long serialVersionUID = -4170335127718260341L;
+
+    /**
+     * Indica se o servlet expõe as métricas
+     */
+    private boolean enabled;
+
+    /**
+     * Lê o parâmetro de contexto que habilita o servlet
+     */
+    @Override
+    public void init() {
+        this.enabled = Boolean.parseBoolean(getServletContext().getInitParameter("metricsEnabled"));
+    }
+
+    /**
+     * Lida com os requests do tipo GET retornando as métricas atuais
+     * @param request representa a requisição HTTP
+     * @param response representa a resposta HTTP
+     * @throws IOException exceção em caso de erro na escrita da resposta
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!this.enabled) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        boolean withTraces = Boolean.parseBoolean(request.getParameter("traces"));
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentType("text/plain");
+        response.getWriter().write(VerificationMetrics.getInstance().toText(withTraces));
+    }
+
+}
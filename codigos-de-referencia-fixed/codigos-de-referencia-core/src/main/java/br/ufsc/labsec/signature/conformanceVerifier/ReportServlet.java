@@ -1,15 +1,29 @@
 package br.ufsc.labsec.signature.conformanceVerifier;
 
 import br.ufsc.labsec.component.AbstractComponentConfiguration;
-import br.ufsc.labsec.component.Component;
 import br.ufsc.labsec.component.Application;
+import br.ufsc.labsec.signature.SignatureDataWrapper;
+import br.ufsc.labsec.signature.SpooledContent;
+import br.ufsc.labsec.signature.XmlToolkit;
 import br.ufsc.labsec.signature.conformanceVerifier.report.Report;
-import br.ufsc.labsec.signature.conformanceVerifier.cades.CadesSignatureComponent;
+import br.ufsc.labsec.signature.conformanceVerifier.cache.FileVerificationCacheStore;
+import br.ufsc.labsec.signature.conformanceVerifier.cache.VerificationCacheStore;
+import br.ufsc.labsec.signature.conformanceVerifier.cache.TimeStampValidationCache;
+import br.ufsc.labsec.signature.conformanceVerifier.cache.VerificationResultCache;
+import br.ufsc.labsec.signature.conformanceVerifier.jobs.VerificationJob;
+import br.ufsc.labsec.signature.conformanceVerifier.jobs.VerificationJobManager;
+import br.ufsc.labsec.signature.conformanceVerifier.metrics.Span;
+import br.ufsc.labsec.signature.conformanceVerifier.metrics.VerificationMetrics;
+import br.ufsc.labsec.signature.conformanceVerifier.pdf.PDDocumentUtils;
 import br.ufsc.labsec.signature.conformanceVerifier.report.SignatureReport;
+import br.ufsc.labsec.signature.conformanceVerifier.cades.CadesSignatureComponent;
 import br.ufsc.labsec.signature.conformanceVerifier.validationService.TrustAnchorComponent;
+import br.ufsc.labsec.signature.conformanceVerifier.xades.XadesSignatureComponent;
+import br.ufsc.labsec.signature.repository.bundle.ValidationBundleRepository;
+import br.ufsc.labsec.signature.repository.http.UriContentCache;
 
+import jakarta.servlet.ServletContext;
 import jakarta.servlet.http.*;
-import org.apache.commons.io.IOUtils;
 import org.json.XML;
 import org.json.JSONObject;
 import org.apache.fop.apps.Fop;
@@ -23,15 +37,19 @@ import org.w3c.dom.Document;
 import java.io.*;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 import javax.xml.transform.*;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.sax.SAXResult;
 import javax.xml.transform.stream.StreamResult;
-import javax.xml.transform.stream.StreamSource;
 
 /**
  * Servlet que engloba métodos comuns ao tratamento de relatórios.
@@ -46,10 +64,18 @@ public class ReportServlet extends HttpServlet {
      * @return o Report em uma String no formato JSON
      */
     String reportToJsonString(Report r) {
+        return reportToJson(r).toString(4);
+    }
+
+    /**
+     * Transforma o Report em um objeto JSON
+     * @param r o Report a ser transformado
+     * @return o Report como objeto JSON, com a chave "report"
+     */
+    JSONObject reportToJson(Report r) {
         try {
             String reportString = reportToXmlString(r);
-            JSONObject xmlJSONObj = XML.toJSONObject(reportString);
-            return xmlJSONObj.toString(4);
+            return XML.toJSONObject(reportString);
         } catch (Exception e) {
             throw new RuntimeException("Error converting to String", e);
         }
@@ -61,7 +87,7 @@ public class ReportServlet extends HttpServlet {
      * @return o Report em uma String no formato XML
      */
     String reportToXmlString(Report r) {
-        return docToString(r.generate());
+        return VerificationMetrics.time(VerificationMetrics.REPORT_RENDER, () -> docToString(r.generate()));
     }
 
     /**
@@ -72,8 +98,7 @@ public class ReportServlet extends HttpServlet {
     String docToString(Document document) {
         try {
             StringWriter sw = new StringWriter();
-            TransformerFactory tf = TransformerFactory.newInstance();
-            Transformer transformer = tf.newTransformer();
+            Transformer transformer = XmlToolkit.getTransformer();
             transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "no");
             transformer.setOutputProperty(OutputKeys.METHOD, "xml");
             transformer.setOutputProperty(OutputKeys.INDENT, "yes");
@@ -86,8 +111,63 @@ public class ReportServlet extends HttpServlet {
     }
 
     /**
-     * Retorna relatórios de verificação em um único arquivo PDF
-     * @param app a aplicação do Verificador de Conformidade
+     * Verifica os arquivos em uma tarefa do {@link VerificationJobManager} e aguarda
+     * o seu término, de modo que as verificações síncronas e assíncronas sigam o
+     * mesmo caminho. A tarefa passa a ser responsável pelos arquivos e é descartada
+     * ao final. Caso a tarefa seja recusada ou falhe, o erro é escrito na resposta.
+     * @param wrappers os arquivos de assinatura e os seus conteúdos destacados
+     * @param revalidate indica se a cache de resultados deve ser ignorada
+     * @param response representa a resposta HTTP
+     * @return os relatórios, na ordem dos arquivos, ou nulo caso a resposta já tenha sido escrita
+     * @throws IOException exceção em caso de erro na escrita da resposta
+     */
+    protected List<Report> verify(List<SignatureDataWrapper> wrappers, boolean revalidate,
+                                  HttpServletResponse response) throws IOException {
+        VerificationJobManager manager = VerificationJobManager.getInstance();
+        VerificationJob job;
+        try {
+            job = manager.submit(wrappers, revalidate);
+        } catch (RejectedExecutionException e) {
+            for (SignatureDataWrapper wrapper : wrappers) {
+                wrapper.close();
+            }
+            Application.logger.log(Level.WARNING, e.getMessage());
+            response.setHeader("Retry-After", "30");
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, e.getMessage());
+            return null;
+        }
+        try {
+            job.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "A verificação foi interrompida");
+            return null;
+        } finally {
+            manager.remove(job.getId());
+        }
+        if (job.getStatus() != VerificationJob.Status.DONE) {
+            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, job.getErrorMessage());
+            return null;
+        }
+        return job.getReports(0);
+    }
+
+    /**
+     * Retorna o caminho de uma folha de estilo dos relatórios configurada no
+     * componente de assinaturas CAdES
+     * @param param o nome do parâmetro, como <code>reportStylePathHTML</code>
+     * @return o caminho da folha de estilo
+     */
+    static String reportStylePath(String param) {
+        return AbstractComponentConfiguration.getInstance()
+                .getComponentParam(CadesSignatureComponent.class.getName(), param);
+    }
+
+    /**
+     * Retorna relatórios de verificação em um único arquivo PDF. Cada relatório é
+     * gerado em um arquivo temporário, e a junção, que usa arquivos temporários do
+     * PDFBox mesmo sem limite de memória configurado, é escrita diretamente na
+     * resposta, sem tamanho declarado.
      * @param reportList a lista de relatórios de verificação
      * @param response representa a resposta HTTP
      * @param request representa a requisição HTTP
@@ -95,22 +175,64 @@ public class ReportServlet extends HttpServlet {
      * @throws IOException
      * @throws FOPException
      */
-    void generatePDFReports(Application app, List<Report> reportList, HttpServletResponse response,
+    void generatePDFReports(List<Report> reportList, HttpServletResponse response,
                             HttpServletRequest request)
             throws TransformerException, IOException, FOPException {
-        Component csc = app.getComponent(CadesSignatureComponent.class.getName());
-        String xslPath = app.getComponentParam(csc, "reportStylePathPDF");
-        Source xslt = new StreamSource(Application.class.getResourceAsStream("/" + xslPath));
-        PDFMergerUtility pmu = new PDFMergerUtility();
-        Transformer t = TransformerFactory.newInstance().newTransformer(xslt);
+        String xslPath = reportStylePath("reportStylePathPDF");
+        Transformer t = XmlToolkit.getTemplates(xslPath).newTransformer();
+        List<File> reportFiles = new ArrayList<>();
+
+        Span span = VerificationMetrics.span(VerificationMetrics.REPORT_RENDER);
+        try {
+            this.renderPDFReports(reportList, request, t, reportFiles);
+
+            Cookie cookie = new Cookie("downloadChecker", "sent");
+            cookie.setMaxAge(3);
+
+            response.setContentType("application/pdf");
+            response.addCookie(cookie);
+            try (OutputStream out = new BufferedOutputStream(response.getOutputStream())) {
+                if (reportFiles.size() == 1) {
+                    Files.copy(reportFiles.get(0).toPath(), out);
+                } else {
+                    PDFMergerUtility pmu = new PDFMergerUtility();
+                    for (File reportFile : reportFiles) {
+                        pmu.addSource(reportFile);
+                    }
+                    pmu.setDestinationStream(out);
+                    MemoryUsageSetting setting = PDDocumentUtils.getMemoryUsageSetting();
+                    pmu.mergeDocuments(setting.useTempFile() ? setting : MemoryUsageSetting.setupTempFileOnly());
+                }
+            }
+        } finally {
+            span.close();
+            for (File reportFile : reportFiles) {
+                Files.deleteIfExists(reportFile.toPath());
+            }
+        }
+    }
 
+    /**
+     * Transforma cada relatório em um documento PDF gravado em um arquivo temporário
+     * @param reportList a lista de relatórios de verificação
+     * @param request representa a requisição HTTP
+     * @param t o Transformer com a folha de estilo do relatório PDF
+     * @param reportFiles a lista que recebe os arquivos gerados, na ordem dos relatórios
+     * @throws TransformerException
+     * @throws FOPException
+     * @throws IOException
+     */
+    private void renderPDFReports(List<Report> reportList, HttpServletRequest request, Transformer t,
+                                  List<File> reportFiles) throws TransformerException, FOPException, IOException {
+        FopFactory fopFactory = FopFactory.newInstance();
+        File tempDir = PDDocumentUtils.getMemoryUsageSetting().getTempDir();
         for (int i = 0; i < reportList.size(); ++i) {
-            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            File reportFile = File.createTempFile("relatorio-", ".pdf", tempDir);
+            reportFiles.add(reportFile);
             Report r = reportList.get(i);
             String signature_text_i = request.getParameter("signature_text_box" + i);
             r.setNumber(i+1);
             DOMSource d = new DOMSource(r.generate());
-            Fop fop = FopFactory.newInstance().newFop(MimeConstants.MIME_PDF, os);
 
             // Reutiliza o texto de validade do HTML
             String validity = signatureValidityText(r);
@@ -120,24 +242,11 @@ public class ReportServlet extends HttpServlet {
             validity = validity.replaceAll("</u>","");
             t.setParameter("signatureValidityAttr", validity);
 
-            t.transform(d, new SAXResult(fop.getDefaultHandler()));
-            pmu.addSource(new ByteArrayInputStream(os.toByteArray()));
+            try (OutputStream os = new BufferedOutputStream(new FileOutputStream(reportFile))) {
+                Fop fop = fopFactory.newFop(MimeConstants.MIME_PDF, os);
+                t.transform(d, new SAXResult(fop.getDefaultHandler()));
+            }
         }
-
-        ByteArrayOutputStream reportStream = new ByteArrayOutputStream();
-        pmu.setDestinationStream(reportStream);
-        pmu.mergeDocuments(MemoryUsageSetting.setupMainMemoryOnly());
-
-        OutputStream out = response.getOutputStream();
-
-        Cookie cookie = new Cookie("downloadChecker", "sent");
-        cookie.setMaxAge(3);
-
-        response.setContentType("application/pdf");
-        response.setContentLength(reportStream.toByteArray().length);
-        response.addCookie(cookie);
-        out.write(reportStream.toByteArray());
-        out.close();
     }
 
     /**
@@ -193,12 +302,15 @@ public class ReportServlet extends HttpServlet {
     /**
      * Mapeia os nomes dos arquivos de assinatura com os respectivos arquivos recebidos
      * através do parâmetro 'signature_file' ou 'signature_files[]' em uma requisição.
+     * O conteúdo de cada arquivo é lido em blocos, e os arquivos maiores que o limite de
+     * memória são mantidos em arquivos temporários, que devem ser removidos por quem
+     * recebe o mapa com {@link SpooledContent#close()}.
      * @param parts as partes de uma requisição HTTP
      * @return um mapa entre nome de arquivos e o conteúdo dos mesmos
      * @throws IOException exceção em caso de erro nos bytes do arquivo
      */
-    HashMap<String, byte[]> extractSignatures(Collection<Part> parts) throws IOException {
-        HashMap<String, byte[]> result = new HashMap<>();
+    HashMap<String, SpooledContent> extractSignatures(Collection<Part> parts) throws IOException {
+        HashMap<String, SpooledContent> result = new HashMap<>();
         ArrayList<Part> partList = new ArrayList<>(parts);
         final String hDisp = "Content-Disposition";
 
@@ -210,7 +322,10 @@ public class ReportServlet extends HttpServlet {
                 /* header must identify that it is a signature with a valid name */
                 if (disp.length > 3 && validParamName && disp[2].contains("filename")) {
                     try (InputStream is = p.getInputStream()) {
-                        result.put(disp[3], IOUtils.toByteArray(is));
+                        SpooledContent previous = result.put(disp[3], SpooledContent.read(is));
+                        if (previous != null) {
+                            previous.close();
+                        }
                     }
                 }
             }
@@ -229,4 +344,157 @@ public class ReportServlet extends HttpServlet {
                 .paramAppend("trustAnchorsDirectory", directory)
                 .paramAppend("trustAnchorsURLs", urls);
     }
+
+    /**
+     * Configura o pacote de validação a partir dos parâmetros de contexto
+     * <code>validationBundlePath</code> e <code>validationBundleTrustAnchors</code>,
+     * com os resumos SHA-256 das âncoras de confiança do pacote que podem ser usadas.
+     * Sem caminho, nenhum pacote é usado.
+     * @param context O contexto do servlet
+     */
+    protected void configValidationBundle(ServletContext context) {
+        String path = context.getInitParameter("validationBundlePath");
+        String anchors = context.getInitParameter("validationBundleTrustAnchors");
+        AbstractComponentConfiguration.getInstance().component(ValidationBundleRepository.class)
+                .param("bundlePath", path == null ? "" : path.trim())
+                .param("bundleTrustAnchors", anchors == null ? "" : anchors.trim());
+    }
+
+    /**
+     * Configura a cache de resultados de verificação a partir dos parâmetros de contexto
+     * <code>verificationCacheEnabled</code>, <code>verificationCacheDirectory</code>,
+     * <code>verificationCacheMaxBytes</code>, <code>verificationCacheMaxEntries</code> e
+     * <code>verificationCacheMaxTtl</code> (em segundos). Sem diretório, ou com um diretório
+     * que não seja privado do usuário do processo, apenas a camada em memória é usada.
+     * @param context O contexto do servlet
+     */
+    protected void configVerificationCache(ServletContext context) {
+        boolean enabled = Boolean.parseBoolean(context.getInitParameter("verificationCacheEnabled"));
+        String directory = context.getInitParameter("verificationCacheDirectory");
+        String maxBytes = context.getInitParameter("verificationCacheMaxBytes");
+        String maxEntries = context.getInitParameter("verificationCacheMaxEntries");
+        String maxTtl = context.getInitParameter("verificationCacheMaxTtl");
+
+        VerificationCacheStore store = null;
+        if (enabled && directory != null && !directory.trim().isEmpty()) {
+            try {
+                store = new FileVerificationCacheStore(Paths.get(directory.trim()),
+                        maxBytes == null ? FileVerificationCacheStore.DEFAULT_MAX_BYTES : Long.parseLong(maxBytes.trim()));
+            } catch (IOException e) {
+                Application.logger.log(Level.WARNING,
+                        "Não foi possível usar o diretório " + directory + " para a cache de verificação", e);
+            }
+        }
+        VerificationResultCache.getInstance().configure(enabled,
+                maxEntries == null ? VerificationResultCache.DEFAULT_MAX_ENTRIES : Integer.parseInt(maxEntries.trim()),
+                maxTtl == null ? VerificationResultCache.DEFAULT_MAX_TTL : TimeUnit.SECONDS.toMillis(Long.parseLong(maxTtl.trim())),
+                store);
+    }
+
+    /**
+     * Configura a cache de validação das carimbadoras de tempo a partir dos parâmetros
+     * de contexto <code>timeStampCacheMaxEntries</code>, <code>timeStampCacheTimeBucket</code>
+     * (em segundos) e <code>timeStampCacheTtl</code> (em segundos). Zero em qualquer
+     * parâmetro desabilita a cache.
+     * @param context O contexto do servlet
+     */
+    protected void configTimeStampValidationCache(ServletContext context) {
+        String maxEntries = context.getInitParameter("timeStampCacheMaxEntries");
+        String timeBucket = context.getInitParameter("timeStampCacheTimeBucket");
+        String ttl = context.getInitParameter("timeStampCacheTtl");
+        TimeStampValidationCache.getInstance().configure(
+                maxEntries == null ? TimeStampValidationCache.DEFAULT_MAX_ENTRIES : Integer.parseInt(maxEntries.trim()),
+                timeBucket == null ? TimeStampValidationCache.DEFAULT_TIME_BUCKET
+                        : TimeUnit.SECONDS.toMillis(Long.parseLong(timeBucket.trim())),
+                ttl == null ? TimeStampValidationCache.DEFAULT_TTL : TimeUnit.SECONDS.toMillis(Long.parseLong(ttl.trim())));
+    }
+
+    /**
+     * Configura a cache do conteúdo referenciado por URL em assinaturas destacadas a
+     * partir dos parâmetros de contexto <code>uriCacheMaxBytes</code>, <code>uriCacheTtl</code>
+     * (em segundos), <code>uriCacheDirectory</code> e <code>uriCacheOffline</code>. No
+     * modo offline, o conteúdo é obtido apenas do diretório de armazenamento.
+     * @param context O contexto do servlet
+     */
+    protected void configUriContentCache(ServletContext context) {
+        String maxBytes = context.getInitParameter("uriCacheMaxBytes");
+        String ttl = context.getInitParameter("uriCacheTtl");
+        UriContentCache.getInstance().configure(
+                maxBytes == null ? UriContentCache.DEFAULT_MAX_BYTES : Long.parseLong(maxBytes.trim()),
+                ttl == null ? UriContentCache.DEFAULT_TTL : TimeUnit.SECONDS.toMillis(Long.parseLong(ttl.trim())),
+                Boolean.parseBoolean(context.getInitParameter("uriCacheOffline")),
+                context.getInitParameter("uriCacheDirectory"));
+    }
+
+    /**
+     * Configura a memória usada pelo PDFBox na análise dos documentos a partir dos
+     * parâmetros de contexto <code>pdfScratchMaxMainMemory</code> (em bytes) e
+     * <code>pdfScratchDirectory</code>. Com um limite de memória principal, o
+     * excedente é mantido em arquivos temporários no diretório dado ou no
+     * diretório temporário do sistema. Sem limite, apenas a memória principal é usada.
+     * @param context O contexto do servlet
+     */
+    protected void configPdfScratchMemory(ServletContext context) {
+        String maxMainMemory = context.getInitParameter("pdfScratchMaxMainMemory");
+        String directory = context.getInitParameter("pdfScratchDirectory");
+        if (maxMainMemory == null || maxMainMemory.trim().isEmpty()) {
+            PDDocumentUtils.setMemoryUsageSetting(MemoryUsageSetting.setupMainMemoryOnly());
+            return;
+        }
+
+        MemoryUsageSetting setting = MemoryUsageSetting.setupMixed(Long.parseLong(maxMainMemory.trim()));
+        if (directory != null && !directory.trim().isEmpty()) {
+            File tempDir = new File(directory.trim());
+            if (tempDir.isDirectory() || tempDir.mkdirs()) {
+                setting.setTempDir(tempDir);
+            } else {
+                Application.logger.log(Level.WARNING, "Não foi possível usar o diretório " + directory
+                        + " para os arquivos temporários do PDFBox");
+            }
+        }
+        PDDocumentUtils.setMemoryUsageSetting(setting);
+    }
+
+    /**
+     * Configura a leitura dos arquivos enviados a partir dos parâmetros de contexto
+     * <code>uploadMemoryThreshold</code> (em bytes) e <code>uploadDirectory</code>.
+     * Arquivos acima do limite são mantidos em arquivos temporários no diretório dado
+     * ou no diretório temporário do sistema.
+     * @param context O contexto do servlet
+     */
+    protected void configUploadSpool(ServletContext context) {
+        SpooledContent.configure(context.getInitParameter("uploadMemoryThreshold"),
+                context.getInitParameter("uploadDirectory"));
+    }
+
+    /**
+     * Configura no componente XAdES, a partir do parâmetro de contexto
+     * <code>xadesStreamingThreshold</code> (em bytes), o tamanho a partir do qual os
+     * documentos XAdES são lidos em sequência, carregando apenas as assinaturas como
+     * árvore DOM. Zero desabilita a leitura em sequência.
+     * @param context O contexto do servlet
+     */
+    protected void configXadesStreaming(ServletContext context) {
+        String threshold = context.getInitParameter("xadesStreamingThreshold");
+        if (threshold != null && !threshold.trim().isEmpty()) {
+            AbstractComponentConfiguration.getInstance().component(XadesSignatureComponent.class)
+                    .param("streamingThreshold", threshold.trim());
+        }
+    }
+
+    /**
+     * Configura as verificações assíncronas a partir dos parâmetros de contexto
+     * <code>verificationJobThreads</code>, <code>verificationJobMaxJobs</code> e
+     * <code>verificationJobTtl</code> (em segundos, contados a partir do fim da tarefa).
+     * @param context O contexto do servlet
+     */
+    protected void configVerificationJobs(ServletContext context) {
+        String threads = context.getInitParameter("verificationJobThreads");
+        String maxJobs = context.getInitParameter("verificationJobMaxJobs");
+        String ttl = context.getInitParameter("verificationJobTtl");
+        VerificationJobManager.getInstance().configure(
+                threads == null ? VerificationJobManager.DEFAULT_THREADS : Integer.parseInt(threads.trim()),
+                maxJobs == null ? VerificationJobManager.DEFAULT_MAX_JOBS : Integer.parseInt(maxJobs.trim()),
+                ttl == null ? VerificationJobManager.DEFAULT_TTL : TimeUnit.SECONDS.toMillis(Long.parseLong(ttl.trim())));
+    }
 }
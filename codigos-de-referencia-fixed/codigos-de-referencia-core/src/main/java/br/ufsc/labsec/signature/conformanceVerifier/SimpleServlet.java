@@ -1,9 +1,10 @@
 package br.ufsc.labsec.signature.conformanceVerifier;
 
 import br.ufsc.labsec.component.Application;
-import br.ufsc.labsec.component.Component;
+import br.ufsc.labsec.signature.JcaProviders;
 import br.ufsc.labsec.signature.SignatureDataWrapper;
-import br.ufsc.labsec.signature.conformanceVerifier.gui.ReportGuiComponent;
+import br.ufsc.labsec.signature.SpooledContent;
+import br.ufsc.labsec.signature.XmlToolkit;
 import br.ufsc.labsec.signature.conformanceVerifier.report.Report;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.MultipartConfig;
@@ -15,12 +16,10 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.transform.TransformerException;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
-import javax.xml.xpath.XPathFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
@@ -84,8 +83,16 @@ public class SimpleServlet extends ReportServlet {
      */
     @Override
     public void init() {
+        JcaProviders.install();
         this.configTrustAnchorComponent(this.getServletContext().getInitParameter("trustAnchorsDirectory"),
                 this.getServletContext().getInitParameter("trustAnchorsURLs"));
+        this.configVerificationCache(this.getServletContext());
+        this.configTimeStampValidationCache(this.getServletContext());
+        this.configUriContentCache(this.getServletContext());
+        this.configValidationBundle(this.getServletContext());
+        this.configPdfScratchMemory(this.getServletContext());
+        this.configXadesStreaming(this.getServletContext());
+        this.configUploadSpool(this.getServletContext());
     }
 
     /**
@@ -101,13 +108,12 @@ public class SimpleServlet extends ReportServlet {
     protected void doPost(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
         List<SignatureDataWrapper> dataWrappersList = this.createSignatureDataWrappers(request);
-        Application app = new Application(dataWrappersList);
-        app.setup();
-
-        Component rgc = app.getComponent(ReportGuiComponent.class.getName());
-        List<Report> reportList = ((ReportGuiComponent) rgc).startVerification();
-        for (int i=0; i<reportList.size(); ++i) { reportList.get(i).setNumber(i+1); }
-
+        boolean revalidate = Boolean.parseBoolean(request.getParameter("revalidate"));
+        // a tarefa de verificação fecha os arquivos ao terminar
+        List<Report> reportList = this.verify(dataWrappersList, revalidate, response);
+        if (reportList == null) {
+            return;
+        }
         reportType = request.getParameter("report_type");
         if (reportType == null) {
             reportType = "json";
@@ -125,7 +131,7 @@ public class SimpleServlet extends ReportServlet {
             }
         } else if (reportType.toLowerCase().equals("pdf")) {
             try {
-                generatePDFReports(app, reportList, response, request);
+                generatePDFReports(reportList, response, request);
             } catch (TransformerException e) {
                 e.printStackTrace();
             } catch (FOPException e) {
@@ -175,13 +181,12 @@ public class SimpleServlet extends ReportServlet {
             Part p = (Part) part;
             String header = p.getHeader("content-disposition");
             if (header.contains("signature_files[]")) {
-                InputStream sigStream = p.getInputStream();
                 String filename = "";
                 if (header.contains("filename")) {
                     int pos = header.indexOf("filename");
                     filename = header.substring(pos+10, header.length()-1);
                 }
-                wrappers.add(new SignatureDataWrapper(sigStream, null, filename));
+                wrappers.add(new SignatureDataWrapper(spool(p), null, filename));
             }
         }
         return wrappers;
@@ -203,31 +208,43 @@ public class SimpleServlet extends ReportServlet {
             Part p = (Part) parts[i];
             String header = p.getHeader("content-disposition");
             if (header.contains("signature_files[]")) {
-                InputStream sigStream = p.getInputStream();
                 String filename = "";
                 if (header.contains("filename")) {
                     int pos = header.indexOf("filename");
                     filename = header.substring(pos+10, header.length()-1);
                 }
-                InputStream detStream = correspondingDetached(parts, i);
-                wrappers.add(new SignatureDataWrapper(sigStream, detStream, filename));
+                SpooledContent detContent = correspondingDetached(parts, i);
+                wrappers.add(new SignatureDataWrapper(spool(p), detContent, filename));
             }
         }
         return wrappers;
     }
 
     /**
-     * Retorna o InputStream das partes da requisição correspondente à parts[i]. Isto é, a parte dos arquivos
+     * Lê o conteúdo de uma parte da requisição, mantendo em arquivo temporário os
+     * conteúdos acima do limite de memória
+     * @param part a parte da requisição
+     * @return o conteúdo da parte
+     * @throws IOException exceção em caso de erro na leitura da parte
+     */
+    private SpooledContent spool(Part part) throws IOException {
+        try (InputStream stream = part.getInputStream()) {
+            return SpooledContent.read(stream);
+        }
+    }
+
+    /**
+     * Retorna o conteúdo das partes da requisição correspondente à parts[i]. Isto é, a parte dos arquivos
      * destacados que corresponde ao arquivo de assinatura contido em parts[i].
      * @param parts as partes de uma requisição HTTP
      * @param i o índice nas partes da requisição que corresponde ao arquivo de assinatura
-     * @return o InputStream de um arquivo destacado, o qual corresponde ao arquivo de assinatura parts[i]
+     * @return o conteúdo de um arquivo destacado, o qual corresponde ao arquivo de assinatura parts[i]
      */
-    private InputStream correspondingDetached(Object[] parts, int i) {
+    private SpooledContent correspondingDetached(Object[] parts, int i) {
         int lastSig = (int) Math.ceil(parts.length/2);
         Part detPart = (Part) parts[lastSig];
         try {
-            return detPart.getInputStream();
+            return spool(detPart);
         } catch (IOException e) {
             Application.logger.log(Level.SEVERE,
                     "Não foi possível obter o InputStream do arquivo detached da assinatura " + (i+1) + ".", e);
@@ -273,16 +290,14 @@ public class SimpleServlet extends ReportServlet {
      */
     private String generateXmlReportsString(List<Report> reportList) {
         try {
-            DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
+            DocumentBuilder documentBuilder = XmlToolkit.getDocumentBuilder();
             Document result = documentBuilder.newDocument();
 
             Element root = result.createElement("reports");
 
             for (Report r : reportList) {
                 Document reportDocument = r.generate();
-                XPathFactory xPathFactory = XPathFactory.newInstance();
-                XPath xpath = xPathFactory.newXPath();
+                XPath xpath = XmlToolkit.getXPath();
 
                 XPathExpression exprAssertion = xpath.compile("/*");
                 Element assertionNode = (Element) exprAssertion.evaluate(reportDocument, XPathConstants.NODE);
@@ -0,0 +1,436 @@
+package br.ufsc.labsec.signature.conformanceVerifier;
+
+import br.ufsc.labsec.component.Application;
+import br.ufsc.labsec.signature.JcaProviders;
+import br.ufsc.labsec.signature.SignatureDataWrapper;
+import br.ufsc.labsec.signature.SpooledContent;
+import br.ufsc.labsec.signature.conformanceVerifier.jobs.VerificationJob;
+import br.ufsc.labsec.signature.conformanceVerifier.jobs.VerificationJobListener;
+import br.ufsc.labsec.signature.conformanceVerifier.jobs.VerificationJobManager;
+import br.ufsc.labsec.signature.conformanceVerifier.report.Report;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.MultipartConfig;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.Part;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+
+/**
+ * O ReportServlet que recebe lotes de assinaturas para verificação assíncrona. O envio
+ * retorna imediatamente o identificador da tarefa, e os relatórios de cada arquivo ficam
+ * disponíveis, na ordem do envio, assim que a sua verificação termina.
+ * Exemplos usando a ferramenta CURL:
+ *      (envio, com o identificador no cabeçalho Location e na resposta)
+ *          {@code curl -v -F "signature_files[]=@<sig.pdf>" -F "signature_files[]=@<sig.p7s>" <URL>/jobs}
+ *      (consulta dos relatórios a partir do segundo, aguardando até 20 segundos por novidades)
+ *          {@code curl "<URL>/jobs/<id>?since=1&wait=20"}
+ *      (relatórios enviados como eventos à medida que são gerados)
+ *          {@code curl -N <URL>/jobs/<id>/events}
+ *      (cancelamento)
+ *          {@code curl -X DELETE <URL>/jobs/<id>}
+ *
+ * Arquivos destacados são enviados no parâmetro <code>detached_files[]</code>, na mesma
+ * ordem das assinaturas correspondentes; as assinaturas excedentes são tratadas como anexadas.
+ *
+ * O parâmetro <code>since</code> indica quantos relatórios o cliente já recebeu, e a resposta
+ * informa em <code>next</code> o valor a ser usado na próxima consulta. Nos eventos, o
+ * identificador de cada relatório é a sua posição, de modo que uma reconexão com o cabeçalho
+ * <code>Last-Event-ID</code> continua do relatório seguinte.
+ *
+ * O acesso pode ser restrito com o mesmo filtro de endereços descrito em {@link SimpleServlet}.
+ */
+@MultipartConfig
+public class VerificationJobServlet extends ReportServlet {
+
+    private static final long serialVersionUID = -1860930471823412276L;
+    /**
+     * Espera máxima de uma consulta, em segundos
+     */
+    private static final long MAX_WAIT = 60;
+    private static final String EVENTS = "events";
+
+    static {
+        new ConformanceVerifier();
+    }
+
+    /**
+     * Inicialização do Servlet
+     */
+    @Override
+    public void init() {
+        JcaProviders.install();
+        this.configTrustAnchorComponent(this.getServletContext().getInitParameter("trustAnchorsDirectory"),
+                this.getServletContext().getInitParameter("trustAnchorsURLs"));
+        this.configVerificationCache(this.getServletContext());
+        this.configTimeStampValidationCache(this.getServletContext());
+        this.configUriContentCache(this.getServletContext());
+        this.configValidationBundle(this.getServletContext());
+        this.configPdfScratchMemory(this.getServletContext());
+        this.configXadesStreaming(this.getServletContext());
+        this.configUploadSpool(this.getServletContext());
+        this.configVerificationJobs(this.getServletContext());
+    }
+
+    /**
+     * Lida com os requests do tipo POST criando uma tarefa de verificação para os arquivos enviados
+     * @param request representa a requisição HTTP
+     * @param response representa a resposta HTTP
+     * @throws ServletException exceção em caso de erro no retorno das partes da requisição
+     * @throws IOException exceção em caso de erro na leitura dos arquivos enviados
+     */
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        List<SignatureDataWrapper> wrappers = new ArrayList<>();
+        VerificationJob job = null;
+        try {
+            List<Part> signatures = new ArrayList<>();
+            List<Part> detached = new ArrayList<>();
+            for (Part part : request.getParts()) {
+                if (part.getName().equals("signature_files[]") || part.getName().equals("signature_file")) {
+                    signatures.add(part);
+                } else if (part.getName().equals("detached_files[]")) {
+                    detached.add(part);
+                }
+            }
+            for (int i = 0; i < signatures.size(); ++i) {
+                Part signature = signatures.get(i);
+                String filename = signature.getSubmittedFileName() == null ? "" : signature.getSubmittedFileName();
+                SpooledContent sigContent = this.spool(signature);
+                SpooledContent detContent = null;
+                try {
+                    detContent = i < detached.size() ? this.spool(detached.get(i)) : null;
+                } finally {
+                    // o conteúdo da assinatura é fechado junto com os demais caso a leitura falhe
+                    wrappers.add(new SignatureDataWrapper(sigContent, detContent, filename));
+                }
+            }
+            if (wrappers.isEmpty()) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Nenhum arquivo de assinatura foi enviado");
+                return;
+            }
+
+            boolean revalidate = Boolean.parseBoolean(request.getParameter("revalidate"));
+            try {
+                job = VerificationJobManager.getInstance().submit(wrappers, revalidate);
+            } catch (RejectedExecutionException e) {
+                Application.logger.log(Level.WARNING, e.getMessage());
+                response.setHeader("Retry-After", "30");
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, e.getMessage());
+                return;
+            }
+        } finally {
+            if (job == null) {
+                for (SignatureDataWrapper wrapper : wrappers) {
+                    wrapper.close();
+                }
+            }
+        }
+
+        response.setHeader("Location",
+                request.getContextPath() + request.getServletPath() + "/" + job.getId());
+        this.writeJson(response, HttpServletResponse.SC_ACCEPTED, this.jobState(job, 0, false));
+    }
+
+    /**
+     * Lida com os requests do tipo GET retornando o estado e os relatórios de uma tarefa,
+     * imediatamente, após uma espera por novidades ou como fluxo de eventos
+     * @param request representa a requisição HTTP
+     * @param response representa a resposta HTTP
+     * @throws IOException exceção em caso de erro na escrita da resposta
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String[] path = this.splitPath(request);
+        VerificationJob job = path.length == 0 ? null : VerificationJobManager.getInstance().get(path[0]);
+        if (job == null || path.length > 2 || (path.length == 2 && !path[1].equals(EVENTS))) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        if (path.length == 2) {
+            String lastEventId = request.getHeader("Last-Event-ID");
+            int since = lastEventId != null ? parseInt(lastEventId, -1) + 1 : parseInt(request.getParameter("since"), 0);
+            new EventStream(job, request.startAsync(), since).open();
+            return;
+        }
+
+        int since = parseInt(request.getParameter("since"), 0);
+        long wait = Math.min(MAX_WAIT, parseInt(request.getParameter("wait"), 0));
+        if (wait <= 0 || hasNews(job, since)) {
+            this.writeJson(response, HttpServletResponse.SC_OK, this.jobState(job, since, true));
+            return;
+        }
+        AsyncContext async = request.startAsync();
+        async.setTimeout(TimeUnit.SECONDS.toMillis(wait));
+        new LongPoll(job, async, since).open();
+    }
+
+    /**
+     * Lida com os requests do tipo DELETE cancelando e descartando uma tarefa
+     * @param request representa a requisição HTTP
+     * @param response representa a resposta HTTP
+     * @throws IOException exceção em caso de erro na escrita da resposta
+     */
+    @Override
+    protected void doDelete(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String[] path = this.splitPath(request);
+        if (path.length == 1 && VerificationJobManager.getInstance().remove(path[0])) {
+            response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+        } else {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+
+    /**
+     * Monta a representação JSON de uma tarefa
+     * @param job a tarefa
+     * @param since a quantidade de relatórios já recebidos pelo cliente
+     * @param withReports indica se os relatórios seguintes devem ser incluídos
+     * @return a tarefa em formato JSON
+     */
+    private JSONObject jobState(VerificationJob job, int since, boolean withReports) {
+        // o estado é lido antes dos relatórios, de modo que um estado final acompanha todos eles
+        VerificationJob.Status status = job.getStatus();
+        List<Report> reports = withReports ? job.getReports(since) : new ArrayList<>();
+        JSONObject state = new JSONObject();
+        state.put("id", job.getId());
+        state.put("status", status.name());
+        state.put("files", new JSONArray(job.getFileNames()));
+        state.put("completed", job.getCompletedCount());
+        if (job.getErrorMessage() != null) {
+            state.put("error", job.getErrorMessage());
+        }
+        if (withReports) {
+            JSONArray rendered = new JSONArray();
+            for (Report r : reports) {
+                rendered.put(this.reportToJson(r).opt("report"));
+            }
+            state.put("reports", rendered);
+            state.put("next", Math.max(0, since) + reports.size());
+        }
+        return state;
+    }
+
+    private void writeJson(HttpServletResponse response, int status, JSONObject json) throws IOException {
+        response.setStatus(status);
+        response.setCharacterEncoding(UTF8_CHARSET.name());
+        response.setContentType("application/json");
+        response.getWriter().write(json.toString(4));
+    }
+
+    private SpooledContent spool(Part part) throws IOException {
+        try (InputStream stream = part.getInputStream()) {
+            return SpooledContent.read(stream);
+        }
+    }
+
+    private String[] splitPath(HttpServletRequest request) {
+        String pathInfo = request.getPathInfo();
+        if (pathInfo == null || pathInfo.equals("/")) {
+            return new String[0];
+        }
+        return pathInfo.substring(1).split("/");
+    }
+
+    private static int parseInt(String value, int defaultValue) {
+        try {
+            return value == null ? defaultValue : Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Indica se há relatórios novos para o cliente ou se a tarefa já foi encerrada
+     */
+    private static boolean hasNews(VerificationJob job, int since) {
+        return job.getStatus().isFinal() || job.getCompletedCount() > since;
+    }
+
+    /**
+     * Consulta que aguarda por novos relatórios ou pelo fim da tarefa, respondendo
+     * com o estado atual caso o tempo de espera termine antes
+     */
+    private class LongPoll implements VerificationJobListener, AsyncListener {
+
+        private final VerificationJob job;
+        private final AsyncContext async;
+        private final int since;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private boolean completed;
+
+        LongPoll(VerificationJob job, AsyncContext async, int since) {
+            this.job = job;
+            this.async = async;
+            this.since = since;
+        }
+
+        void open() {
+            this.async.addListener(this);
+            this.job.addListener(this);
+            // a tarefa pode ter mudado antes do registro do observador
+            this.jobUpdated(this.job);
+        }
+
+        @Override
+        public void jobUpdated(VerificationJob updated) {
+            if (hasNews(updated, this.since) && !this.scheduled.getAndSet(true)) {
+                this.async.start(this::respond);
+            }
+        }
+
+        private synchronized void respond() {
+            if (this.completed) {
+                return;
+            }
+            this.completed = true;
+            this.job.removeListener(this);
+            try {
+                writeJson((HttpServletResponse) this.async.getResponse(), HttpServletResponse.SC_OK,
+                        jobState(this.job, this.since, true));
+            } catch (IOException e) {
+                Application.logger.log(Level.FINE, "O cliente encerrou a consulta da tarefa " + this.job.getId(), e);
+            } finally {
+                this.async.complete();
+            }
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            this.respond();
+        }
+
+        @Override
+        public synchronized void onError(AsyncEvent event) {
+            this.completed = true;
+            this.job.removeListener(this);
+        }
+
+        @Override
+        public synchronized void onComplete(AsyncEvent event) {
+            this.completed = true;
+            this.job.removeListener(this);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+
+    }
+
+    /**
+     * Fluxo de eventos (<code>text/event-stream</code>) com um evento <code>report</code>
+     * por relatório e um evento <code>status</code> a cada mudança de estado da tarefa.
+     * O fluxo é encerrado quando a tarefa termina.
+     */
+    private class EventStream implements VerificationJobListener, AsyncListener {
+
+        private final VerificationJob job;
+        private final AsyncContext async;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private int cursor;
+        private VerificationJob.Status sentStatus;
+        private boolean completed;
+
+        EventStream(VerificationJob job, AsyncContext async, int since) {
+            this.job = job;
+            this.async = async;
+            this.cursor = Math.max(0, since);
+        }
+
+        void open() {
+            this.async.setTimeout(0);
+            HttpServletResponse response = (HttpServletResponse) this.async.getResponse();
+            response.setCharacterEncoding(UTF8_CHARSET.name());
+            response.setContentType("text/event-stream");
+            response.setHeader("Cache-Control", "no-cache");
+            this.async.addListener(this);
+            this.job.addListener(this);
+            this.push();
+        }
+
+        @Override
+        public void jobUpdated(VerificationJob updated) {
+            if (!this.scheduled.getAndSet(true)) {
+                this.async.start(() -> {
+                    this.scheduled.set(false);
+                    this.push();
+                });
+            }
+        }
+
+        /**
+         * Escreve os relatórios ainda não enviados e o estado atual da tarefa
+         */
+        private synchronized void push() {
+            if (this.completed) {
+                return;
+            }
+            VerificationJob.Status status = this.job.getStatus();
+            try {
+                PrintWriter writer = this.async.getResponse().getWriter();
+                for (Report r : this.job.getReports(this.cursor)) {
+                    writer.write("id: " + this.cursor + "\nevent: report\ndata: "
+                            + reportToJson(r).opt("report") + "\n\n");
+                    this.cursor++;
+                }
+                if (status != this.sentStatus) {
+                    writer.write("event: status\ndata: " + jobState(this.job, this.cursor, false) + "\n\n");
+                    this.sentStatus = status;
+                }
+                writer.flush();
+                if (writer.checkError()) {
+                    throw new IOException("Conexão encerrada pelo cliente");
+                }
+            } catch (IOException e) {
+                Application.logger.log(Level.FINE, "O cliente encerrou os eventos da tarefa " + this.job.getId(), e);
+                status = VerificationJob.Status.CANCELLED;
+            }
+            if (status.isFinal()) {
+                this.completed = true;
+                this.job.removeListener(this);
+                this.async.complete();
+            }
+        }
+
+        @Override
+        public synchronized void onTimeout(AsyncEvent event) {
+            this.completed = true;
+            this.job.removeListener(this);
+            this.async.complete();
+        }
+
+        @Override
+        public synchronized void onError(AsyncEvent event) {
+            this.completed = true;
+            this.job.removeListener(this);
+        }
+
+        @Override
+        public synchronized void onComplete(AsyncEvent event) {
+            this.completed = true;
+            this.job.removeListener(this);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+
+    }
+
+}
@@ -0,0 +1,216 @@
+package br.ufsc.labsec.signature.conformanceVerifier.cache;
+
+import br.ufsc.labsec.component.Application;
+import br.ufsc.labsec.signature.PrivateDirectory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Camada persistente da cache de resultados de verificação que guarda
+ * cada entrada em um arquivo do diretório configurado. Os arquivos são
+ * escritos em um arquivo temporário e renomeados, de modo que leitores
+ * concorrentes nunca observem uma entrada incompleta.
+ *
+ * Como uma entrada é usada no lugar da verificação, o diretório deve
+ * pertencer ao usuário do processo e ser acessível apenas por ele. O total
+ * gravado é limitado; ao ultrapassar o limite, as entradas gravadas há mais
+ * tempo são removidas.
+ */
+public class FileVerificationCacheStore implements VerificationCacheStore {
+
+    private static final String SUFFIX = ".report";
+    private static final int HEADER_SIZE = 8;
+
+    /**
+     * Tamanho máximo padrão do diretório, em bytes
+     */
+    public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+    private final Path directory;
+    private final long maxBytes;
+    private final AtomicLong size = new AtomicLong();
+
+    /**
+     * Construtor
+     * @param directory Diretório onde as entradas serão armazenadas
+     * @param maxBytes Tamanho máximo das entradas armazenadas, em bytes
+     * @throws IOException Exceção caso o diretório não possa ser criado, não
+     * pertença ao usuário do processo ou seja acessível a outros usuários
+     */
+    public FileVerificationCacheStore(Path directory, long maxBytes) throws IOException {
+        this.directory = PrivateDirectory.prepare(directory);
+        this.maxBytes = maxBytes;
+        for (Entry entry : this.entries()) {
+            this.size.addAndGet(entry.size);
+        }
+        this.prune();
+    }
+
+    @Override
+    public VerificationCacheEntry get(String key) {
+        try {
+            byte[] content = Files.readAllBytes(this.path(key));
+            if (content.length < HEADER_SIZE) {
+                return null;
+            }
+            long expiresAt = ByteBuffer.wrap(content).getLong();
+            return new VerificationCacheEntry(Arrays.copyOfRange(content, HEADER_SIZE, content.length), expiresAt);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            Application.logger.log(Level.WARNING, "Não foi possível ler a entrada " + key + " da cache de verificação", e);
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String key, VerificationCacheEntry entry) {
+        Path temporary = null;
+        try {
+            temporary = Files.createTempFile(this.directory, key, ".tmp");
+            byte[] report = entry.getReport();
+            ByteBuffer content = ByteBuffer.allocate(HEADER_SIZE + report.length);
+            content.putLong(entry.getExpiresAt()).put(report);
+            Files.write(temporary, content.array());
+            long previous = this.sizeOf(this.path(key));
+            try {
+                Files.move(temporary, this.path(key), StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, this.path(key), StandardCopyOption.REPLACE_EXISTING);
+            }
+            this.size.addAndGet(content.capacity() - previous);
+            this.prune();
+        } catch (IOException e) {
+            Application.logger.log(Level.WARNING, "Não foi possível gravar a entrada " + key + " da cache de verificação", e);
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException ignored) {
+                    // o arquivo temporário é removido na próxima limpeza da cache
+                }
+            }
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+        try {
+            Path path = this.path(key);
+            long previous = this.sizeOf(path);
+            if (Files.deleteIfExists(path)) {
+                this.size.addAndGet(-previous);
+            }
+        } catch (IOException e) {
+            Application.logger.log(Level.WARNING, "Não foi possível remover a entrada " + key + " da cache de verificação", e);
+        }
+    }
+
+    @Override
+    public void clear() {
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(this.directory)) {
+            for (Path entry : entries) {
+                Files.deleteIfExists(entry);
+            }
+            this.size.set(0);
+        } catch (IOException e) {
+            Application.logger.log(Level.WARNING, "Não foi possível limpar a cache de verificação em " + this.directory, e);
+        }
+    }
+
+    private Path path(String key) {
+        return this.directory.resolve(key + SUFFIX);
+    }
+
+    private long sizeOf(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Remove as entradas gravadas há mais tempo até que o total armazenado
+     * volte ao limite configurado
+     */
+    private synchronized void prune() {
+        if (this.size.get() <= this.maxBytes) {
+            return;
+        }
+        List<Entry> entries = this.entries();
+        entries.sort(Comparator.comparingLong(entry -> entry.modified));
+        long total = 0;
+        for (Entry entry : entries) {
+            total += entry.size;
+        }
+        for (Entry entry : entries) {
+            if (total <= this.maxBytes) {
+                break;
+            }
+            try {
+                if (Files.deleteIfExists(entry.path)) {
+                    total -= entry.size;
+                }
+            } catch (IOException e) {
+                Application.logger.log(Level.WARNING, "Não foi possível remover a entrada " + entry.path
+                        + " da cache de verificação", e);
+            }
+        }
+        this.size.set(total);
+    }
+
+    /**
+     * Lista as entradas armazenadas
+     * @return As entradas, com o tamanho e a data de gravação
+     */
+    private List<Entry> entries() {
+        List<Entry> entries = new ArrayList<>();
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(this.directory, "*" + SUFFIX)) {
+            for (Path path : paths) {
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    entries.add(new Entry(path, attributes.size(), attributes.lastModifiedTime().toMillis()));
+                } catch (NoSuchFileException ignored) {
+                    // removida concorrentemente
+                }
+            }
+        } catch (IOException e) {
+            Application.logger.log(Level.WARNING, "Não foi possível listar a cache de verificação em "
+                    + this.directory, e);
+        }
+        return entries;
+    }
+
+    /**
+     * Arquivo de uma entrada, com o seu tamanho e a data de gravação
+     */
+    private static final class Entry {
+
+        private final Path path;
+        private final long size;
+        private final long modified;
+
+        private Entry(Path path, long size, long modified) {
+            this.path = path;
+            this.size = size;
+            this.modified = modified;
+        }
+
+    }
+
+}
@@ -0,0 +1,270 @@
+package br.ufsc.labsec.signature.conformanceVerifier.cache;
+
+import br.ufsc.labsec.signature.conformanceVerifier.metrics.VerificationMetrics;
+import br.ufsc.labsec.signature.conformanceVerifier.report.SignatureReport;
+import br.ufsc.labsec.signature.conformanceVerifier.report.ValidationDataReport;
+import br.ufsc.labsec.signature.repository.bundle.ValidationBundleRepository;
+import org.bouncycastle.util.encoders.Hex;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertPath;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.CertificateException;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache da validação do caminho de certificação das carimbadoras de tempo.
+ *
+ * Os arquivos costumam conter muitos carimbos emitidos pelos mesmos poucos
+ * certificados de carimbadora. A validação do caminho de certificação do
+ * certificado da carimbadora depende apenas do certificado, da política de
+ * assinatura, que define os requisitos de revogação, das âncoras de confiança
+ * usadas e da data de referência do carimbo. A chave de cada entrada é formada
+ * pelo resumo do certificado, pelo identificador da política, pela impressão
+ * das âncoras de confiança e pelo intervalo de tempo em que cai a data de
+ * referência, de modo que o resultado é
+ * compartilhado entre carimbos, assinaturas e requisições. A verificação da
+ * assinatura e do resumo de cada carimbo continua sendo feita sempre.
+ *
+ * Apenas validações bem-sucedidas são guardadas: um caminho inválido depende
+ * dos dados de revogação presentes em cada assinatura e é sempre revalidado.
+ * Ao reutilizar uma entrada, o período de validade dos certificados do caminho
+ * é conferido na data de referência do carimbo. As entradas expiram após o
+ * tempo de vida configurado, limitado pela menor data de próxima atualização
+ * das LCRs usadas, e são descartadas quando o pacote de validação ativo muda
+ * ou em {@link #invalidateAll()}.
+ */
+public final class TimeStampValidationCache {
+
+    /**
+     * Quantidade padrão de entradas
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+    /**
+     * Largura padrão do intervalo de datas de referência que compartilham uma
+     * entrada, em milissegundos
+     */
+    public static final long DEFAULT_TIME_BUCKET = TimeUnit.HOURS.toMillis(1);
+    /**
+     * Tempo de vida padrão de uma entrada, em milissegundos
+     */
+    public static final long DEFAULT_TTL = TimeUnit.MINUTES.toMillis(10);
+
+    private static final TimeStampValidationCache instance = new TimeStampValidationCache();
+
+    /**
+     * Época das entradas, incrementada a cada invalidação
+     */
+    private static final AtomicLong epoch = new AtomicLong();
+
+    private volatile long timeBucket;
+    private volatile long ttl;
+    private int maxEntries;
+    private Map<String, Entry> entries;
+
+    private TimeStampValidationCache() {
+        this.configure(DEFAULT_MAX_ENTRIES, DEFAULT_TIME_BUCKET, DEFAULT_TTL);
+    }
+
+    /**
+     * Retorna a instância do processo
+     * @return A cache de validações das carimbadoras
+     */
+    public static TimeStampValidationCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Configura a cache, descartando as entradas existentes. Um valor não
+     * positivo em qualquer parâmetro desabilita a cache.
+     * @param maxEntries Quantidade máxima de entradas
+     * @param timeBucket Largura do intervalo de datas de referência que
+     *                   compartilham uma entrada, em milissegundos
+     * @param ttl Tempo de vida de uma entrada, em milissegundos
+     */
+    public synchronized void configure(int maxEntries, long timeBucket, long ttl) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return this.size() > maxEntries;
+            }
+        };
+        this.timeBucket = timeBucket;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Indica se a cache está habilitada
+     * @return Verdadeiro se a cache deve ser consultada
+     */
+    public synchronized boolean isEnabled() {
+        return this.maxEntries > 0 && this.timeBucket > 0 && this.ttl > 0;
+    }
+
+    /**
+     * Calcula a chave da validação do certificado de uma carimbadora
+     * @param tsaCertificate O certificado da carimbadora
+     * @param policyId O identificador da política de assinatura
+     * @param trustAnchors As âncoras de confiança contra as quais o caminho é validado
+     * @param timeReference A data de referência do carimbo
+     * @return A chave, ou nulo caso a cache esteja desabilitada ou o certificado
+     * não possa ser codificado
+     */
+    public String key(X509Certificate tsaCertificate, String policyId, Set<TrustAnchor> trustAnchors,
+            Date timeReference) {
+        if (!this.isEnabled() || tsaCertificate == null || timeReference == null) {
+            return null;
+        }
+        byte[] encoded;
+        try {
+            encoded = tsaCertificate.getEncoded();
+        } catch (CertificateEncodingException e) {
+            return null;
+        }
+        return Hex.toHexString(sha256().digest(encoded)) + '|' + policyId
+                + '|' + VerificationResultCache.trustAnchorsFingerprint(trustAnchors)
+                + '|' + Math.floorDiv(timeReference.getTime(), this.timeBucket)
+                + '|' + ValidationBundleRepository.getActiveBundle().getCreatedAt()
+                + '|' + epoch.get();
+    }
+
+    /**
+     * Busca a validação de uma carimbadora já realizada
+     * @param key A chave da validação, ou nulo
+     * @param timeReference A data de referência do carimbo
+     * @return A entrada, ou nulo caso não esteja na cache, tenha expirado ou
+     * algum certificado do caminho não seja válido na data de referência
+     */
+    public Entry get(String key, Date timeReference) {
+        if (key == null) {
+            return null;
+        }
+        Entry entry;
+        synchronized (this) {
+            entry = this.entries.get(key);
+            if (entry != null && entry.expiresAt <= System.currentTimeMillis()) {
+                this.entries.remove(key);
+                entry = null;
+            }
+        }
+        if (entry == null || !entry.isValidAt(timeReference)) {
+            VerificationMetrics.cacheMiss("timestamp");
+            return null;
+        }
+        VerificationMetrics.cacheHit("timestamp");
+        return entry;
+    }
+
+    /**
+     * Armazena uma validação bem-sucedida do caminho de certificação de uma carimbadora
+     * @param key A chave da validação, ou nulo
+     * @param certPath O caminho de certificação
+     * @param validation Os dados de validação adicionados ao relatório pela validação
+     */
+    public void put(String key, CertPath certPath, Collection<ValidationDataReport> validation) {
+        if (key == null || certPath == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long expiresAt = now + this.ttl;
+        for (ValidationDataReport data : validation) {
+            Date nextUpdate = data.getNextUpdate();
+            if (nextUpdate != null) {
+                expiresAt = Math.min(expiresAt, nextUpdate.getTime());
+            }
+        }
+        if (expiresAt <= now) {
+            return;
+        }
+        Entry entry = new Entry(certPath, new ArrayList<>(validation), expiresAt);
+        synchronized (this) {
+            this.entries.put(key, entry);
+        }
+    }
+
+    /**
+     * Invalida todas as entradas, forçando a revalidação das carimbadoras
+     */
+    public void invalidateAll() {
+        epoch.incrementAndGet();
+        synchronized (this) {
+            this.entries.clear();
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Validação bem-sucedida do caminho de certificação de uma carimbadora
+     */
+    public static final class Entry {
+
+        private final CertPath certPath;
+        private final List<ValidationDataReport> validation;
+        private final long expiresAt;
+
+        private Entry(CertPath certPath, List<ValidationDataReport> validation, long expiresAt) {
+            this.certPath = certPath;
+            this.validation = Collections.unmodifiableList(validation);
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * Retorna o caminho de certificação da carimbadora
+         * @return O caminho de certificação
+         */
+        public CertPath getCertPath() {
+            return this.certPath;
+        }
+
+        /**
+         * Adiciona ao relatório do carimbo os dados de validação da validação
+         * original. Os dados são compartilhados entre os relatórios e não devem
+         * ser alterados.
+         * @param report O relatório do carimbo
+         */
+        public void addValidationTo(SignatureReport report) {
+            for (ValidationDataReport data : this.validation) {
+                report.addValidation(data);
+            }
+        }
+
+        /**
+         * Confere o período de validade dos certificados do caminho
+         * @param timeReference A data de referência
+         * @return Indica se todos os certificados são válidos na data
+         */
+        private boolean isValidAt(Date timeReference) {
+            try {
+                for (Certificate certificate : this.certPath.getCertificates()) {
+                    ((X509Certificate) certificate).checkValidity(timeReference);
+                }
+                return true;
+            } catch (CertificateException e) {
+                return false;
+            }
+        }
+
+    }
+
+}
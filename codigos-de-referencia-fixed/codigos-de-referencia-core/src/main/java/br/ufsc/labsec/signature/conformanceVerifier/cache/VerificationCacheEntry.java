@@ -0,0 +1,57 @@
+package br.ufsc.labsec.signature.conformanceVerifier.cache;
+
+import java.io.Serializable;
+
+/**
+ * Entrada da cache de resultados de verificação. Guarda o relatório
+ * serializado, de modo que cada acerto produza uma cópia independente.
+ */
+public final class VerificationCacheEntry implements Serializable {
+
+    private static final long serialVersionUID = 6610833127746301845L;
+
+    /**
+     * Relatório serializado
+     */
+    private final byte[] report;
+    /**
+     * Instante de expiração, em milissegundos desde a época
+     */
+    private final long expiresAt;
+
+    /**
+     * Construtor
+     * @param report O relatório serializado
+     * @param expiresAt Instante de expiração
+     */
+    public VerificationCacheEntry(byte[] report, long expiresAt) {
+        this.report = report;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Retorna o relatório serializado
+     * @return Os bytes do relatório
+     */
+    public byte[] getReport() {
+        return this.report;
+    }
+
+    /**
+     * Retorna o instante de expiração
+     * @return O instante em milissegundos desde a época
+     */
+    public long getExpiresAt() {
+        return this.expiresAt;
+    }
+
+    /**
+     * Indica se a entrada expirou
+     * @param now O instante atual
+     * @return Verdadeiro se a entrada não deve mais ser usada
+     */
+    public boolean isExpired(long now) {
+        return now >= this.expiresAt;
+    }
+
+}
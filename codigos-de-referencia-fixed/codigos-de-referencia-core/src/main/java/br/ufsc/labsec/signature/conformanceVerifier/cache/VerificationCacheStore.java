@@ -0,0 +1,35 @@
+package br.ufsc.labsec.signature.conformanceVerifier.cache;
+
+/**
+ * Camada persistente da cache de resultados de verificação. Implementações
+ * devem ser seguras para uso concorrente; falhas de leitura devem ser
+ * tratadas como ausência da entrada.
+ */
+public interface VerificationCacheStore {
+
+    /**
+     * Busca uma entrada
+     * @param key A chave da entrada
+     * @return A entrada, ou nulo caso não exista
+     */
+    VerificationCacheEntry get(String key);
+
+    /**
+     * Armazena uma entrada, substituindo a anterior de mesma chave
+     * @param key A chave da entrada
+     * @param entry A entrada
+     */
+    void put(String key, VerificationCacheEntry entry);
+
+    /**
+     * Remove uma entrada
+     * @param key A chave da entrada
+     */
+    void remove(String key);
+
+    /**
+     * Remove todas as entradas
+     */
+    void clear();
+
+}
@@ -0,0 +1,417 @@
+package br.ufsc.labsec.signature.conformanceVerifier.cache;
+
+import br.ufsc.labsec.component.Application;
+import br.ufsc.labsec.signature.SpooledContent;
+import br.ufsc.labsec.signature.conformanceVerifier.metrics.VerificationMetrics;
+import br.ufsc.labsec.signature.conformanceVerifier.report.Report;
+import br.ufsc.labsec.signature.conformanceVerifier.report.SignatureReport;
+import br.ufsc.labsec.signature.conformanceVerifier.report.ValidationDataReport;
+import br.ufsc.labsec.signature.repository.bundle.ValidationBundleRepository;
+import org.bouncycastle.util.encoders.Hex;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.TrustAnchor;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Cache de resultados de verificação endereçada pelo conteúdo verificado.
+ *
+ * A chave de cada entrada é o SHA-256 dos bytes da assinatura, do conteúdo
+ * assinado e de uma impressão do contexto de validação, composta pelas
+ * âncoras de confiança, pela versão mais recente da LPA do formato da
+ * assinatura e pela época
+ * dos dados de revogação (o pacote de validação ativo e um contador
+ * incrementado por {@link #invalidateAll()}). Qualquer mudança no contexto
+ * produz chaves diferentes, de modo que resultados antigos deixam de ser
+ * encontrados.
+ *
+ * As entradas expiram na menor data de próxima atualização das LCRs e
+ * respostas OCSP usadas na verificação, limitada pelo tempo máximo
+ * configurado. Relatórios cujo resultado pode depender de falhas do
+ * ambiente, como LCRs ou LPAs inacessíveis, ficam na cache por pouco tempo.
+ * Há uma camada em memória, limitada pela quantidade de
+ * entradas, e uma camada persistente opcional, limitada pelo tamanho e
+ * restrita a um diretório privado do processo.
+ *
+ * A cache é desabilitada por padrão.
+ */
+public final class VerificationResultCache {
+
+    /**
+     * Quantidade padrão de entradas na camada em memória
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 512;
+    /**
+     * Tempo de vida padrão de uma entrada, em milissegundos
+     */
+    public static final long DEFAULT_MAX_TTL = TimeUnit.HOURS.toMillis(24);
+    /**
+     * Tempo de vida de um relatório indeterminado ou com erro na obtenção da LPA,
+     * em milissegundos
+     */
+    public static final long INDETERMINATE_TTL = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * Tamanho dos blocos lidos ao resumir o conteúdo destacado
+     */
+    private static final int BLOCK_SIZE = 64 * 1024;
+    /**
+     * Marcadores que distinguem a ausência de conteúdo destacado de um conteúdo vazio
+     */
+    private static final byte ABSENT = 0;
+    private static final byte PRESENT = 1;
+
+    /**
+     * Classes aceitas na desserialização dos relatórios
+     */
+    private static final ObjectInputFilter REPORT_FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=32;br.ufsc.labsec.signature.conformanceVerifier.report.*;java.util.*;java.lang.*;!*");
+
+    private static final VerificationResultCache instance = new VerificationResultCache();
+
+    /**
+     * Resumo da última LPA obtida de cada URL
+     */
+    private static final Map<String, String> lpaDigests = new ConcurrentHashMap<>();
+    /**
+     * Época dos dados de revogação, incrementada a cada invalidação
+     */
+    private static final AtomicLong epoch = new AtomicLong();
+
+    private volatile boolean enabled;
+    private volatile long maxTtl;
+    private volatile VerificationCacheStore store;
+    private Map<String, VerificationCacheEntry> memory;
+
+    private VerificationResultCache() {
+        this.configure(false, DEFAULT_MAX_ENTRIES, DEFAULT_MAX_TTL, null);
+    }
+
+    /**
+     * Retorna a instância do processo
+     * @return A cache de resultados
+     */
+    public static VerificationResultCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Configura a cache, descartando as entradas em memória
+     * @param enabled Indica se a cache deve ser usada
+     * @param maxEntries Quantidade máxima de entradas em memória
+     * @param maxTtl Tempo de vida máximo de uma entrada, em milissegundos
+     * @param store Camada persistente, ou nulo para usar apenas a memória
+     */
+    public synchronized void configure(boolean enabled, int maxEntries, long maxTtl, VerificationCacheStore store) {
+        this.memory = new LinkedHashMap<String, VerificationCacheEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerificationCacheEntry> eldest) {
+                return this.size() > maxEntries;
+            }
+        };
+        this.maxTtl = maxTtl;
+        this.store = store;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Indica se a cache está habilitada
+     * @return Verdadeiro se a cache deve ser consultada
+     */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Registra a LPA obtida de uma URL, alterando a impressão do contexto de validação
+     * @param url A URL da LPA
+     * @param lpaBytes Os bytes da LPA
+     */
+    public static void recordLpa(String url, byte[] lpaBytes) {
+        if (url != null && lpaBytes != null) {
+            lpaDigests.put(url, Hex.toHexString(sha256().digest(lpaBytes)));
+        }
+    }
+
+    /**
+     * Calcula o resumo de um arquivo de assinatura e do seu conteúdo destacado.
+     * Ambos são lidos em blocos, sem serem carregados em memória, e o resumo pode
+     * ser usado para calcular a chave mais de uma vez sem reler o conteúdo
+     * @param signature O arquivo de assinatura
+     * @param detached O conteúdo assinado, ou nulo caso não haja
+     * @return O resumo SHA-256
+     * @throws IOException Exceção caso o conteúdo não possa ser lido
+     */
+    public byte[] contentDigest(SpooledContent signature, SpooledContent detached) throws IOException {
+        MessageDigest digest = sha256();
+        update(digest, signature);
+        if (detached == null) {
+            digest.update(ABSENT);
+        } else {
+            digest.update(PRESENT);
+            update(digest, detached);
+        }
+        return digest.digest();
+    }
+
+    private static void update(MessageDigest digest, SpooledContent content) throws IOException {
+        digest.update(ByteBuffer.allocate(Long.BYTES).putLong(content.length()).array());
+        try (InputStream input = content.openStream()) {
+            byte[] buffer = new byte[BLOCK_SIZE];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+    }
+
+    /**
+     * Calcula a chave de uma verificação no contexto de validação atual
+     * @param contentDigest O resumo da assinatura e do conteúdo destacado, obtido
+     *                      por {@link #contentDigest(SpooledContent, SpooledContent)}
+     * @param trustAnchors As âncoras de confiança usadas na verificação
+     * @param lpaUrl A URL da LPA do formato da assinatura, ou nulo caso não se aplique
+     * @return A chave em base 16
+     */
+    public String key(byte[] contentDigest, Set<TrustAnchor> trustAnchors, String lpaUrl) {
+        MessageDigest digest = sha256();
+        digest.update(contentDigest);
+        update(digest, this.contextFingerprint(trustAnchors, lpaUrl));
+        return Hex.toHexString(digest.digest());
+    }
+
+    /**
+     * Calcula a impressão do contexto de validação
+     * @param trustAnchors As âncoras de confiança
+     * @param lpaUrl A URL da LPA do formato da assinatura
+     * @return O resumo do contexto
+     */
+    private byte[] contextFingerprint(Set<TrustAnchor> trustAnchors, String lpaUrl) {
+        StringBuilder context = new StringBuilder();
+        context.append("anchors=").append(trustAnchorsFingerprint(trustAnchors)).append('\n');
+        if (lpaUrl != null) {
+            context.append("lpa=").append(lpaUrl).append(' ').append(lpaDigests.get(lpaUrl)).append('\n');
+        }
+        context.append("bundle=").append(ValidationBundleRepository.getActiveBundle().getCreatedAt()).append('\n');
+        context.append("epoch=").append(epoch.get()).append('\n');
+        return sha256().digest(context.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Calcula uma impressão estável de um conjunto de âncoras de confiança: o
+     * SHA-256 da lista ordenada dos resumos dos certificados das âncoras, ou do
+     * nome e da chave pública das âncoras sem certificado
+     * @param trustAnchors As âncoras de confiança, ou nulo
+     * @return A impressão em base 16
+     */
+    static String trustAnchorsFingerprint(Set<TrustAnchor> trustAnchors) {
+        List<String> anchors = new ArrayList<>();
+        if (trustAnchors != null) {
+            for (TrustAnchor anchor : trustAnchors) {
+                if (anchor.getTrustedCert() == null) {
+                    byte[] key = anchor.getCAPublicKey() == null ? null : anchor.getCAPublicKey().getEncoded();
+                    anchors.add(anchor.getCAName() + ' ' + (key == null ? "" : Hex.toHexString(sha256().digest(key))));
+                    continue;
+                }
+                try {
+                    anchors.add(Hex.toHexString(sha256().digest(anchor.getTrustedCert().getEncoded())));
+                } catch (CertificateEncodingException e) {
+                    anchors.add(anchor.getTrustedCert().getSubjectX500Principal().getName());
+                }
+            }
+        }
+        anchors.sort(null);
+        return Hex.toHexString(sha256().digest(String.join(",", anchors).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Busca o relatório de uma verificação já realizada. A data de verificação
+     * do relatório é a da consulta, e não a da verificação original
+     * @param key A chave da verificação
+     * @return Uma cópia do relatório, ou nulo caso não esteja na cache ou tenha expirado
+     */
+    public Report get(String key) {
+        if (!this.enabled) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        VerificationCacheEntry entry;
+        synchronized (this) {
+            entry = this.memory.get(key);
+        }
+        VerificationCacheStore store = this.store;
+        if (entry == null && store != null) {
+            entry = store.get(key);
+            if (entry != null && !entry.isExpired(now)) {
+                synchronized (this) {
+                    this.memory.put(key, entry);
+                }
+            }
+        }
+        if (entry == null || entry.isExpired(now)) {
+            if (entry != null) {
+                this.remove(key);
+            }
+            VerificationMetrics.cacheMiss("verification");
+            return null;
+        }
+
+        Report report = deserialize(entry.getReport());
+        if (report == null) {
+            this.remove(key);
+            VerificationMetrics.cacheMiss("verification");
+            return null;
+        }
+        VerificationMetrics.cacheHit("verification");
+        report.setVerificationDate(new Date(now));
+        return report;
+    }
+
+    /**
+     * Armazena o relatório de uma verificação, com validade até a menor data de
+     * próxima atualização dos dados de revogação usados. Relatórios
+     * indeterminados ou com erro na LPA valem por {@link #INDETERMINATE_TTL}
+     * @param key A chave da verificação
+     * @param report O relatório
+     */
+    public void put(String key, Report report) {
+        if (!this.enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long expiresAt = now + this.maxTtl;
+        if (report.getLpaErrorMessage() != null) {
+            expiresAt = Math.min(expiresAt, now + INDETERMINATE_TTL);
+        }
+        for (SignatureReport signature : report.getSignatures()) {
+            expiresAt = Math.min(expiresAt, earliestNextUpdate(signature));
+            if (signature.validityStatus() == SignatureReport.SignatureValidity.Indeterminate) {
+                expiresAt = Math.min(expiresAt, now + INDETERMINATE_TTL);
+            }
+        }
+        if (expiresAt <= now) {
+            return;
+        }
+        byte[] serialized = serialize(report);
+        if (serialized == null) {
+            return;
+        }
+        VerificationCacheEntry entry = new VerificationCacheEntry(serialized, expiresAt);
+        synchronized (this) {
+            this.memory.put(key, entry);
+        }
+        VerificationCacheStore store = this.store;
+        if (store != null) {
+            store.put(key, entry);
+        }
+    }
+
+    /**
+     * Invalida todas as entradas, forçando a revalidação de todos os documentos
+     */
+    public void invalidateAll() {
+        epoch.incrementAndGet();
+        synchronized (this) {
+            this.memory.clear();
+        }
+        VerificationCacheStore store = this.store;
+        if (store != null) {
+            store.clear();
+        }
+    }
+
+    private void remove(String key) {
+        synchronized (this) {
+            this.memory.remove(key);
+        }
+        VerificationCacheStore store = this.store;
+        if (store != null) {
+            store.remove(key);
+        }
+    }
+
+    /**
+     * Busca a menor data de próxima atualização dos dados de revogação de uma
+     * assinatura, de seus carimbos de tempo e de suas contra-assinaturas
+     * @param signature O relatório da assinatura
+     * @return A data em milissegundos, ou {@link Long#MAX_VALUE} caso nenhuma seja informada
+     */
+    private static long earliestNextUpdate(SignatureReport signature) {
+        long earliest = Long.MAX_VALUE;
+        if (signature.getValidation() != null) {
+            for (ValidationDataReport validation : signature.getValidation()) {
+                Date nextUpdate = validation.getNextUpdate();
+                if (nextUpdate != null) {
+                    earliest = Math.min(earliest, nextUpdate.getTime());
+                }
+            }
+        }
+        List<SignatureReport> nested = new ArrayList<>();
+        if (signature.getStamps() != null) {
+            nested.addAll(signature.getStamps());
+        }
+        if (signature.getCounterSignatures() != null) {
+            nested.addAll(signature.getCounterSignatures());
+        }
+        for (SignatureReport report : nested) {
+            earliest = Math.min(earliest, earliestNextUpdate(report));
+        }
+        return earliest;
+    }
+
+    private static byte[] serialize(Report report) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(report);
+        } catch (IOException e) {
+            Application.logger.log(Level.WARNING, "Não foi possível serializar o relatório para a cache de verificação", e);
+            return null;
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Report deserialize(byte[] serialized) {
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            input.setObjectInputFilter(REPORT_FILTER);
+            return (Report) input.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            Application.logger.log(Level.WARNING, "Entrada inválida na cache de verificação", e);
+            return null;
+        }
+    }
+
+    private static void update(MessageDigest digest, byte[] data) {
+        byte[] content = data == null ? new byte[0] : data;
+        digest.update(ByteBuffer.allocate(Long.BYTES).putLong(content.length).array());
+        digest.update(content);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
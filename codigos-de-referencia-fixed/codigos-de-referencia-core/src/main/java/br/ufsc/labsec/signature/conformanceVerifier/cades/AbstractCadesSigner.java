@@ -587,25 +587,26 @@ public abstract class AbstractCadesSigner extends SignatureDataWrapperGenerator
 	public byte[] getSignedContentHash() throws NoSuchAlgorithmException, IOException {
 		String policyHashAlgorithm = this.attributeIncluder.getCadesSignature().signaturePolicyInterface
 				.getHashAlgorithmId();
-		byte[] content = null;
-		byte[] messageDigest = null;
-		content = Streams.readAll(attributeIncluder.getContent());
-		messageDigest = this.getMessageDigest(content,
+		return getMessageDigest(attributeIncluder.getContent(),
 				AlgorithmIdentifierMapper.getAlgorithmNameFromIdentifier(policyHashAlgorithm));
-		return messageDigest;
 	}
 
 	/**
-	 * Calcula o valor de hash do conteúdo
-	 * @param content O conteúdo
+	 * Calcula o valor de hash do conteúdo, lido em blocos
+	 * @param content O stream do conteúdo
 	 * @param hashAlgorithmName O algoritmo a ser utilizado no cálculo
 	 * @return O valor de hash do conteúdo
 	 * @throws NoSuchAlgorithmException Exceção caso o algoritmo não seja válido
+	 * @throws IOException Exceção em caso de erro na leitura do conteúdo
 	 */
-	private byte[] getMessageDigest(byte[] content, String hashAlgorithmName) throws NoSuchAlgorithmException,
-			IOException {
+	private static byte[] getMessageDigest(InputStream content, String hashAlgorithmName)
+			throws NoSuchAlgorithmException, IOException {
 		MessageDigest digester = MessageDigest.getInstance(hashAlgorithmName);
-		digester.update(content);
+		byte[] buffer = new byte[64 * 1024];
+		int read;
+		while ((read = content.read(buffer)) != -1) {
+			digester.update(buffer, 0, read);
+		}
 		return digester.digest();
 	}
 
@@ -22,7 +22,6 @@ import org.bouncycastle.asn1.cms.ContentInfo;
 import org.bouncycastle.cms.CMSException;
 import org.bouncycastle.cms.CMSSignedData;
 import org.bouncycastle.tsp.TSPException;
-import org.bouncycastle.util.io.Streams;
 
 import br.ufsc.labsec.component.Application;
 import br.ufsc.labsec.signature.AlgorithmIdentifierMapper;
@@ -149,19 +148,15 @@ public class CadesAttributeIncluder {
 			IOException {
 		String policyHashAlgorithm = this.getCadesSignature().signaturePolicyInterface
 				.getHashAlgorithmId();
-		byte[] content = null;
-		byte[] messageDigest = null;
+		String hashAlgorithmName = AlgorithmIdentifierMapper
+				.getAlgorithmNameFromIdentifier(policyHashAlgorithm);
 		if (this.getContent() != null) { // Se não temos um content file
 											// significa que estamos
 											// contra-assinando
-			content = Streams.readAll(this.getContent());
-		} else {
-			content = this.contentToBeSigned.getContentToBeSigned();
+			return getMessageDigest(this.getContent(), hashAlgorithmName);
 		}
-		messageDigest = this.getMessageDigest(content,
-				AlgorithmIdentifierMapper
-						.getAlgorithmNameFromIdentifier(policyHashAlgorithm));
-		return messageDigest;
+		return this.getMessageDigest(this.contentToBeSigned.getContentToBeSigned(),
+				hashAlgorithmName);
 	}
 
 	/**
@@ -186,6 +181,26 @@ public class CadesAttributeIncluder {
 		return digester.digest();
 	}
 
+	/**
+	 * Calcula o valor de hash de um conteúdo lido em blocos, sem carregá-lo
+	 * inteiro em memória
+	 * @param content O stream do conteúdo
+	 * @param hashAlgorithmName O algoritmo a ser utilizado no cálculo
+	 * @return O valor de hash do conteúdo
+	 * @throws NoSuchAlgorithmException Exceção caso o algoritmo não seja válido
+	 * @throws IOException Exceção em caso de erro na leitura do conteúdo
+	 */
+	private static byte[] getMessageDigest(InputStream content, String hashAlgorithmName)
+			throws NoSuchAlgorithmException, IOException {
+		MessageDigest digester = MessageDigest.getInstance(hashAlgorithmName);
+		byte[] buffer = new byte[64 * 1024];
+		int read;
+		while ((read = content.read(buffer)) != -1) {
+			digester.update(buffer, 0, read);
+		}
+		return digester.digest();
+	}
+
 	/**
 	 * Retora o componente de assinatura CAdES
 	 * @return O componente de assinatura CAdES
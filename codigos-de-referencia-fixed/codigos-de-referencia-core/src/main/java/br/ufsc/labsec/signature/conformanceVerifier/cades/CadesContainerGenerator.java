@@ -17,7 +17,6 @@ import java.io.OutputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
-import java.security.Security;
 import java.security.cert.CertPath;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateEncodingException;
@@ -29,6 +28,7 @@ import java.util.Date;
 import java.util.Hashtable;
 import java.util.List;
 
+import br.ufsc.labsec.signature.JcaProviders;
 import br.ufsc.labsec.signature.SystemTime;
 import org.bouncycastle.asn1.ASN1EncodableVector;
 import org.bouncycastle.asn1.ASN1ObjectIdentifier;
@@ -41,7 +41,6 @@ import org.bouncycastle.cms.CMSSignedDataStreamGenerator;
 import org.bouncycastle.cms.SignerInfoGenerator;
 import org.bouncycastle.cms.SimpleAttributeTableGenerator;
 import org.bouncycastle.cms.jcajce.JcaSignerInfoGeneratorBuilder;
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.operator.ContentSigner;
 import org.bouncycastle.operator.DigestCalculatorProvider;
 import org.bouncycastle.operator.OperatorCreationException;
@@ -108,7 +107,7 @@ public class CadesContainerGenerator implements ContainerGenerator {
 		this.signaturePolicy = cadesComponent.signaturePolicyInterface;
 		this.signatureAttributes = new ArrayList<SignatureAttribute>();
 		this.cmsSignedDataGenerator = new CMSSignedDataStreamGenerator();
-		Security.addProvider(new BouncyCastleProvider());
+		JcaProviders.install();
 	}
 
 	/**
@@ -385,7 +384,7 @@ public class CadesContainerGenerator implements ContainerGenerator {
 						.getAlgorithmNameFromIdentifier(signatureAlgorithm));
 		ContentSigner contentSigner = contentSignerBuilder.build(privateKey);
 		DigestCalculatorProvider digestCalculatorProvider = new JcaDigestCalculatorProviderBuilder()
-				.setProvider("BC").build();
+				.setProvider(JcaProviders.bouncyCastle()).build();
 		JcaSignerInfoGeneratorBuilder signerInfoGeneratorBuilder = new JcaSignerInfoGeneratorBuilder(
 				digestCalculatorProvider);
 		X509Certificate signerCertificate = (X509Certificate) certificate;
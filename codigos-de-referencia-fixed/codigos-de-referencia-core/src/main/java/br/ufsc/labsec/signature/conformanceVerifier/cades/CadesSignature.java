@@ -9,11 +9,9 @@ Apoio: Colégio Notarial do Brasil (CNB) e Instituto Nacional de Tecnologia da I
 
 package br.ufsc.labsec.signature.conformanceVerifier.cades;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.security.cert.CRLException;
 import java.security.cert.CertificateException;
-import java.security.cert.CertificateFactory;
 import java.security.cert.X509CRL;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
@@ -27,6 +25,8 @@ import org.bouncycastle.cms.SignerInformation;
 import org.bouncycastle.util.Selector;
 import org.bouncycastle.util.Store;
 
+import br.ufsc.labsec.signature.CertificateInterner;
+import br.ufsc.labsec.signature.JcaProviders;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.attributes.SignatureAttribute;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.attributes.SigningCertificateInterface;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.attributes.signed.IdAaEtsSigPolicyId;
@@ -123,13 +123,11 @@ public class CadesSignature extends CadesSignatureInformation {
         Store certStore = this.cadesSignatureContainer.cmsSignedData.getCertificates();
         Selector selector = new SelectorCert();
         Collection<X509CertificateHolder> collection = certStore.getMatches(selector);
-        CertificateFactory certificateFac = CertificateFactory.getInstance("X509");
 
         ArrayList<X509Certificate> certificates = new ArrayList<X509Certificate>();
 
         for (X509CertificateHolder x509CertificateHolder : collection) {
-            certificates.add((X509Certificate) certificateFac.generateCertificate(new ByteArrayInputStream(x509CertificateHolder
-                    .getEncoded())));
+            certificates.add(CertificateInterner.intern(x509CertificateHolder.getEncoded()));
         }
 
         return certificates;
@@ -194,7 +192,7 @@ public class CadesSignature extends CadesSignatureInformation {
     	Store crlStore = this.cadesSignatureContainer.cmsSignedData.getCRLs(); 
     	Selector selector = new SelectorCert();
     	Collection<X509CRLHolder> collection = crlStore.getMatches(selector); 
-    	JcaX509CRLConverter crlConverter = new JcaX509CRLConverter().setProvider("BC"); 
+    	JcaX509CRLConverter crlConverter = new JcaX509CRLConverter().setProvider(JcaProviders.bouncyCastle()); 
 	    
     	List<X509CRL> crls = new ArrayList<X509CRL>(); 
      	
@@ -13,11 +13,12 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.security.Security;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
 
 import org.bouncycastle.asn1.ASN1Sequence;
 import org.bouncycastle.asn1.ASN1TaggedObject;
@@ -27,8 +28,10 @@ import org.bouncycastle.cms.CMSProcessableFile;
 import org.bouncycastle.cms.CMSSignedData;
 import org.bouncycastle.cms.SignerInformation;
 import org.bouncycastle.cms.SignerInformationStore;
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
 
+import br.ufsc.labsec.component.Application;
+import br.ufsc.labsec.signature.JcaProviders;
+import br.ufsc.labsec.signature.SpooledContent;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.exceptions.CadesSignatureException;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.exceptions.SignatureModeException;
 import br.ufsc.labsec.signature.exceptions.EncodingException;
@@ -61,7 +64,7 @@ public class CadesSignatureContainer implements SignatureContainer, CmsParent {
      * @throws CadesSignatureException Exceção em caso de erro na criação do contêiner
      */
     public CadesSignatureContainer(byte[] signatureBytes, byte[] contentToBeSigned) throws CadesSignatureException {
-    	Security.addProvider(new BouncyCastleProvider());
+    	JcaProviders.install();
         try {
             this.cmsSignedData = new CMSSignedData(signatureBytes);
         } catch (CMSException cmsException) {
@@ -245,6 +248,65 @@ public class CadesSignatureContainer implements SignatureContainer, CmsParent {
         }
     }
 
+    /**
+     * Define os resumos criptográficos do conteúdo assinado que serão usados na
+     * verificação da assinatura, no lugar do próprio conteúdo.
+     * @param signedContentDigests Os resumos do conteúdo indexados pelo OID do algoritmo
+     * @throws PbadException Exceção em caso de erro ao decodificar a assinatura
+     */
+    public void setSignedContentDigests(Map<String, byte[]> signedContentDigests) throws PbadException {
+        try {
+            this.cmsSignedData = new CMSSignedData(signedContentDigests, this.signatureBytes);
+        } catch (CMSException cmsException) {
+            throw new CadesSignatureException("Erro ao decodificar assinatura", cmsException);
+        }
+    }
+
+    /**
+     * Define o conteúdo assinado que será usado na verificação das assinaturas
+     * destacadas. O conteúdo é lido uma única vez para calcular os resumos de
+     * todos os algoritmos usados pelos assinantes, e cada assinante confere o
+     * seu resumo já calculado. Caso algum algoritmo não seja suportado, o
+     * conteúdo é dado ao contêiner como em {@link #setSignedContent(byte[])}.
+     * @param signedContent Bytes do conteúdo que foi assinado
+     * @throws PbadException Exceção em caso de erro ao decodificar a assinatura
+     */
+    public void setSignedContentForVerification(byte[] signedContent) throws PbadException {
+        Map<String, byte[]> digests;
+        try {
+            digests = SignedContentDigests.digest(this.cmsSignedData, signedContent);
+        } catch (IOException ioException) {
+            Application.logger.log(Level.FINE, ioException.getMessage(), ioException);
+            this.setSignedContent(signedContent);
+            return;
+        }
+        this.setSignedContentDigests(digests);
+    }
+
+    /**
+     * Define o conteúdo assinado que será usado na verificação das assinaturas
+     * destacadas, como em {@link #setSignedContentForVerification(byte[])}, sem
+     * carregar em memória um conteúdo mantido em arquivo temporário
+     * @param signedContent O conteúdo que foi assinado
+     * @throws PbadException Exceção em caso de erro ao decodificar a assinatura
+     * ou ao ler o conteúdo
+     */
+    public void setSignedContentForVerification(SpooledContent signedContent) throws PbadException {
+        Map<String, byte[]> digests;
+        try {
+            digests = SignedContentDigests.digest(this.cmsSignedData, signedContent);
+        } catch (IOException ioException) {
+            Application.logger.log(Level.FINE, ioException.getMessage(), ioException);
+            try {
+                this.setSignedContent(signedContent.toByteArray());
+            } catch (IOException readException) {
+                throw new CadesSignatureException("Erro ao ler o conteúdo assinado", readException);
+            }
+            return;
+        }
+        this.setSignedContentDigests(digests);
+    }
+
     /**
      * Substitui o primeiro assinante que tiver o mesmo identificador do
      * assinante passado como parâmetro.
@@ -58,6 +58,7 @@ import org.bouncycastle.operator.SignatureAlgorithmIdentifierFinder;
 import org.bouncycastle.operator.jcajce.JcaContentVerifierProviderBuilder;
 import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
 
+import br.ufsc.labsec.signature.JcaProviders;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.attributes.CounterSignatureInterface;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.attributes.SignatureAttribute;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.attributes.unsigned.IdAaEtsArchiveTimeStampV2;
@@ -217,7 +218,7 @@ public class CadesSignatureInformation implements CmsParent, Signature {
         }
         try {
             contentVerifierProvider = contentVerifierProviderBuilder.build(signerCertificate);
-            digestCalculatorProvider = new JcaDigestCalculatorProviderBuilder().setProvider("BC").build();
+            digestCalculatorProvider = new JcaDigestCalculatorProviderBuilder().setProvider(JcaProviders.bouncyCastle()).build();
         } catch (OperatorCreationException operatorCreationException) {
             throw new VerificationException(operatorCreationException);
         }
@@ -3,7 +3,9 @@ package br.ufsc.labsec.signature.conformanceVerifier.cades;
 import br.ufsc.labsec.component.Application;
 import br.ufsc.labsec.signature.CertificateCollection;
 import br.ufsc.labsec.signature.Constants;
+import br.ufsc.labsec.signature.JcaProviders;
 import br.ufsc.labsec.signature.SignaturePolicyInterface.AdESType;
+import br.ufsc.labsec.signature.SpooledContent;
 import br.ufsc.labsec.signature.SystemTime;
 import br.ufsc.labsec.signature.Verifier;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.attributes.SigningCertificateInterface;
@@ -23,13 +25,11 @@ import br.ufsc.labsec.signature.conformanceVerifier.validationService.Validation
 import br.ufsc.labsec.signature.exceptions.*;
 import org.bouncycastle.asn1.cms.Attribute;
 import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.tsp.TSPException;
 import org.bouncycastle.util.io.Streams;
 
 import java.io.*;
 import java.security.NoSuchAlgorithmException;
-import java.security.Security;
 import java.security.cert.*;
 import java.sql.Time;
 import java.util.*;
@@ -38,6 +38,11 @@ import java.util.logging.Level;
 /**
  * Esta classe implementa os métodos para verificação de uma assinatura CAdES.
  * Implementa {@link Verifier}.
+ * <p>
+ * As assinaturas de um arquivo são verificadas uma a uma, na ordem do contêiner,
+ * pois o verificador guarda o estado da assinatura em verificação. Apenas a
+ * obtenção das cadeias e das LCRs dos demais assinantes é feita em paralelo,
+ * por <code>prefetchSigners</code>.
  */
 public class CadesVerifier implements Verifier {
 
@@ -93,7 +98,7 @@ public class CadesVerifier implements Verifier {
 	 */
 	public CadesVerifier(CadesSignatureComponent cadesSignature) {
 		this.cadesSignature = cadesSignature;
-		Security.addProvider(new BouncyCastleProvider());
+		JcaProviders.install();
 	}
 
 	/**
@@ -555,15 +560,65 @@ public class CadesVerifier implements Verifier {
 	 */
 	@Override
 	public Report report(byte[] target, byte[] signedContent, ReportType type) throws VerificationException {
-		Security.addProvider(new BouncyCastleProvider());
+		JcaProviders.install();
 
 		createReport();
 
         selectTarget(target, signedContent);
+		return this.reportSelectedTarget();
+	}
+
+	/**
+	 * Cria um objeto {@link Report} com as informações da verificação, resumindo
+	 * o conteúdo destacado em blocos sem carregá-lo em memória
+	 * @param target O documento a ser verificado
+	 * @param signedContent O conteúdo assinado do documento CAdES
+	 * @param type Tipo de relatório desejado
+	 * @return O relatório da verificação
+	 * @throws VerificationException Exceção caso haja algum problema na verificação
+	 */
+	@Override
+	public Report report(byte[] target, SpooledContent signedContent, ReportType type) throws VerificationException {
+		JcaProviders.install();
+
+		createReport();
+
+		selectTarget(target, signedContent);
+		return this.reportSelectedTarget();
+	}
+
+	/**
+	 * Cria um objeto {@link Report} com as informações da verificação de uma
+	 * assinatura destacada cujo conteúdo é informado apenas pelos seus resumos
+	 * criptográficos
+	 * @param target O documento a ser verificado
+	 * @param signedContentDigests Os resumos do conteúdo assinado indexados pelo OID do algoritmo
+	 * @param type Tipo de relatório desejado
+	 * @return O relatório da verificação
+	 * @throws VerificationException Exceção caso haja algum problema na verificação
+	 */
+	public Report report(byte[] target, Map<String, byte[]> signedContentDigests, ReportType type)
+			throws VerificationException {
+		JcaProviders.install();
+
+		createReport();
+
+		selectTarget(target, signedContentDigests);
+		return this.reportSelectedTarget();
+	}
+
+	/**
+	 * Verifica as assinaturas do documento selecionado
+	 * @return O relatório da verificação
+	 */
+	private Report reportSelectedTarget() {
 		List<String> signaturesAvailable = null;
 		signaturesAvailable = getSignaturesAvailable();
 		for (int i = 0; i < signaturesAvailable.size(); i++) {
 			selectSignature(Integer.toString(i));
+			if (i == 0 && signaturesAvailable.size() > 1) {
+				this.prefetchSigners(1);
+			}
 			// getValidationResults();
 		}
 
@@ -571,6 +626,32 @@ public class CadesVerifier implements Verifier {
 		return this.report;
 	}
 
+	/**
+	 * Obtém em paralelo as cadeias de certificação e as LCRs dos assinantes
+	 * das assinaturas a partir do índice dado. As âncoras de confiança são as da
+	 * política já selecionada pela primeira assinatura. Apenas os repositórios que
+	 * não dependem da assinatura em verificação são consultados. As assinaturas
+	 * continuam sendo verificadas em ordem, encontrando esses dados nas caches.
+	 * @param from O índice da primeira assinatura
+	 */
+	private void prefetchSigners(int from) {
+		try {
+			List<CadesSignature> signatures = this.signatureContainer.getSignatures();
+			List<X509Certificate> signers = new ArrayList<X509Certificate>();
+			for (int i = from; i < signatures.size(); i++) {
+				X509Certificate signer = signatures.get(i).getSigningCertificate();
+				if (signer != null) {
+					signers.add(signer);
+				}
+			}
+			this.cadesSignature.certificateValidation.prefetch(signers,
+					this.cadesSignature.signaturePolicyInterface.getSigningTrustAnchors(),
+					new Time(SystemTime.getSystemTime()));
+		} catch (Exception e) {
+			Application.logger.log(Level.WARNING, "Não foi possível obter antecipadamente os dados dos assinantes", e);
+		}
+	}
+
 	/**
 	 * Inicializa um objeto {@link Report}
 	 */
@@ -605,15 +686,7 @@ public class CadesVerifier implements Verifier {
 	@Override
 	public void selectTarget(byte[] target, byte[] signedContent)
 			throws VerificationException {
-		byte[] signatureBytes = target;
-		try {
-			this.signatureContainer = new CadesSignatureContainer(
-					signatureBytes);
-		} catch (CadesSignatureException e1) {
-			throw new VerificationException(e1);
-		} catch (EncodingException | NullPointerException e1) {
-			throw new VerificationException(e1);
-		}
+		this.openSignatureContainer(target);
 		byte[] signedContentBytes = null;
 		try {
 			if (this.signatureContainer.hasDetachedContent()) {
@@ -621,7 +694,7 @@ public class CadesVerifier implements Verifier {
 					signedContentBytes = signedContent;
 					try {
 						this.signatureContainer
-								.setSignedContent(signedContentBytes);
+								.setSignedContentForVerification(signedContentBytes);
 					} catch (PbadException e) {
 						Application.logger.log(Level.SEVERE,
 								"Erro ao ler o conteudo assinado", e);
@@ -633,7 +706,70 @@ public class CadesVerifier implements Verifier {
 			Application.logger.log(Level.SEVERE, "Erro ao ler a assinatura", e);
 			throw new VerificationException(e);
 		}
-	}	
+	}
+
+	/**
+	 * Inicializa os bytes do documento CAdES, lendo o conteúdo destacado em
+	 * blocos a partir da memória ou do disco
+	 * @param target Os bytes do documento CAdES
+	 * @param signedContent O conteúdo assinado no documento
+	 * @throws VerificationException Exceção caso os bytes não sejam uma assinatura válida
+	 */
+	public void selectTarget(byte[] target, SpooledContent signedContent)
+			throws VerificationException {
+		this.openSignatureContainer(target);
+		try {
+			if (this.signatureContainer.hasDetachedContent() && signedContent != null) {
+				this.signatureContainer.setSignedContentForVerification(signedContent);
+			}
+		} catch (EncodingException e) {
+			Application.logger.log(Level.SEVERE, "Erro ao ler a assinatura", e);
+			throw new VerificationException(e);
+		} catch (PbadException e) {
+			Application.logger.log(Level.SEVERE,
+					"Erro ao ler o conteudo assinado", e);
+			throw new VerificationException(e);
+		}
+	}
+
+	/**
+	 * Inicializa os bytes do documento CAdES destacado a partir dos resumos
+	 * criptográficos do conteúdo assinado, sem a necessidade do conteúdo
+	 * @param target Os bytes do documento CAdES
+	 * @param signedContentDigests Os resumos do conteúdo assinado indexados pelo OID do algoritmo
+	 * @throws VerificationException Exceção caso os bytes não sejam uma assinatura válida
+	 */
+	public void selectTarget(byte[] target, Map<String, byte[]> signedContentDigests)
+			throws VerificationException {
+		this.openSignatureContainer(target);
+		try {
+			if (this.signatureContainer.hasDetachedContent() && signedContentDigests != null) {
+				this.signatureContainer.setSignedContentDigests(signedContentDigests);
+			}
+		} catch (EncodingException e) {
+			Application.logger.log(Level.SEVERE, "Erro ao ler a assinatura", e);
+			throw new VerificationException(e);
+		} catch (PbadException e) {
+			Application.logger.log(Level.SEVERE,
+					"Erro ao ler o conteudo assinado", e);
+			throw new VerificationException(e);
+		}
+	}
+
+	/**
+	 * Cria o contêiner da assinatura CAdES
+	 * @param target Os bytes do documento CAdES
+	 * @throws VerificationException Exceção caso os bytes não sejam uma assinatura válida
+	 */
+	private void openSignatureContainer(byte[] target) throws VerificationException {
+		try {
+			this.signatureContainer = new CadesSignatureContainer(target);
+		} catch (CadesSignatureException e1) {
+			throw new VerificationException(e1);
+		} catch (EncodingException | NullPointerException e1) {
+			throw new VerificationException(e1);
+		}
+	}
 
 	public CadesSignature getSelectedSignature() {
 		return this.selectedSignature;
@@ -789,6 +925,37 @@ public class CadesVerifier implements Verifier {
 	public boolean supports(byte[] sig, byte[] detached) throws SignatureNotICPBrException {
 		try {
 			this.selectTarget(sig, detached);
+		} catch (VerificationException e) {
+			return false;
+		}
+		return this.supportsSelectedTarget();
+	}
+
+	/**
+	 * Verifica se o documento assinado é uma assinatura CAdES, sem carregar o
+	 * conteúdo destacado em memória
+	 * @param sig Os bytes do documento assinado
+	 * @param detached O conteúdo destacado
+	 * @return Indica se o documento assinado é uma assinatura CAdES
+	 * @throws SignatureNotICPBrException Exceção caso a assinatura não seja feita com um certificado ICP-Brasil
+	 */
+	@Override
+	public boolean supports(byte[] sig, SpooledContent detached) throws SignatureNotICPBrException {
+		try {
+			this.selectTarget(sig, detached);
+		} catch (VerificationException e) {
+			return false;
+		}
+		return this.supportsSelectedTarget();
+	}
+
+	/**
+	 * Verifica se as assinaturas do documento selecionado são assinaturas CAdES
+	 * @return Indica se o documento selecionado é uma assinatura CAdES
+	 * @throws SignatureNotICPBrException Exceção caso a assinatura não seja feita com um certificado ICP-Brasil
+	 */
+	private boolean supportsSelectedTarget() throws SignatureNotICPBrException {
+		try {
 			List<CadesSignature> signatures = this.signatureContainer.getSignatures();
 
 			if (!signatures.isEmpty()) {
@@ -799,7 +966,7 @@ public class CadesVerifier implements Verifier {
 				}
 				return validSignature;
 			}
-		} catch (VerificationException | EncodingException e) {
+		} catch (EncodingException e) {
 			return false;
 		}
 
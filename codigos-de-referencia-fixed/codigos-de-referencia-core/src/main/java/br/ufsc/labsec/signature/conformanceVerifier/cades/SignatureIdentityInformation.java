@@ -122,6 +122,16 @@ public class SignatureIdentityInformation implements RevocationInformation, Cert
     	this.addAllCertificate(this.certificates, certificates);
     }
 
+	/**
+	 * Os dados vêm da assinatura em verificação e não são protegidos para
+	 * acesso concorrente
+	 * @return Falso
+	 */
+	@Override
+	public boolean isThreadSafe() {
+		return false;
+	}
+
 	/**
 	 * Busca a CRL de um certificado
 	 * @param certificate Certificado que se deseja a CRL
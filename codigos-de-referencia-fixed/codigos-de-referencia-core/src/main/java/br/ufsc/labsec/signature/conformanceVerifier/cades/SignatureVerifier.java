@@ -12,7 +12,6 @@ package br.ufsc.labsec.signature.conformanceVerifier.cades;
 import java.io.*;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
-import java.security.Security;
 import java.security.Signature;
 import java.security.cert.CertificateException;
 import java.security.cert.TrustAnchor;
@@ -21,12 +20,12 @@ import java.sql.Time;
 import java.util.*;
 import java.util.logging.Level;
 
+import br.ufsc.labsec.signature.JcaProviders;
 import br.ufsc.labsec.signature.SystemTime;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.exceptions.TimeStampException;
 import br.ufsc.labsec.signature.exceptions.*;
 import org.bouncycastle.asn1.ASN1ObjectIdentifier;
 import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.operator.OperatorCreationException;
 
 import br.ufsc.labsec.component.Application;
@@ -120,7 +119,7 @@ public class SignatureVerifier extends AbstractVerifier {
 		initialize(signature, params);
 		this.signaturePolicy = signaturePolicy;
 		AttributeMap.initialize();
-		Security.addProvider(new BouncyCastleProvider());
+		JcaProviders.install();
 	}
 
 	/**
@@ -141,7 +140,7 @@ public class SignatureVerifier extends AbstractVerifier {
 		initialize(signature, params);
 
 		AttributeMap.initialize();
-		Security.addProvider(new BouncyCastleProvider());
+		JcaProviders.install();
 	}
 
 	/**
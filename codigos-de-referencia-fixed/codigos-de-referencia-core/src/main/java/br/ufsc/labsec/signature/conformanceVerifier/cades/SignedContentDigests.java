@@ -0,0 +1,113 @@
+package br.ufsc.labsec.signature.conformanceVerifier.cades;
+
+import br.ufsc.labsec.signature.SpooledContent;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.cms.CMSSignedData;
+import org.bouncycastle.cms.SignerInformation;
+import org.bouncycastle.operator.DigestCalculator;
+import org.bouncycastle.operator.DigestCalculatorProvider;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.bc.BcDigestCalculatorProvider;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cálculo dos resumos criptográficos do conteúdo assinado de um contêiner CMS
+ * com várias assinaturas. Cada assinante confere o atributo id-messageDigest
+ * com o resumo do conteúdo no seu algoritmo; quando o conteúdo é dado ao
+ * {@link CMSSignedData}, ele é percorrido novamente a cada assinante. Aqui o
+ * conteúdo é lido uma única vez, em blocos repassados a um resumo por
+ * algoritmo distinto entre os assinantes, e os assinantes recebem os resumos
+ * já calculados. O conteúdo pode vir de um stream ou de um
+ * {@link SpooledContent}, sem limite de tamanho.
+ */
+public final class SignedContentDigests {
+
+    /**
+     * Tamanho dos blocos repassados ao cálculo dos resumos
+     */
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    private static final DigestCalculatorProvider digestProvider = new BcDigestCalculatorProvider();
+
+    private SignedContentDigests() {
+    }
+
+    /**
+     * Calcula os resumos do conteúdo assinado com os algoritmos usados pelos
+     * assinantes do contêiner
+     * @param signedData O contêiner de assinaturas
+     * @param content Os bytes do conteúdo assinado
+     * @return Os resumos indexados pelo OID do algoritmo
+     * @throws IOException Exceção caso algum algoritmo não seja suportado
+     */
+    public static Map<String, byte[]> digest(CMSSignedData signedData, byte[] content) throws IOException {
+        return digest(signedData, new ByteArrayInputStream(content));
+    }
+
+    /**
+     * Calcula os resumos do conteúdo assinado com os algoritmos usados pelos
+     * assinantes do contêiner, sem manter o conteúdo em memória
+     * @param signedData O contêiner de assinaturas
+     * @param content O conteúdo assinado, que pode estar em um arquivo temporário
+     * @return Os resumos indexados pelo OID do algoritmo
+     * @throws IOException Exceção caso algum algoritmo não seja suportado ou
+     * em caso de erro na leitura do conteúdo
+     */
+    public static Map<String, byte[]> digest(CMSSignedData signedData, SpooledContent content) throws IOException {
+        try (InputStream input = content.openStream()) {
+            return digest(signedData, input);
+        }
+    }
+
+    /**
+     * Calcula os resumos do conteúdo assinado com os algoritmos usados pelos
+     * assinantes do contêiner, lendo o stream até o final. O stream não é fechado.
+     * @param signedData O contêiner de assinaturas
+     * @param content O stream do conteúdo assinado
+     * @return Os resumos indexados pelo OID do algoritmo
+     * @throws IOException Exceção caso algum algoritmo não seja suportado ou
+     * em caso de erro na leitura do conteúdo
+     */
+    public static Map<String, byte[]> digest(CMSSignedData signedData, InputStream content) throws IOException {
+        Map<String, DigestCalculator> calculators = new LinkedHashMap<>();
+        for (SignerInformation signer : signedData.getSignerInfos().getSigners()) {
+            AlgorithmIdentifier algorithm = signer.getDigestAlgorithmID();
+            String oid = algorithm.getAlgorithm().getId();
+            if (!calculators.containsKey(oid)) {
+                try {
+                    calculators.put(oid, digestProvider.get(algorithm));
+                } catch (OperatorCreationException e) {
+                    throw new IOException("Algoritmo de resumo não suportado: " + oid, e);
+                }
+            }
+        }
+        List<OutputStream> outputs = new ArrayList<>();
+        for (DigestCalculator calculator : calculators.values()) {
+            outputs.add(calculator.getOutputStream());
+        }
+
+        byte[] block = new byte[BLOCK_SIZE];
+        int length;
+        while ((length = content.read(block)) != -1) {
+            for (OutputStream output : outputs) {
+                output.write(block, 0, length);
+            }
+        }
+
+        Map<String, byte[]> digests = new HashMap<>();
+        for (Map.Entry<String, DigestCalculator> calculator : calculators.entrySet()) {
+            digests.put(calculator.getKey(), calculator.getValue().getDigest());
+        }
+        return digests;
+    }
+
+}
@@ -13,6 +13,7 @@ import java.io.IOException;
 import java.security.cert.*;
 import java.sql.Time;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.logging.Level;
@@ -23,6 +24,8 @@ import br.ufsc.labsec.signature.conformanceVerifier.cades.CadesSignature;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.CadesSignatureComponent;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.CadesSignatureContainer;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.attributes.unsigned.*;
+import br.ufsc.labsec.signature.conformanceVerifier.cache.TimeStampValidationCache;
+import br.ufsc.labsec.signature.conformanceVerifier.metrics.VerificationMetrics;
 import br.ufsc.labsec.signature.conformanceVerifier.validationService.ValidationDataService;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.attributes.unsigned.*;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.exceptions.CertificationPathException;
@@ -51,6 +54,7 @@ import br.ufsc.labsec.signature.conformanceVerifier.cades.exceptions.SignatureVe
 import br.ufsc.labsec.signature.conformanceVerifier.report.AttribReport;
 import br.ufsc.labsec.signature.conformanceVerifier.report.SignatureReport;
 import br.ufsc.labsec.signature.conformanceVerifier.report.TimeStampReport;
+import br.ufsc.labsec.signature.conformanceVerifier.report.ValidationDataReport;
 import br.ufsc.labsec.signature.conformanceVerifier.signaturePolicy.decoder.CertificateTrustPoint;
 import org.bouncycastle.tsp.TSPException;
 import org.bouncycastle.tsp.TimeStampToken;
@@ -83,6 +87,14 @@ public class TimeStampVerifier extends AbstractVerifier implements TimeStampVeri
      * Horário do carimbo de tempo
      */
     private Time timeStampGenerationTime;
+    /**
+     * Chave da validação da carimbadora na {@link TimeStampValidationCache}
+     */
+    private String validationKey;
+    /**
+     * Validação da carimbadora obtida da cache, ou nulo caso precise ser feita
+     */
+    private TimeStampValidationCache.Entry cachedValidation;
 
 
     /**
@@ -277,6 +289,15 @@ public class TimeStampVerifier extends AbstractVerifier implements TimeStampVeri
      */
     @Override
     public boolean verify(SignatureReport report) throws NotInICPException {
+        return VerificationMetrics.time(VerificationMetrics.TIMESTAMP_VERIFY, () -> this.verifyTimeStamp(report));
+    }
+
+    /**
+     * Valida os atributos do carimbo do tempo
+     * @param report O relatório de verificação do carimbo
+     * @return Indica se o carimbo é válido
+     */
+    private boolean verifyTimeStamp(SignatureReport report) throws NotInICPException {
 
         this.policy = this.component.signaturePolicyInterface;
         
@@ -302,7 +323,17 @@ public class TimeStampVerifier extends AbstractVerifier implements TimeStampVeri
         }
         timeStampReport.setTimeReference(this.timeStampGenerationTime);
         
-        this.certPath = this.component.certificateValidation.generateCertPath(this.signerCert, this.policy.getTimeStampTrustAnchors(), getTimeReference());
+        TimeStampValidationCache validationCache = TimeStampValidationCache.getInstance();
+        Set<TrustAnchor> trustAnchors = this.policy.getTimeStampTrustAnchors();
+        this.validationKey = validationCache.key(this.signerCert, this.policy.getPolicyId(), trustAnchors,
+                getTimeReference());
+        this.cachedValidation = validationCache.get(this.validationKey, getTimeReference());
+        if (this.cachedValidation != null) {
+            this.certPath = this.cachedValidation.getCertPath();
+        } else {
+            this.certPath = this.component.certificateValidation.generateCertPath(this.signerCert,
+                    trustAnchors, getTimeReference());
+        }
         if (this.certPath == null) {
             throw new NotInICPException(NotInICPException.TIMESTAMP_SIGNATURE);
         }
@@ -380,8 +411,20 @@ public class TimeStampVerifier extends AbstractVerifier implements TimeStampVeri
             trustAnchors = this.policy.getSigningTrustAnchors();
         }
         
-       ValidationResult validationResult = getCadesSignatureComponent().certificateValidation.validate(this.signerCert,
-                trustAnchors, this.policy.getTimeStampRevocationReqs(), this.getTimeReference(), report);
+        ValidationResult validationResult;
+        if (this.cachedValidation != null) {
+            validationResult = ValidationResult.valid;
+            this.cachedValidation.addValidationTo(report);
+        } else {
+            Set<ValidationDataReport> previous = new HashSet<>(report.getValidation());
+            validationResult = getCadesSignatureComponent().certificateValidation.validate(this.signerCert,
+                    trustAnchors, this.policy.getTimeStampRevocationReqs(), this.getTimeReference(), report);
+            if (validationResult == ValidationResult.valid) {
+                List<ValidationDataReport> added = new ArrayList<>(report.getValidation());
+                added.removeAll(previous);
+                TimeStampValidationCache.getInstance().put(this.validationKey, this.certPath, added);
+            }
+        }
 
         String validationMessage = validationResult.getMessage();
         if (validationResult != ValidationResult.valid) {
@@ -28,9 +28,9 @@ import org.bouncycastle.asn1.x500.X500Name;
 import org.bouncycastle.asn1.x509.*;
 import org.bouncycastle.cms.SignerId;
 import org.bouncycastle.cms.SignerInformation;
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
 
 import br.ufsc.labsec.signature.AlgorithmIdentifierMapper;
+import br.ufsc.labsec.signature.JcaProviders;
 import br.ufsc.labsec.signature.SignaturePolicyInterface;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.AbstractVerifier;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.attributes.SigningCertificateInterface;
@@ -444,7 +444,7 @@ public class IdAaSigningCertificateV2 implements SigningCertificateInterface {
         CertificateEncodingException {
         MessageDigest digester = MessageDigest.getInstance(
                 AlgorithmIdentifierMapper.getAlgorithmNameFromIdentifier(hashAlgorithmId.getAlgorithm().getId()),
-                new BouncyCastleProvider());
+                JcaProviders.bouncyCastle());
         return digester.digest(certificate.getEncoded());
     }
 
@@ -10,7 +10,6 @@ Apoio: Colégio Notarial do Brasil (CNB) e Instituto Nacional de Tecnologia da I
 package br.ufsc.labsec.signature.conformanceVerifier.cades.attributes.unsigned;
 
 import java.io.IOException;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CRLException;
 import java.security.cert.X509CRL;
@@ -48,6 +47,7 @@ import org.bouncycastle.util.encoders.Base64;
 
 import br.ufsc.labsec.signature.conformanceVerifier.cades.AbstractVerifier;
 import br.ufsc.labsec.signature.AlgorithmIdentifierMapper;
+import br.ufsc.labsec.signature.RevocationDigests;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.CadesSignature;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.attributes.SignatureAttribute;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.attributes.signed.IdAaEtsSignerAttr;
@@ -296,7 +296,12 @@ public class IdAaEtsAttrRevocationRefs implements SignatureAttribute {
         IOException {
         List<OcspResponsesID> ocspResponsesIdList = new ArrayList<OcspResponsesID>();
         for (BasicOCSPResponse basicOcspResponse : ocspList) {
-            OtherHash otherHash = this.getOtherHash(basicOcspResponse.getEncoded());
+            OtherHash otherHash;
+            try {
+                otherHash = this.getOtherHash(RevocationDigests.digest(basicOcspResponse, this.algorithm));
+            } catch (NoSuchAlgorithmException noSuchAlgorithmException) {
+                throw new SignatureAttributeException(noSuchAlgorithmException.getMessage(), noSuchAlgorithmException.getStackTrace());
+            }
             OcspIdentifier ocspIdentifier = new OcspIdentifier(basicOcspResponse.getTbsResponseData().getResponderID(), basicOcspResponse
                     .getTbsResponseData().getProducedAt());
             ocspResponsesIdList.add(new OcspResponsesID(ocspIdentifier, otherHash));
@@ -315,13 +320,14 @@ public class IdAaEtsAttrRevocationRefs implements SignatureAttribute {
     private List<CrlValidatedID> generateCrlValidateIdList(List<X509CRL> crlList, String algorithm) throws SignatureAttributeException {
         List<CrlValidatedID> crlValidateIdList = new ArrayList<CrlValidatedID>();
         for (X509CRL x509crl : crlList) {
-            byte[] crlBytes = null;
+            OtherHash otherHash;
             try {
-                crlBytes = x509crl.getEncoded();
+                otherHash = this.getOtherHash(RevocationDigests.digest(x509crl, this.algorithm));
             } catch (CRLException crlException) {
                 throw new SignatureAttributeException(crlException);
+            } catch (NoSuchAlgorithmException noSuchAlgorithmException) {
+                throw new SignatureAttributeException(noSuchAlgorithmException.getMessage(), noSuchAlgorithmException.getStackTrace());
             }
-            OtherHash otherHash = this.getOtherHash(crlBytes);
             X500Name x500name = new X500Name(x509crl.getIssuerX500Principal().toString());
             Time time = new Time(x509crl.getThisUpdate().getTime());
             CrlIdentifier crlIdentifier = new CrlIdentifier(x500name, new DERUTCTime(time));
@@ -331,25 +337,17 @@ public class IdAaEtsAttrRevocationRefs implements SignatureAttribute {
     }
 
     /**
-     * Calcula o valor de OtherHash dos bytes dados
-     * @param data Os bytes a serem usados no cálculo
-     * @return O valor de OtherHash dos bytes dados
+     * Monta o valor de OtherHash de um resumo já calculado
+     * @param hash O resumo calculado com o algoritmo do atributo
+     * @return O valor de OtherHash
      * @throws SignatureAttributeException
      */
-    private OtherHash getOtherHash(byte[] data) throws SignatureAttributeException {
+    private OtherHash getOtherHash(byte[] hash) throws SignatureAttributeException {
         OtherHash otherHash = null;
         String algorithmName = AlgorithmIdentifierMapper.getAlgorithmNameFromIdentifier(this.algorithm);
         if (algorithmName == null) {
             throw new SignatureAttributeException(SignatureAttributeException.NO_SUCH_ALGORITHM);
         }
-        MessageDigest digester = null;
-        try {
-            digester = MessageDigest.getInstance(algorithmName);
-        } catch (NoSuchAlgorithmException noSuchAlgorithmException) {
-            throw new SignatureAttributeException(noSuchAlgorithmException.getMessage(), noSuchAlgorithmException.getStackTrace());
-        }
-        byte[] hash = null;
-        hash = digester.digest(data);
         if (algorithmName.equals("sha-1")) {
             otherHash = new OtherHash(hash);
         } else {
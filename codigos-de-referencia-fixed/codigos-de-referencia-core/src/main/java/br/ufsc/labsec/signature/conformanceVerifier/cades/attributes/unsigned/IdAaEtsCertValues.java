@@ -9,13 +9,11 @@ Apoio: Colégio Notarial do Brasil (CNB) e Instituto Nacional de Tecnologia da I
 
 package br.ufsc.labsec.signature.conformanceVerifier.cades.attributes.unsigned;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateEncodingException;
 import java.security.cert.CertificateException;
-import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -32,6 +30,7 @@ import org.bouncycastle.asn1.cms.Attribute;
 import org.bouncycastle.asn1.ess.OtherCertID;
 import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
 
+import br.ufsc.labsec.signature.CertificateInterner;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.AbstractVerifier;
 import br.ufsc.labsec.signature.AlgorithmIdentifierMapper;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.CadesSignature;
@@ -132,22 +131,16 @@ public class IdAaEtsCertValues implements SignatureAttribute {
         ASN1Set attributeValues = genericEncoding.getAttrValues();
         ASN1Sequence certificatesSequence = (ASN1Sequence) attributeValues.getObjectAt(0);
         this.x509Certificates = new ArrayList<X509Certificate>();
-        CertificateFactory certificateFactory;
-        try {
-            certificateFactory = CertificateFactory.getInstance("X.509");
-        } catch (CertificateException certificateException) {
-            throw new CertValuesException(certificateException.getMessage(), certificateException.getStackTrace());
-        }
-        ByteArrayInputStream certificateStream = null;
+        byte[] encoded = null;
         X509Certificate x509Certificate = null;
         for (int i = 0; i < certificatesSequence.size(); i++) {
             try {
-                certificateStream = new ByteArrayInputStream(certificatesSequence.getObjectAt(i).toASN1Primitive().getEncoded());
+                encoded = certificatesSequence.getObjectAt(i).toASN1Primitive().getEncoded();
             } catch (IOException ioException) {
                 throw new CertValuesException(ioException.getMessage(), ioException.getStackTrace());
             }
             try {
-                x509Certificate = (X509Certificate) certificateFactory.generateCertificate(certificateStream);
+                x509Certificate = CertificateInterner.intern(encoded);
             } catch (CertificateException certificateException) {
                 throw new CertValuesException(certificateException.getMessage(), certificateException.getStackTrace());
             }
@@ -11,7 +11,6 @@ package br.ufsc.labsec.signature.conformanceVerifier.cades.attributes.unsigned;
 
 import java.io.IOException;
 import java.math.BigInteger;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CRL;
 import java.security.cert.CRLException;
@@ -28,6 +27,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.logging.Level;
 
 import org.bouncycastle.asn1.*;
 import org.bouncycastle.asn1.cms.Attribute;
@@ -47,7 +47,9 @@ import org.bouncycastle.cert.ocsp.SingleResp;
 import org.bouncycastle.cms.CMSSignedGenerator;
 import org.bouncycastle.util.encoders.Base64;
 
+import br.ufsc.labsec.component.Application;
 import br.ufsc.labsec.signature.AlgorithmIdentifierMapper;
+import br.ufsc.labsec.signature.RevocationDigests;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.AbstractVerifier;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.CadesSignature;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.attributes.SignatureAttribute;
@@ -648,17 +650,15 @@ public class IdAaEtsRevocationRefs implements SignatureAttribute, CRLSelector {
 		crls.addAll(this.signatureVerifier.getCadesSignatureComponent().certificateValidation.getCRLs(selector, this.signatureVerifier.getTimeReference()));
 		crls.addAll(this.signatureVerifier.getCadesSignatureComponent().getSignatureIdentityInformation().getCRLs(selector, this.signatureVerifier.getTimeReference()));
 
-		int i = 0;
 		boolean control = false;
-		while(i < crls.size() && !control) {
-			if (this.match(crls.iterator().next()))
+		Iterator<X509CRL> crlIterator = crls.iterator();
+		while (crlIterator.hasNext() && !control) {
+			if (this.match(crlIterator.next()))
 				control = true;
-			i++;
 		}
 		
 		if (!control) {
             List<X509CRL> crls_ignoring_time = this.signatureVerifier.getCadesSignatureComponent().getSignatureIdentityInformation().getCRLs(selector, null);
-			i = 0;
             for(X509CRL crl : crls_ignoring_time) {
 				if (this.match(crl))
 					return crls_ignoring_time.size();
@@ -967,11 +967,15 @@ public class IdAaEtsRevocationRefs implements SignatureAttribute, CRLSelector {
 			throws SignatureAttributeException {
 		ASN1EncodableVector vector = new ASN1EncodableVector();
 		try {
-			vector.add(this.getOtherHash(crl.getEncoded(), algorithm));
+			vector.add(this.getOtherHash(RevocationDigests.digest(crl, algorithm), algorithm));
 		} catch (CRLException crlException) {
 			throw new SignatureAttributeException(
 					SignatureAttributeException.PROBLEMS_TO_DECODE
 							+ this.getIdentifier());
+		} catch (NoSuchAlgorithmException noSuchAlgorithmException) {
+			throw new SignatureAttributeException(
+					SignatureAttributeException.NO_SUCH_ALGORITHM,
+					noSuchAlgorithmException.getStackTrace());
 		}
 		vector.add(this.getCrlIdentifier(
 				crl.getIssuerX500Principal().toString(),
@@ -979,26 +983,22 @@ public class IdAaEtsRevocationRefs implements SignatureAttribute, CRLSelector {
 		return new DERSequence(vector);
 	}
 
-	private ASN1Encodable getOtherHash(byte[] data, String algorithm)
+	/**
+	 * Monta o valor OtherHash de um resumo já calculado
+	 * @param hash O resumo
+	 * @param algorithm O identificador do algoritmo de resumo
+	 * @return O valor OtherHash
+	 * @throws SignatureAttributeException Exceção caso o algoritmo não seja conhecido
+	 */
+	private ASN1Encodable getOtherHash(byte[] hash, String algorithm)
 			throws SignatureAttributeException {
 		ASN1Encodable result = null;
 		String algorithmName = AlgorithmIdentifierMapper
 				.getAlgorithmNameFromIdentifier(algorithm);
-		MessageDigest digester = null;
-		if (algorithmName != null) {
-			try {
-				digester = MessageDigest.getInstance(algorithmName);
-			} catch (NoSuchAlgorithmException noSuchAlgorithmException) {
-				throw new SignatureAttributeException(
-						SignatureAttributeException.NO_SUCH_ALGORITHM,
-						noSuchAlgorithmException.getStackTrace());
-			}
-		} else {
+		if (algorithmName == null) {
 			throw new SignatureAttributeException(
 					SignatureAttributeException.NO_SUCH_ALGORITHM);
 		}
-		byte[] hash = null;
-		hash = digester.digest(data);
 		if (algorithmName.equals("sha-1")) {
 			ASN1OctetString otherHashValue = ASN1OctetString.getInstance(hash);
 			result = otherHashValue;
@@ -1029,12 +1029,16 @@ public class IdAaEtsRevocationRefs implements SignatureAttribute, CRLSelector {
 		vector.add(this.getOcspIdentifier(basicOcspResp.getResponderId(),
 				new Time(basicOcspResp.getProducedAt())));
 		try {
-			vector.add(this.getOtherHash(basicOCSPResponse.getEncoded(),
+			vector.add(this.getOtherHash(RevocationDigests.digest(basicOCSPResponse, algorithm),
 					algorithm));
 		} catch (IOException ioException) {
 			throw new SignatureAttributeException(
 					SignatureAttributeException.ATTRIBUTE_BUILDING_FAILURE + IdAaEtsRevocationRefs.IDENTIFIER,
 					ioException.getStackTrace());
+		} catch (NoSuchAlgorithmException noSuchAlgorithmException) {
+			throw new SignatureAttributeException(
+					SignatureAttributeException.NO_SUCH_ALGORITHM,
+					noSuchAlgorithmException.getStackTrace());
 		}
 		return new DERSequence(vector);
 	}
@@ -1052,32 +1056,20 @@ public class IdAaEtsRevocationRefs implements SignatureAttribute, CRLSelector {
 
 	@Override
 	public boolean match(CRL crl) {
-		boolean result = false;
-		boolean error = false;
-		String algorithmName = AlgorithmIdentifierMapper
-				.getAlgorithmNameFromIdentifier(this.algorithm);
-		MessageDigest digester = null;
+		byte[] crlDigest = null;
 		try {
-			digester = MessageDigest.getInstance(algorithmName);
+			crlDigest = RevocationDigests.digest((X509CRL) crl, this.algorithm);
 		} catch (NoSuchAlgorithmException noSuchAlgorithmException) {
 			// Não é possível selecionar as LCRs
-			error = true;
-			noSuchAlgorithmException.printStackTrace();
-		}
-		X509CRL x509Crl = (X509CRL) crl;
-		byte[] crlDigest = null;
-		try {
-			crlDigest = digester.digest(x509Crl.getEncoded());
+			Application.logger.log(Level.WARNING, "Algoritmo de resumo das referências de LCR não suportado",
+					noSuchAlgorithmException);
+			return false;
 		} catch (CRLException crlException) {
 			// Não é possível codificar a LCR para obter o valor hash
-			error = true;
-			crlException.printStackTrace();
-		}
-		String crlDigestBase64 = new String(Base64.encode(crlDigest));
-		if (!error) {
-			result = this.crlHashsSet.contains(crlDigestBase64);
+			Application.logger.log(Level.WARNING, "Não foi possível codificar a LCR", crlException);
+			return false;
 		}
-		return result;
+		return this.crlHashsSet.contains(new String(Base64.encode(crlDigest)));
 	}
 
 	/**
@@ -1112,17 +1104,12 @@ public class IdAaEtsRevocationRefs implements SignatureAttribute, CRLSelector {
 	public boolean match(BasicOCSPResponse response)
 			throws SignatureAttributeException {
 		boolean result = false;
-		MessageDigest digester = null;
+		byte[] hash = null;
 		try {
-			digester = MessageDigest.getInstance(AlgorithmIdentifierMapper
-					.getAlgorithmNameFromIdentifier(this.algorithm));
+			hash = RevocationDigests.digest(response, this.algorithm);
 		} catch (NoSuchAlgorithmException noSuchAlgorithmException) {
 			throw new SignatureAttributeException(
 					SignatureAttributeException.NO_SUCH_ALGORITHM);
-		}
-		byte[] hash = null;
-		try {
-			hash = digester.digest(response.getEncoded());
 		} catch (IOException ioException) {
 			throw new SignatureAttributeException(
 					SignatureAttributeException.HASH_FAILURE,
@@ -38,6 +38,7 @@ import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
 import org.bouncycastle.asn1.x509.CertificateList;
 import org.bouncycastle.asn1.x509.TBSCertList;
 
+import br.ufsc.labsec.signature.JcaProviders;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.AbstractVerifier;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.attributes.SignatureAttribute;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.exceptions.RevocationValuesException;
@@ -261,7 +262,7 @@ public class IdAaEtsRevocationValues implements SignatureAttribute {
      */
     protected void decodeCrls(CertificateList[] certificateList) throws CertificateException, IOException, CRLException {
         if (certificateList.length > 0) {
-            CertificateFactory certificateFactory = CertificateFactory.getInstance("X.509");
+            CertificateFactory certificateFactory = JcaProviders.certificateFactory("X.509");
             this.crlValues = new ArrayList<X509CRL>();
             for (CertificateList list : certificateList) {
                 ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(list.getEncoded());
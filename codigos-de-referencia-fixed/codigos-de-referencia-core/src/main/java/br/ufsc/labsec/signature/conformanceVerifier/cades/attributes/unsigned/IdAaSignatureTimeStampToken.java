@@ -21,6 +21,7 @@ import java.util.List;
 
 import javax.security.auth.x500.X500Principal;
 
+import br.ufsc.labsec.signature.JcaProviders;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.attributes.signed.IdContentType;
 import br.ufsc.labsec.signature.conformanceVerifier.report.SignatureReport;
 import br.ufsc.labsec.signature.exceptions.NotInICPException;
@@ -364,7 +365,7 @@ public class IdAaSignatureTimeStampToken extends TimeStamp implements SignatureA
         CMSException {
         JcaContentVerifierProviderBuilder contentVerifierProviderBuilder = new JcaContentVerifierProviderBuilder();
         ContentVerifierProvider contentVerifierProvider = contentVerifierProviderBuilder.build(certificate);
-        DigestCalculatorProvider digestCalculatorProvider = new JcaDigestCalculatorProviderBuilder().setProvider("BC").build();
+        DigestCalculatorProvider digestCalculatorProvider = new JcaDigestCalculatorProviderBuilder().setProvider(JcaProviders.bouncyCastle()).build();
         
         CMSSignatureAlgorithmNameGenerator cmsSignatureAlgorithmNameGenerator = new DefaultCMSSignatureAlgorithmNameGenerator();
         SignatureAlgorithmIdentifierFinder signatureAlgorithmIdentifierFinder = new DefaultSignatureAlgorithmIdentifierFinder();
@@ -129,21 +129,7 @@ public class CmsSignature {
 
 		SignatureReport report = new SignatureReport();
 
-		X509CertSelector selector = new X509CertSelector();
-		selector.setSerialNumber(this.signerInfo.getSID().getSerialNumber());
-
-		try {
-			selector.setIssuer(this.signerInfo.getSID().getIssuer().getEncoded());
-		} catch (IOException e) {
-			Application.logger.log(Level.SEVERE, "Não foi possível decodificar o nome do assinante.", e);
-		}
-
-		X509Certificate signerCertificate = null;
-		Iterator<CertificateCollection> it = this.cmsSignatureComponent.certificateCollection.iterator();
-
-		do {
-			signerCertificate = (X509Certificate) it.next().getCertificate(selector);
-		} while (signerCertificate == null && it.hasNext());
+		X509Certificate signerCertificate = this.getSignerCertificate();
 
 		if (signerCertificate == null) {
 			report.setSignerSubjectName("Assinante desconhecido");
@@ -169,6 +155,30 @@ public class CmsSignature {
 
 	}
 
+	/**
+	 * Busca o certificado do assinante nas coleções de certificados
+	 * @return O certificado do assinante, ou nulo caso não seja encontrado
+	 */
+	public X509Certificate getSignerCertificate() {
+		X509CertSelector selector = new X509CertSelector();
+		selector.setSerialNumber(this.signerInfo.getSID().getSerialNumber());
+
+		try {
+			selector.setIssuer(this.signerInfo.getSID().getIssuer().getEncoded());
+		} catch (IOException e) {
+			Application.logger.log(Level.SEVERE, "Não foi possível decodificar o nome do assinante.", e);
+		}
+
+		X509Certificate signerCertificate = null;
+		Iterator<CertificateCollection> it = this.cmsSignatureComponent.certificateCollection.iterator();
+
+		do {
+			signerCertificate = (X509Certificate) it.next().getCertificate(selector);
+		} while (signerCertificate == null && it.hasNext());
+
+		return signerCertificate;
+	}
+
 	/**
 	 * Valida as informações de hash e cifra assimétrica da assinatura.
 	 * Adiciona as informações no relatório passado por parâmetro
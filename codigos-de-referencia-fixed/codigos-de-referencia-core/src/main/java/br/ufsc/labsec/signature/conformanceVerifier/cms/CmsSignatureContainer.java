@@ -12,13 +12,15 @@ import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 
+import br.ufsc.labsec.signature.CertificateInterner;
+import br.ufsc.labsec.signature.SpooledContent;
 import br.ufsc.labsec.signature.exceptions.VerificationException;
 import org.bouncycastle.asn1.ASN1Sequence;
 import org.bouncycastle.asn1.ASN1TaggedObject;
 import org.bouncycastle.cert.X509CertificateHolder;
-import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
 import org.bouncycastle.cms.CMSException;
 import org.bouncycastle.cms.CMSProcessableByteArray;
 import org.bouncycastle.cms.CMSSignedData;
@@ -28,6 +30,7 @@ import org.bouncycastle.util.Store;
 import org.bouncycastle.util.io.Streams;
 
 import br.ufsc.labsec.component.Application;
+import br.ufsc.labsec.signature.conformanceVerifier.cades.SignedContentDigests;
 import br.ufsc.labsec.signature.conformanceVerifier.cms.exceptions.CmsSignatureException;
 import br.ufsc.labsec.signature.exceptions.EncodingException;
 import br.ufsc.labsec.signature.exceptions.PbadException;
@@ -164,9 +167,11 @@ public class CmsSignatureContainer {
         try {
             for (Object o : this.getCertificateStore().getMatches(null)) {
                 X509CertificateHolder c = (X509CertificateHolder) o;
-                certs.add(new JcaX509CertificateConverter().getCertificate(c));
+                certs.add(CertificateInterner.intern(c.getEncoded()));
             }
             return certs;
+        } catch (IOException e) {
+            throw new CertificateException("Erro ao codificar certificado.", e);
         } catch (ClassCastException e) {
             throw new CMSException("Erro ao processar certificado.", e);
         }
@@ -216,6 +221,54 @@ public class CmsSignatureContainer {
 
 	}
 
+	/**
+	 * Atribue o conteúdo assinado para a verificação das assinaturas. O
+	 * conteúdo é lido uma única vez para calcular os resumos de todos os
+	 * algoritmos usados pelos assinantes, e cada assinante confere o seu resumo
+	 * já calculado. Caso algum algoritmo não seja suportado, o conteúdo é
+	 * atribuído como em {@link #setSignedContent(byte[])}.
+	 * @param signedContentBytes Os bytes do conteúdo assinado
+	 * @throws PbadException Exceção caso ocorra erro na transformação dos bytes
+	 */
+	public void setSignedContentForVerification(byte[] signedContentBytes) throws PbadException {
+
+		try {
+			Map<String, byte[]> digests = SignedContentDigests.digest(this.cmsSignedData, signedContentBytes);
+			this.cmsSignedData = new CMSSignedData(digests, this.cmsSignedData.getEncoded());
+		} catch (IOException ioException) {
+			Application.logger.log(Level.FINE, ioException.getMessage(), ioException);
+			this.setSignedContent(signedContentBytes);
+		} catch (CMSException cmsException) {
+			throw new CmsSignatureException("Erro ao decodificar assinatura.", cmsException);
+		}
+
+	}
+
+	/**
+	 * Atribue o conteúdo assinado para a verificação das assinaturas, como em
+	 * {@link #setSignedContentForVerification(byte[])}, sem carregar em memória
+	 * um conteúdo mantido em arquivo temporário
+	 * @param signedContent O conteúdo assinado
+	 * @throws PbadException Exceção caso ocorra erro na leitura do conteúdo ou na decodificação
+	 */
+	public void setSignedContentForVerification(SpooledContent signedContent) throws PbadException {
+
+		try {
+			Map<String, byte[]> digests = SignedContentDigests.digest(this.cmsSignedData, signedContent);
+			this.cmsSignedData = new CMSSignedData(digests, this.cmsSignedData.getEncoded());
+		} catch (IOException ioException) {
+			Application.logger.log(Level.FINE, ioException.getMessage(), ioException);
+			try {
+				this.setSignedContent(signedContent.toByteArray());
+			} catch (IOException readException) {
+				throw new CmsSignatureException("Erro ao ler o conteúdo assinado.", readException);
+			}
+		} catch (CMSException cmsException) {
+			throw new CmsSignatureException("Erro ao decodificar assinatura.", cmsException);
+		}
+
+	}
+
 	/**
 	 * Retorna o arquivo em formato OutputStream
 	 * @param outputStream Stream no qual será colocado o valor do arquivo de assinatura
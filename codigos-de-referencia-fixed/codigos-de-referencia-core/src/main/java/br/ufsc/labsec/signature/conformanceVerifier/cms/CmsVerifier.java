@@ -2,6 +2,8 @@ package br.ufsc.labsec.signature.conformanceVerifier.cms;
 
 import br.ufsc.labsec.component.Application;
 import br.ufsc.labsec.signature.Constants;
+import br.ufsc.labsec.signature.JcaProviders;
+import br.ufsc.labsec.signature.SpooledContent;
 import br.ufsc.labsec.signature.SystemTime;
 import br.ufsc.labsec.signature.Verifier;
 import br.ufsc.labsec.signature.conformanceVerifier.cms.exceptions.SignatureNotICPBrException;
@@ -15,9 +17,7 @@ import br.ufsc.labsec.signature.exceptions.PbadException;
 import br.ufsc.labsec.signature.exceptions.VerificationException;
 import org.bouncycastle.asn1.cms.AttributeTable;
 import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
 
-import java.security.Security;
 import java.security.cert.CertPath;
 import java.security.cert.TrustAnchor;
 import java.security.cert.X509Certificate;
@@ -28,6 +28,10 @@ import java.util.logging.Level;
 /**
  * Esta classe implementa os métodos para verificação de uma assinatura CMS.
  * Implementa {@link Verifier}
+ * <p>
+ * As assinaturas de um arquivo são verificadas uma a uma, na ordem do contêiner.
+ * Apenas a obtenção das cadeias e das LCRs dos assinantes é feita em paralelo,
+ * por <code>prefetchSigners</code>, antes da primeira verificação.
  */
 public class CmsVerifier implements Verifier {
 
@@ -74,7 +78,7 @@ public class CmsVerifier implements Verifier {
 				if (signedContent != null) {
 					signedContentBytes = signedContent;
 					try {
-						this.signatureContainer.setSignedContent(signedContentBytes);
+						this.signatureContainer.setSignedContentForVerification(signedContentBytes);
 					} catch (PbadException e) {
 						Application.logger.log(Level.SEVERE, "Erro ao ler o conteudo assinado", e);
 						throw new VerificationException(e);
@@ -88,6 +92,28 @@ public class CmsVerifier implements Verifier {
 
 	}
 
+	/**
+	 * Inicializa os bytes do documento CMS assinado, lendo o conteúdo destacado
+	 * em blocos a partir da memória ou do disco
+	 * @param target Os bytes do documento CMS assinado
+	 * @param signedContent O conteúdo assinado no documento
+	 * @throws VerificationException Exceção caso os bytes não sejam uma assinatura válida
+	 */
+	public void selectTarget(byte[] target, SpooledContent signedContent) throws VerificationException {
+		this.signatureContainer = new CmsSignatureContainer(target, this.cmsSignatureComponent);
+		try {
+			if (this.signatureContainer.hasDetachedContent() && signedContent != null) {
+				this.signatureContainer.setSignedContentForVerification(signedContent);
+			}
+		} catch (EncodingException e) {
+			Application.logger.log(Level.SEVERE, "Erro ao ler a assinatura", e);
+			throw new VerificationException(e);
+		} catch (PbadException e) {
+			Application.logger.log(Level.SEVERE, "Erro ao ler o conteudo assinado", e);
+			throw new VerificationException(e);
+		}
+	}
+
 	/**
 	 * Retorna as assinaturas no documento
 	 * @return As assinaturas no documento
@@ -161,13 +187,45 @@ public class CmsVerifier implements Verifier {
 	@Override
 	public Report report(byte[] target, byte[] signedContent, ReportType type) throws VerificationException {
 
-		Security.addProvider(new BouncyCastleProvider());
+		JcaProviders.install();
 
 		this.createReport();
 
 		selectTarget(target, signedContent);
+		return this.reportSelectedTarget();
+	}
+
+	/**
+	 * Cria um objeto {@link Report} com as informações da verificação, resumindo
+	 * o conteúdo destacado em blocos sem carregá-lo em memória
+	 * @param target O documento a ser verificado
+	 * @param signedContent O conteúdo assinado do documento CMS
+	 * @param type Tipo de relatório desejado
+	 * @return O relatório da verificação
+	 * @throws VerificationException Exceção caso haja algum problema na verificação
+	 */
+	@Override
+	public Report report(byte[] target, SpooledContent signedContent, ReportType type) throws VerificationException {
+
+		JcaProviders.install();
+
+		this.createReport();
+
+		selectTarget(target, signedContent);
+		return this.reportSelectedTarget();
+	}
+
+	/**
+	 * Verifica as assinaturas do documento selecionado
+	 * @return O relatório da verificação
+	 */
+	private Report reportSelectedTarget() {
 		if (this.signatureContainer != null) {
-			for (CmsSignature sign : this.signatureContainer.getSignatures()) {
+			List<CmsSignature> signatures = this.signatureContainer.getSignatures();
+			if (signatures.size() > 1) {
+				this.prefetchSigners(signatures);
+			}
+			for (CmsSignature sign : signatures) {
 				this.report.addSignatureReport(sign.validate());
 			}
 		}
@@ -176,6 +234,26 @@ public class CmsVerifier implements Verifier {
 
 	}
 
+	/**
+	 * Obtém em paralelo as cadeias de certificação e as LCRs dos assinantes.
+	 * Apenas os repositórios que não dependem da assinatura em verificação são
+	 * consultados. As assinaturas continuam sendo verificadas em ordem, encontrando
+	 * esses dados nas caches.
+	 * @param signatures As assinaturas do documento
+	 */
+	private void prefetchSigners(List<CmsSignature> signatures) {
+		List<X509Certificate> signers = new ArrayList<X509Certificate>();
+		for (CmsSignature signature : signatures) {
+			X509Certificate signer = signature.getSignerCertificate();
+			if (signer != null) {
+				signers.add(signer);
+			}
+		}
+		this.cmsSignatureComponent.certificatePathValidation.prefetch(signers,
+				this.cmsSignatureComponent.trustAnchorInterface.getTrustAnchorSet(),
+				new Time(SystemTime.getSystemTime()));
+	}
+
 	/**
 	 * Verifica se o documento é uma assinatura CMS
 	 * @param filePath Diretório do arquivo a ser verificado
@@ -231,6 +309,33 @@ public class CmsVerifier implements Verifier {
 		} catch (VerificationException e) {
 			return false;
 		}
+		return this.supportsSelectedTarget();
+	}
+
+	/**
+	 * Verifica se o documento assinado é uma assinatura CMS, sem carregar o
+	 * conteúdo destacado em memória
+	 * @param sig Os bytes do documento assinado
+	 * @param detached O conteúdo destacado
+	 * @return Indica se o documento assinado é uma assinatura CMS
+	 * @throws SignatureNotICPBrException Exceção caso a assinatura não seja feita com um certificado ICP-Brasil
+	 */
+	@Override
+	public boolean supports(byte[] sig, SpooledContent detached) throws SignatureNotICPBrException {
+		try {
+			this.selectTarget(sig, detached);
+		} catch (VerificationException e) {
+			return false;
+		}
+		return this.supportsSelectedTarget();
+	}
+
+	/**
+	 * Verifica se as assinaturas do documento selecionado são assinaturas CMS
+	 * @return Indica se o documento selecionado é uma assinatura CMS
+	 * @throws SignatureNotICPBrException Exceção caso a assinatura não seja feita com um certificado ICP-Brasil
+	 */
+	private boolean supportsSelectedTarget() throws SignatureNotICPBrException {
 		List<CmsSignature> signatures = this.signatureContainer.getSignatures();
 
 		if (!signatures.isEmpty()) {
@@ -6,7 +6,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.security.PrivateKey;
-import java.security.Security;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateEncodingException;
 import java.security.cert.X509Certificate;
@@ -16,13 +15,13 @@ import java.util.List;
 import java.util.logging.Level;
 import br.ufsc.labsec.component.Application;
 import br.ufsc.labsec.signature.AlgorithmIdentifierMapper;
+import br.ufsc.labsec.signature.JcaProviders;
 import br.ufsc.labsec.signature.signer.FileFormat;
 import br.ufsc.labsec.signature.signer.suite.SingletonSuiteMapper;
 import org.apache.commons.io.IOUtils;
 import org.bouncycastle.cert.jcajce.JcaCertStore;
 import org.bouncycastle.cms.*;
 import org.bouncycastle.cms.jcajce.JcaSimpleSignerInfoGeneratorBuilder;
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.operator.OperatorCreationException;
 import org.bouncycastle.util.Store;
 
@@ -111,7 +110,7 @@ public class SignatureContainerGenerator {
 	public CmsSignatureContainer generate(InputStream in, PrivateKey pvKey, X509Certificate cert)
 			throws CertificateEncodingException, CMSException, IOException {
 
-		Security.addProvider(new BouncyCastleProvider());
+		JcaProviders.install();
 		CMSSignedDataGenerator gen = new CMSSignedDataGenerator();
 
 		SignerInfoGenerator info = buildSignInfo(pvKey, cert);
@@ -149,7 +148,7 @@ public class SignatureContainerGenerator {
 	public CmsSignatureContainer generate()
 			throws CertificateEncodingException, OperatorCreationException, CMSException, IOException {
 		
-		Security.addProvider(new BouncyCastleProvider());
+		JcaProviders.install();
 		CMSSignedDataStreamGenerator generator = new CMSSignedDataStreamGenerator();
 		PrivateKey privateKey = this.cmsSignatureComponent.privateInformation.getPrivateKey();
 		
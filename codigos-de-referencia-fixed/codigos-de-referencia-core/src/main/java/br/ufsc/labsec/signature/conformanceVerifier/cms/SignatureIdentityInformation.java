@@ -1,12 +1,10 @@
 package br.ufsc.labsec.signature.conformanceVerifier.cms;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.security.cert.CRLException;
 import java.security.cert.CertSelector;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
-import java.security.cert.CertificateFactory;
 import java.security.cert.X509CRL;
 import java.security.cert.X509Certificate;
 import java.sql.Time;
@@ -25,6 +23,7 @@ import org.bouncycastle.util.Store;
 
 import br.ufsc.labsec.component.Application;
 import br.ufsc.labsec.signature.CertificateCollection;
+import br.ufsc.labsec.signature.CertificateInterner;
 import br.ufsc.labsec.signature.RevocationInformation;
 
 /**
@@ -122,6 +121,16 @@ public class SignatureIdentityInformation implements RevocationInformation, Cert
 
 	}
 
+	/**
+	 * Os dados vêm da assinatura em verificação e não são protegidos para
+	 * acesso concorrente
+	 * @return Falso
+	 */
+	@Override
+	public boolean isThreadSafe() {
+		return false;
+	}
+
 	/**
 	 * Busca a CRL de um certificado
 	 * @param certificate Certificado que se deseja a CRL
@@ -191,11 +200,8 @@ public class SignatureIdentityInformation implements RevocationInformation, Cert
 			ArrayList<X509Certificate> certificates = new ArrayList<X509Certificate>();
 	
 			try {
-				CertificateFactory certificateFac = CertificateFactory.getInstance("X.509");
-	
 				for (X509CertificateHolder certHolder : collection) {
-					certificates.add((X509Certificate) certificateFac
-							.generateCertificate(new ByteArrayInputStream(certHolder.getEncoded())));
+					certificates.add(CertificateInterner.intern(certHolder.getEncoded()));
 				}
 	
 			} catch (CertificateException | IOException e) {
@@ -6,7 +6,9 @@ import br.ufsc.labsec.component.Requirement;
 import br.ufsc.labsec.signature.Constants;
 import br.ufsc.labsec.signature.IdentitySelector;
 import br.ufsc.labsec.signature.SignatureDataWrapper;
+import br.ufsc.labsec.signature.SpooledContent;
 import br.ufsc.labsec.signature.Verifier;
+import br.ufsc.labsec.signature.conformanceVerifier.cache.VerificationResultCache;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.CadesSignature;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.CadesSignatureContainer;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.CadesVerifier;
@@ -15,9 +17,13 @@ import br.ufsc.labsec.signature.conformanceVerifier.cms.CmsSignature;
 import br.ufsc.labsec.signature.conformanceVerifier.cms.CmsSignatureContainer;
 import br.ufsc.labsec.signature.conformanceVerifier.cms.CmsVerifier;
 import br.ufsc.labsec.signature.conformanceVerifier.cms.exceptions.SignatureNotICPBrException;
+import br.ufsc.labsec.signature.conformanceVerifier.metrics.Span;
+import br.ufsc.labsec.signature.conformanceVerifier.metrics.VerificationMetrics;
 import br.ufsc.labsec.signature.conformanceVerifier.pades.PadesVerifier;
 import br.ufsc.labsec.signature.conformanceVerifier.pades.attributes.DocTimeStampAttribute;
+import br.ufsc.labsec.signature.conformanceVerifier.pades.utils.ByteRangeDigester;
 import br.ufsc.labsec.signature.conformanceVerifier.pdf.PDDocumentUtils;
+import br.ufsc.labsec.signature.conformanceVerifier.pdf.PdfDocumentSession;
 import br.ufsc.labsec.signature.conformanceVerifier.pdf.PdfIncrementalUpdatesAuxiliary;
 import br.ufsc.labsec.signature.conformanceVerifier.pdf.exceptions.IUException;
 import br.ufsc.labsec.signature.conformanceVerifier.pdf.exceptions.IncrementalUpdateException;
@@ -27,18 +33,19 @@ import br.ufsc.labsec.signature.conformanceVerifier.report.PaReport;
 import br.ufsc.labsec.signature.conformanceVerifier.report.Report;
 import br.ufsc.labsec.signature.conformanceVerifier.report.Report.ReportType;
 import br.ufsc.labsec.signature.conformanceVerifier.report.SignatureReport;
+import br.ufsc.labsec.signature.conformanceVerifier.signaturePolicy.SignaturePolicyComponent;
+import br.ufsc.labsec.signature.conformanceVerifier.validationService.TrustAnchorInterface;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.XadesVerifier;
 import br.ufsc.labsec.signature.exceptions.EncodingException;
 import br.ufsc.labsec.signature.exceptions.SignatureAttributeException;
 import br.ufsc.labsec.signature.exceptions.VerificationException;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.interactive.digitalsignature.PDSignature;
-import org.bouncycastle.util.io.Streams;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.security.cert.CertificateException;
+import java.security.cert.TrustAnchor;
 import java.security.cert.X509Certificate;
 import java.util.*;
 import java.util.logging.Level;
@@ -53,6 +60,8 @@ public class ReportGuiComponent extends Component {
     public List<Verifier> verifiers;
     @Requirement
     public IdentitySelector identitySelector;
+    @Requirement(optional = true)
+    public TrustAnchorInterface trustAnchorInterface;
 
     /**
      * Lista dos {@link Verifier} disponíveis
@@ -62,6 +71,14 @@ public class ReportGuiComponent extends Component {
             "CmsVerifier", "PadesVerifier",
             "CadesVerifier", "XadesVerifier", "XmlVerifier"
     );
+    /**
+     * Verificadores de documentos XML, os únicos consultados para arquivos XML
+     */
+    private static final List<String> xmlVerifiers = Arrays.asList("XadesVerifier", "XmlVerifier");
+    /**
+     * Quantidade de bytes do início do arquivo usada para identificar o seu formato
+     */
+    private static final int HEAD_SIZE = 1024;
 
     /**
      * Construtor
@@ -94,7 +111,16 @@ public class ReportGuiComponent extends Component {
      */
     public Verifier chooseSignatureVerifier() throws SignatureNotICPBrException {
         SignatureDataWrapper streams = this.getApplication().getSignatureWrapperList().get(0);
-        InputStream signature = streams.sig(), detached = streams.det();
+        // o conteúdo destacado é repassado aos verificadores sem ser carregado em memória
+        byte[] signature;
+        SpooledContent detached;
+        try {
+            signature = streams.signedContent().toByteArray();
+            detached = streams.detachedContent();
+        } catch (IOException e) {
+            Application.logger.log(Level.SEVERE, "Não foi possível ler o arquivo de assinatura.", e);
+            return null;
+        }
         boolean pdf = false;
 
         // Arquivos de assinatura PDF/PAdES englobam assinaturas de outros tipos, como CAdES.
@@ -113,12 +139,9 @@ public class ReportGuiComponent extends Component {
                 PDSignature signatureObj = listSignatures.get(i);
                 if (!DocTimeStampAttribute.signatureIsTimestamp(signatureObj)) {
                     empty = false;
-                    signature.reset();
                     byte[] sig = signatureObj.getContents(signature);
-                    signature.reset();
-                    byte[] signedContent = signatureObj.getContents(signature);
                     try {
-                        v = chooseSignatureVerifier(sig, signedContent);
+                        v = chooseSignatureVerifier(SpooledContent.of(sig), SpooledContent.of(sig), false);
                     } catch (SignatureNotICPBrException e) {
                         // ignore and continue
                     }
@@ -137,13 +160,8 @@ public class ReportGuiComponent extends Component {
             if (exception instanceof SignatureNotICPBrException) {
                 throw (SignatureNotICPBrException) exception;
             }
-            try {
-                signature.reset();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
 
-            v = chooseVerifierWithStreams(signature, detached);
+            v = chooseSignatureVerifier(SpooledContent.of(signature), detached, isXml(signature));
         }
 
 
@@ -160,24 +178,30 @@ public class ReportGuiComponent extends Component {
 
     /**
      * Seleciona o {@link Verifier} correto para realizar a verificação
-     * do arquivo de assinatura
-     * @param sig Os bytes do arquivo de assinatura
-     * @param det Os bytes do conteúdo assinado
+     * do arquivo de assinatura. Arquivos XML são oferecidos apenas aos
+     * verificadores de XML, que podem lê-los em sequência a partir do disco;
+     * os demais verificadores carregariam o arquivo em memória para recusá-lo
+     * @param sig O arquivo de assinatura
+     * @param det O conteúdo assinado
+     * @param xml Indica se o arquivo de assinatura é um documento XML
      * @return O {@link Verifier} que suporta o arquivo de assinatura
      * @throws SignatureNotICPBrException Exceção caso o arquivo seja assinado
      *      por um certificado que não pertence à ICP-Brasil
      */
-    private Verifier chooseSignatureVerifier(byte[] sig, byte[] det) throws SignatureNotICPBrException {
+    private Verifier chooseSignatureVerifier(SpooledContent sig, SpooledContent det, boolean xml)
+            throws SignatureNotICPBrException {
         this.verifiers.sort(Comparator.comparing(
                 (v) -> sortOrder.indexOf(v.getClass().getSimpleName())));
         Iterator<Verifier> it = this.verifiers.iterator();
 
-        boolean chosen;
+        boolean chosen = false;
         Verifier v;
 
         do {
             v = it.next();
-            chosen = v.supports(sig, det);
+            if (!xml || xmlVerifiers.contains(v.getClass().getSimpleName())) {
+                chosen = v.supports(sig, det);
+            }
         } while (it.hasNext() && !chosen);
 
         if (!chosen) {
@@ -188,71 +212,248 @@ public class ReportGuiComponent extends Component {
     }
 
     /**
-     * Seleciona o {@link Verifier} correto para realizar a verificação
-     * do arquivo de assinatura
-     * @param signature O Stream do arquivo de assinatura
-     * @param detached O Stream do conteúdo assinado
-     * @return O {@link Verifier} que suporta o arquivo de assinatura
-     * @throws SignatureNotICPBrException Exceção caso o arquivo seja assinado
-     *      por um certificado que não pertence à ICP-Brasil
+     * Inicia a verificação dos documentos
+     * @return A lista de relatórios das verificações
      */
-    private Verifier chooseVerifierWithStreams(InputStream signature, InputStream detached) throws SignatureNotICPBrException {
-        try {
-            return chooseSignatureVerifier(
-                    Streams.readAll(signature),
-                    Streams.readAll(detached));
-        } catch (NullPointerException | IOException e) {
-            e.printStackTrace();
-        }
-
-        return null;
+    public List<Report> startVerification() {
+        return this.startVerification(false);
     }
 
     /**
-     * Inicia a verificação dos documentos
+     * Inicia a verificação dos documentos, consultando a cache de resultados
+     * quando habilitada
+     * @param revalidate Indica se a cache deve ser ignorada, forçando uma nova
+     *                   verificação cujo resultado substitui o armazenado
      * @return A lista de relatórios das verificações
      */
-    public List<Report> startVerification() {
+    public List<Report> startVerification(boolean revalidate) {
         List<SignatureDataWrapper> sigWrapperList = this.getApplication().getSignatureWrapperList();
         List<Report> reports = new ArrayList<>();
-
         for (SignatureDataWrapper sw : sigWrapperList) {
-            byte[] sig = null, det = null;
-            String filename = sw.name();
-            try {
-                sig = Streams.readAll(sw.sig());
-                det = Streams.readAll(sw.det());
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            reports.add(this.verify(sw, revalidate));
+        }
+        return reports;
+    }
 
+    /**
+     * Verifica um arquivo de assinatura, consultando a cache de resultados
+     * quando habilitada. Usado tanto pela verificação de todos os documentos
+     * da aplicação quanto pelas verificações assíncronas, que publicam o
+     * relatório de cada arquivo assim que ele é gerado.
+     * @param sw O arquivo de assinatura e o seu conteúdo destacado
+     * @param revalidate Indica se a cache deve ser ignorada, forçando uma nova
+     *                   verificação cujo resultado substitui o armazenado
+     * @return O relatório da verificação
+     */
+    public Report verify(SignatureDataWrapper sw, boolean revalidate) {
+        VerificationResultCache cache = VerificationResultCache.getInstance();
+        String filename = sw.name();
+        // o arquivo de assinatura e o conteúdo destacado, que podem estar em disco, são
+        // resumidos em blocos e repassados aos verificadores; apenas os verificadores
+        // que não leem o arquivo em sequência o carregam em memória
+        SpooledContent sig;
+        SpooledContent det;
+        byte[] head;
+        byte[] contentDigest = null;
+        try {
+            sig = sw.signedContent();
+            det = sw.detachedContent();
+            head = head(sig);
+            if (cache.isEnabled()) {
+                // sem conteúdo destacado o wrapper retorna um conteúdo vazio, que na
+                // chave deve ser distinguido de um arquivo destacado vazio
+                contentDigest = cache.contentDigest(sig, sw.hasDetachedData() ? det : null);
+            }
+        } catch (IOException e) {
+            Application.logger.log(Level.SEVERE, "Não foi possível ler o arquivo de assinatura.", e);
             Report r = new Report();
-            Verifier v = null;
-            try {
-                v = chooseSignatureVerifier(sig, det);
-                if (v == null) {
-                    r = this.extractSignatureFromPdf(sig, filename);
-                } else {
-                    Application.loggerInfo.log(Level.INFO, "Assinatura suportada por " + v.getClass().getName());
-                    try {
-                        r = v.report(sig, det, ReportType.HTML);
-                        r.setSourceFile(filename);
-                        r.log();
-                        v.clear();
-                    } catch (VerificationException e) {
-                        Application.logger.log(Level.SEVERE, "Erro ao gerar o relatório", e);
-                        e.printStackTrace();
-                    }
+            r.setSourceFile(filename);
+            return r;
+        }
+        boolean xml = isXml(head);
+
+        String lpaUrl = cache.isEnabled() ? this.lpaUrlFor(head) : null;
+        if (cache.isEnabled() && !revalidate) {
+            Report cached = cache.get(cache.key(contentDigest, this.getTrustAnchorSet(), lpaUrl));
+            if (cached != null) {
+                cached.setSourceFile(filename);
+                return cached;
+            }
+        }
+
+        Report r = new Report();
+        Verifier v = null;
+        boolean cacheable = false;
+        Span span = VerificationMetrics.span(VerificationMetrics.VERIFICATION);
+        try {
+            v = chooseSignatureVerifier(sig, det, xml);
+            if (v == null) {
+                // um documento XML não suportado não é um PDF
+                r = xml ? newReport(filename) : this.extractSignatureFromPdf(sig.toByteArray(), filename);
+                cacheable = true;
+                this.recordVerificationMetrics("Pdf", r);
+            } else {
+                Application.loggerInfo.log(Level.INFO, "Assinatura suportada por " + v.getClass().getName());
+                try {
+                    r = v.report(sig, det, ReportType.HTML);
+                    r.setSourceFile(filename);
+                    r.log();
+                    cacheable = true;
+                } catch (VerificationException e) {
+                    span.fail();
+                    Application.logger.log(Level.SEVERE, "Erro ao gerar o relatório", e);
                 }
-            } catch (SignatureNotICPBrException e) {
-                Application.logger.log(Level.WARNING, "Assinatura não pertence à ICP-Brasil");
-                r.setSourceFile(filename);
-            } finally {
-                reports.add(r);
+                this.recordVerificationMetrics(v.getClass().getSimpleName().replace("Verifier", ""), r);
             }
+        } catch (SignatureNotICPBrException e) {
+            Application.logger.log(Level.WARNING, "Assinatura não pertence à ICP-Brasil");
+            r.setSourceFile(filename);
+            VerificationMetrics.increment("verification.outcome.NaoICPBrasil");
+        } catch (IOException e) {
+            span.fail();
+            Application.logger.log(Level.SEVERE, "Não foi possível ler o arquivo de assinatura.", e);
+            r.setSourceFile(filename);
+        } finally {
+            span.close();
+            // a escolha do verificador seleciona o arquivo em todos os verificadores testados,
+            // e uma verificação com erro deixa o relatório parcial no verificador escolhido
+            this.clearVerifiers();
         }
 
-        return reports;
+        if (cacheable && cache.isEnabled()) {
+            // a chave é recalculada pois a verificação pode ter obtido uma LPA mais recente
+            cache.put(cache.key(contentDigest, this.getTrustAnchorSet(), lpaUrl), r);
+        }
+
+        return r;
+    }
+
+    /**
+     * Cria o relatório de um arquivo de assinatura ainda sem assinaturas
+     * @param filename O nome do arquivo de assinatura
+     * @return O relatório
+     */
+    private static Report newReport(String filename) {
+        Report report = new Report();
+        report.setSoftwareName(Constants.VERIFICADOR_NAME);
+        report.setSoftwareVersion(Constants.SOFTWARE_VERSION);
+        report.setVerificationDate(new Date());
+        report.setSourceOfDate("Offline");
+        report.setSourceFile(filename);
+        return report;
+    }
+
+    /**
+     * Limpa o estado de todos os verificadores, para que a próxima verificação
+     * feita por este componente não herde o arquivo ou o relatório da anterior
+     */
+    private void clearVerifiers() {
+        for (Verifier verifier : this.verifiers) {
+            try {
+                verifier.clear();
+            } catch (RuntimeException e) {
+                Application.logger.log(Level.WARNING, "Não foi possível limpar o verificador "
+                        + verifier.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    /**
+     * Retorna a URL da LPA do formato de um arquivo de assinatura, identificado
+     * pelo início do arquivo: documentos PDF usam a LPA PAdES, documentos XML a
+     * LPA XAdES e os demais a LPA CAdES
+     * @param signature O início do arquivo de assinatura
+     * @return A URL da LPA, ou nulo caso o componente de política não esteja configurado
+     */
+    private String lpaUrlFor(byte[] signature) {
+        Component policy = this.getApplication().getComponent(SignaturePolicyComponent.class.getName());
+        if (policy == null || signature == null) {
+            return null;
+        }
+        int start = contentStart(signature);
+        String param;
+        if (startsWith(signature, start, "%PDF")) {
+            param = "lpaUrlAsn1PAdES";
+        } else if (startsWith(signature, start, "<")) {
+            param = "lpaUrlXml";
+        } else {
+            param = "lpaUrlAsn1CAdES";
+        }
+        List<String> urls = this.getApplication().getComponentParams(policy, param);
+        return urls == null || urls.isEmpty() ? null : urls.get(0);
+    }
+
+    /**
+     * Lê o início de um arquivo de assinatura, usado para identificar o seu formato
+     * @param signature O arquivo de assinatura
+     * @return Até {@link #HEAD_SIZE} bytes do início do arquivo
+     * @throws IOException Exceção caso o arquivo não possa ser lido
+     */
+    private static byte[] head(SpooledContent signature) throws IOException {
+        try (InputStream input = signature.openStream()) {
+            return input.readNBytes(HEAD_SIZE);
+        }
+    }
+
+    /**
+     * Indica se um arquivo de assinatura é um documento XML
+     * @param signature O início do arquivo de assinatura
+     * @return Verdadeiro se o arquivo começa com um elemento ou declaração XML
+     */
+    private static boolean isXml(byte[] signature) {
+        return startsWith(signature, contentStart(signature), "<");
+    }
+
+    /**
+     * Retorna a posição do primeiro byte do arquivo que não é um espaço ou
+     * parte de uma marca de ordem de bytes
+     * @param signature O início do arquivo de assinatura
+     * @return A posição
+     */
+    private static int contentStart(byte[] signature) {
+        int start = 0;
+        while (start < signature.length && (Character.isWhitespace(signature[start]) || (signature[start] & 0x80) != 0)) {
+            start++;
+        }
+        return start;
+    }
+
+    private static boolean startsWith(byte[] data, int offset, String prefix) {
+        if (data.length - offset < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (data[offset + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Retorna as âncoras de confiança usadas nas verificações
+     * @return O conjunto de âncoras de confiança, vazio caso o componente não esteja conectado
+     */
+    private Set<TrustAnchor> getTrustAnchorSet() {
+        if (this.trustAnchorInterface == null) {
+            return Collections.emptySet();
+        }
+        return this.trustAnchorInterface.getTrustAnchorSet();
+    }
+
+    /**
+     * Registra nas métricas de verificação o formato e o resultado de um relatório
+     * @param format O formato das assinaturas verificadas
+     * @param report O relatório gerado
+     */
+    private void recordVerificationMetrics(String format, Report report) {
+        List<SignatureReport> signatures = report.getSignatures();
+        VerificationMetrics.add("signatures.format." + format, signatures.size());
+        if (signatures.isEmpty()) {
+            VerificationMetrics.increment("verification.outcome.SemAssinaturas");
+        } else {
+            VerificationMetrics.increment("verification.outcome." + Report.generateGeneralStatus(signatures));
+        }
     }
 
     /**
@@ -265,10 +466,10 @@ public class ReportGuiComponent extends Component {
      */
     private void pdfSignatureReportIncrementalUpdatesStatus(byte[] content,
                                                             List<SignatureReport> listReports,
-                                                            PDDocument documentPDF,
+                                                            PdfDocumentSession session,
                                                             Set<Integer> generatedReport) throws IOException {
         PdfIncrementalUpdatesAuxiliary pdfIncrementalUpdatesAuxiliary =
-                new PdfIncrementalUpdatesAuxiliary(documentPDF, content);
+                new PdfIncrementalUpdatesAuxiliary(session.getDocument(), content);
         List<IUException> exceptions = pdfIncrementalUpdatesAuxiliary.verify();
 
         int signatureIndex = listReports.size()-1;
@@ -276,7 +477,7 @@ public class ReportGuiComponent extends Component {
         boolean indeterminate, invalidate;
         indeterminate = invalidate = false;
 
-        List<PDSignature> signatures = documentPDF.getSignatureDictionaries();
+        List<PDSignature> signatures = session.getSignatureDictionaries();
         IUException exception = null;
         for (int i = signatures.size()-1; i >= 0; i--) {
             PDSignature signature = signatures.get(i);
@@ -364,37 +565,34 @@ public class ReportGuiComponent extends Component {
      * @return O relatório da verificação
      */
     private Report extractSignatureFromPdf(byte[] sig, String filename) {
-        Report report = new Report();
-        report.setSoftwareName(Constants.VERIFICADOR_NAME);
-        report.setSoftwareVersion(Constants.SOFTWARE_VERSION);
-        report.setVerificationDate(new Date());
-        report.setSourceOfDate("Offline");
-        report.setSourceFile(filename);
-        try {
-            PDDocument pdfDoc = PDDocumentUtils.openPDDocument(sig);
-            List<PDSignature> listSignatures = pdfDoc.getSignatureDictionaries();
-            pdfDoc.close();
+        Report report = newReport(filename);
+        // O documento é analisado uma única vez e compartilhado por todas as etapas da verificação
+        try (PdfDocumentSession session = PdfDocumentSession.open(sig)) {
+            List<PDSignature> listSignatures = session.getSignatureDictionaries();
 
             if (listSignatures.isEmpty()) {
                 return report;
             }
             Set<Integer> generatedReport = new HashSet<>();
             Integer index = 0;
+            boolean signersPrefetched = false;
+            ByteRangeDigester digester = session.getDigester();
             for (PDSignature signature : listSignatures) {
                 /* Somente chama-se o verificador para assinaturas, não timestamps.
                 * Carimbos de tempo são verificados dentros dos verifiers.*/
                 if (DocTimeStampAttribute.signatureIsTimestamp(signature)) {
                     continue;
                 }
-                byte[] sigExtracted = signature.getContents(new ByteArrayInputStream(sig));
-                byte[] det = signature.getSignedContent(new ByteArrayInputStream(sig));
+                byte[] sigExtracted = digester.getContents(signature);
 
+                // A escolha do verificador depende apenas da assinatura; o conteúdo assinado
+                // só é extraído quando o verificador escolhido precisa dele
                 Verifier v = null;
                 try {
-                    v = chooseSignatureVerifier(sigExtracted, det);
+                    v = chooseSignatureVerifier(SpooledContent.of(sigExtracted), null, false);
                 } catch (SignatureNotICPBrException e) {
                     Application.logger.log(Level.WARNING, "Assinatura não pertence à ICP-Brasil");
-                    SignatureReport r = getNotIcpbrSignatureReport(sigExtracted, det);
+                    SignatureReport r = getNotIcpbrSignatureReport(sigExtracted, signature.getSignedContent(sig));
                     if (r != null) {
                         report.addSignatureReport(r);
                         generatedReport.add(index++);
@@ -407,9 +605,22 @@ public class ReportGuiComponent extends Component {
                     try {
                         Report r;
                         if (v instanceof PadesVerifier) {
-                            r = v.report(sig, sigExtracted, ReportType.HTML);
+                            ((PadesVerifier) v).setDocumentSession(session);
+                            try {
+                                r = v.report(sig, sigExtracted, ReportType.HTML);
+                                if (!signersPrefetched) {
+                                    // as demais assinaturas são verificadas em ordem com os dados já nas caches
+                                    signersPrefetched = true;
+                                    ((PadesVerifier) v).prefetchOtherSigners(signature);
+                                }
+                            } finally {
+                                ((PadesVerifier) v).setDocumentSession(null);
+                            }
+                        } else if (v instanceof CadesVerifier) {
+                            r = ((CadesVerifier) v).report(sigExtracted,
+                                    digester.digest(signature, sigExtracted), ReportType.HTML);
                         } else {
-                            r = v.report(sigExtracted, det, ReportType.HTML);
+                            r = v.report(sigExtracted, signature.getSignedContent(sig), ReportType.HTML);
                         }
                         for (SignatureReport sr : r.getSignatures()) {
                             report.addSignatureReport(sr);
@@ -427,15 +638,15 @@ public class ReportGuiComponent extends Component {
                             report.setOnline(r.isOnline());
                             report.setPeriod(r.getPeriod());
                         }
-                        v.clear();
                     } catch (VerificationException e) {
                         Application.logger.log(Level.SEVERE, "Erro ao gerar o relatório", e);
-                        e.printStackTrace();
+                    } finally {
+                        v.clear();
                     }
                     index++;
                 }
             }
-            pdfSignatureReportIncrementalUpdatesStatus(sig, report.getSignatures(), pdfDoc, generatedReport);
+            pdfSignatureReportIncrementalUpdatesStatus(sig, report.getSignatures(), session, generatedReport);
         } catch (IOException | IndexOutOfBoundsException e) {
             if (report.getSignatures().isEmpty()) {
                 Application.logger.log(Level.SEVERE, "Erro ao extrair assinaturas do pdf", e.getMessage());
@@ -0,0 +1,213 @@
+package br.ufsc.labsec.signature.conformanceVerifier.jobs;
+
+import br.ufsc.labsec.component.Application;
+import br.ufsc.labsec.signature.conformanceVerifier.report.Report;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Level;
+
+/**
+ * Verificação assíncrona de um lote de arquivos de assinatura. Os relatórios
+ * são publicados na ordem dos arquivos, à medida que cada verificação termina,
+ * e podem ser consultados a partir de qualquer posição já recebida pelo cliente.
+ */
+public final class VerificationJob {
+
+    /**
+     * Estado de uma tarefa
+     */
+    public enum Status {
+        PENDING, RUNNING, DONE, FAILED, CANCELLED;
+
+        /**
+         * Indica se a tarefa não terá novos relatórios
+         * @return Verdadeiro para os estados finais
+         */
+        public boolean isFinal() {
+            return this != PENDING && this != RUNNING;
+        }
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final List<String> fileNames;
+    private final List<Report> reports = new ArrayList<>();
+    private final List<VerificationJobListener> listeners = new CopyOnWriteArrayList<>();
+    private final long createdAt = System.currentTimeMillis();
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private Status status = Status.PENDING;
+    private String errorMessage;
+    private long finishedAt;
+
+    /**
+     * Construtor
+     * @param fileNames Os nomes dos arquivos do lote, na ordem de verificação
+     */
+    VerificationJob(List<String> fileNames) {
+        this.fileNames = Collections.unmodifiableList(new ArrayList<>(fileNames));
+    }
+
+    /**
+     * Retorna o identificador da tarefa
+     * @return O identificador
+     */
+    public String getId() {
+        return this.id;
+    }
+
+    /**
+     * Retorna os nomes dos arquivos do lote
+     * @return Os nomes, na ordem de verificação
+     */
+    public List<String> getFileNames() {
+        return this.fileNames;
+    }
+
+    /**
+     * Retorna o estado da tarefa
+     * @return O estado
+     */
+    public synchronized Status getStatus() {
+        return this.status;
+    }
+
+    /**
+     * Retorna a mensagem de erro de uma tarefa que falhou
+     * @return A mensagem, ou nulo caso a tarefa não tenha falhado
+     */
+    public synchronized String getErrorMessage() {
+        return this.errorMessage;
+    }
+
+    /**
+     * Retorna a quantidade de relatórios já publicados
+     * @return A quantidade de relatórios
+     */
+    public synchronized int getCompletedCount() {
+        return this.reports.size();
+    }
+
+    /**
+     * Retorna os relatórios publicados a partir de uma posição
+     * @param since A quantidade de relatórios já recebidos pelo cliente
+     * @return Os relatórios seguintes, na ordem dos arquivos
+     */
+    public synchronized List<Report> getReports(int since) {
+        int from = Math.max(0, Math.min(since, this.reports.size()));
+        return new ArrayList<>(this.reports.subList(from, this.reports.size()));
+    }
+
+    /**
+     * Retorna o momento de criação da tarefa
+     * @return O momento, em milissegundos
+     */
+    public long getCreatedAt() {
+        return this.createdAt;
+    }
+
+    /**
+     * Retorna o momento em que a tarefa chegou a um estado final
+     * @return O momento, em milissegundos, ou zero se a tarefa não terminou
+     */
+    public synchronized long getFinishedAt() {
+        return this.finishedAt;
+    }
+
+    /**
+     * Aguarda até que a tarefa chegue a um estado final
+     * @throws InterruptedException Exceção caso a thread seja interrompida durante a espera
+     */
+    public void await() throws InterruptedException {
+        this.finished.await();
+    }
+
+    /**
+     * Registra um observador da tarefa
+     * @param listener O observador
+     */
+    public void addListener(VerificationJobListener listener) {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Remove um observador da tarefa
+     * @param listener O observador
+     */
+    public void removeListener(VerificationJobListener listener) {
+        this.listeners.remove(listener);
+    }
+
+    /**
+     * Marca o início da verificação
+     * @return Falso caso a tarefa tenha sido cancelada antes de começar
+     */
+    boolean start() {
+        synchronized (this) {
+            if (this.status != Status.PENDING) {
+                return false;
+            }
+            this.status = Status.RUNNING;
+        }
+        this.notifyListeners();
+        return true;
+    }
+
+    /**
+     * Publica o relatório do próximo arquivo do lote
+     * @param report O relatório
+     */
+    void publish(Report report) {
+        synchronized (this) {
+            this.reports.add(report);
+        }
+        this.notifyListeners();
+    }
+
+    /**
+     * Indica se a tarefa foi cancelada, interrompendo a verificação dos arquivos restantes
+     * @return Verdadeiro se a tarefa foi cancelada
+     */
+    synchronized boolean isCancelled() {
+        return this.status == Status.CANCELLED;
+    }
+
+    /**
+     * Cancela a tarefa. Os arquivos ainda não verificados são descartados.
+     */
+    void cancel() {
+        this.finish(Status.CANCELLED, null);
+    }
+
+    /**
+     * Leva a tarefa a um estado final, caso ainda não esteja em um
+     * @param finalStatus O estado final
+     * @param message A mensagem de erro, para tarefas que falharam
+     */
+    void finish(Status finalStatus, String message) {
+        synchronized (this) {
+            if (this.status.isFinal()) {
+                return;
+            }
+            this.status = finalStatus;
+            this.errorMessage = message;
+            this.finishedAt = System.currentTimeMillis();
+        }
+        this.finished.countDown();
+        this.notifyListeners();
+    }
+
+    private void notifyListeners() {
+        for (VerificationJobListener listener : this.listeners) {
+            try {
+                listener.jobUpdated(this);
+            } catch (RuntimeException e) {
+                Application.logger.log(Level.WARNING, "Erro ao notificar um observador da tarefa " + this.id, e);
+            }
+        }
+    }
+
+}
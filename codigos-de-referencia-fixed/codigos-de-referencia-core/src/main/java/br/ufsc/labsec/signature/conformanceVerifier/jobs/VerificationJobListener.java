@@ -0,0 +1,16 @@
+package br.ufsc.labsec.signature.conformanceVerifier.jobs;
+
+/**
+ * Observador das mudanças de uma {@link VerificationJob}. É notificado na
+ * thread de verificação, e por isso não deve bloquear; quem precisa escrever
+ * em uma conexão deve apenas agendar a escrita.
+ */
+public interface VerificationJobListener {
+
+    /**
+     * Indica que um novo relatório foi publicado ou que o estado da tarefa mudou
+     * @param job A tarefa alterada
+     */
+    void jobUpdated(VerificationJob job);
+
+}
@@ -0,0 +1,205 @@
+package br.ufsc.labsec.signature.conformanceVerifier.jobs;
+
+import br.ufsc.labsec.component.Application;
+import br.ufsc.labsec.signature.SignatureDataWrapper;
+import br.ufsc.labsec.signature.conformanceVerifier.gui.ReportGuiComponent;
+import br.ufsc.labsec.signature.conformanceVerifier.metrics.VerificationMetrics;
+import br.ufsc.labsec.signature.conformanceVerifier.report.Report;
+import br.ufsc.labsec.signature.conformanceVerifier.service.PooledVerificationService;
+import br.ufsc.labsec.signature.exceptions.VerificationException;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * Executa as verificações assíncronas em um conjunto fixo de threads e mantém
+ * as tarefas até que sejam consultadas. Cada tarefa verifica os seus arquivos
+ * em sequência, com o mesmo procedimento das verificações síncronas
+ * ({@link ReportGuiComponent#verify(SignatureDataWrapper, boolean)}), usando
+ * os grafos de componentes do {@link PooledVerificationService}.
+ *
+ * A quantidade de tarefas mantidas é limitada: tarefas encerradas expiram após
+ * o tempo de vida configurado e, quando o limite é atingido, as encerradas mais
+ * antigas são descartadas. Se todas as tarefas mantidas ainda estiverem em
+ * andamento, novas tarefas são recusadas.
+ */
+public final class VerificationJobManager {
+
+    /**
+     * Quantidade padrão de threads de verificação
+     */
+    public static final int DEFAULT_THREADS = 4;
+    /**
+     * Quantidade padrão de tarefas mantidas
+     */
+    public static final int DEFAULT_MAX_JOBS = 256;
+    /**
+     * Tempo de vida padrão de uma tarefa encerrada, em milissegundos
+     */
+    public static final long DEFAULT_TTL = TimeUnit.HOURS.toMillis(1);
+
+    private static final VerificationJobManager instance = new VerificationJobManager();
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+
+    /**
+     * Tarefas mantidas, na ordem de criação
+     */
+    private final Map<String, VerificationJob> jobs = new LinkedHashMap<>();
+    private ExecutorService executor;
+    private int threads;
+    private int maxJobs;
+    private long ttl;
+
+    private VerificationJobManager() {
+        this.configure(DEFAULT_THREADS, DEFAULT_MAX_JOBS, DEFAULT_TTL);
+    }
+
+    /**
+     * Retorna a instância do processo
+     * @return O gerenciador de tarefas
+     */
+    public static VerificationJobManager getInstance() {
+        return instance;
+    }
+
+    /**
+     * Configura o gerenciador. Ao mudar a quantidade de threads, as tarefas já
+     * aceitas terminam nas threads anteriores.
+     * @param threads Quantidade de threads de verificação
+     * @param maxJobs Quantidade máxima de tarefas mantidas
+     * @param ttl Tempo de vida de uma tarefa encerrada, em milissegundos
+     */
+    public synchronized void configure(int threads, int maxJobs, long ttl) {
+        if (this.executor == null || this.threads != threads) {
+            if (this.executor != null) {
+                this.executor.shutdown();
+            }
+            this.executor = Executors.newFixedThreadPool(threads, task -> {
+                Thread thread = new Thread(task, "verification-job-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.threads = threads;
+        }
+        this.maxJobs = maxJobs;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Cria uma tarefa para verificar os arquivos dados. A tarefa passa a ser
+     * responsável pelos arquivos, que são fechados ao final da verificação.
+     * @param wrappers Os arquivos de assinatura e os seus conteúdos destacados
+     * @param revalidate Indica se a cache de resultados deve ser ignorada
+     * @return A tarefa criada
+     * @throws RejectedExecutionException Exceção caso o limite de tarefas em
+     * andamento tenha sido atingido; neste caso os arquivos não são fechados
+     */
+    public synchronized VerificationJob submit(List<SignatureDataWrapper> wrappers, boolean revalidate) {
+        this.purge();
+        if (this.jobs.size() >= this.maxJobs) {
+            VerificationMetrics.increment("verification.job.rejected");
+            throw new RejectedExecutionException("Limite de " + this.maxJobs + " tarefas de verificação atingido");
+        }
+
+        List<String> fileNames = new ArrayList<>();
+        for (SignatureDataWrapper wrapper : wrappers) {
+            fileNames.add(wrapper.name());
+        }
+        VerificationJob job = new VerificationJob(fileNames);
+        List<SignatureDataWrapper> files = new ArrayList<>(wrappers);
+        this.executor.execute(() -> this.run(job, files, revalidate));
+        this.jobs.put(job.getId(), job);
+        VerificationMetrics.increment("verification.job.submitted");
+        return job;
+    }
+
+    /**
+     * Retorna uma tarefa mantida
+     * @param id O identificador da tarefa
+     * @return A tarefa, ou nulo caso não exista ou tenha expirado
+     */
+    public synchronized VerificationJob get(String id) {
+        this.purge();
+        return this.jobs.get(id);
+    }
+
+    /**
+     * Cancela e descarta uma tarefa
+     * @param id O identificador da tarefa
+     * @return Verdadeiro se a tarefa existia
+     */
+    public boolean remove(String id) {
+        VerificationJob job;
+        synchronized (this) {
+            job = this.jobs.remove(id);
+        }
+        if (job == null) {
+            return false;
+        }
+        job.cancel();
+        return true;
+    }
+
+    /**
+     * Retorna o tempo de vida de uma tarefa encerrada
+     * @return O tempo de vida, em milissegundos
+     */
+    public synchronized long getTtl() {
+        return this.ttl;
+    }
+
+    /**
+     * Remove as tarefas encerradas expiradas e, acima do limite, as encerradas mais antigas
+     */
+    private void purge() {
+        long now = System.currentTimeMillis();
+        int excess = this.jobs.size() - this.maxJobs + 1;
+        Iterator<VerificationJob> iterator = this.jobs.values().iterator();
+        while (iterator.hasNext()) {
+            VerificationJob job = iterator.next();
+            if (!job.getStatus().isFinal()) {
+                continue;
+            }
+            if (excess > 0 || now - job.getFinishedAt() > this.ttl) {
+                iterator.remove();
+                excess--;
+            }
+        }
+    }
+
+    /**
+     * Verifica os arquivos da tarefa, publicando o relatório de cada um
+     */
+    private void run(VerificationJob job, List<SignatureDataWrapper> wrappers, boolean revalidate) {
+        try {
+            if (!job.start()) {
+                return;
+            }
+            PooledVerificationService service = PooledVerificationService.getInstance();
+            for (int i = 0; i < wrappers.size() && !job.isCancelled(); ++i) {
+                Report report = service.report(wrappers.get(i), revalidate);
+                report.setNumber(i + 1);
+                job.publish(report);
+            }
+            job.finish(VerificationJob.Status.DONE, null);
+        } catch (VerificationException | RuntimeException e) {
+            Application.logger.log(Level.SEVERE, "Erro na tarefa de verificação " + job.getId(), e);
+            job.finish(VerificationJob.Status.FAILED, e.getMessage());
+        } finally {
+            for (SignatureDataWrapper wrapper : wrappers) {
+                wrapper.close();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,210 @@
+package br.ufsc.labsec.signature.conformanceVerifier.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Representa um trecho cronometrado de uma verificação. Os trechos abertos
+ * em uma mesma thread formam uma árvore, cuja raiz corresponde à verificação
+ * de um arquivo. Deve ser usado em um bloco try-with-resources, ou por meio
+ * de {@link VerificationMetrics#time(String, VerificationMetrics.Stage)}.
+ */
+public final class Span implements AutoCloseable {
+
+    /**
+     * Trecho aberto mais recente em cada thread
+     */
+    private static final ThreadLocal<Span> current = new ThreadLocal<>();
+
+    /**
+     * Nome da etapa
+     */
+    private final String name;
+    /**
+     * Trecho que contém este trecho, ou nulo caso seja a raiz
+     */
+    private final Span parent;
+    /**
+     * Instante de início, em nanossegundos
+     */
+    private final long start;
+    /**
+     * Duração em nanossegundos, ou -1 enquanto o trecho estiver aberto
+     */
+    private volatile long duration;
+    /**
+     * Indica se a etapa falhou
+     */
+    private volatile boolean failed;
+    /**
+     * Trechos internos, criado sob demanda
+     */
+    private List<Span> children;
+
+    /**
+     * Construtor
+     * @param name Nome da etapa
+     * @param parent Trecho que contém este trecho
+     */
+    private Span(String name, Span parent) {
+        this.name = name;
+        this.parent = parent;
+        this.start = System.nanoTime();
+        this.duration = -1;
+    }
+
+    /**
+     * Abre um trecho na thread atual, como filho do trecho aberto mais recente
+     * @param name Nome da etapa
+     * @return O trecho aberto
+     */
+    static Span open(String name) {
+        Span parent = current.get();
+        Span span = new Span(name, parent);
+        if (parent != null) {
+            parent.addChild(span);
+        }
+        current.set(span);
+        return span;
+    }
+
+    /**
+     * Associa uma tarefa ao trecho aberto na thread atual, de modo que os trechos
+     * abertos pela tarefa em outra thread sejam filhos deste trecho
+     * @param task A tarefa
+     * @return A tarefa associada ao trecho atual
+     */
+    static <T> Callable<T> propagate(Callable<T> task) {
+        Span parent = current.get();
+        if (parent == null) {
+            return task;
+        }
+        return () -> {
+            Span previous = current.get();
+            current.set(parent);
+            try {
+                return task.call();
+            } finally {
+                if (previous == null) {
+                    current.remove();
+                } else {
+                    current.set(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * Adiciona um trecho interno
+     * @param child O trecho interno
+     */
+    private synchronized void addChild(Span child) {
+        if (this.children == null) {
+            this.children = new ArrayList<>();
+        }
+        this.children.add(child);
+    }
+
+    /**
+     * Marca a etapa como falha. A falha é contada ao fechar o trecho, no
+     * contador com o nome da etapa seguido de <code>.failed</code>.
+     */
+    public void fail() {
+        this.failed = true;
+    }
+
+    /**
+     * Fecha o trecho, registrando sua duração nas métricas da etapa
+     */
+    @Override
+    public void close() {
+        if (this.duration >= 0) {
+            return;
+        }
+        this.duration = System.nanoTime() - this.start;
+        VerificationMetrics.getInstance().recordStage(this.name, this.duration);
+        if (this.failed) {
+            VerificationMetrics.increment(this.name + ".failed");
+        }
+
+        if (current.get() == this) {
+            if (this.parent == null) {
+                current.remove();
+            } else {
+                current.set(this.parent);
+            }
+        }
+        if (this.parent == null) {
+            VerificationMetrics.getInstance().recordTrace(this);
+        }
+    }
+
+    /**
+     * Retorna o nome da etapa
+     * @return O nome da etapa
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Retorna a duração do trecho em nanossegundos
+     * @return A duração, ou -1 caso o trecho ainda esteja aberto
+     */
+    public long getDuration() {
+        return this.duration;
+    }
+
+    /**
+     * Indica se a etapa falhou
+     * @return Verdadeiro se o trecho foi marcado como falho
+     */
+    public boolean isFailed() {
+        return this.failed;
+    }
+
+    /**
+     * Retorna os trechos internos
+     * @return A lista de trechos internos
+     */
+    public synchronized List<Span> getChildren() {
+        if (this.children == null) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(this.children);
+    }
+
+    /**
+     * Escreve a árvore de trechos em formato texto, um trecho por linha
+     * @param builder Destino do texto
+     * @param depth Profundidade do trecho na árvore
+     */
+    void render(StringBuilder builder, int depth) {
+        for (int i = 0; i < depth; i++) {
+            builder.append("  ");
+        }
+        builder.append(this.name).append(' ');
+        if (this.duration < 0) {
+            builder.append("(aberto)");
+        } else {
+            builder.append(String.format("%.3f", this.duration / 1e6)).append(" ms");
+        }
+        if (this.failed) {
+            builder.append(" (falhou)");
+        }
+        builder.append('\n');
+        for (Span child : this.getChildren()) {
+            child.render(builder, depth + 1);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        this.render(builder, 0);
+        return builder.toString();
+    }
+
+}
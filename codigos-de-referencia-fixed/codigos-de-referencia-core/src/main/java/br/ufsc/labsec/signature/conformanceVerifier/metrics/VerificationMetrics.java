@@ -0,0 +1,345 @@
+package br.ufsc.labsec.signature.conformanceVerifier.metrics;
+
+import br.ufsc.labsec.component.Application;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * Registro das métricas de verificação do processo. Mantém tempos por etapa,
+ * contadores e as árvores de trechos das verificações mais recentes. As
+ * operações de registro usam apenas contadores sem bloqueio, de modo que
+ * a instrumentação possa permanecer ativa em produção.
+ *
+ * As métricas são publicadas via JMX sob o nome {@link #OBJECT_NAME} e em
+ * formato texto pelo servlet de métricas.
+ */
+public final class VerificationMetrics implements VerificationMetricsMXBean {
+
+    /**
+     * Nome do MXBean registrado no servidor de MBeans da plataforma
+     */
+    public static final String OBJECT_NAME = "br.ufsc.labsec.signature:type=VerificationMetrics";
+
+    /**
+     * Etapas instrumentadas
+     */
+    public static final String VERIFICATION = "verification";
+    public static final String LPA_DOWNLOAD = "lpa.download";
+    public static final String CRL_FETCH = "crl.fetch";
+    public static final String AIA_DOWNLOAD = "aia.download";
+    public static final String TRUST_ANCHOR_DOWNLOAD = "trustanchor.download";
+    public static final String CERT_PATH_BUILD = "certpath.build";
+    public static final String TIMESTAMP_VERIFY = "timestamp.verify";
+    public static final String REPORT_RENDER = "report.render";
+
+    /**
+     * Quantidade máxima de árvores de trechos mantidas
+     */
+    private static final int MAX_TRACES = 32;
+    /**
+     * Quantidade máxima de hosts com contadores próprios. Os hosts vêm dos
+     * certificados enviados para verificação; os demais são somados em
+     * {@link #OTHER_HOSTS}.
+     */
+    private static final int MAX_HOSTS = 64;
+    private static final String OTHER_HOSTS = "other";
+
+    private static final VerificationMetrics instance = new VerificationMetrics();
+
+    static {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(instance, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // outra aplicação no mesmo processo já publicou as métricas
+        } catch (JMException | SecurityException e) {
+            Application.logger.log(Level.WARNING, "Não foi possível registrar as métricas via JMX", e);
+        }
+    }
+
+    /**
+     * Contadores, indexados pelo nome
+     */
+    private final Map<String, LongAdder> counters;
+    /**
+     * Tempos de cada etapa, indexados pelo nome da etapa
+     */
+    private final Map<String, StageTimer> stages;
+    /**
+     * Árvores de trechos das verificações mais recentes
+     */
+    private final ConcurrentLinkedDeque<Span> traces;
+    private final AtomicInteger traceCount;
+    /**
+     * Hosts que têm contadores próprios
+     */
+    private final Set<String> hosts;
+
+    private VerificationMetrics() {
+        this.counters = new ConcurrentHashMap<>();
+        this.stages = new ConcurrentHashMap<>();
+        this.traces = new ConcurrentLinkedDeque<>();
+        this.traceCount = new AtomicInteger();
+        this.hosts = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Retorna a instância do processo
+     * @return O registro de métricas
+     */
+    public static VerificationMetrics getInstance() {
+        return instance;
+    }
+
+    /**
+     * Abre um trecho cronometrado na thread atual
+     * @param stage Nome da etapa
+     * @return O trecho, que deve ser fechado ao final da etapa
+     */
+    public static Span span(String stage) {
+        return Span.open(stage);
+    }
+
+    /**
+     * Executa uma etapa em um trecho cronometrado na thread atual. O trecho é
+     * marcado como falho caso a etapa lance uma exceção.
+     * @param stage Nome da etapa
+     * @param action A etapa
+     * @return O resultado da etapa
+     * @throws E Exceção lançada pela etapa
+     */
+    public static <T, E extends Exception> T time(String stage, Stage<T, E> action) throws E {
+        try (Span span = Span.open(stage)) {
+            try {
+                return action.call();
+            } catch (Throwable e) {
+                span.fail();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Associa uma tarefa a ser executada em outra thread ao trecho aberto na thread atual
+     * @param task A tarefa
+     * @return A tarefa associada ao trecho atual
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        return Span.propagate(task);
+    }
+
+    /**
+     * Incrementa um contador
+     * @param name Nome do contador
+     */
+    public static void increment(String name) {
+        add(name, 1);
+    }
+
+    /**
+     * Soma um valor a um contador
+     * @param name Nome do contador
+     * @param value Valor a ser somado
+     */
+    public static void add(String name, long value) {
+        instance.counters.computeIfAbsent(name, k -> new LongAdder()).add(value);
+    }
+
+    /**
+     * Registra um acerto na cache indicada
+     * @param cache Nome da cache
+     */
+    public static void cacheHit(String cache) {
+        increment("cache." + cache + ".hit");
+    }
+
+    /**
+     * Registra uma falha na cache indicada
+     * @param cache Nome da cache
+     */
+    public static void cacheMiss(String cache) {
+        increment("cache." + cache + ".miss");
+    }
+
+    /**
+     * Registra a quantidade de bytes obtidos de um endereço
+     * @param url O endereço de onde os bytes foram obtidos
+     * @param bytes A quantidade de bytes
+     */
+    public static void bytesDownloaded(String url, long bytes) {
+        String host;
+        try {
+            host = new URL(url).getHost();
+        } catch (MalformedURLException e) {
+            host = null;
+        }
+        String label = hostLabel(host);
+        add("download.bytes." + label, bytes);
+        increment("download.requests." + label);
+    }
+
+    /**
+     * Incrementa o contador de um host. Apenas os primeiros {@link #MAX_HOSTS}
+     * hosts têm contadores próprios; os demais são somados em um único contador.
+     * @param name Prefixo do nome do contador
+     * @param host O host
+     */
+    public static void incrementForHost(String name, String host) {
+        increment(name + "." + hostLabel(host));
+    }
+
+    private static String hostLabel(String host) {
+        if (host == null || host.isEmpty()) {
+            return OTHER_HOSTS;
+        }
+        String label = host.toLowerCase(Locale.ROOT);
+        Set<String> hosts = instance.hosts;
+        if (hosts.contains(label)) {
+            return label;
+        }
+        synchronized (hosts) {
+            if (hosts.size() < MAX_HOSTS) {
+                hosts.add(label);
+                return label;
+            }
+        }
+        return OTHER_HOSTS;
+    }
+
+    /**
+     * Registra a duração de uma execução de uma etapa
+     * @param stage Nome da etapa
+     * @param nanos Duração em nanossegundos
+     */
+    void recordStage(String stage, long nanos) {
+        this.stages.computeIfAbsent(stage, k -> new StageTimer()).record(nanos);
+    }
+
+    /**
+     * Guarda a árvore de trechos de uma verificação concluída, descartando
+     * a mais antiga quando o limite é atingido
+     * @param root A raiz da árvore
+     */
+    void recordTrace(Span root) {
+        this.traces.addFirst(root);
+        if (this.traceCount.incrementAndGet() > MAX_TRACES && this.traces.pollLast() != null) {
+            this.traceCount.decrementAndGet();
+        }
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> result = new TreeMap<>();
+        this.counters.forEach((name, value) -> result.put(name, value.sum()));
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getStageCounts() {
+        Map<String, Long> result = new TreeMap<>();
+        this.stages.forEach((name, timer) -> result.put(name, timer.count.sum()));
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getStageTotalMillis() {
+        Map<String, Long> result = new TreeMap<>();
+        this.stages.forEach((name, timer) -> result.put(name, timer.totalNanos.sum() / 1_000_000));
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getStageMaxMillis() {
+        Map<String, Long> result = new TreeMap<>();
+        this.stages.forEach((name, timer) -> result.put(name, timer.maxNanos.get() / 1_000_000));
+        return result;
+    }
+
+    @Override
+    public String[] getRecentTraces() {
+        return this.traces.stream().map(Span::toString).toArray(String[]::new);
+    }
+
+    @Override
+    public void reset() {
+        this.counters.clear();
+        this.stages.clear();
+        this.traces.clear();
+        this.traceCount.set(0);
+        this.hosts.clear();
+    }
+
+    /**
+     * Gera a representação em texto de todas as métricas, uma por linha,
+     * no formato {@code nome valor}
+     * @param withTraces Indica se as árvores de trechos recentes devem ser incluídas
+     * @return As métricas em formato texto
+     */
+    public String toText(boolean withTraces) {
+        StringBuilder builder = new StringBuilder();
+        Map<String, Long> counts = this.getStageCounts();
+        Map<String, Long> totals = this.getStageTotalMillis();
+        Map<String, Long> maxima = this.getStageMaxMillis();
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            String stage = entry.getKey();
+            builder.append("stage.").append(stage).append(".count ").append(entry.getValue()).append('\n');
+            builder.append("stage.").append(stage).append(".total_ms ").append(totals.get(stage)).append('\n');
+            builder.append("stage.").append(stage).append(".max_ms ").append(maxima.get(stage)).append('\n');
+        }
+        for (Map.Entry<String, Long> entry : this.getCounters().entrySet()) {
+            builder.append(entry.getKey()).append(' ').append(entry.getValue()).append('\n');
+        }
+        if (withTraces) {
+            Iterator<Span> it = this.traces.iterator();
+            while (it.hasNext()) {
+                builder.append('\n');
+                it.next().render(builder, 0);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Etapa cronometrada por {@link #time(String, Stage)}
+     * @param <T> Tipo do resultado da etapa
+     * @param <E> Tipo da exceção lançada pela etapa
+     */
+    @FunctionalInterface
+    public interface Stage<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    /**
+     * Acumula quantidade, tempo total e tempo máximo de uma etapa
+     */
+    private static final class StageTimer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+
+        void record(long nanos) {
+            this.count.increment();
+            this.totalNanos.add(nanos);
+            this.maxNanos.accumulate(nanos);
+        }
+    }
+
+}
@@ -0,0 +1,46 @@
+package br.ufsc.labsec.signature.conformanceVerifier.metrics;
+
+import java.util.Map;
+
+/**
+ * Interface de gerenciamento JMX das métricas de verificação
+ */
+public interface VerificationMetricsMXBean {
+
+    /**
+     * Retorna os contadores registrados (acertos e falhas de cache, bytes
+     * obtidos por host, assinaturas por formato e resultados de verificação)
+     * @return Mapa entre o nome do contador e o seu valor
+     */
+    Map<String, Long> getCounters();
+
+    /**
+     * Retorna quantas vezes cada etapa foi executada
+     * @return Mapa entre o nome da etapa e a quantidade de execuções
+     */
+    Map<String, Long> getStageCounts();
+
+    /**
+     * Retorna o tempo total gasto em cada etapa
+     * @return Mapa entre o nome da etapa e o tempo total em milissegundos
+     */
+    Map<String, Long> getStageTotalMillis();
+
+    /**
+     * Retorna o maior tempo observado em cada etapa
+     * @return Mapa entre o nome da etapa e o maior tempo em milissegundos
+     */
+    Map<String, Long> getStageMaxMillis();
+
+    /**
+     * Retorna as árvores de trechos das verificações mais recentes
+     * @return As árvores em formato texto, da mais recente para a mais antiga
+     */
+    String[] getRecentTraces();
+
+    /**
+     * Zera todos os contadores, tempos e árvores registrados
+     */
+    void reset();
+
+}
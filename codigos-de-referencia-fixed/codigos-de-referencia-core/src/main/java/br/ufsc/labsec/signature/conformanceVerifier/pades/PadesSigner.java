@@ -25,8 +25,11 @@ import br.ufsc.labsec.signature.signer.SignerType;
 import br.ufsc.labsec.signature.signer.signatureSwitch.SignatureDataWrapperGenerator;
 import br.ufsc.labsec.signature.signer.signatureSwitch.SwitchHelper;
 import br.ufsc.labsec.signature.tsa.TimeStamp;
+import org.apache.pdfbox.cos.COSBase;
 import org.apache.pdfbox.cos.COSDictionary;
 import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDDocumentCatalog;
 import org.apache.pdfbox.pdmodel.interactive.digitalsignature.PDSignature;
@@ -40,6 +43,8 @@ import org.bouncycastle.cms.CMSException;
 import org.bouncycastle.cms.CMSSignedData;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.security.KeyStore;
 import java.security.PrivateKey;
 import java.security.cert.*;
@@ -57,6 +62,11 @@ public class PadesSigner extends SignatureDataWrapperGenerator implements Signer
     public static final String FILTER = "PBAD_SignatureHandle";
     public static final String SUBFILTER = "PBAD.CAdES.detached";
     public static final int CMS_LENGHT = 1500;
+    /**
+     * Quantidade máxima de memória usada pelo PDFBox ao processar o documento.
+     * O excedente é mantido em arquivos temporários.
+     */
+    private static final long SCRATCH_MEMORY = 16L * 1024 * 1024;
 
     private Certificate certificate;
     private PrivateKey privateKey;
@@ -71,17 +81,13 @@ public class PadesSigner extends SignatureDataWrapperGenerator implements Signer
      */
     private PadesSignatureComponent padesComponent;
     /**
-     * Stream do PDF assinado
-     */
-    private ByteArrayOutputStream pdfOutputStream;
-    /**
-     * Bytes do conteúdo assinado
+     * Cópia temporária do documento a ser assinado
      */
-    private byte[] conteudo;
+    private File targetFile;
     /**
-     * Resultado intermediário do documento assinado
+     * Arquivo temporário com o documento assinado
      */
-    private File tempFile;
+    private File signedFile;
     /**
      * Auxiliar na criação da assinatura
      */
@@ -238,23 +244,12 @@ public class PadesSigner extends SignatureDataWrapperGenerator implements Signer
      */
     @Override
     public void selectTarget(InputStream target, String policyOid) {
-        InputStream contentForPDF = null;
-
         try {
-
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            byte[] buf = new byte[1024];
-            int n = 0;
-
-            while ((n = target.read(buf)) >= 0) {
-                baos.write(buf, 0, n);
-            }
-            byte[] bytes = baos.toByteArray();
-
-            this.conteudo = bytes;
-            contentForPDF = new ByteArrayInputStream(bytes);
-
-            this.pdfDocument = PDDocument.load(contentForPDF);
+            this.pdfDocument = null;
+            this.discardTemporaryFiles();
+            this.targetFile = createTemporaryFile();
+            Files.copy(target, this.targetFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            this.pdfDocument = PDDocument.load(this.targetFile, MemoryUsageSetting.setupMixed(SCRATCH_MEMORY));
 
             CadesSigner cadesSignature = (CadesSigner) padesComponent.getCadesSigner();
             SimplePrivateInformation privateInformation = new SimplePrivateInformation(certificate, privateKey);
@@ -317,14 +312,18 @@ public class PadesSigner extends SignatureDataWrapperGenerator implements Signer
             return false;
         }
 
+        File signed;
         try {
-            this.pdfOutputStream = new ByteArrayOutputStream();
-            this.pdfDocument.saveIncremental(this.pdfOutputStream);
-            this.pdfDocument.close();
+            signed = createTemporaryFile();
+            try (OutputStream output = new BufferedOutputStream(new FileOutputStream(signed))) {
+                this.pdfDocument.saveIncremental(output);
+            } finally {
+                this.pdfDocument.close();
+                this.targetFile.delete();
+            }
         } catch (IOException e) {
-            e.printStackTrace();
             Application.logger.log(Level.SEVERE,
-                    "Erro ao gerar o stream da assinatura.");
+                    "Erro ao gerar o stream da assinatura.", e);
             return false;
         }
 
@@ -334,15 +333,19 @@ public class PadesSigner extends SignatureDataWrapperGenerator implements Signer
         boolean hasDss = sigPolProxy.signerRulesExtensionExists(BrExtDss.IDENTIFIER);
         boolean hasTS = sigPolProxy.signerRulesExtensionExists(BrExtMandatedDocTSEntries.IDENTIFIER);
 
-        // cria o DSS e o VRI
-        byte[] updatedStream = pdfOutputStream.toByteArray();
+        if (!hasTS && !hasDss) {
+            this.signedFile = signed;
+            return true;
+        }
+
+        // O DSS depende dos bytes da assinatura criada, por isso é incluído em uma nova revisão
         PDDocument pdfwithoutDSS = null;
-        if (hasDss) {
-            byte[] contents = null;
-            BrExtDss extDss = sigPolProxy.signerRulesGetBrExtDss();
+        try {
+            pdfwithoutDSS = PDDocument.load(signed, MemoryUsageSetting.setupMixed(SCRATCH_MEMORY));
 
-            try {
-                pdfwithoutDSS = PDDocument.load(updatedStream);
+            // cria o DSS e o VRI
+            if (hasDss) {
+                BrExtDss extDss = sigPolProxy.signerRulesGetBrExtDss();
                 List<PDSignature> signatures = pdfwithoutDSS.getSignatureDictionaries();
                 PDDocumentCatalog catalog = pdfwithoutDSS.getDocumentCatalog();
                 COSDictionary oldDss = (COSDictionary) catalog.getCOSObject().getDictionaryObject(DSS);
@@ -350,70 +353,86 @@ public class PadesSigner extends SignatureDataWrapperGenerator implements Signer
 
                 while (!signatures.isEmpty()) {
                     PDSignature lastSignature = getLastSignature(signatures);
-                    contents = lastSignature.getContents(updatedStream);
+                    byte[] contents = getContents(lastSignature);
                     oldDss = buildDSS(sigPolProxy, extDss, contents, oldDss, this.certificate, dssDecoder);
                     oldDss.setNeedToBeUpdated(true);
                 }
                 catalog.getCOSObject().setItem(COSName.getPDFName(DSS), oldDss);
                 catalog.getCOSObject().setNeedToBeUpdated(true);
-            } catch (IOException e) {
-                e.printStackTrace();
             }
-        }
 
-        if (hasTS) {
-            CadesSignatureComponent cadesComponent = this.padesComponent.getCadesSignatureComponent();
-            TimeStamp timeStamp = cadesComponent.timeStamp;
-            String algorithmOid = cadesComponent.getApplication().getComponentParam(cadesComponent, "algorithmOid");
-            String algorithm = AlgorithmIdentifierMapper.getAlgorithmNameFromIdentifier(algorithmOid);
-            byte[] digest = updatedStream;
-            SignatureInterface timeStampSignatureImp = new PadesTimeStampSignatureImp(timeStamp, digest, this, algorithm);
-            PDSignature tsDictionary = new PDSignature();
-            BrExtMandatedDocTSEntries policyDocTS = sigPolProxy.signerRulesGetBrExtMandatedDocTSEntries();
-            buildDocTimeStamp(sigPolProxy, policyDocTS, tsDictionary, timeStampSignatureImp, pdfwithoutDSS);
-            tsDictionary.getCOSObject().setNeedToBeUpdated(true);
-        }
+            if (hasTS) {
+                CadesSignatureComponent cadesComponent = this.padesComponent.getCadesSignatureComponent();
+                TimeStamp timeStamp = cadesComponent.timeStamp;
+                String algorithmOid = cadesComponent.getApplication().getComponentParam(cadesComponent, "algorithmOid");
+                String algorithm = AlgorithmIdentifierMapper.getAlgorithmNameFromIdentifier(algorithmOid);
+                SignatureInterface timeStampSignatureImp;
+                try (InputStream content = new BufferedInputStream(new FileInputStream(signed))) {
+                    timeStampSignatureImp = new PadesTimeStampSignatureImp(timeStamp, content, this, algorithm);
+                }
+                PDSignature tsDictionary = new PDSignature();
+                BrExtMandatedDocTSEntries policyDocTS = sigPolProxy.signerRulesGetBrExtMandatedDocTSEntries();
+                buildDocTimeStamp(sigPolProxy, policyDocTS, tsDictionary, timeStampSignatureImp, pdfwithoutDSS);
+                tsDictionary.getCOSObject().setNeedToBeUpdated(true);
+            }
 
-        if (hasTS || hasDss) {
-            try {
-                ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-                pdfwithoutDSS.saveIncremental(byteArrayOutputStream);
-                this.pdfOutputStream = byteArrayOutputStream;
-                pdfwithoutDSS.getDocument().close();
-            } catch (IOException e) {
-                Application.logger.log(Level.SEVERE,
-                        "Erro ao gerar o stream da assinatura com timestamp ou DSS.", e);
-                return false;
+            File updated = createTemporaryFile();
+            try (OutputStream output = new BufferedOutputStream(new FileOutputStream(updated))) {
+                pdfwithoutDSS.saveIncremental(output);
+            }
+            this.signedFile = updated;
+        } catch (IOException e) {
+            Application.logger.log(Level.SEVERE,
+                    "Erro ao gerar o stream da assinatura com timestamp ou DSS.", e);
+            return false;
+        } finally {
+            if (pdfwithoutDSS != null) {
+                try {
+                    pdfwithoutDSS.close();
+                } catch (IOException e) {
+                    Application.logger.log(Level.WARNING, e.getMessage(), e);
+                }
             }
+            signed.delete();
         }
         return true;
     }
 
     /**
-     * Salva a assinatura intermediária em formato .pdf
-     * @param pdfwithoutDSS O documento de assinatura intermediário
+     * Retorna os bytes do campo Contents de uma assinatura, já decodificados
+     * pelo analisador do documento, sem uma nova leitura do arquivo
+     * @param signature O dicionário da assinatura
+     * @return Os bytes da assinatura ou nulo caso o campo não exista
      */
-    private void saveIncrementalPdf(PDDocument pdfwithoutDSS) {
-        try {
-            FileInputStream fis = new FileInputStream(this.tempFile);
-            File newtempFile = File.createTempFile("aux", ".pdf");
-            FileOutputStream fos = new FileOutputStream(newtempFile);
-
-            byte[] buffer = new byte[10 * 1024];
-            int c;
-            while ((c = fis.read(buffer)) != -1) {
-                fos.write(buffer, 0, c);
-            }
+    private static byte[] getContents(PDSignature signature) {
+        COSBase contents = signature.getCOSObject().getDictionaryObject(COSName.CONTENTS);
+        if (contents instanceof COSString) {
+            return ((COSString) contents).getBytes();
+        }
+        return null;
+    }
 
-            pdfwithoutDSS.saveIncremental(fos);
-            this.tempFile = newtempFile;
+    /**
+     * Cria um arquivo temporário para o documento
+     * @return O arquivo criado
+     * @throws IOException Exceção em caso de erro na criação do arquivo
+     */
+    private static File createTemporaryFile() throws IOException {
+        return File.createTempFile("pades", ".pdf");
+    }
 
-        } catch (IOException e) {
-            Application.logger
-                    .log(Level.SEVERE,
-                            "Erro ao gerar o stream da assinatura do carimbo do tempo.");
+    /**
+     * Remove os arquivos temporários da assinatura anterior
+     */
+    private void discardTemporaryFiles() {
+        if (this.targetFile != null) {
+            this.targetFile.delete();
+            this.targetFile = null;
+        }
+        if (this.signedFile != null) {
+            this.signedFile.delete();
+            this.signedFile = null;
         }
-
     }
 
     /**
@@ -589,9 +608,12 @@ public class PadesSigner extends SignatureDataWrapperGenerator implements Signer
      */
     @Override
     public InputStream getSignatureStream() {
-        if (pdfOutputStream != null) {
-            byte[] bytes = pdfOutputStream.toByteArray();
-            return new ByteArrayInputStream(bytes);
+        if (this.signedFile != null) {
+            try {
+                return new BufferedInputStream(new FileInputStream(this.signedFile));
+            } catch (FileNotFoundException e) {
+                Application.logger.log(Level.SEVERE, e.getMessage(), e);
+            }
         }
         return null;
     }
@@ -731,10 +753,28 @@ public class PadesSigner extends SignatureDataWrapperGenerator implements Signer
     public SignatureDataWrapper getSignature(String filename, InputStream target, SignerType policyOid) {
         selectTarget(target, policyOid.toString());
         if (sign()) {
-            InputStream stream = getSignatureStream();
-            SignatureDataWrapper signature = new SignatureDataWrapper(stream, null, filename);
-            return signature;
+            File signed = this.signedFile;
+            this.signedFile = null;
+            try {
+                InputStream stream = new FilterInputStream(new BufferedInputStream(new FileInputStream(signed))) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            signed.delete();
+                        }
+                    }
+                };
+                // o arquivo assinado passa a pertencer ao wrapper e é removido quando ele é lido ou fechado
+                return new SignatureDataWrapper(stream, null, filename);
+            } catch (FileNotFoundException e) {
+                Application.logger.log(Level.SEVERE, e.getMessage(), e);
+                signed.delete();
+                return null;
+            }
         }
+        this.discardTemporaryFiles();
         return null;
     }
 }
@@ -51,12 +51,14 @@ public class PadesTimeStampSignatureImp implements SignatureInterface {
     /**
      * Construtor
      * @param timeStamp Carimbo de tempo
-     * @param bytes Bytes do carimbo de tempo
+     * @param content Stream do conteúdo do carimbo de tempo
      * @param parent Assinador PAdES
+     * @throws IOException Exceção em caso de erro na leitura do conteúdo
      */
-    public PadesTimeStampSignatureImp(TimeStamp timeStamp, byte[] bytes, PadesSigner parent, String algorithm) {
+    public PadesTimeStampSignatureImp(TimeStamp timeStamp, InputStream content, PadesSigner parent, String algorithm)
+            throws IOException {
         this.timeStamp = timeStamp;
-        this.digest = doHash(bytes, algorithm);
+        this.digest = doHash(content, algorithm);
         this.parent = parent;
     }
 
@@ -141,22 +143,28 @@ public class PadesTimeStampSignatureImp implements SignatureInterface {
     }
 
     /**
-     * Calcula o resumo criptográfico dos bytes dados com o algoritmo especificado
-     * @param arg Os bytes cujo resumo será calculado
+     * Calcula o resumo criptográfico do conteúdo dado com o algoritmo especificado,
+     * lendo o conteúdo em blocos
+     * @param content O conteúdo cujo resumo será calculado
      * @param algorithm O algoritmo utilizado para o cálculo
-     * @return O resumo criptográfico dos bytes ou nulo em caso de erro no cálculo
+     * @return O resumo criptográfico do conteúdo ou nulo em caso de erro no cálculo
+     * @throws IOException Exceção em caso de erro na leitura do conteúdo
      */
-    private byte[] doHash(byte[] arg, String algorithm) {
+    private byte[] doHash(InputStream content, String algorithm) throws IOException {
 
         MessageDigest messageDigest;
         try {
             messageDigest = MessageDigest.getInstance(algorithm);
-            messageDigest.update(arg);
-            return messageDigest.digest();
         } catch (NoSuchAlgorithmException e) {
             e.printStackTrace();
+            return null;
         }
-        return null;
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = content.read(buffer)) != -1) {
+            messageDigest.update(buffer, 0, read);
+        }
+        return messageDigest.digest();
 
     }
 
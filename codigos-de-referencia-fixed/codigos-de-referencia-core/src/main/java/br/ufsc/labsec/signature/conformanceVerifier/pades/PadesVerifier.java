@@ -1,17 +1,21 @@
 package br.ufsc.labsec.signature.conformanceVerifier.pades;
 
+import br.ufsc.labsec.component.Application;
 import br.ufsc.labsec.signature.SignaturePolicyInterface.AdESType;
+import br.ufsc.labsec.signature.SpooledContent;
 import br.ufsc.labsec.signature.SystemTime;
 import br.ufsc.labsec.signature.Verifier;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.CadesVerifier;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.attributes.AttributeMap;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.attributes.signed.IdAaEtsSigPolicyId;
 import br.ufsc.labsec.signature.conformanceVerifier.cms.exceptions.SignatureNotICPBrException;
+import br.ufsc.labsec.signature.conformanceVerifier.pades.attributes.DocTimeStampAttribute;
 import br.ufsc.labsec.signature.conformanceVerifier.pades.attributes.DssAttribute;
 import br.ufsc.labsec.signature.conformanceVerifier.pades.attributes.SignatureDictionaryAttribute;
+import br.ufsc.labsec.signature.conformanceVerifier.pades.utils.ByteRangeDigester;
 import br.ufsc.labsec.signature.conformanceVerifier.pades.utils.LastSignatureResolver;
 import br.ufsc.labsec.signature.conformanceVerifier.pades.utils.PDFScriptChecker;
-import br.ufsc.labsec.signature.conformanceVerifier.pdf.PDDocumentUtils;
+import br.ufsc.labsec.signature.conformanceVerifier.pdf.PdfDocumentSession;
 import br.ufsc.labsec.signature.conformanceVerifier.report.AttribReport;
 import br.ufsc.labsec.signature.conformanceVerifier.report.Report;
 import br.ufsc.labsec.signature.conformanceVerifier.report.Report.ReportType;
@@ -27,14 +31,28 @@ import org.apache.pdfbox.cos.COSDictionary;
 import org.apache.pdfbox.cos.COSName;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.interactive.digitalsignature.PDSignature;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cms.CMSException;
+import org.bouncycastle.cms.CMSSignedData;
+import org.bouncycastle.cms.SignerInformation;
+import org.bouncycastle.util.Store;
 
 import java.io.*;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
 import java.sql.Time;
 import java.util.*;
+import java.util.logging.Level;
 
 /**
  * Esta classe implementa os métodos para verificação de uma assinatura PAdES.
  * Implementa {@link Verifier}.
+ * <p>
+ * As assinaturas de um documento são verificadas uma a uma, na ordem dos
+ * dicionários de assinatura, pois o verificador guarda o estado da assinatura
+ * em verificação. Apenas a obtenção das cadeias e das LCRs dos assinantes das
+ * demais assinaturas é feita em paralelo, por {@link #prefetchOtherSigners(PDSignature)}.
  */
 public class PadesVerifier implements Verifier {
 
@@ -60,6 +78,10 @@ public class PadesVerifier implements Verifier {
      * Componente de assinatura PAdES
      */
     private PadesSignatureComponent padesComponent;
+    /**
+     * Sessão do documento aberta por quem conduz a verificação
+     */
+    private PdfDocumentSession documentSession;
 
     /**
      * Construtor
@@ -76,18 +98,101 @@ public class PadesVerifier implements Verifier {
      */
     @Override
     public void selectTarget(byte[] target, byte[] signedContent) {
-        PDDocument documentPDF = null;
+        PdfDocumentSession session = null;
         try {
-            documentPDF = PDDocumentUtils.openPDDocument(new ByteArrayInputStream(target));
-            List<PDSignature> dicSignatures = documentPDF.getSignatureDictionaries();
-            documentPDF.close();
-            for (PDSignature dicSignature : dicSignatures) {
-                byte[] contents = dicSignature.getContents(new ByteArrayInputStream(target));
-                byte[] contentsSigned = dicSignature.getSignedContent(new ByteArrayInputStream(target));
-                this.padesComponent.getCadesVerifier().selectTarget(contents, contentsSigned);
+            session = this.openDocumentSession(target);
+            ByteRangeDigester digester = session.getDigester();
+            CadesVerifier cadesVerifier = (CadesVerifier) this.padesComponent.getCadesVerifier();
+            for (PDSignature dicSignature : session.getSignatureDictionaries()) {
+                byte[] contents = digester.getContents(dicSignature);
+                cadesVerifier.selectTarget(contents, digester.digest(dicSignature, contents));
             }
         } catch (PbadException | IOException e) {
             e.printStackTrace();
+        } finally {
+            this.closeDocumentSession(session);
+        }
+    }
+
+    /**
+     * Define a sessão do documento a ser usada pelas próximas verificações do
+     * mesmo documento, evitando que ele seja analisado novamente. A sessão
+     * continua pertencendo a quem a abriu, que deve fechá-la.
+     * @param documentSession A sessão do documento, ou nulo para que cada
+     * verificação analise o documento
+     */
+    public void setDocumentSession(PdfDocumentSession documentSession) {
+        this.documentSession = documentSession;
+    }
+
+    /**
+     * Obtém em paralelo as cadeias de certificação e as LCRs dos assinantes das
+     * demais assinaturas da sessão definida para o documento, após a verificação da
+     * assinatura dada. As âncoras de confiança são as da política já selecionada na
+     * verificação. Apenas os repositórios que não dependem da assinatura em
+     * verificação são consultados. As assinaturas continuam sendo verificadas em
+     * ordem, encontrando esses dados nas caches.
+     * @param verified A assinatura já verificada
+     */
+    public void prefetchOtherSigners(PDSignature verified) {
+        if (this.documentSession == null) {
+            return;
+        }
+        List<X509Certificate> signers = new ArrayList<>();
+        JcaX509CertificateConverter converter = new JcaX509CertificateConverter();
+        try {
+            ByteRangeDigester digester = this.documentSession.getDigester();
+            for (PDSignature signature : this.documentSession.getSignatureDictionaries()) {
+                if (signature == verified || DocTimeStampAttribute.signatureIsTimestamp(signature)) {
+                    continue;
+                }
+                CMSSignedData signedData = new CMSSignedData(digester.getContents(signature));
+                // SignerId é um seletor sem tipo; os certificados são filtrados a partir da coleção tipada
+                Store<X509CertificateHolder> certificates = signedData.getCertificates();
+                Collection<X509CertificateHolder> holders = certificates.getMatches(null);
+                for (SignerInformation signer : signedData.getSignerInfos().getSigners()) {
+                    for (X509CertificateHolder holder : holders) {
+                        if (signer.getSID().match(holder)) {
+                            signers.add(converter.getCertificate(holder));
+                        }
+                    }
+                }
+            }
+        } catch (IOException | CMSException | CertificateException e) {
+            Application.logger.log(Level.WARNING, "Não foi possível obter os certificados dos assinantes", e);
+        }
+        if (signers.isEmpty()) {
+            return;
+        }
+        try {
+            this.padesComponent.certificateValidation.prefetch(signers,
+                    this.padesComponent.signaturePolicyInterface.getSigningTrustAnchors(),
+                    new Time(SystemTime.getSystemTime()));
+        } catch (RuntimeException e) {
+            Application.logger.log(Level.WARNING, "Não foi possível obter antecipadamente os dados dos assinantes", e);
+        }
+    }
+
+    /**
+     * Retorna a sessão definida para o documento ou abre uma nova sessão
+     * @param pdfFile Os bytes do documento
+     * @return A sessão do documento
+     * @throws IOException Exceção caso o documento não seja um PDF válido
+     */
+    private PdfDocumentSession openDocumentSession(byte[] pdfFile) throws IOException {
+        if (this.documentSession != null && this.documentSession.isFor(pdfFile)) {
+            return this.documentSession;
+        }
+        return PdfDocumentSession.open(pdfFile);
+    }
+
+    /**
+     * Fecha a sessão caso ela tenha sido aberta por este verificador
+     * @param session A sessão do documento
+     */
+    private void closeDocumentSession(PdfDocumentSession session) {
+        if (session != null && session != this.documentSession) {
+            session.close();
         }
     }
 
@@ -226,10 +331,12 @@ public class PadesVerifier implements Verifier {
         if (this.getTimeReference() == null)
             this.setTimeReference(new Time(SystemTime.getSystemTime()));
 
-        PDDocument documentPDF = null;
-        try ( InputStream inputStreamPdf = new ByteArrayInputStream(pdfFile)) {
-            documentPDF = PDDocumentUtils.openPDDocument(inputStreamPdf);
-            List<PDSignature> signatureList = documentPDF.getSignatureDictionaries();
+        PdfDocumentSession session = null;
+        try {
+            session = this.openDocumentSession(pdfFile);
+            PDDocument documentPDF = session.getDocument();
+            List<PDSignature> signatureList = session.getSignatureDictionaries();
+            ByteRangeDigester digester = session.getDigester();
             int i = 0;
             while (!signatureList.isEmpty()) {
                 LastSignatureResolver lastSignatureResolver = new LastSignatureResolver(this);
@@ -237,8 +344,8 @@ public class PadesVerifier implements Verifier {
                 PDSignature signatureObj = lastSignatureResolver.getLastSignature();
 
                 String typeDictionary = getTypeOfDictionary(signatureObj);
-                if (typeDictionary.equals("Sig") && Arrays.equals(signatureObj.getContents(pdfFile), signedContent)) {
-                    this.reportForSignature(lastSignatureResolver, i++, signatureObj, pdfFile, type, documentPDF);
+                if (typeDictionary.equals("Sig") && Arrays.equals(digester.getContents(signatureObj), signedContent)) {
+                    this.reportForSignature(lastSignatureResolver, i++, signatureObj, pdfFile, digester, type, documentPDF);
                     break;
                 }
             }
@@ -246,7 +353,7 @@ public class PadesVerifier implements Verifier {
             e.printStackTrace();
         }
         finally {
-            PDDocumentUtils.closePDDocument(documentPDF);
+            this.closeDocumentSession(session);
         }
 
         return this.report;
@@ -258,22 +365,24 @@ public class PadesVerifier implements Verifier {
      * @param i Índice da assinatura
      * @param signatureObj A assinatura PAdES
      * @param pdfFile Bytes do arquivo assinado
+     * @param digester Leitor das partes do arquivo assinado referentes à assinatura
      * @param reportType Tipo do relatório
      * @param document Documento assinado
      * @throws VerificationException Exceção em caso de erro na verificação
      * @throws IOException Exceção em caso um documento assinado mal formado
      */
-    private void reportForSignature(LastSignatureResolver lastSignatureResolver, int i, PDSignature signatureObj, byte[] pdfFile, ReportType reportType,
+    private void reportForSignature(LastSignatureResolver lastSignatureResolver, int i, PDSignature signatureObj, byte[] pdfFile,
+                                    ByteRangeDigester digester, ReportType reportType,
                                     PDDocument document) throws VerificationException, IOException {
-        byte[] signatureBytes = signatureObj.getContents(pdfFile);
-        byte[] signedContent = signatureObj.getSignedContent(pdfFile);
+        byte[] signatureBytes = digester.getContents(signatureObj);
+        Map<String, byte[]> signedContentDigests = digester.digest(signatureObj, signatureBytes);
         PadesSignature sig = new PadesSignature(document, signatureObj, pdfFile);
         PadesSignatureVerifier sigVerifier = new PadesSignatureVerifier(padesComponent, sig, this.timeReference);
         DssAttribute dss = (DssAttribute) sig.getEncodedAttribute("DSS", sigVerifier);
         lastSignatureResolver.resolveLastSignaturePolicy(dss, pdfFile);
 
         this.verifyPadesSignature(signatureObj, i, sigVerifier);
-        Report signatureReport = this.runCadesVerifierReport(signatureBytes, signedContent, reportType);
+        Report signatureReport = this.runCadesVerifierReport(signatureBytes, signedContentDigests, reportType);
 
         this.treatPadesAttributes(sigVerifier, signatureObj, document, signatureReport);
         this.resolveReport(signatureReport);
@@ -340,18 +449,18 @@ public class PadesVerifier implements Verifier {
     /**
      * Realiza a verificação do conteúdo CAdES da assinatura
      * @param contents Bytes da assinatura
-     * @param contentsSigned Bytes do conteúdo assinado
+     * @param signedContentDigests Resumos criptográficos do conteúdo assinado
      * @param type Tipo do relatório
      * @return O relatório gerado pela verificação
      * @throws VerificationException Exceção em caso de erro na verificação
      */
-    private Report runCadesVerifierReport(byte[] contents, byte[] contentsSigned, ReportType type)
+    private Report runCadesVerifierReport(byte[] contents, Map<String, byte[]> signedContentDigests, ReportType type)
             throws VerificationException {
         SignaturePolicyProxy sigPolicyProxy = this.padesComponent.getSignaturePolicy();
         CadesVerifier cadesVerifier = (CadesVerifier) this.padesComponent.cadesVerifier;
         cadesVerifier.createReport();
         sigPolicyProxy.getLpaReport(cadesVerifier.getReport(), AdESType.PAdES);
-        return padesComponent.cadesVerifier.report(contents, contentsSigned, type);
+        return cadesVerifier.report(contents, signedContentDigests, type);
     }
 
     /**
@@ -450,6 +559,22 @@ public class PadesVerifier implements Verifier {
         return supports && cadesVerifier.getOid().matches(padesPolicy);
     }
 
+    /**
+     * Verifica se o documento assinado é uma assinatura PAdES, sem carregar o
+     * conteúdo destacado em memória
+     * @param signature Os bytes do documento assinado
+     * @param detached O conteúdo destacado
+     * @return Indica se o documento assinado é uma assinatura PAdES
+     * @throws SignatureNotICPBrException Exceção caso a assinatura não seja feita com um certificado ICP-Brasil
+     */
+    @Override
+    public boolean supports(byte[] signature, SpooledContent detached) throws SignatureNotICPBrException {
+        CadesVerifier cadesVerifier = (CadesVerifier) this.padesComponent.cadesVerifier;
+        boolean supports = cadesVerifier.supports(signature, detached);
+        String padesPolicy = "2\\.16\\.76\\.1\\.7\\.1\\.1[1-4]\\.(.*)";
+        return supports && cadesVerifier.getOid().matches(padesPolicy);
+    }
+
     /**
      * Retorna o valor da entrada 'Type' no dicionário da assinatura
      * @param signatureObj A assinatura
@@ -0,0 +1,180 @@
+package br.ufsc.labsec.signature.conformanceVerifier.pades.utils;
+
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.pdmodel.interactive.digitalsignature.PDSignature;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.cms.CMSException;
+import org.bouncycastle.cms.CMSSignedData;
+import org.bouncycastle.operator.DigestCalculator;
+import org.bouncycastle.operator.DigestCalculatorProvider;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.bc.BcDigestCalculatorProvider;
+import org.bouncycastle.util.encoders.DecoderException;
+import org.bouncycastle.util.encoders.Hex;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Acesso aos bytes de um documento PDF referentes às suas assinaturas sem
+ * cópias do documento. O conteúdo assinado, indicado pelo ByteRange de cada
+ * assinatura, é lido de uma visão somente leitura compartilhada do arquivo e
+ * passado em blocos ao cálculo dos resumos criptográficos, de modo que o
+ * verificador CAdES recebe apenas os resumos.
+ */
+public final class ByteRangeDigester {
+
+    /**
+     * Tamanho dos blocos repassados ao cálculo dos resumos
+     */
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    private static final DigestCalculatorProvider digestProvider = new BcDigestCalculatorProvider();
+
+    /**
+     * Visão somente leitura do documento
+     */
+    private final ByteBuffer file;
+
+    /**
+     * Construtor
+     * @param pdfFile Os bytes do documento, que não são copiados
+     */
+    public ByteRangeDigester(byte[] pdfFile) {
+        this(ByteBuffer.wrap(pdfFile));
+    }
+
+    /**
+     * Construtor
+     * @param file O conteúdo do documento
+     */
+    public ByteRangeDigester(ByteBuffer file) {
+        this.file = file.asReadOnlyBuffer();
+    }
+
+    /**
+     * Retorna os bytes da assinatura guardados no campo Contents. O valor já
+     * decodificado pelo analisador do documento é usado quando disponível;
+     * caso contrário, apenas o intervalo entre as partes assinadas é lido.
+     * @param signature O dicionário da assinatura
+     * @return Os bytes da assinatura
+     * @throws IOException Exceção caso o campo Contents não possa ser lido
+     */
+    public byte[] getContents(PDSignature signature) throws IOException {
+        COSBase contents = signature.getCOSObject().getDictionaryObject(COSName.CONTENTS);
+        if (contents instanceof COSString) {
+            return ((COSString) contents).getBytes();
+        }
+
+        int[] byteRange = getByteRange(signature);
+        int begin = byteRange[0] + byteRange[1];
+        ByteBuffer gap = this.range(begin, byteRange[2] - begin);
+        byte[] hex = new byte[gap.remaining()];
+        gap.get(hex);
+        String value = new String(hex, StandardCharsets.US_ASCII).replace("<", "").replace(">", "");
+        try {
+            return Hex.decode(value);
+        } catch (DecoderException e) {
+            throw new IOException("O campo Contents da assinatura não está codificado em base 16", e);
+        }
+    }
+
+    /**
+     * Calcula os resumos criptográficos do conteúdo assinado com os algoritmos
+     * declarados na assinatura CMS
+     * @param signature O dicionário da assinatura
+     * @param contents Os bytes da assinatura CMS
+     * @return Os resumos indexados pelo OID do algoritmo
+     * @throws IOException Exceção em caso de erro na decodificação da assinatura
+     * ou algoritmo não suportado
+     */
+    public Map<String, byte[]> digest(PDSignature signature, byte[] contents) throws IOException {
+        Collection<AlgorithmIdentifier> algorithms;
+        try {
+            algorithms = new CMSSignedData(contents).getDigestAlgorithmIDs();
+        } catch (CMSException e) {
+            throw new IOException("Não foi possível decodificar a assinatura", e);
+        }
+        return this.digest(signature, algorithms);
+    }
+
+    /**
+     * Calcula os resumos criptográficos do conteúdo assinado, lendo cada
+     * intervalo do ByteRange uma única vez para todos os algoritmos
+     * @param signature O dicionário da assinatura
+     * @param algorithms Os algoritmos de resumo
+     * @return Os resumos indexados pelo OID do algoritmo
+     * @throws IOException Exceção caso algum algoritmo não seja suportado
+     */
+    public Map<String, byte[]> digest(PDSignature signature, Collection<AlgorithmIdentifier> algorithms)
+            throws IOException {
+        Map<String, DigestCalculator> calculators = new LinkedHashMap<>();
+        for (AlgorithmIdentifier algorithm : algorithms) {
+            String oid = algorithm.getAlgorithm().getId();
+            if (!calculators.containsKey(oid)) {
+                try {
+                    calculators.put(oid, digestProvider.get(algorithm));
+                } catch (OperatorCreationException e) {
+                    throw new IOException("Algoritmo de resumo não suportado: " + oid, e);
+                }
+            }
+        }
+        List<OutputStream> outputs = new ArrayList<>();
+        for (DigestCalculator calculator : calculators.values()) {
+            outputs.add(calculator.getOutputStream());
+        }
+
+        int[] byteRange = getByteRange(signature);
+        byte[] block = new byte[BLOCK_SIZE];
+        for (int i = 0; i + 1 < byteRange.length; i += 2) {
+            ByteBuffer range = this.range(byteRange[i], byteRange[i + 1]);
+            while (range.hasRemaining()) {
+                int length = Math.min(block.length, range.remaining());
+                range.get(block, 0, length);
+                for (OutputStream output : outputs) {
+                    output.write(block, 0, length);
+                }
+            }
+        }
+
+        Map<String, byte[]> digests = new HashMap<>();
+        for (Map.Entry<String, DigestCalculator> calculator : calculators.entrySet()) {
+            digests.put(calculator.getKey(), calculator.getValue().getDigest());
+        }
+        return digests;
+    }
+
+    private static int[] getByteRange(PDSignature signature) throws IOException {
+        int[] byteRange = signature.getByteRange();
+        if (byteRange == null || byteRange.length != 4) {
+            throw new IOException("O ByteRange da assinatura é inválido");
+        }
+        return byteRange;
+    }
+
+    /**
+     * Retorna uma visão de um intervalo do documento, limitada ao seu tamanho
+     * @param offset O início do intervalo
+     * @param length O tamanho do intervalo
+     * @return A visão do intervalo
+     */
+    private ByteBuffer range(int offset, int length) {
+        ByteBuffer range = this.file.duplicate();
+        int begin = Math.min(Math.max(offset, 0), range.limit());
+        int end = (int) Math.min((long) begin + Math.max(length, 0), range.limit());
+        range.position(begin);
+        range.limit(end);
+        return range;
+    }
+
+}
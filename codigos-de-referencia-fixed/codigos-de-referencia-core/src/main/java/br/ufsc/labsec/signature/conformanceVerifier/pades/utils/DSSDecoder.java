@@ -1,7 +1,9 @@
 package br.ufsc.labsec.signature.conformanceVerifier.pades.utils;
 
 import br.ufsc.labsec.component.Application;
+import br.ufsc.labsec.signature.CertificateInterner;
 import br.ufsc.labsec.signature.CertificateValidation;
+import br.ufsc.labsec.signature.JcaProviders;
 import br.ufsc.labsec.signature.RevocationInformation;
 import br.ufsc.labsec.signature.RevocationInformation.CRLResult;
 import br.ufsc.labsec.signature.SystemTime;
@@ -603,12 +605,9 @@ public class DSSDecoder {
             COSObject certificatesIndirectStream = (COSObject) certs.get(i);
             COSStream certificateStream = (COSStream) certificatesIndirectStream.getObject();
             byte[] certificate = extractDataFromCOSStream(certificateStream);
-            ByteArrayInputStream bis = new ByteArrayInputStream(certificate);
 
             try {
-                CertificateFactory fac = CertificateFactory.getInstance("x509");
-                Certificate xCert = fac.generateCertificate(bis);
-                certificatesList.put((X509Certificate) xCert, i);
+                certificatesList.put(CertificateInterner.intern(certificate), i);
 
             } catch (CertificateException e) {
                 e.printStackTrace();
@@ -660,7 +659,7 @@ public class DSSDecoder {
             ByteArrayInputStream bis = new ByteArrayInputStream(validationValue);
 
             try {
-                CertificateFactory fac = CertificateFactory.getInstance("x509");
+                CertificateFactory fac = JcaProviders.certificateFactory("X.509");
                 CRL xCrl = fac.generateCRL(bis);
                 validationValuesList.put((X509CRL) xCrl, i);
             } catch (CRLException e) {
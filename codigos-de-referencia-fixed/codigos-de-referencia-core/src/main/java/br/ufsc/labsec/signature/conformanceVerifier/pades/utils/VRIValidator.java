@@ -1,5 +1,7 @@
 package br.ufsc.labsec.signature.conformanceVerifier.pades.utils;
 
+import br.ufsc.labsec.signature.CertificateInterner;
+import br.ufsc.labsec.signature.JcaProviders;
 import br.ufsc.labsec.signature.SignaturePolicyInterface;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.CadesSignatureComponent;
 import br.ufsc.labsec.signature.conformanceVerifier.pades.PadesSignatureVerifier;
@@ -167,7 +169,7 @@ public class VRIValidator {
             ByteArrayInputStream bis = new ByteArrayInputStream(crl);
 
             try {
-                CertificateFactory fac = CertificateFactory.getInstance("x509");
+                CertificateFactory fac = JcaProviders.certificateFactory("X.509");
                 CRL xCrl = fac.generateCRL(bis);
                 crlList.add((X509CRL) xCrl);
             } catch (CRLException | CertificateException e) {
@@ -198,12 +200,9 @@ public class VRIValidator {
             COSObject certificatesIndirectStream = (COSObject) cosBaseCertificate;
             COSStream certificateStream = (COSStream) certificatesIndirectStream.getObject();
             byte[] certificate = this.decoderGetBytes(certificateStream);
-            ByteArrayInputStream bis = new ByteArrayInputStream(certificate);
 
             try {
-                CertificateFactory fac = CertificateFactory.getInstance("x509");
-                Certificate xCert = fac.generateCertificate(bis);
-                certificatesList.add((X509Certificate) xCert);
+                certificatesList.add(CertificateInterner.intern(certificate));
             } catch (CertificateException e) {
                 e.printStackTrace();
             }
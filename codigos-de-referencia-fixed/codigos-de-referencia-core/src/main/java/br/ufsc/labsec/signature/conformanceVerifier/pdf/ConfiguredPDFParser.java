@@ -15,6 +15,10 @@ public class ConfiguredPDFParser extends PDFParser {
         super(source);
     }
 
+    public ConfiguredPDFParser(RandomAccessRead source, ScratchFile scratchFile) throws IOException {
+        super(source, scratchFile);
+    }
+
     public boolean containsEOFInRange(int range) {
         try {
             byte[] buffer = new byte[range];
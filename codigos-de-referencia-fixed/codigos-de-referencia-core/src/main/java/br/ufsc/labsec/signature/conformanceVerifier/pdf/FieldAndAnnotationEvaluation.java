@@ -59,6 +59,9 @@ public class FieldAndAnnotationEvaluation extends ObjectEvaluation {
         Set<COSObjectKey> visited = new TreeSet<>();
 
         for (int i = 0; i < fieldsAndAnnotations.size(); i++) {
+            if (isUnchanged(fieldsAndAnnotations.get(i))) {
+                continue;
+            }
             visited.add(fieldsAndAnnotations.get(i));
             COSObject object1 = actualVersion.getDocument().getObjectFromPool(fieldsAndAnnotations.get(i));
             COSObject object2 = previousVersion.getDocument().getObjectFromPool(fieldsAndAnnotations.get(i));
@@ -33,6 +33,15 @@ public abstract class ObjectEvaluation extends PDDocumentUtils {
      * Valor do parâmetro de transformação
      */
     protected int p;
+    /**
+     * Tabelas de referência cruzada da versão atual e anterior, que relacionam
+     * cada objeto com a sua posição no arquivo
+     */
+    private Map<COSObjectKey, Long> actualXref, previousXref;
+    /**
+     * Objetos já avaliados por {@link #isUnchanged(COSObjectKey)}
+     */
+    private Map<COSObjectKey, Boolean> unchanged;
 
     /**
      * Construtor
@@ -75,6 +84,87 @@ public abstract class ObjectEvaluation extends PDDocumentUtils {
         this.firstVersionCatalog = previousVersion.getDocumentCatalog();/// READLY NECESSARY?
         this.actualVersionCatalog = document.getDocumentCatalog();
         this.objects = objects;
+        this.actualXref = document.getDocument().getXrefTable();
+        this.previousXref = previousVersion.getDocument().getXrefTable();
+        this.unchanged = new HashMap<>();
+    }
+
+    /**
+     * Indica se a comparação de um objeto entre as duas versões não encontraria
+     * diferenças, sem compará-los. A versão anterior é um prefixo do arquivo da
+     * versão atual, de modo que um objeto que está na mesma posição nas duas
+     * tabelas de referência cruzada tem os mesmos bytes nas duas versões. Ainda
+     * é preciso avaliar os objetos referenciados que
+     * {@link #compare(COSBase, COSBase, Path, List, COSObjectKey, Set)} percorre,
+     * os arrays e valores simples; dicionários indiretos não são percorridos.
+     * O resultado de cada objeto é guardado, e cada objeto é lido no máximo
+     * uma vez, apenas na versão atual.
+     * @param key O identificador do objeto
+     * @return Verdadeiro se o objeto e os objetos percorridos a partir dele não mudaram
+     */
+    protected boolean isUnchanged(COSObjectKey key) {
+        Boolean known = this.unchanged.get(key);
+        if (known != null) {
+            return known;
+        }
+        // um ciclo de referências é considerado alterado, o que leva à comparação completa
+        this.unchanged.put(key, Boolean.FALSE);
+        boolean result;
+        try {
+            result = this.hasSameOffset(key)
+                    && this.isUnchangedContent(this.actualVersion.getDocument().getObjectFromPool(key).getObject());
+        } catch (IOException e) {
+            // a comparação completa trata o objeto ilegível
+            result = false;
+        }
+        this.unchanged.put(key, result);
+        return result;
+    }
+
+    /**
+     * Verifica se um objeto está na mesma posição nas duas versões. Objetos
+     * comprimidos estão na mesma posição se o seu fluxo de objetos também está.
+     * @param key O identificador do objeto
+     * @return Indica se o objeto está na mesma posição
+     */
+    private boolean hasSameOffset(COSObjectKey key) {
+        Long actual = this.actualXref.get(key);
+        Long previous = this.previousXref.get(key);
+        if (actual == null || !actual.equals(previous)) {
+            return false;
+        }
+        if (actual < 0) {
+            COSObjectKey stream = new COSObjectKey(-actual, 0);
+            Long actualStream = this.actualXref.get(stream);
+            return actualStream != null && actualStream > 0 && actualStream.equals(this.previousXref.get(stream));
+        }
+        return true;
+    }
+
+    /**
+     * Percorre o conteúdo direto de um objeto já conhecido como inalterado,
+     * avaliando os objetos referenciados que seriam comparados
+     * @param base O conteúdo do objeto
+     * @return Verdadeiro se nenhum objeto referenciado percorrido mudou
+     */
+    private boolean isUnchangedContent(COSBase base) {
+        if (base instanceof COSObject) {
+            COSBase referenced = ((COSObject) base).getObject();
+            return referenced instanceof COSDictionary || this.isUnchanged(new COSObjectKey((COSObject) base));
+        } else if (base instanceof COSArray) {
+            for (COSBase item : (COSArray) base) {
+                if (!this.isUnchangedContent(item)) {
+                    return false;
+                }
+            }
+        } else if (base instanceof COSDictionary) {
+            for (COSBase item : ((COSDictionary) base).getValues()) {
+                if (!this.isUnchangedContent(item)) {
+                    return false;
+                }
+            }
+        }
+        return true;
     }
 
     /**
@@ -139,6 +229,9 @@ public abstract class ObjectEvaluation extends PDDocumentUtils {
                 COSObjectKey key = new COSObjectKey((COSObject) a);
                 if (!visited.contains(key)) {
                     visited.add(key);
+                    if (key.equals(new COSObjectKey((COSObject) b)) && this.isUnchanged(key)) {
+                        return;
+                    }
                     a = ((COSObject) a).getObject();
                     b = ((COSObject) b).getObject();
                 } else {
@@ -179,7 +272,9 @@ public abstract class ObjectEvaluation extends PDDocumentUtils {
     }
 
     /**
-     *
+     * Compara dois arrays sem considerar a ordem dos elementos. Cada elemento
+     * de um array é procurado no outro através de um {@link ArrayIndex}, de
+     * modo que o custo é linear no tamanho dos arrays.
      * @param array1
      * @param array2
      * @param path
@@ -194,15 +289,10 @@ public abstract class ObjectEvaluation extends PDDocumentUtils {
                               COSObjectKey origin,
                               Set<COSObjectKey> visited) {
         path.pushBack(new Path("Array", null));
+        ArrayIndex index2 = new ArrayIndex(array2);
         for (int i = 0; i < array1.size(); i++) {
             COSBase base = array1.get(i);
-            int index;
-
-            if (base instanceof COSObject) {
-                index = findInCOSArray(array2, new COSObjectKey((COSObject) base));
-            } else {
-                index = findInCOSArray(array2, base);
-            }
+            int index = index2.find(base);
 
             if (index == -1) {
                 list.add(new Action(ActionType.INSERTED, base, path, origin));
@@ -211,14 +301,10 @@ public abstract class ObjectEvaluation extends PDDocumentUtils {
             }
         }
 
+        ArrayIndex index1 = new ArrayIndex(array1);
         for (int i = 0; i < array2.size(); i++) {
             COSBase base = array2.get(i);
-            int index;
-            if (base instanceof COSObject) {
-                index = findInCOSArray(array1,  new COSObjectKey((COSObject) base));
-            } else {
-                index = findInCOSArray(array1, base);
-            }
+            int index = index1.find(base);
 
             if (index == -1) {
                 list.add(new Action(ActionType.REMOVED, base, path, origin));
@@ -300,6 +386,82 @@ public abstract class ObjectEvaluation extends PDDocumentUtils {
         return differences.isEmpty();
     }
 
+    /**
+     * Índice dos elementos de um array, com o mesmo resultado das buscas de
+     * {@link #findInCOSArray(COSArray, COSObjectKey)} e
+     * {@link #findInCOSArray(COSArray, COSBase)}. Referências são indexadas pelo
+     * identificador do objeto. Para os demais elementos, os candidatos são os
+     * elementos com o mesmo valor, no caso de valores simples, ou da mesma
+     * classe, no caso de arrays e dicionários, confirmados com
+     * {@link #isEqual(COSBase, COSBase)}; este índice só é montado na primeira
+     * busca por um elemento direto.
+     */
+    private class ArrayIndex {
+
+        private final COSArray array;
+        private final Map<COSObjectKey, Integer> references = new HashMap<>();
+        private Map<Object, List<Integer>> candidates;
+
+        ArrayIndex(COSArray array) {
+            this.array = array;
+            for (int i = 0; i < array.size(); i++) {
+                COSBase item = array.get(i);
+                if (item instanceof COSObject) {
+                    this.references.putIfAbsent(new COSObjectKey((COSObject) item), i);
+                }
+            }
+        }
+
+        /**
+         * Busca a posição de um elemento no array
+         * @param base O elemento
+         * @return O índice do primeiro elemento correspondente, ou -1
+         */
+        int find(COSBase base) {
+            if (base instanceof COSObject) {
+                Integer index = this.references.get(new COSObjectKey((COSObject) base));
+                return index == null ? -1 : index;
+            }
+            if (this.candidates == null) {
+                this.candidates = new HashMap<>();
+                for (int i = 0; i < this.array.size(); i++) {
+                    Object candidateKey = candidateKey(this.array.get(i));
+                    if (candidateKey != null) {
+                        this.candidates.computeIfAbsent(candidateKey, k -> new ArrayList<>()).add(i);
+                    }
+                }
+            }
+            List<Integer> indexes = this.candidates.get(candidateKey(base));
+            if (indexes != null) {
+                for (int index : indexes) {
+                    if (isEqual(this.array.get(index), base)) {
+                        return index;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Retorna a chave de agrupamento de um elemento: a classe, para arrays e
+         * dicionários, ou o próprio valor. Referências são agrupadas pelo objeto
+         * referenciado, que é o comparado com um elemento direto.
+         * @param item O elemento
+         * @return A chave, ou nulo caso o elemento não possa ser igual a nenhum elemento direto
+         */
+        private Object candidateKey(COSBase item) {
+            COSBase value = item instanceof COSObject ? ((COSObject) item).getObject() : item;
+            if (value == null || value instanceof COSObject) {
+                return null;
+            }
+            if (value instanceof COSArray || value instanceof COSDictionary) {
+                return value.getClass();
+            }
+            return value;
+        }
+
+    }
+
     /**
      * Retorna a versão anterior do documento assinado
      * @return A versão anterior do documento assinado
@@ -17,6 +17,11 @@ public class PDDocumentUtils {
 
     private static int DEFAULT_LOOKUP_RANGE = 2048;
 
+    /**
+     * Configuração da memória usada pelo PDFBox nos documentos abertos
+     */
+    private static volatile MemoryUsageSetting memoryUsageSetting = MemoryUsageSetting.setupMainMemoryOnly();
+
     private static Set<String> annotationsSubTypes;
     private static Set<String> fieldEntries;
 
@@ -272,6 +277,24 @@ public class PDDocumentUtils {
         return fieldEntries.contains(entry);
     }
 
+    /**
+     * Define a memória usada pelo PDFBox nos documentos abertos a partir de
+     * então. Com um limite de memória principal, o excedente é mantido em
+     * arquivos temporários.
+     * @param setting A configuração de memória
+     */
+    public static void setMemoryUsageSetting(MemoryUsageSetting setting) {
+        memoryUsageSetting = setting;
+    }
+
+    /**
+     * Retorna a configuração de memória usada pelo PDFBox
+     * @return A configuração de memória
+     */
+    public static MemoryUsageSetting getMemoryUsageSetting() {
+        return memoryUsageSetting;
+    }
+
     public static void closePDDocument(PDDocument document) {
         try {
             if (document != null) {
@@ -289,8 +312,17 @@ public class PDDocumentUtils {
 
     public static PDDocument openPDDocument(byte[] documentBytes) throws IOException {
         RandomAccessRead source = new RandomAccessBuffer(documentBytes);
-        ConfiguredPDFParser parser = new ConfiguredPDFParser(source);
+        ScratchFile scratchFile = new ScratchFile(memoryUsageSetting);
+        try {
+            return parse(documentBytes, new ConfiguredPDFParser(source, scratchFile));
+        } catch (IOException | RuntimeException e) {
+            // Os arquivos temporários só são liberados pelo documento, que não existe em caso de erro
+            scratchFile.close();
+            throw e;
+        }
+    }
 
+    private static PDDocument parse(byte[] documentBytes, ConfiguredPDFParser parser) throws IOException {
         /*
          * A chamada de "containsEOFInRange" resulta em duas buscas pelo símbolo EOF, contudo, mantém o uso da biblioteca
          * intácto, permitindo modificações na dependência do PDFBox sem quebrar o funcionamento.
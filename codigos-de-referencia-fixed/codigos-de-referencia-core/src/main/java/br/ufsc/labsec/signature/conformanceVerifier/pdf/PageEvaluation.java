@@ -91,6 +91,8 @@ public class PageEvaluation extends ObjectEvaluation{
             if (pageObject.containsKey("TemplateInstantiated")) { // Originated from template, find template
                 String templateInstantiated = pageObject.getNameAsString("TemplateInstantiated");
                 previousObject = (COSDictionary) nameDictionary.getDictionaryObject(templateInstantiated);
+            } else if (isUnchanged(key)) {
+                continue;
             } else { // Already existed
                 previousObject = (COSDictionary) previousVersion.getDocument().getObjectFromPool(key).getObject();
             }
@@ -237,7 +239,7 @@ public class PageEvaluation extends ObjectEvaluation{
     /**
      * Avalia todas as páginas da lista
      * @param pages A lista de páginas do arquivo
-     * @param document O documento assinado
+     * @param document O documento assinado, que não é fechado por este método
      * @param content O conteúdo assinado
      * @param mdp Indica se há valores de MDP na assinatura
      * @return A lista de exceções que ocorreram durante a avaliação
@@ -261,15 +263,21 @@ public class PageEvaluation extends ObjectEvaluation{
                 } catch (IUException e) {
                     exceptions.add(e);
                 }
-                actualVersion.close();
+                if (actualVersion != document) {
+                    actualVersion.close();
+                }
                 actualVersion = previousVersion;
                 byteRange = getByteRangeForRemovingLastSignature(actualVersion);
                 sigCount--;
             } while (sigCount > 0);
             previousVersion.close();
         } catch (IOException e) {
-            PDDocumentUtils.closePDDocument(actualVersion);
-            PDDocumentUtils.closePDDocument(previousVersion);
+            if (actualVersion != document) {
+                PDDocumentUtils.closePDDocument(actualVersion);
+            }
+            if (previousVersion != actualVersion) {
+                PDDocumentUtils.closePDDocument(previousVersion);
+            }
             PossibleIncrementalUpdateException.throwExceptionFromNoVerification(document);
         }
         return exceptions;
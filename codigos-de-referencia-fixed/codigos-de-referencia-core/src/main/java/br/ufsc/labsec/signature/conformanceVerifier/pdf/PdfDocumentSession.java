@@ -0,0 +1,146 @@
+package br.ufsc.labsec.signature.conformanceVerifier.pdf;
+
+import br.ufsc.labsec.signature.conformanceVerifier.pades.utils.ByteRangeDigester;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.interactive.digitalsignature.PDSignature;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Sessão de um documento PDF durante uma verificação. O documento é
+ * analisado uma única vez e o {@link PDDocument}, os dicionários de
+ * assinatura, o dicionário DSS e os limites das revisões assinadas são
+ * compartilhados por todas as etapas da verificação.
+ *
+ * A sessão pertence a quem a abriu, que deve fechá-la ao final da
+ * verificação; as etapas que a recebem não a fecham.
+ */
+public final class PdfDocumentSession implements Closeable {
+
+    /**
+     * Os bytes do documento
+     */
+    private final byte[] content;
+    /**
+     * O documento analisado
+     */
+    private final PDDocument document;
+    /**
+     * Os dicionários de assinatura, na ordem em que aparecem no documento
+     */
+    private final List<PDSignature> signatures;
+    /**
+     * Leitor das partes do documento referentes às assinaturas
+     */
+    private final ByteRangeDigester digester;
+    private boolean closed;
+
+    private PdfDocumentSession(byte[] content, PDDocument document) throws IOException {
+        this.content = content;
+        this.document = document;
+        this.signatures = Collections.unmodifiableList(new ArrayList<>(document.getSignatureDictionaries()));
+        this.digester = new ByteRangeDigester(content);
+    }
+
+    /**
+     * Analisa o documento e abre a sessão
+     * @param content Os bytes do documento
+     * @return A sessão do documento
+     * @throws IOException Exceção caso o documento não seja um PDF válido
+     */
+    public static PdfDocumentSession open(byte[] content) throws IOException {
+        PDDocument document = PDDocumentUtils.openPDDocument(content);
+        try {
+            return new PdfDocumentSession(content, document);
+        } catch (IOException | RuntimeException e) {
+            PDDocumentUtils.closePDDocument(document);
+            throw e;
+        }
+    }
+
+    /**
+     * Indica se a sessão se refere aos bytes dados. A comparação é feita pela
+     * identidade do array, sem percorrer o documento.
+     * @param content Os bytes de um documento
+     * @return Verdadeiro se a sessão foi aberta com os mesmos bytes e ainda não foi fechada
+     */
+    public boolean isFor(byte[] content) {
+        return !this.closed && this.content == content;
+    }
+
+    /**
+     * Retorna os bytes do documento
+     * @return Os bytes do documento
+     */
+    public byte[] getContent() {
+        return this.content;
+    }
+
+    /**
+     * Retorna o documento analisado
+     * @return O documento
+     */
+    public PDDocument getDocument() {
+        return this.document;
+    }
+
+    /**
+     * Retorna os dicionários de assinatura e de carimbo do tempo do documento
+     * @return Uma nova lista com os dicionários, que pode ser alterada por quem a recebe
+     */
+    public List<PDSignature> getSignatureDictionaries() {
+        return new ArrayList<>(this.signatures);
+    }
+
+    /**
+     * Retorna o dicionário DSS da última revisão do documento
+     * @return O dicionário DSS ou nulo caso o documento não o possua
+     */
+    public COSDictionary getDss() {
+        COSBase dss = this.document.getDocumentCatalog().getCOSObject().getDictionaryObject("DSS");
+        return dss instanceof COSDictionary ? (COSDictionary) dss : null;
+    }
+
+    /**
+     * Retorna os limites das revisões assinadas do documento, isto é, a posição
+     * final do conteúdo coberto por cada assinatura
+     * @return As posições em ordem crescente, sem repetições
+     */
+    public List<Integer> getRevisionBoundaries() {
+        TreeSet<Integer> boundaries = new TreeSet<>();
+        for (PDSignature signature : this.signatures) {
+            int[] byteRange = signature.getByteRange();
+            if (byteRange != null && byteRange.length == 4) {
+                boundaries.add(byteRange[2] + byteRange[3]);
+            }
+        }
+        return new ArrayList<>(boundaries);
+    }
+
+    /**
+     * Retorna o leitor das partes do documento referentes às assinaturas
+     * @return O leitor compartilhado pela sessão
+     */
+    public ByteRangeDigester getDigester() {
+        return this.digester;
+    }
+
+    /**
+     * Fecha o documento, liberando a memória e os arquivos temporários usados pelo PDFBox
+     */
+    @Override
+    public void close() {
+        if (!this.closed) {
+            this.closed = true;
+            PDDocumentUtils.closePDDocument(this.document);
+        }
+    }
+
+}
@@ -1,5 +1,6 @@
 package br.ufsc.labsec.signature.conformanceVerifier.report;
 
+import java.io.Serializable;
 import java.util.Objects;
 import java.util.logging.Level;
 
@@ -11,7 +12,9 @@ import br.ufsc.labsec.component.Application;
 /**
  * Esta classe representa o relatório de um atributo da assinatura
  */
-public class AttribReport {
+public class AttribReport implements Serializable {
+
+	private static final long serialVersionUID = -5519034876217305218L;
 
 	public enum HasBeenValidated {
 		TRUE, FALSE, NOT_VALIDATED
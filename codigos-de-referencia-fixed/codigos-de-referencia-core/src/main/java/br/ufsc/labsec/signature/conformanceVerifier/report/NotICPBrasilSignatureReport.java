@@ -10,6 +10,8 @@ import org.w3c.dom.Element;
  */
 public class NotICPBrasilSignatureReport extends SignatureReport {
 
+    private static final long serialVersionUID = -3378019725564318297L;
+
     /**
      * Constrói um nodo XML que possui as informações da assinatura
      * @param document Relatório da verificação em XML
@@ -1,5 +1,6 @@
 package br.ufsc.labsec.signature.conformanceVerifier.report;
 
+import java.io.Serializable;
 import java.util.logging.Level;
 
 import org.w3c.dom.Document;
@@ -10,7 +11,9 @@ import br.ufsc.labsec.component.Application;
 /**
  * Esta classe representa o relatório de uma política de assinatura
  */
-public class PaReport {
+public class PaReport implements Serializable {
+
+	private static final long serialVersionUID = 7380295632147160593L;
 
 	private static final String FALSE = "False";
 	private static final String TRUE = "True";
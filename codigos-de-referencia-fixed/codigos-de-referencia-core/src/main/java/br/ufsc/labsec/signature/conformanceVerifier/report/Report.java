@@ -1,8 +1,8 @@
 package br.ufsc.labsec.signature.conformanceVerifier.report;
 
 import java.io.File;
-import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.Serializable;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -12,14 +12,12 @@ import java.util.List;
 import java.util.Objects;
 import java.util.logging.Level;
 
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.sax.SAXResult;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
@@ -33,12 +31,15 @@ import org.apache.fop.apps.FopFactory;
 import org.apache.fop.apps.MimeConstants;
 
 import br.ufsc.labsec.component.Application;
+import br.ufsc.labsec.signature.XmlToolkit;
 import br.ufsc.labsec.signature.exceptions.SignatureAttributeException;
 
 /**
  * Esta classe representa o relatório de um documento assinado
  */
-public class Report {
+public class Report implements Serializable {
+
+	private static final long serialVersionUID = -2836411907451633872L;
 
 	private static final String FALSE = "False";
 	private static final String TRUE = "True";
@@ -241,7 +242,7 @@ m	 */
 	public Document generate() {
 		Document document = null;
 		try {
-			document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+			document = XmlToolkit.newDocument();
 		} catch (ParserConfigurationException e) {
 			Application.logger.log(Level.SEVERE, "Problema na construção do documento para geração do relatório", e);
 		}
@@ -399,15 +400,13 @@ m	 */
 	 * Gera o relatório de acordo com seu tipo
 	 * @param reportType O tipo de relatório
 	 * @param reportPath
-	 * @param stylePath
+	 * @param stylePath O caminho do recurso da folha de estilo, compilada uma única vez
 	 */
-	public static void generateReport(ReportType reportType, String reportPath, InputStream stylePath) {
+	public static void generateReport(ReportType reportType, String reportPath, String stylePath) {
 
 		 if(reportType.equals(ReportType.HTML)) {
 	            try {
-	                TransformerFactory factory = TransformerFactory.newInstance();
-	                Source xslt = new StreamSource(stylePath);
-	                Transformer transformer = factory.newTransformer(xslt);
+	                Transformer transformer = XmlToolkit.getTemplates(stylePath).newTransformer();
 
 	                Source text = new StreamSource(new File(reportPath));
 	                transformer.transform(text, new StreamResult(new File(reportPath + ".html")));
@@ -443,8 +442,7 @@ m	 */
 	                        Fop fop = fopFactory.newFop(MimeConstants.MIME_PDF, foUserAgent, out);
 
 	                        // Setup XSLT
-	                        TransformerFactory factory = TransformerFactory.newInstance();
-	                        Transformer transformer = factory.newTransformer(new StreamSource(stylePath));
+	                        Transformer transformer = XmlToolkit.getTemplates(stylePath).newTransformer();
 
 	                        // Set the value of a <param> in the stylesheet
 	                        transformer.setParameter("versionParam", "2.0");
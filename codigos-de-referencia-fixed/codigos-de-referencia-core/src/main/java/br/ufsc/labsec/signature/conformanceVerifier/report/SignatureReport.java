@@ -1,5 +1,6 @@
 package br.ufsc.labsec.signature.conformanceVerifier.report;
 
+import java.io.Serializable;
 import java.math.BigInteger;
 import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
@@ -24,7 +25,9 @@ import br.ufsc.labsec.signature.exceptions.SignatureAttributeException;
 /**
  * Esta classe representa o relatório de uma assinatura
  */
-public class SignatureReport {
+public class SignatureReport implements Serializable {
+
+	private static final long serialVersionUID = 4401267905182653379L;
 
 	private static final String SIGNER_ONLY = "Assinante apenas";
 	private static final String FULL_PATH = "Caminho completo";
@@ -887,6 +890,14 @@ public class SignatureReport {
 		return stamps;
 	}
 
+	/**
+	 * Retorna a lista de relatórios das contra-assinaturas
+	 * @return A lista de relatórios das contra-assinaturas
+	 */
+	public List<SignatureReport> getCounterSignatures() {
+		return counterSignatures;
+	}
+
 	/**
 	 * Retorna a lista de atributos obrigatórios
 	 * @return A lista de atributos obrigatórios
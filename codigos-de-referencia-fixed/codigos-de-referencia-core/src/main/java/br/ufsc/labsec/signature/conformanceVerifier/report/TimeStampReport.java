@@ -17,6 +17,8 @@ import br.ufsc.labsec.signature.exceptions.SignatureAttributeException;
  */
 public class TimeStampReport extends SignatureReport {
 
+    private static final long serialVersionUID = 8127634401958822143L;
+
     private static final String HASH = "hash";
     private static final String FALSE = "False";
     private static final String TRUE = "True";
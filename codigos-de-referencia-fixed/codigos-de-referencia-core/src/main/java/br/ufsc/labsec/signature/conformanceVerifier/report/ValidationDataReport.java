@@ -1,5 +1,6 @@
 package br.ufsc.labsec.signature.conformanceVerifier.report;
 
+import java.io.Serializable;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -11,7 +12,9 @@ import org.w3c.dom.Element;
 /**
  * Esta classe representa o relatório da validação de certificados e CRLs de uma assinatura
  */
-public class ValidationDataReport {
+public class ValidationDataReport implements Serializable {
+
+	private static final long serialVersionUID = -1092746381952240617L;
 
     private static final String SERIAL_NUMBER = "serialNumber";
     private static final String ISSUER_NAME = "issuerName";
@@ -411,6 +414,14 @@ public class ValidationDataReport {
 		this.nextUpdate = nextUpdate;
 	}
 
+	/**
+	 * Retorna a data da próxima atualização da CRL ou da resposta OCSP
+	 * @return A data da próxima atualização, ou nulo caso não tenha sido informada
+	 */
+	public Date getNextUpdate() {
+		return this.nextUpdate;
+	}
+
 	/**
 	 * Atribue a data da última versão da CRL
 	 * @param thisUpdate A data da última versão da CRL
@@ -0,0 +1,211 @@
+package br.ufsc.labsec.signature.conformanceVerifier.service;
+
+import br.ufsc.labsec.component.Application;
+import br.ufsc.labsec.signature.SignatureDataWrapper;
+import br.ufsc.labsec.signature.XmlToolkit;
+import br.ufsc.labsec.signature.conformanceVerifier.gui.ReportGuiComponent;
+import br.ufsc.labsec.signature.conformanceVerifier.metrics.VerificationMetrics;
+import br.ufsc.labsec.signature.conformanceVerifier.report.Report;
+import br.ufsc.labsec.signature.exceptions.VerificationException;
+
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+
+/**
+ * Implementação do {@link VerificationService} sobre os verificadores
+ * existentes. Os {@link br.ufsc.labsec.signature.Verifier} guardam o arquivo e
+ * a assinatura selecionados, e os componentes da aplicação acumulam os dados
+ * de validação de cada verificação; por isso cada grafo de componentes é usado
+ * por uma única thread de cada vez. O serviço mantém um conjunto limitado de
+ * grafos já montados: cada chamada toma um grafo livre, ou monta um novo se o
+ * limite não foi atingido, ou aguarda a devolução de um deles.
+ *
+ * Um grafo é descartado após um número configurável de verificações, para
+ * limitar os dados acumulados, ou quando a verificação termina com uma exceção
+ * inesperada, já que o seu estado passa a ser desconhecido. Os erros de
+ * verificação tratados pelo {@link ReportGuiComponent} não descartam o grafo:
+ * o componente limpa os seus verificadores ao fim de cada verificação.
+ *
+ * As tarefas de verificação assíncronas usam este serviço por meio de
+ * {@link #report(SignatureDataWrapper, boolean)}, sem montar um grafo por tarefa.
+ */
+public final class PooledVerificationService implements VerificationService {
+
+    /**
+     * Quantidade padrão de grafos de componentes
+     */
+    public static final int DEFAULT_POOL_SIZE = Runtime.getRuntime().availableProcessors();
+    /**
+     * Quantidade padrão de verificações feitas por um grafo antes do seu descarte
+     */
+    public static final int DEFAULT_MAX_USES = 64;
+
+    private static final PooledVerificationService instance = new PooledVerificationService();
+
+    /**
+     * Grafos livres, o último devolvido no início
+     */
+    private final Deque<Graph> idle = new ArrayDeque<>();
+    /**
+     * Quantidade de grafos existentes, livres ou em uso
+     */
+    private int created;
+    private int poolSize;
+    private int maxUses;
+
+    private PooledVerificationService() {
+        this.configure(DEFAULT_POOL_SIZE, DEFAULT_MAX_USES);
+    }
+
+    /**
+     * Retorna a instância do processo
+     * @return O serviço de verificação
+     */
+    public static PooledVerificationService getInstance() {
+        return instance;
+    }
+
+    /**
+     * Configura o serviço. Os grafos além do novo limite são descartados assim
+     * que forem devolvidos.
+     * @param poolSize Quantidade máxima de grafos de componentes, que limita as
+     *                 verificações simultâneas
+     * @param maxUses Quantidade de verificações feitas por um grafo antes do seu descarte
+     */
+    public synchronized void configure(int poolSize, int maxUses) {
+        this.poolSize = Math.max(1, poolSize);
+        this.maxUses = Math.max(1, maxUses);
+        while (this.created > this.poolSize && !this.idle.isEmpty()) {
+            this.idle.removeLast();
+            this.created--;
+        }
+        this.notifyAll();
+    }
+
+    /**
+     * Verifica as assinaturas de um arquivo. Pode ser chamado por várias
+     * threads ao mesmo tempo; as chamadas além do limite de grafos aguardam.
+     * @param request O arquivo de assinatura, o conteúdo destacado e as opções da verificação
+     * @return O resultado da verificação
+     * @throws VerificationException Exceção caso a thread seja interrompida
+     * enquanto aguarda um grafo ou o relatório XML não possa ser gerado
+     */
+    @Override
+    public VerificationResult verify(VerificationRequest request) throws VerificationException {
+        // o wrapper não é fechado: os conteúdos pertencem a quem criou a requisição
+        SignatureDataWrapper wrapper = new SignatureDataWrapper(request.getContent(), request.getDetached(),
+                request.getName());
+        Report report = this.report(wrapper, request.getOptions().isRevalidate());
+        String reportXml = request.getOptions().isIncludeReportXml() ? toXml(report) : null;
+        return new VerificationResult(report, reportXml);
+    }
+
+    /**
+     * Verifica um arquivo de assinatura em um dos grafos do conjunto e retorna
+     * o relatório, que é criado para esta verificação e não é compartilhado com
+     * o grafo. Pode ser chamado por várias threads ao mesmo tempo.
+     * @param wrapper O arquivo de assinatura e o seu conteúdo destacado, que não são fechados
+     * @param revalidate Indica se a cache de resultados deve ser ignorada
+     * @return O relatório da verificação
+     * @throws VerificationException Exceção caso a thread seja interrompida enquanto aguarda um grafo
+     */
+    public Report report(SignatureDataWrapper wrapper, boolean revalidate) throws VerificationException {
+        Graph graph = this.acquire();
+        boolean reusable = false;
+        try {
+            Report report = graph.component.verify(wrapper, revalidate);
+            graph.uses++;
+            reusable = true;
+            return report;
+        } finally {
+            this.release(graph, reusable);
+        }
+    }
+
+    /**
+     * Toma um grafo livre, montando um novo caso o limite permita
+     * @return O grafo, de uso exclusivo da thread até a sua devolução
+     * @throws VerificationException Exceção caso a thread seja interrompida enquanto aguarda
+     */
+    private Graph acquire() throws VerificationException {
+        synchronized (this) {
+            while (this.idle.isEmpty() && this.created >= this.poolSize) {
+                try {
+                    this.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new VerificationException("Verificação interrompida enquanto aguardava", e);
+                }
+            }
+            if (!this.idle.isEmpty()) {
+                return this.idle.pollFirst();
+            }
+            this.created++;
+        }
+        // a montagem dos componentes é demorada e é feita fora do bloqueio
+        try {
+            Graph graph = new Graph();
+            VerificationMetrics.increment("verification.service.graph.created");
+            return graph;
+        } catch (RuntimeException e) {
+            this.release(null, false);
+            throw e;
+        }
+    }
+
+    /**
+     * Devolve um grafo, descartando-o caso não deva mais ser usado
+     * @param graph O grafo, ou nulo caso a sua montagem tenha falhado
+     * @param reusable Indica se a verificação terminou normalmente
+     */
+    private synchronized void release(Graph graph, boolean reusable) {
+        if (graph != null && reusable && graph.uses < this.maxUses && this.created <= this.poolSize) {
+            this.idle.addFirst(graph);
+        } else {
+            this.created--;
+        }
+        this.notifyAll();
+    }
+
+    /**
+     * Gera o relatório em XML
+     * @param report O relatório da verificação
+     * @return O relatório em XML
+     * @throws VerificationException Exceção caso o documento não possa ser transformado
+     */
+    private static String toXml(Report report) throws VerificationException {
+        try {
+            StringWriter writer = new StringWriter();
+            Transformer transformer = XmlToolkit.getTransformer();
+            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+            transformer.transform(new DOMSource(report.generate()), new StreamResult(writer));
+            return writer.toString();
+        } catch (TransformerException e) {
+            throw new VerificationException("Não foi possível gerar o relatório em XML", e);
+        }
+    }
+
+    /**
+     * Grafo de componentes da aplicação usado por uma thread de cada vez
+     */
+    private static final class Graph {
+
+        private final ReportGuiComponent component;
+        private int uses;
+
+        Graph() {
+            Application app = new Application(new ArrayList<>());
+            app.setup();
+            this.component = (ReportGuiComponent) app.getComponent(ReportGuiComponent.class.getName());
+        }
+
+    }
+
+}
@@ -0,0 +1,161 @@
+package br.ufsc.labsec.signature.conformanceVerifier.service;
+
+import br.ufsc.labsec.signature.conformanceVerifier.report.SignatureReport;
+import br.ufsc.labsec.signature.conformanceVerifier.report.SignatureReport.SignatureValidity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado imutável da verificação de uma assinatura, de uma contra-assinatura
+ * ou de um carimbo de tempo. É uma cópia dos dados do {@link SignatureReport}
+ * feita ao final da verificação.
+ */
+public final class SignatureResult {
+
+    private final String signerSubjectName;
+    private final String signatureType;
+    private final SignatureValidity validity;
+    private final boolean hashValid;
+    private final boolean asymmetricCipherValid;
+    private final boolean certPathValid;
+    private final String certPathMessage;
+    private final boolean policyOidValid;
+    private final String messageDigest;
+    private final List<String> errorMessages;
+    private final List<SignatureResult> timeStamps;
+    private final List<SignatureResult> counterSignatures;
+
+    /**
+     * Construtor
+     * @param report O relatório da assinatura
+     */
+    SignatureResult(SignatureReport report) {
+        this.signerSubjectName = report.getSignerSubjectName();
+        this.signatureType = report.getSignatureType();
+        this.validity = report.validityStatus();
+        this.hashValid = report.isHash();
+        this.asymmetricCipherValid = report.isNonRepudiable();
+        this.certPathValid = report.isCertPathValid();
+        this.certPathMessage = report.getCertPathMessage();
+        this.policyOidValid = report.isPaOidValid();
+        this.messageDigest = report.getMessageDigest();
+        this.errorMessages = Collections.unmodifiableList(new ArrayList<>(report.getErrorMessages()));
+        this.timeStamps = copy(report.getStamps());
+        this.counterSignatures = copy(report.getCounterSignatures());
+    }
+
+    /**
+     * Copia uma lista de relatórios
+     * @param reports Os relatórios
+     * @return A lista imutável dos resultados
+     */
+    static List<SignatureResult> copy(List<? extends SignatureReport> reports) {
+        if (reports == null || reports.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<SignatureResult> results = new ArrayList<>(reports.size());
+        for (SignatureReport report : reports) {
+            results.add(new SignatureResult(report));
+        }
+        return Collections.unmodifiableList(results);
+    }
+
+    /**
+     * Retorna o nome do assinante
+     * @return O nome do assinante
+     */
+    public String getSignerSubjectName() {
+        return this.signerSubjectName;
+    }
+
+    /**
+     * Retorna o tipo da assinatura
+     * @return O tipo da assinatura
+     */
+    public String getSignatureType() {
+        return this.signatureType;
+    }
+
+    /**
+     * Retorna a validade da assinatura
+     * @return A validade da assinatura
+     */
+    public SignatureValidity getValidity() {
+        return this.validity;
+    }
+
+    /**
+     * Retorna se o resumo criptográfico do conteúdo assinado confere
+     * @return Indica se o resumo é válido
+     */
+    public boolean isHashValid() {
+        return this.hashValid;
+    }
+
+    /**
+     * Retorna se a cifra assimétrica da assinatura é válida
+     * @return Indica se a cifra assimétrica é válida
+     */
+    public boolean isAsymmetricCipherValid() {
+        return this.asymmetricCipherValid;
+    }
+
+    /**
+     * Retorna se o caminho de certificação é válido
+     * @return Indica se o caminho de certificação é válido
+     */
+    public boolean isCertPathValid() {
+        return this.certPathValid;
+    }
+
+    /**
+     * Retorna a mensagem da validação do caminho de certificação
+     * @return A mensagem do caminho de certificação
+     */
+    public String getCertPathMessage() {
+        return this.certPathMessage;
+    }
+
+    /**
+     * Retorna se o OID da política de assinatura é válido
+     * @return Indica se o OID da política é válido
+     */
+    public boolean isPolicyOidValid() {
+        return this.policyOidValid;
+    }
+
+    /**
+     * Retorna o resumo criptográfico da assinatura em hexadecimal
+     * @return O resumo, ou uma string vazia caso não tenha sido calculado
+     */
+    public String getMessageDigest() {
+        return this.messageDigest;
+    }
+
+    /**
+     * Retorna as mensagens de erro da verificação
+     * @return A lista imutável de mensagens
+     */
+    public List<String> getErrorMessages() {
+        return this.errorMessages;
+    }
+
+    /**
+     * Retorna os resultados dos carimbos de tempo da assinatura
+     * @return A lista imutável de resultados
+     */
+    public List<SignatureResult> getTimeStamps() {
+        return this.timeStamps;
+    }
+
+    /**
+     * Retorna os resultados das contra-assinaturas
+     * @return A lista imutável de resultados
+     */
+    public List<SignatureResult> getCounterSignatures() {
+        return this.counterSignatures;
+    }
+
+}
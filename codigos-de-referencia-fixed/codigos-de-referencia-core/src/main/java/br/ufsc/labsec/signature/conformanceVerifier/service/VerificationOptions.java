@@ -0,0 +1,63 @@
+package br.ufsc.labsec.signature.conformanceVerifier.service;
+
+/**
+ * Opções de uma {@link VerificationRequest}. As instâncias são imutáveis; os
+ * métodos <code>with</code> retornam uma nova instância com a opção alterada.
+ */
+public final class VerificationOptions {
+
+    /**
+     * Opções padrão: consulta a cache de resultados e não inclui o relatório XML
+     */
+    public static final VerificationOptions DEFAULT = new VerificationOptions(false, false);
+
+    /**
+     * Indica se a cache de resultados deve ser ignorada
+     */
+    private final boolean revalidate;
+    /**
+     * Indica se o relatório XML completo deve ser incluído no resultado
+     */
+    private final boolean includeReportXml;
+
+    private VerificationOptions(boolean revalidate, boolean includeReportXml) {
+        this.revalidate = revalidate;
+        this.includeReportXml = includeReportXml;
+    }
+
+    /**
+     * Retorna as opções com a revalidação alterada
+     * @param revalidate Indica se a cache de resultados deve ser ignorada, forçando
+     *                   uma nova verificação cujo resultado substitui o armazenado
+     * @return As novas opções
+     */
+    public VerificationOptions withRevalidate(boolean revalidate) {
+        return new VerificationOptions(revalidate, this.includeReportXml);
+    }
+
+    /**
+     * Retorna as opções com a inclusão do relatório XML alterada
+     * @param includeReportXml Indica se o relatório XML completo deve ser incluído no resultado
+     * @return As novas opções
+     */
+    public VerificationOptions withReportXml(boolean includeReportXml) {
+        return new VerificationOptions(this.revalidate, includeReportXml);
+    }
+
+    /**
+     * Retorna se a cache de resultados deve ser ignorada
+     * @return Indica se a verificação deve ser refeita
+     */
+    public boolean isRevalidate() {
+        return this.revalidate;
+    }
+
+    /**
+     * Retorna se o relatório XML completo deve ser incluído no resultado
+     * @return Indica se o relatório XML deve ser incluído
+     */
+    public boolean isIncludeReportXml() {
+        return this.includeReportXml;
+    }
+
+}
@@ -0,0 +1,92 @@
+package br.ufsc.labsec.signature.conformanceVerifier.service;
+
+import br.ufsc.labsec.signature.SpooledContent;
+
+import java.util.Objects;
+
+/**
+ * Dados de uma verificação feita pelo {@link VerificationService}. A
+ * requisição não é alterada pela verificação e pode ser reutilizada ou
+ * verificada por várias threads ao mesmo tempo.
+ *
+ * Os conteúdos continuam pertencendo a quem cria a requisição, que deve
+ * fechá-los após o uso.
+ */
+public final class VerificationRequest {
+
+    /**
+     * Conteúdo do arquivo de assinatura
+     */
+    private final SpooledContent content;
+    /**
+     * Conteúdo destacado, ou nulo caso a assinatura seja anexada
+     */
+    private final SpooledContent detached;
+    /**
+     * Nome do arquivo de assinatura
+     */
+    private final String name;
+    /**
+     * Opções da verificação
+     */
+    private final VerificationOptions options;
+
+    /**
+     * Construtor
+     * @param content O conteúdo do arquivo de assinatura
+     * @param detached O conteúdo destacado, ou nulo caso a assinatura seja anexada
+     * @param name O nome do arquivo de assinatura, usado no relatório
+     * @param options As opções da verificação
+     */
+    public VerificationRequest(SpooledContent content, SpooledContent detached, String name,
+                               VerificationOptions options) {
+        this.content = Objects.requireNonNull(content, "content");
+        this.detached = detached;
+        this.name = name;
+        this.options = options == null ? VerificationOptions.DEFAULT : options;
+    }
+
+    /**
+     * Construtor de uma requisição com as opções padrão
+     * @param content Os bytes do arquivo de assinatura
+     * @param detached Os bytes do conteúdo destacado, ou nulo caso a assinatura seja anexada
+     * @param name O nome do arquivo de assinatura, usado no relatório
+     */
+    public VerificationRequest(byte[] content, byte[] detached, String name) {
+        this(SpooledContent.of(content.clone()), detached == null ? null : SpooledContent.of(detached.clone()),
+                name, VerificationOptions.DEFAULT);
+    }
+
+    /**
+     * Retorna o conteúdo do arquivo de assinatura
+     * @return O conteúdo do arquivo de assinatura
+     */
+    public SpooledContent getContent() {
+        return this.content;
+    }
+
+    /**
+     * Retorna o conteúdo destacado
+     * @return O conteúdo destacado, ou nulo caso a assinatura seja anexada
+     */
+    public SpooledContent getDetached() {
+        return this.detached;
+    }
+
+    /**
+     * Retorna o nome do arquivo de assinatura
+     * @return O nome do arquivo
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Retorna as opções da verificação
+     * @return As opções
+     */
+    public VerificationOptions getOptions() {
+        return this.options;
+    }
+
+}
@@ -0,0 +1,124 @@
+package br.ufsc.labsec.signature.conformanceVerifier.service;
+
+import br.ufsc.labsec.signature.conformanceVerifier.report.Report;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Resultado imutável de uma verificação feita pelo {@link VerificationService}.
+ * É uma cópia dos dados do {@link Report} feita ao final da verificação, de
+ * modo que pode ser compartilhado entre threads.
+ */
+public final class VerificationResult {
+
+    private final String sourceFile;
+    private final String generalStatus;
+    private final Long verificationDate;
+    private final String sourceOfDate;
+    private final String softwareName;
+    private final String softwareVersion;
+    private final boolean lpaValid;
+    private final String lpaVersion;
+    private final List<SignatureResult> signatures;
+    private final String reportXml;
+
+    /**
+     * Construtor
+     * @param report O relatório da verificação
+     * @param reportXml O relatório em XML, ou nulo caso não tenha sido pedido
+     */
+    VerificationResult(Report report, String reportXml) {
+        this.sourceFile = report.getFileName();
+        this.generalStatus = Report.generateGeneralStatus(report.getSignatures());
+        this.verificationDate = report.getVerificationDate() == null ? null : report.getVerificationDate().getTime();
+        this.sourceOfDate = report.getSourceOfDate();
+        this.softwareName = report.getSoftwareName();
+        this.softwareVersion = report.getSoftwareVersion();
+        this.lpaValid = report.isLpaValid();
+        this.lpaVersion = report.getLpaVersion();
+        this.signatures = SignatureResult.copy(report.getSignatures());
+        this.reportXml = reportXml;
+    }
+
+    /**
+     * Retorna o nome do arquivo de assinatura
+     * @return O nome do arquivo
+     */
+    public String getSourceFile() {
+        return this.sourceFile;
+    }
+
+    /**
+     * Retorna o estado geral da verificação ("Aprovado", "Indeterminado" ou "Reprovado")
+     * @return O estado geral
+     */
+    public String getGeneralStatus() {
+        return this.generalStatus;
+    }
+
+    /**
+     * Retorna a data da verificação
+     * @return Uma cópia da data, ou nulo caso não tenha sido definida
+     */
+    public Date getVerificationDate() {
+        return this.verificationDate == null ? null : new Date(this.verificationDate);
+    }
+
+    /**
+     * Retorna a fonte da data da verificação
+     * @return A fonte da data
+     */
+    public String getSourceOfDate() {
+        return this.sourceOfDate;
+    }
+
+    /**
+     * Retorna o nome do software de verificação
+     * @return O nome do software
+     */
+    public String getSoftwareName() {
+        return this.softwareName;
+    }
+
+    /**
+     * Retorna a versão do software de verificação
+     * @return A versão do software
+     */
+    public String getSoftwareVersion() {
+        return this.softwareVersion;
+    }
+
+    /**
+     * Retorna se a LPA usada na verificação é válida
+     * @return Indica se a LPA é válida
+     */
+    public boolean isLpaValid() {
+        return this.lpaValid;
+    }
+
+    /**
+     * Retorna a versão da LPA usada na verificação
+     * @return A versão da LPA
+     */
+    public String getLpaVersion() {
+        return this.lpaVersion;
+    }
+
+    /**
+     * Retorna os resultados das assinaturas do arquivo
+     * @return A lista imutável de resultados
+     */
+    public List<SignatureResult> getSignatures() {
+        return this.signatures;
+    }
+
+    /**
+     * Retorna o relatório completo em XML
+     * @return O relatório, ou nulo caso não tenha sido pedido nas opções
+     */
+    public String getReportXml() {
+        return this.reportXml;
+    }
+
+}
@@ -0,0 +1,23 @@
+package br.ufsc.labsec.signature.conformanceVerifier.service;
+
+import br.ufsc.labsec.signature.exceptions.VerificationException;
+
+/**
+ * Ponto de entrada sem estado para a verificação de assinaturas. Ao contrário
+ * do {@link br.ufsc.labsec.signature.Verifier}, que conduz uma verificação por
+ * várias chamadas (selectTarget, selectSignature, getValidationResult, clear),
+ * cada chamada recebe todos os dados da verificação e devolve um resultado
+ * imutável, de modo que uma única instância pode ser usada por várias threads
+ * ao mesmo tempo.
+ */
+public interface VerificationService {
+
+    /**
+     * Verifica as assinaturas de um arquivo
+     * @param request O arquivo de assinatura, o conteúdo destacado e as opções da verificação
+     * @return O resultado da verificação
+     * @throws VerificationException Exceção caso a verificação não possa ser realizada
+     */
+    VerificationResult verify(VerificationRequest request) throws VerificationException;
+
+}
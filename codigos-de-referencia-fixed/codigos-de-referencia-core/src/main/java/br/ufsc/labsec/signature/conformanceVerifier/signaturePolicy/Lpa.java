@@ -2,8 +2,12 @@ package br.ufsc.labsec.signature.conformanceVerifier.signaturePolicy;
 
 import br.ufsc.labsec.component.Application;
 import br.ufsc.labsec.signature.AlgorithmIdentifierMapper;
+import br.ufsc.labsec.signature.XmlToolkit;
+import br.ufsc.labsec.signature.conformanceVerifier.cache.VerificationResultCache;
 import br.ufsc.labsec.signature.conformanceVerifier.signaturePolicy.decoder.SignaturePolicy;
 import br.ufsc.labsec.signature.conformanceVerifier.signaturePolicy.exceptions.LpaException;
+import br.ufsc.labsec.signature.repository.bundle.ValidationBundleRepository;
+import br.ufsc.labsec.signature.repository.http.HttpFetcher;
 import org.apache.commons.io.IOUtils;
 import org.bouncycastle.asn1.*;
 import org.bouncycastle.cms.CMSSignedDataGenerator;
@@ -13,14 +17,12 @@ import org.w3c.dom.*;
 import org.xml.sax.SAXException;
 
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
-import java.net.URL;
-import java.net.URLConnection;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
@@ -217,6 +219,9 @@ public class Lpa {
 	public void readLpa(String url) throws LpaException, IOException {
 		InputStream inputStream = getLpaStream(url);
 		this.readLpa(inputStream);
+		if (this.lpaBytes != null) {
+			VerificationResultCache.recordLpa(url, this.lpaBytes);
+		}
 	}
 
 	/**
@@ -301,41 +306,27 @@ public class Lpa {
 	 * @throws LpaException
 	 */
 	public InputStream getSignatureStream(String lpaSignatureUrl) throws LpaException {
-		URL signatureUrl = null;
-		InputStream inputStream = null;
+		InputStream inputStream = ValidationBundleRepository.openUrl(lpaSignatureUrl);
+		if (inputStream != null) {
+			return inputStream;
+		}
+		byte[] content;
 		try {
-			signatureUrl = new URL(lpaSignatureUrl);
+			content = HttpFetcher.getInstance().getConditional(lpaSignatureUrl);
 		} catch (MalformedURLException malformedURLException) {
 			throw new LpaException(
 					"A URL da assinatura está inconsistente ou mal formada.",
 					malformedURLException.getStackTrace());
-		}
-		URLConnection urlConnection = null;
-		try {
-			urlConnection = signatureUrl.openConnection();
 		} catch (IOException ioException) {
 			throw new LpaException(
-					"Impossível se conectar à pagina da assinatura indicada.",
+					"Não foi possível acessar o conteúdo da página da assinatura",
 					ioException.getStackTrace());
 		}
-		if (urlConnection != null) {
-			boolean retry = false;
-			try {
-				inputStream = urlConnection.getInputStream();
-			} catch (IOException ioException) {
-				retry = true;
-			}
-			if (retry) {
-				try {
-					inputStream = urlConnection.getInputStream();
-				} catch (IOException ioException) {
-					throw new LpaException(
-							"Não foi possível acessar o conteúdo da página da assinatura",
-							ioException.getStackTrace());
-				}
-			}
+		if (content == null) {
+			throw new LpaException(
+					"Não foi possível acessar o conteúdo da página da assinatura");
 		}
-		return inputStream;
+		return new ByteArrayInputStream(content);
 	}
 
 	/**
@@ -345,41 +336,27 @@ public class Lpa {
 	 * @throws LpaException Exceção em caso de erro no stream obtido
 	 */
 	public InputStream getLpaStream(String url) throws LpaException {
-		URL lpaUrl = null;
-		InputStream inputStream = null;
+		InputStream inputStream = ValidationBundleRepository.openUrl(url);
+		if (inputStream != null) {
+			return inputStream;
+		}
+		byte[] content;
 		try {
-			lpaUrl = new URL(url);
+			content = HttpFetcher.getInstance().getConditional(url);
 		} catch (MalformedURLException malformedURLException) {
 			throw new LpaException(
 					"A URL da LPA informada está inconsistente ou mal formada.",
 					malformedURLException.getStackTrace());
-		}
-		URLConnection urlConnection = null;
-		try {
-			urlConnection = lpaUrl.openConnection();
 		} catch (IOException ioException) {
 			throw new LpaException(
-					"Impossível se conectar à pagina da LPA indicada.",
+					"Não foi possível acessar o conteúdo da página da LPA",
 					ioException.getStackTrace());
 		}
-		if (urlConnection != null) {
-			boolean retry = false;
-			try {
-				inputStream = urlConnection.getInputStream();
-			} catch (IOException ioException) {
-				retry = true;
-			}
-			if (retry) {
-				try {
-					inputStream = urlConnection.getInputStream();
-				} catch (IOException ioException) {
-					throw new LpaException(
-							"Não foi possível acessar o conteúdo da página da LPA",
-							ioException.getStackTrace());
-				}
-			}
+		if (content == null) {
+			throw new LpaException(
+					"Não foi possível acessar o conteúdo da página da LPA");
 		}
-		return inputStream;
+		return new ByteArrayInputStream(content);
 	}
 
 	/**
@@ -399,13 +376,15 @@ public class Lpa {
 			DOMException, CertificateException, NoSuchAlgorithmException,
 			ParseException {
 		SignaturePolicy policy = null;
-		URL lpaUrl = new URL(policyUri);
-		URLConnection urlConnection = lpaUrl.openConnection();
-		if (urlConnection != null) {
-			InputStream inputStream = urlConnection.getInputStream();
-			if (inputStream == null)
-				inputStream = urlConnection.getInputStream();
-
+		InputStream inputStream = ValidationBundleRepository.openUrl(policyUri);
+		if (inputStream == null) {
+			byte[] content = HttpFetcher.getInstance().getConditional(policyUri);
+			if (content == null) {
+				throw new FileNotFoundException(policyUri);
+			}
+			inputStream = new ByteArrayInputStream(content);
+		}
+		if (inputStream != null) {
 			byte[] buf = Streams.readAll(inputStream);
 
 			InputStream copy = new ByteArrayInputStream(buf);
@@ -425,9 +404,7 @@ public class Lpa {
 	 * @return {@link SignaturePolicy} política de assinatura
 	 */
 	public SignaturePolicy getSignaturePolicyFromFileXML(InputStream policyStream) throws ParserConfigurationException, SAXException, NoSuchAlgorithmException, CertificateException, ParseException, IOException {
-		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-		factory.setNamespaceAware(true);
-		DocumentBuilder builder = factory.newDocumentBuilder();
+		DocumentBuilder builder = XmlToolkit.getDocumentBuilder();
 		Document document = builder.parse(policyStream);
 		return new SignaturePolicy(document);
 	}
@@ -453,15 +430,15 @@ public class Lpa {
 			throws IOException, CertificateException, NoSuchAlgorithmException,
 			ParseException {
 		SignaturePolicy policy = null;
-		URL lpaUrl = null;
-		lpaUrl = new URL(uri);
-		URLConnection urlConnection = null;
-		urlConnection = lpaUrl.openConnection();
-		if (urlConnection != null) {
-			InputStream inputStream = null;
-			inputStream = urlConnection.getInputStream();
-			if (inputStream == null)
-				inputStream = urlConnection.getInputStream();
+		InputStream inputStream = ValidationBundleRepository.openUrl(uri);
+		if (inputStream == null) {
+			byte[] content = HttpFetcher.getInstance().getConditional(uri);
+			if (content == null) {
+				throw new FileNotFoundException(uri);
+			}
+			inputStream = new ByteArrayInputStream(content);
+		}
+		if (inputStream != null) {
 			policy = this.getSignaturePolicyFromFileAsn1(inputStream);
 			byte[] encoded = policy.getEncoded();
 			MessageDigest digest = MessageDigest.getInstance(this.getHashAlgoritm());
@@ -727,14 +704,11 @@ public class Lpa {
 	 * @throws LpaException Exceção em caso de erro no stream
 	 */
 	private void getLpaFromXml() throws LpaException {
-		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-		factory.setNamespaceAware(true);
-		factory.setIgnoringElementContentWhitespace(true);
 		DocumentBuilder builder = null;
 		Document document = null;
 
 		try {
-			builder = factory.newDocumentBuilder();
+			builder = XmlToolkit.getDocumentBuilder();
 		} catch (ParserConfigurationException parserConfigurationException) {
 			throw new LpaException(parserConfigurationException);
 		}
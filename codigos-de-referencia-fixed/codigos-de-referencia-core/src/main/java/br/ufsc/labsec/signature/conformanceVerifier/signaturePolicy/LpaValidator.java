@@ -5,7 +5,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.net.URLConnection;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
@@ -22,10 +21,10 @@ import javax.xml.crypto.dsig.XMLSignatureException;
 import javax.xml.crypto.dsig.XMLSignatureFactory;
 import javax.xml.crypto.dsig.dom.DOMValidateContext;
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
 import br.ufsc.labsec.signature.SignaturePolicyInterface.AdESType;
+import br.ufsc.labsec.signature.XmlToolkit;
 import org.bouncycastle.asn1.ASN1Sequence;
 import org.bouncycastle.asn1.ASN1TaggedObject;
 import org.bouncycastle.cms.*;
@@ -42,6 +41,7 @@ import br.ufsc.labsec.signature.conformanceVerifier.report.Report;
 import br.ufsc.labsec.signature.conformanceVerifier.report.SignatureReport;
 import br.ufsc.labsec.signature.conformanceVerifier.report.TimeStampReport;
 import br.ufsc.labsec.signature.conformanceVerifier.signaturePolicy.exceptions.LpaException;
+import br.ufsc.labsec.signature.repository.http.HttpFetcher;
 
 /**
  * Esta classe é responsável pela validação de uma Lista de Políticas de Assinatura (LPA)
@@ -237,13 +237,9 @@ public class LpaValidator {
 	 * @return O objeto {@link DocumentBuilder} criado
 	 */
 	private DocumentBuilder takeDocumentBuilder() {
-		DocumentBuilderFactory documentFactory = DocumentBuilderFactory
-				.newInstance();
-		documentFactory.setNamespaceAware(true);
-
 		DocumentBuilder documentBuilder = null;
 		try {
-			documentBuilder = documentFactory.newDocumentBuilder();
+			documentBuilder = XmlToolkit.getDocumentBuilder();
 		} catch (ParserConfigurationException e) {
 			e.printStackTrace();
 		}
@@ -367,55 +363,25 @@ public class LpaValidator {
 	 * @throws LpaException Exceção em caso de erro na busca pelo arquivo da LPA
 	 */
 	private InputStream getSignatureStream(String lpaSignatureUrl) throws LpaException {
-		URL signatureUrl = null;
-		InputStream inputStream = null;
-		URLConnection urlConnection = null;
+		byte[] content = null;
 		try {
-			signatureUrl = new URL(lpaSignatureUrl);
-			urlConnection = signatureUrl.openConnection();
-			inputStream = getInputStream(inputStream, urlConnection);
+			content = HttpFetcher.getInstance().getConditional(lpaSignatureUrl);
 		} catch (MalformedURLException e) {
 			Application.logger.log(Level.SEVERE, MALFORMED_URL, e);
+			return null;
 		} catch (IOException ioException) {
 			Application.logger.log(Level.SEVERE,
 					"Erro na entrada ou saida do stream da assinatura",
 					ioException);
-		} catch (LpaException e) {
+			return null;
+		}
+		if (content == null) {
 			report.setLpaErrorMessage(UNABLE_TO_CONNECT_TO_LPA);
-			Application.logger.log(Level.SEVERE, UNABLE_TO_CONNECT_TO_LPA, e);
+			Application.logger.log(Level.SEVERE, UNABLE_TO_CONNECT_TO_LPA);
 			throw new LpaException(UNABLE_TO_CONNECT_TO_LPA);
 		}
 
-		return inputStream;
-	}
-
-	/**
-	 * Retorna o InputStream na conexão
-	 * @param inputStream O stream da resposta da conexão
-	 * @param urlConnection A conexão feita para ser feito o download da assinatura
-	 * @return O stream da assinatura na conexão
-	 * @throws LpaException Exceção em caso de erro na busca pelo arquivo da LPA
-	 */
-	private InputStream getInputStream(InputStream inputStream,
-			URLConnection urlConnection) throws LpaException {
-		if (urlConnection != null) {
-			boolean retry = false;
-			try {
-				inputStream = urlConnection.getInputStream();
-			} catch (IOException ioException) {
-				retry = true;
-			}
-			if (retry) {
-				try {
-					inputStream = urlConnection.getInputStream();
-				} catch (IOException ioException) {
-					throw new LpaException(
-							"Não foi possível acessar o conteúdo da página da Assinatura",
-							ioException.getStackTrace());
-				}
-			}
-		}
-		return inputStream;
+		return new ByteArrayInputStream(content);
 	}
 
 	/**
@@ -11,6 +11,9 @@ package br.ufsc.labsec.signature.conformanceVerifier.signaturePolicy;
 
 import br.ufsc.labsec.component.Application;
 import br.ufsc.labsec.signature.SignaturePolicyInterface;
+import br.ufsc.labsec.signature.XmlToolkit;
+import br.ufsc.labsec.signature.conformanceVerifier.metrics.Span;
+import br.ufsc.labsec.signature.conformanceVerifier.metrics.VerificationMetrics;
 import br.ufsc.labsec.signature.conformanceVerifier.report.PaReport;
 import br.ufsc.labsec.signature.conformanceVerifier.report.Report;
 import br.ufsc.labsec.signature.conformanceVerifier.signaturePolicy.decoder.*;
@@ -25,7 +28,6 @@ import org.xml.sax.SAXException;
 
 import javax.security.auth.x500.X500Principal;
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.TransformerFactoryConfigurationError;
 import java.io.FileInputStream;
@@ -169,10 +171,8 @@ public class SignaturePolicyProxy implements SignaturePolicyInterface {
 	private void getPaFromXml(InputStream inputStream) throws DOMException, CertificateException,
 			NoSuchAlgorithmException, ParseException, IOException, ParserConfigurationException, SAXException {
 		SignaturePolicy policy = null;
-		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-		factory.setNamespaceAware(true);
 		DocumentBuilder builder;
-		builder = factory.newDocumentBuilder();
+		builder = XmlToolkit.getDocumentBuilder();
 		Document document = builder.parse(inputStream);
 		policy = new SignaturePolicy(document);
 		this.signaturePolicy = policy;
@@ -691,6 +691,7 @@ public class SignaturePolicyProxy implements SignaturePolicyInterface {
 		}
 
 		this.lpa = null;
+		Span span = VerificationMetrics.span(VerificationMetrics.LPA_DOWNLOAD);
 		try {
 			lpa = new Lpa();
 			if (lpaSigUrl != null) {
@@ -713,7 +714,10 @@ public class SignaturePolicyProxy implements SignaturePolicyInterface {
 			this.isPaRevoked = lpa.isRevoked(this.oid);
 
 		} catch (NoSuchAlgorithmException | IOException | TransformerFactoryConfigurationError | LpaException e) {
+			span.fail();
 			Application.logger.log(Level.SEVERE, e.getMessage());
+		} finally {
+			span.close();
 		}
 	}
 
@@ -10,6 +10,7 @@ Apoio: Colégio Notarial do Brasil (CNB) e Instituto Nacional de Tecnologia da I
 package br.ufsc.labsec.signature.conformanceVerifier.signaturePolicy.decoder;
 
 import br.ufsc.labsec.signature.AlgorithmIdentifierMapper;
+import br.ufsc.labsec.signature.XmlToolkit;
 import org.bouncycastle.asn1.ASN1Sequence;
 import org.bouncycastle.asn1.DEROctetString;
 import org.bouncycastle.util.encoders.Base64;
@@ -20,7 +21,6 @@ import org.w3c.dom.Node;
 
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.TransformerFactoryConfigurationError;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
@@ -236,7 +236,7 @@ public class SignaturePolicy {
      */
     private byte[] extractXmlHash(AlgorithmIdentifier algorithmIdentifier) throws TransformerFactoryConfigurationError,
         TransformerException, NoSuchAlgorithmException {
-        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        Transformer transformer = XmlToolkit.getTransformer();
         ByteArrayOutputStream output = new ByteArrayOutputStream();
         transformer.transform(new DOMSource(this.signPolicyDocument), new StreamResult(output));
         String outputString = output.toString();
@@ -24,7 +24,8 @@ import java.util.Set;
 import java.util.logging.Level;
 
 import br.ufsc.labsec.component.Application;
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import br.ufsc.labsec.signature.JcaProviders;
+import br.ufsc.labsec.signature.conformanceVerifier.metrics.VerificationMetrics;
 
 /**
  * Classe responsável por criar caminhos de certificação
@@ -47,6 +48,16 @@ public class CertPathBuilder {
 	 */
 	public static CertPath buildPath(X509Certificate certificate, CertStore certStore, Set<TrustAnchor> trustAnchors,
 			Time timeReference, boolean isRevocationEnabled) throws CertificationPathException {
+		return VerificationMetrics.time(VerificationMetrics.CERT_PATH_BUILD,
+				() -> build(certificate, certStore, trustAnchors, timeReference, isRevocationEnabled));
+	}
+
+	/**
+	 * Constrói o caminho de certificação do certificado indicado
+	 * @see #buildPath(X509Certificate, CertStore, Set, Time, boolean)
+	 */
+	private static CertPath build(X509Certificate certificate, CertStore certStore, Set<TrustAnchor> trustAnchors,
+			Time timeReference, boolean isRevocationEnabled) throws CertificationPathException {
 
 		CertPath certPath = null;
 		PKIXBuilderParameters pkixBuilderParams = null;
@@ -65,7 +76,7 @@ public class CertPathBuilder {
 
 		java.security.cert.CertPathBuilder certPathBuilder;
 		try {
-			certPathBuilder = java.security.cert.CertPathBuilder.getInstance("PKIX", new BouncyCastleProvider());
+			certPathBuilder = java.security.cert.CertPathBuilder.getInstance("PKIX", JcaProviders.bouncyCastle());
 		} catch (NoSuchAlgorithmException noSuchAlgorithmException) {
 			throw new CertificationPathException(CertificationPathException.NO_SUCH_ALGORITHM,
 					noSuchAlgorithmException);
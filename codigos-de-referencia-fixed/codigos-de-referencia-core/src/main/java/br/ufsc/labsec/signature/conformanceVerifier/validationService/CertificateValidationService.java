@@ -11,12 +11,14 @@ import java.util.logging.Level;
 
 import javax.security.auth.x500.X500Principal;
 
+import br.ufsc.labsec.signature.CertificateInterner;
 import br.ufsc.labsec.signature.SystemTime;
 import br.ufsc.labsec.signature.exceptions.AIAException;
 import br.ufsc.labsec.signature.exceptions.CertificateCollectionException;
 import org.bouncycastle.cert.ocsp.OCSPResp;
 
 import br.ufsc.labsec.component.Application;
+import br.ufsc.labsec.signature.conformanceVerifier.metrics.VerificationMetrics;
 import br.ufsc.labsec.signature.CertificateCollection;
 import br.ufsc.labsec.signature.CertificateValidation;
 import br.ufsc.labsec.signature.RevocationInformation;
@@ -270,8 +272,11 @@ public class CertificateValidationService implements CertificateValidation {
 	public CertPath generateCertPath(Certificate certificate, Set<TrustAnchor> trustAnchors, Time timeReference) {
 		
 		CertPath buildPath = this.certPaths.get(certificate);
-		if(buildPath != null)
+		if(buildPath != null) {
+			VerificationMetrics.cacheHit("certpath");
 			return buildPath;
+		}
+		VerificationMetrics.cacheMiss("certpath");
 
 		CertPath certPath = generateCertPathNoSave(certificate, trustAnchors, timeReference);
 		if (certPath != null) {
@@ -447,23 +452,7 @@ public class CertificateValidationService implements CertificateValidation {
 		certificateList.add(certificate);
 
 		try {
-			Certificate lastCertificate = certificate;
-			Certificate issuer;
-			while (!this.isSelfSignedCertificate((X509Certificate) lastCertificate) && !this.hasTrustAnchorAsIssuer((X509Certificate) lastCertificate, trustAnchors)) {
-				issuer = null;
-				for (int i = 0; i < certList.size() && issuer == null; i++) {
-					CertificateCollection certificateCollection = certList.get(i);
-					try {
-						issuer = certificateCollection.getIssuerCertificate((X509Certificate) lastCertificate);
-					} catch (CertificateCollectionException ignore) { }
-				}
-				if (issuer != null) {
-					certificateList.add(issuer);
-					lastCertificate = issuer;
-				} else {
-					throw new CertificateCollectionException(CertificateCollectionException.CERTIFICATE_NOT_FOUND);
-				}
-			}
+			certificateList.addAll(this.getIssuersFromCollections(certificate, trustAnchors));
 			// Apesar da cadeia ser encontrada nas coleções, ainda não se tem certeza que o certificado
 			// do assinante está presente. Então adiciona-se por segurança.
 			for (CertificateCollection certificateCollection : certList) {
@@ -523,7 +512,8 @@ public class CertificateValidationService implements CertificateValidation {
 		}
 
 
-		List<Object> params = new ArrayList<Object>(certificateList);
+		// as cadeias de assinaturas diferentes compartilham as mesmas instâncias dos certificados de AC
+		List<Object> params = new ArrayList<Object>(CertificateInterner.internAll(certificateList));
 		params.addAll(getCRLsFromCertificates(revList, certificateList, timeReference));
 
 		certStoreParams = new CollectionCertStoreParameters(params);
@@ -532,9 +522,113 @@ public class CertificateValidationService implements CertificateValidation {
 
 	}
 
+	/**
+	 * Busca nas coleções de certificados os emissores do certificado até um
+	 * certificado autoassinado ou emitido por uma âncora de confiança
+	 * @param certificate O certificado
+	 * @param trustAnchors O conjunto de âncoras de confiança
+	 * @return Os emissores, do mais próximo ao mais distante do certificado
+	 * @throws CertificateCollectionException Exceção caso algum emissor não esteja nas coleções
+	 */
+	private List<Certificate> getIssuersFromCollections(X509Certificate certificate, Set<TrustAnchor> trustAnchors)
+			throws CertificateCollectionException {
+		List<CertificateCollection> certList = this.vsRepository.aditionalCertificateCollection;
+		List<Certificate> issuers = new ArrayList<Certificate>();
+		X509Certificate lastCertificate = certificate;
+		X509Certificate issuer;
+		while (!this.isSelfSignedCertificate(lastCertificate) && !this.hasTrustAnchorAsIssuer(lastCertificate, trustAnchors)) {
+			issuer = null;
+			for (int i = 0; i < certList.size() && issuer == null; i++) {
+				CertificateCollection certificateCollection = certList.get(i);
+				try {
+					issuer = certificateCollection.getIssuerCertificate(lastCertificate);
+				} catch (CertificateCollectionException ignore) { }
+			}
+			if (issuer != null) {
+				issuers.add(issuer);
+				lastCertificate = issuer;
+			} else {
+				throw new CertificateCollectionException(CertificateCollectionException.CERTIFICATE_NOT_FOUND);
+			}
+		}
+		return issuers;
+	}
+
+	/**
+	 * Obtém antecipadamente as cadeias de certificação e as LCRs dos emissores dos
+	 * certificados, como as assinaturas de um mesmo arquivo. Os emissores que não
+	 * estão nas coleções de certificados são obtidos por AIA, e as LCRs de todos os
+	 * emissores distintos são buscadas em uma única rodada concorrente, dentro do
+	 * prazo configurado no repositório de validação. Os repositórios ligados à
+	 * assinatura em verificação não são consultados, já que os certificados podem
+	 * pertencer a outras assinaturas. O resultado alimenta as caches dos
+	 * repositórios; a validação de cada certificado continua sendo feita em
+	 * {@link #validate} e {@link #generateCertPath}.
+	 * @param certificates Os certificados
+	 * @param trustAnchors O conjunto de âncoras de confiança
+	 * @param timeReference Referência de tempo para a seleção das LCRs
+	 */
+	@Override
+	public void prefetch(Collection<? extends Certificate> certificates, Set<TrustAnchor> trustAnchors,
+			Time timeReference) {
+		if (certificates == null || trustAnchors == null || timeReference == null) {
+			return;
+		}
+		Set<X509Certificate> pending = new LinkedHashSet<X509Certificate>();
+		for (Certificate certificate : certificates) {
+			if (certificate instanceof X509Certificate && !this.certPaths.containsKey(certificate)) {
+				pending.add((X509Certificate) certificate);
+			}
+		}
+		if (pending.isEmpty()) {
+			return;
+		}
+
+		List<Certificate> chains = new ArrayList<Certificate>();
+		List<X509Certificate> withoutIssuers = new ArrayList<X509Certificate>();
+		for (X509Certificate certificate : pending) {
+			chains.add(certificate);
+			try {
+				chains.addAll(this.getIssuersFromCollections(certificate, trustAnchors));
+			} catch (CertificateCollectionException e) {
+				withoutIssuers.add(certificate);
+			}
+		}
+
+		long deadline = this.vsRepository.getRevocationDeadline();
+		if (!withoutIssuers.isEmpty()) {
+			Map<X509Certificate, List<X509Certificate>> downloaded =
+					RevocationPrefetcher.downloadChains(withoutIssuers, deadline);
+			for (List<X509Certificate> chain : downloaded.values()) {
+				chains.addAll(chain);
+				for (CertificateCollection certificateCollection : this.vsRepository.aditionalCertificateCollection) {
+					certificateCollection.addCertificates(chain);
+				}
+			}
+		}
+
+		List<Certificate> requested = new ArrayList<Certificate>();
+		Set<X500Principal> issuers = new HashSet<X500Principal>();
+		for (Certificate cert : chains) {
+			if (issuers.add(((X509Certificate) cert).getIssuerX500Principal())) {
+				requested.add(cert);
+			}
+		}
+		List<RevocationInformation> threadSafe = new ArrayList<RevocationInformation>();
+		for (RevocationInformation revocationInformation : this.vsRepository.aditionalRevocationInformation) {
+			if (revocationInformation.isThreadSafe()) {
+				threadSafe.add(revocationInformation);
+			}
+		}
+		VerificationMetrics.add("prefetch.certificates", pending.size());
+		RevocationPrefetcher.fetch(threadSafe, requested, timeReference, deadline);
+	}
+
 	/**
 	 * Busca LCRs de certificados de diferentes maneiras, de acordo com a lista
-	 * de componentes (web, cache, atributos de assinatura etc.)
+	 * de componentes (web, cache, atributos de assinatura etc.). As LCRs de
+	 * emissores distintos são buscadas concorrentemente, dentro do prazo
+	 * configurado no repositório de validação.
 	 * 
 	 * @param revList Componentes com métodos distintos para a obtenção das LCRs
 	 * @param certificates Lista de certificados
@@ -546,46 +640,27 @@ public class CertificateValidationService implements CertificateValidation {
 	private List<CRL> getCRLsFromCertificates(List<RevocationInformation> revList,
 			List<Certificate> certificates, Time reference) throws LCRException {
 
-		List<CRL> crls = new ArrayList<CRL>();
+		List<Certificate> requested = new ArrayList<Certificate>();
+		Set<X500Principal> issuers = new HashSet<X500Principal>();
 		for (Certificate cert : certificates) {
-
-			if (!containsCrl(cert, crls)) {
-
-				CRLResult crl = null;
-				for (int i = 0; i < revList.size() && crl == null; ++i) {
-					crl = revList.get(i).getCRLFromCertificate(cert, reference);
-				}
-
-				if (crl != null) {
-					if (!crls.contains(crl)) {
-						this.addCrlResult(crl);
-						crls.add(crl.crl);
-					}
-				}
+			if (issuers.add(((X509Certificate) cert).getIssuerX500Principal())) {
+				requested.add(cert);
 			}
 		}
 
-		return crls;
-
-	}
-
-	/**
-	 * Verifica se a lista de LCRs contém a LCR do certificado dado
-	 * @param cert O certificado a ser utilizado na comparação
-	 * @param crls A lista de LCRs
-	 * @return Indica se a lista de LCRs contém a LCR do certificado dado
-	 */
-	private static boolean containsCrl(Certificate cert, List<CRL> crls) {
+		Map<Certificate, CRLResult> results = RevocationPrefetcher.fetch(revList, requested, reference,
+				this.vsRepository.getRevocationDeadline());
 
-		for (CRL c : crls) {
-			X509CRL x509crl = (X509CRL) c;
-			X509Certificate x509Cert = (X509Certificate) cert;
-			if (x509crl.getIssuerX500Principal().equals(x509Cert.getIssuerX500Principal())) {
-				return true;
+		List<CRL> crls = new ArrayList<CRL>();
+		for (Certificate cert : requested) {
+			CRLResult crl = results.get(cert);
+			if (crl != null && !crls.contains(crl.crl)) {
+				this.addCrlResult(crl);
+				crls.add(crl.crl);
 			}
 		}
 
-		return false;
+		return crls;
 
 	}
 
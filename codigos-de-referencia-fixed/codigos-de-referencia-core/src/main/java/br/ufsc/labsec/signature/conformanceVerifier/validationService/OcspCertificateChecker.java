@@ -11,7 +11,6 @@ package br.ufsc.labsec.signature.conformanceVerifier.validationService;
 
 import java.io.IOException;
 import java.security.PublicKey;
-import java.security.Security;
 import java.security.cert.CertPathValidatorException;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateEncodingException;
@@ -27,7 +26,6 @@ import java.util.Map;
 import java.util.Set;
 
 import org.bouncycastle.asn1.ocsp.RevokedInfo;
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.operator.ContentVerifierProvider;
 import org.bouncycastle.operator.DigestCalculator;
 import org.bouncycastle.operator.jcajce.JcaContentVerifierProviderBuilder;
@@ -39,6 +37,7 @@ import org.bouncycastle.cert.ocsp.OCSPException;
 import org.bouncycastle.cert.ocsp.OCSPResp;
 import org.bouncycastle.cert.ocsp.SingleResp;
 
+import br.ufsc.labsec.signature.JcaProviders;
 import br.ufsc.labsec.signature.exceptions.OcspException;
 
 
@@ -69,11 +68,7 @@ public class OcspCertificateChecker extends PKIXCertPathChecker {
      * @throws OcspException exceção em caso de erro na verificação
      */
     public OcspCertificateChecker(List<OCSPResp> ocsps, X509Certificate certificate, Time currentDate) throws OcspException {
-        boolean removeProvider = false;
-        if (Security.getProvider("BC") == null) {
-            Security.addProvider(new BouncyCastleProvider());
-            removeProvider = true;
-        }
+        JcaProviders.install();
         this.certStatus = new HashMap<CertificateID, CertificateStatus>();
         this.currentDate = currentDate;
         if (ocsps != null && !ocsps.isEmpty()) {
@@ -97,8 +92,6 @@ public class OcspCertificateChecker extends PKIXCertPathChecker {
         } else {
             throw new OcspException(OcspException.WITHOUT_RESPONSE);
         }
-        if (removeProvider)
-            Security.removeProvider("BC");
     }
 
     /**
@@ -109,11 +102,7 @@ public class OcspCertificateChecker extends PKIXCertPathChecker {
      * @throws OcspException exceção em caso de erro na verificação
      */
     public void check(Certificate certificate, boolean isJava8) throws OcspException {
-        boolean removeProvider = false;
-        if (Security.getProvider("BC") == null) {
-            Security.addProvider(new BouncyCastleProvider());
-            removeProvider = true;
-        }
+        JcaProviders.install();
         
         CertificateID certID = null;
         try {
@@ -141,8 +130,6 @@ public class OcspCertificateChecker extends PKIXCertPathChecker {
                 }
             }
         }
-        if (removeProvider)
-            Security.removeProvider("BC");
     }
 
     /**
@@ -0,0 +1,255 @@
+package br.ufsc.labsec.signature.conformanceVerifier.validationService;
+
+import br.ufsc.labsec.component.Application;
+import br.ufsc.labsec.signature.RevocationInformation;
+import br.ufsc.labsec.signature.RevocationInformation.CRLResult;
+import br.ufsc.labsec.signature.conformanceVerifier.metrics.VerificationMetrics;
+
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.sql.Time;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * Busca concorrente das LCRs dos certificados de um caminho de certificação.
+ * As LCRs de todos os certificados são requisitadas ao mesmo tempo e
+ * aguardadas até um prazo único, em vez de somar os tempos limite de cada
+ * download. O prazo de uma busca conta a partir do início da sua execução:
+ * uma busca que ainda aguarda uma thread livre quando o prazo termina é
+ * retirada da fila e feita na thread que a aguarda. Buscas que não terminam
+ * no prazo continuam em segundo plano, de modo que o seu resultado ainda
+ * alimente as caches dos repositórios.
+ *
+ * Apenas os repositórios que podem ser consultados concorrentemente são
+ * usados em segundo plano; os ligados à assinatura em verificação são
+ * consultados pela thread que aguarda o resultado, respeitando a ordem dos
+ * repositórios. As cadeias de certificados obtidas por AIA também podem ser
+ * buscadas concorrentemente, com o mesmo limite de threads.
+ */
+final class RevocationPrefetcher {
+
+    /**
+     * Quantidade de threads usadas nas buscas
+     */
+    private static final int THREADS = 16;
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    private static final ExecutorService executor = Executors.newFixedThreadPool(THREADS, task -> {
+        Thread thread = new Thread(task, "revocation-prefetch-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private RevocationPrefetcher() {
+    }
+
+    /**
+     * Busca as LCRs dos certificados, consultando os repositórios na ordem dada
+     * @param revocationInformation Os repositórios de informações de revogação
+     * @param certificates Os certificados
+     * @param reference Referência de tempo para a seleção da LCR
+     * @param deadline Prazo para a obtenção de cada LCR, em milissegundos
+     * @return O resultado de cada certificado cuja LCR foi obtida no prazo
+     */
+    static Map<Certificate, CRLResult> fetch(List<RevocationInformation> revocationInformation,
+            Collection<Certificate> certificates, Time reference, long deadline) {
+        Map<Certificate, Deferred<Lookup>> requests = new LinkedHashMap<>();
+        for (Certificate certificate : certificates) {
+            requests.put(certificate, submit(() -> query(revocationInformation, certificate, reference)));
+        }
+
+        long limit = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadline);
+        Map<Certificate, CRLResult> results = new HashMap<>();
+        for (Map.Entry<Certificate, Deferred<Lookup>> request : requests.entrySet()) {
+            String subject = ((X509Certificate) request.getKey()).getSubjectX500Principal().getName();
+            Lookup lookup = null;
+            try {
+                lookup = request.getValue().await(limit, deadline);
+            } catch (TimeoutException e) {
+                VerificationMetrics.increment("revocation.deadline.exceeded");
+                Application.logger.log(Level.WARNING,
+                        "O prazo para obter a LCR do certificado " + subject + " foi excedido");
+            } catch (ExecutionException e) {
+                Application.logger.log(Level.WARNING,
+                        "Não foi possível obter a LCR do certificado " + subject, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            CRLResult result = resolve(revocationInformation, request.getKey(), reference, lookup);
+            if (result != null) {
+                results.put(request.getKey(), result);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Obtém por AIA as cadeias de certificação dos certificados
+     * @param certificates Os certificados
+     * @param deadline Prazo para a obtenção de cada cadeia, em milissegundos
+     * @return A cadeia de cada certificado obtida no prazo, incluindo o próprio certificado
+     */
+    static Map<X509Certificate, List<X509Certificate>> downloadChains(Collection<X509Certificate> certificates,
+            long deadline) {
+        Map<X509Certificate, Deferred<List<X509Certificate>>> requests = new LinkedHashMap<>();
+        for (X509Certificate certificate : certificates) {
+            requests.put(certificate, submit(() -> ValidationDataService.downloadCertChainFromAia(certificate)));
+        }
+
+        long limit = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadline);
+        Map<X509Certificate, List<X509Certificate>> results = new HashMap<>();
+        for (Map.Entry<X509Certificate, Deferred<List<X509Certificate>>> request : requests.entrySet()) {
+            String subject = request.getKey().getSubjectX500Principal().getName();
+            try {
+                results.put(request.getKey(), request.getValue().await(limit, deadline));
+            } catch (TimeoutException e) {
+                VerificationMetrics.increment("aia.deadline.exceeded");
+                Application.logger.log(Level.WARNING,
+                        "O prazo para obter a cadeia do certificado " + subject + " foi excedido");
+            } catch (ExecutionException e) {
+                Application.logger.log(Level.WARNING,
+                        "Não foi possível obter a cadeia do certificado " + subject, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return results;
+    }
+
+    private static <T> Deferred<T> submit(Callable<T> task) {
+        Deferred<T> deferred = new Deferred<>(task);
+        deferred.future = executor.submit(VerificationMetrics.propagate(deferred));
+        return deferred;
+    }
+
+    /**
+     * Consulta, na ordem dada, os repositórios que podem ser usados
+     * concorrentemente até que um deles retorne a LCR do certificado
+     * @param revocationInformation Os repositórios de informações de revogação
+     * @param certificate O certificado
+     * @param reference Referência de tempo para a seleção da LCR
+     * @return O resultado obtido e a posição do repositório que o forneceu
+     */
+    private static Lookup query(List<RevocationInformation> revocationInformation,
+            Certificate certificate, Time reference) {
+        for (int i = 0; i < revocationInformation.size(); ++i) {
+            RevocationInformation repository = revocationInformation.get(i);
+            if (repository.isThreadSafe()) {
+                CRLResult crl = repository.getCRLFromCertificate(certificate, reference);
+                if (crl != null) {
+                    return new Lookup(i, crl);
+                }
+            }
+        }
+        return new Lookup(revocationInformation.size(), null);
+    }
+
+    /**
+     * Combina o resultado da busca em segundo plano com os repositórios ligados
+     * à assinatura, que são consultados na thread atual. Um repositório da
+     * assinatura que preceda o que forneceu a LCR tem preferência.
+     * @param revocationInformation Os repositórios de informações de revogação
+     * @param certificate O certificado
+     * @param reference Referência de tempo para a seleção da LCR
+     * @param lookup O resultado da busca em segundo plano, ou nulo caso não tenha sido obtido
+     * @return O resultado, ou nulo caso nenhum repositório possua a LCR
+     */
+    private static CRLResult resolve(List<RevocationInformation> revocationInformation,
+            Certificate certificate, Time reference, Lookup lookup) {
+        int end = lookup == null ? revocationInformation.size() : lookup.index;
+        for (int i = 0; i < end; ++i) {
+            RevocationInformation repository = revocationInformation.get(i);
+            if (!repository.isThreadSafe()) {
+                CRLResult crl = repository.getCRLFromCertificate(certificate, reference);
+                if (crl != null) {
+                    return crl;
+                }
+            }
+        }
+        return lookup == null ? null : lookup.result;
+    }
+
+    /**
+     * Resultado da consulta concorrente e a posição do repositório que o forneceu
+     */
+    private static final class Lookup {
+
+        private final int index;
+        private final CRLResult result;
+
+        private Lookup(int index, CRLResult result) {
+            this.index = index;
+            this.result = result;
+        }
+
+    }
+
+    /**
+     * Busca submetida ao executor, que pode ser tomada pela thread que a
+     * aguarda enquanto ainda não tiver começado
+     */
+    private static final class Deferred<T> implements Callable<T> {
+
+        private final Callable<T> task;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private volatile long started;
+        private Future<T> future;
+
+        private Deferred(Callable<T> task) {
+            this.task = task;
+        }
+
+        @Override
+        public T call() throws Exception {
+            this.started = System.nanoTime();
+            if (!this.claimed.compareAndSet(false, true)) {
+                return null;
+            }
+            return this.task.call();
+        }
+
+        /**
+         * Aguarda o resultado. Caso a busca não tenha começado até o limite, ela
+         * é feita na thread atual; caso contrário, o prazo conta a partir do seu início.
+         * @param limit Instante limite da espera por uma busca que ainda não começou, em nanossegundos
+         * @param deadline Prazo da busca a partir do seu início, em milissegundos
+         * @return O resultado da busca
+         */
+        private T await(long limit, long deadline)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            try {
+                return this.future.get(Math.max(0, limit - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                if (this.claimed.compareAndSet(false, true)) {
+                    this.future.cancel(false);
+                    VerificationMetrics.increment("revocation.prefetch.fallback");
+                    try {
+                        return this.task.call();
+                    } catch (Exception cause) {
+                        throw new ExecutionException(cause);
+                    }
+                }
+                long remaining = this.started + TimeUnit.MILLISECONDS.toNanos(deadline) - System.nanoTime();
+                return this.future.get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+            }
+        }
+
+    }
+
+}
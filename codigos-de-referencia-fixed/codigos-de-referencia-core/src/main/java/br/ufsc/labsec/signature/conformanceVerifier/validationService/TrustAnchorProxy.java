@@ -1,6 +1,10 @@
 package br.ufsc.labsec.signature.conformanceVerifier.validationService;
 
 import br.ufsc.labsec.component.Application;
+import br.ufsc.labsec.signature.conformanceVerifier.metrics.Span;
+import br.ufsc.labsec.signature.conformanceVerifier.metrics.VerificationMetrics;
+import br.ufsc.labsec.signature.repository.bundle.ValidationBundleRepository;
+import br.ufsc.labsec.signature.repository.http.HttpFetcher;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
@@ -8,7 +12,6 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.HttpURLConnection;
 import java.net.URL;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
@@ -81,8 +84,12 @@ public class TrustAnchorProxy implements TrustAnchorInterface {
      * @return O conjunto de âncoras de confiança
      */
     public Set<TrustAnchor> getTrustAnchorSet() {
-        if (trustAnchor != null) return trustAnchor;
+        if (trustAnchor != null) {
+            VerificationMetrics.cacheHit("trustanchor");
+            return trustAnchor;
+        }
 
+        VerificationMetrics.cacheMiss("trustanchor");
         trustAnchor = this.createTrustAnchorSet();
         return trustAnchor;
     }
@@ -98,38 +105,23 @@ public class TrustAnchorProxy implements TrustAnchorInterface {
     /**
      * Realiza o download do arquivo através da URL dada
      * @param url A URL que será utilizada para o download
-     * @return O InputStream que foi recebido da URL
-     * @throws IOException Exceção em caso de erro na conexão
+     * @return O InputStream que foi recebido da URL, ou nulo em caso de erro na conexão
      */
-    private InputStream getInputStreamFromURL(URL url) throws IOException {
-        InputStream fileData = null;
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.setConnectTimeout(1000);
-        int response = connection.getResponseCode();
-
-		if (response == HttpURLConnection.HTTP_NOT_FOUND) {
-			Application.logger.log(Level.SEVERE, "A âncora de confiança não foi encontrada no endereço " + url.getPath());
-			return null;
-		}
-		if (response >= HttpURLConnection.HTTP_MULT_CHOICE && response <= HttpURLConnection.HTTP_SEE_OTHER) {
-			String newUrl = connection.getHeaderField("Location");
-			connection = (HttpURLConnection) new URL(newUrl).openConnection();
-			connection.setConnectTimeout(1000);
-			response = connection.getResponseCode();
-		}
-		if (response != HttpURLConnection.HTTP_OK) {
-			Application.logger.log(Level.SEVERE, "Não foi possível realizar uma conexão com sucesso em " + url.getPath()
-					+ ". Código retornado na conexão: " + response);
-			return null;
-		}
-
+    private InputStream getInputStreamFromURL(URL url) {
+        byte[] content;
         try {
-            fileData = connection.getInputStream();
+            content = HttpFetcher.getInstance().get(url.toString());
         } catch (IOException e) {
-			Application.logger.log(Level.SEVERE, "Não foi possível realizar o download da âncora de confiança em " + url.getPath());
+            Application.logger.log(Level.SEVERE, "Não foi possível realizar o download da âncora de confiança em " + url.getPath(),
+                    e.getMessage());
+            return null;
+        }
+        if (content == null) {
+            Application.logger.log(Level.SEVERE, "A âncora de confiança não foi encontrada no endereço " + url.getPath());
+            return null;
         }
 
-        return fileData;
+        return new ByteArrayInputStream(content);
     }
 
     /**
@@ -167,6 +159,16 @@ public class TrustAnchorProxy implements TrustAnchorInterface {
             }
         }
 
+        // Pacote de validação, apenas as âncoras fixadas
+        for (X509Certificate anchor : ValidationBundleRepository.getPinnedTrustAnchors()) {
+            try {
+                anchorStreamList.add(new ByteArrayInputStream(anchor.getEncoded()));
+            } catch (CertificateEncodingException e) {
+                Application.logger.log(Level.SEVERE, "Âncora de confiança inválida no pacote de validação",
+                        e.getMessage());
+            }
+        }
+
         // Download
         String trustAnchorsURLs = this.getTrustAnchorComponent().getApplication().getComponentParam(
                 this.trustAnchorComponent, "trustAnchorsURLs");
@@ -183,7 +185,15 @@ public class TrustAnchorProxy implements TrustAnchorInterface {
                 String hash = Hex.toHexString(digest.digest());
                 Path anchorNamePath = Paths.get(directory + hash + ".crt");
                 if (!anchors.contains(anchorNamePath)) {
-                    InputStream is = this.getInputStreamFromURL(trustAnchorURL);
+                    InputStream is = ValidationBundleRepository.openUrl(trustAnchorURL.toString());
+                    if (is == null) {
+                        try (Span span = VerificationMetrics.span(VerificationMetrics.TRUST_ANCHOR_DOWNLOAD)) {
+                            is = this.getInputStreamFromURL(trustAnchorURL);
+                            if (is == null) {
+                                span.fail();
+                            }
+                        }
+                    }
                     if (is == null) {
                         is = new FileInputStream(new File(hash + ".crt"));
                     }
@@ -1,16 +1,20 @@
 package br.ufsc.labsec.signature.conformanceVerifier.validationService;
 
+import br.ufsc.labsec.signature.JcaProviders;
+import br.ufsc.labsec.signature.conformanceVerifier.metrics.VerificationMetrics;
 import br.ufsc.labsec.signature.conformanceVerifier.report.ValidationDataReport;
 import br.ufsc.labsec.signature.exceptions.AIAException;
+import br.ufsc.labsec.signature.repository.bundle.ValidationBundleRepository;
+import br.ufsc.labsec.signature.repository.http.HttpFetcher;
 import org.bouncycastle.asn1.ASN1ObjectIdentifier;
 import org.bouncycastle.asn1.ASN1OctetString;
 import org.bouncycastle.asn1.ASN1Sequence;
 import org.bouncycastle.asn1.x509.AccessDescription;
 import org.bouncycastle.asn1.x509.AuthorityInformationAccess;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.HttpURLConnection;
 import java.net.URL;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
@@ -56,7 +60,8 @@ public class ValidationDataService {
 
         List<X509Certificate> certificates = new ArrayList<>();
         certificates.add(signerCert);
-        certificates.addAll(downloadCertificationChainFromAia(signerCert));
+        certificates.addAll(VerificationMetrics.time(VerificationMetrics.AIA_DOWNLOAD,
+                () -> downloadCertificationChainFromAia(signerCert)));
         return orderCertList(certificates, signerCert);
 
     }
@@ -171,30 +176,20 @@ public class ValidationDataService {
             throws IOException, CertificateException {
 
         List<X509Certificate> certs;
-        HttpURLConnection connection = (HttpURLConnection) accessLocationUrl.openConnection();
-        connection.setConnectTimeout(1000);
-        int response = connection.getResponseCode();
-
-        do {
-            if (response == HttpURLConnection.HTTP_NOT_FOUND) {
-                return new ArrayList<>();
-            }
-            if (response >= HttpURLConnection.HTTP_MULT_CHOICE && response <= HttpURLConnection.HTTP_SEE_OTHER) {
-                String newUrl = connection.getHeaderField("Location");
-                connection = (HttpURLConnection) new URL(newUrl).openConnection();
-                connection.setConnectTimeout(1000);
-                response = connection.getResponseCode();
-            }
-            if (response != HttpURLConnection.HTTP_OK) {
-                throw new CertificateException();
-            }
-        } while (response != HttpURLConnection.HTTP_OK);
+        InputStream bundled = ValidationBundleRepository.openUrl(accessLocationUrl.toString());
+        if (bundled != null) {
+            CertificateFactory cf = JcaProviders.certificateFactory("X.509");
+            return new ArrayList<>((List<X509Certificate>) cf.generateCertificates(bundled));
+        }
 
-        try (InputStream download = connection.getInputStream()) {
-            CertificateFactory cf = CertificateFactory.getInstance("X.509");
-            certs = (List<X509Certificate>) cf.generateCertificates(download);
+        byte[] content = HttpFetcher.getInstance().get(accessLocationUrl.toString());
+        if (content == null) {
+            return new ArrayList<>();
         }
 
+        CertificateFactory cf = JcaProviders.certificateFactory("X.509");
+        certs = (List<X509Certificate>) cf.generateCertificates(new ByteArrayInputStream(content));
+
         return new ArrayList<>(certs);
     }
 
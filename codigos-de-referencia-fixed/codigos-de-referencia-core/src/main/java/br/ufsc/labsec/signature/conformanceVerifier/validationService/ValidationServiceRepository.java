@@ -15,6 +15,11 @@ import br.ufsc.labsec.signature.RevocationInformation;
  */
 public class ValidationServiceRepository extends Component {
 
+    /**
+     * Prazo padrão para a obtenção das LCRs de um caminho de certificação, em milissegundos
+     */
+    public static final long DEFAULT_REVOCATION_DEADLINE = 10000;
+
     @Requirement
     public List<CertificateCollection> aditionalCertificateCollection;
     @Requirement
@@ -74,6 +79,18 @@ public class ValidationServiceRepository extends Component {
 
     }
 
+    /**
+     * Retorna o prazo para a obtenção das LCRs de um caminho de certificação
+     * @return O prazo em milissegundos
+     */
+    public long getRevocationDeadline() {
+        List<String> deadline = this.application.getComponentParams(this, "revocationDeadline");
+        if (deadline == null || deadline.isEmpty()) {
+            return DEFAULT_REVOCATION_DEADLINE;
+        }
+        return Long.parseLong(deadline.get(0).trim());
+    }
+
     /**
      * Retorna o caminho do arquivo de cache
      * @return O caminho do arquivo de cache
@@ -19,7 +19,6 @@ import javax.xml.crypto.dsig.spec.C14NMethodParameterSpec;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.TransformerFactoryConfigurationError;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
@@ -28,6 +27,7 @@ import org.bouncycastle.util.io.Streams;
 import org.w3c.dom.DOMException;
 import org.w3c.dom.Node;
 
+import br.ufsc.labsec.signature.XmlToolkit;
 import br.ufsc.labsec.signature.exceptions.SignatureAttributeException;
 
 /**
@@ -100,7 +100,7 @@ public class Canonicalizator {
         ByteArrayOutputStream buffer = new ByteArrayOutputStream();
         Transformer transformer = null;
         try {
-            transformer = TransformerFactory.newInstance().newTransformer();
+            transformer = XmlToolkit.getTransformer();
         } catch (TransformerConfigurationException transformerConfigurationException) {
             throw new SignatureAttributeException(transformerConfigurationException.getMessage());
         } catch (TransformerFactoryConfigurationError transformerFactoryConfigurationError) {
@@ -22,12 +22,10 @@ import javax.xml.crypto.dsig.Reference;
 import javax.xml.crypto.dsig.XMLObject;
 import javax.xml.crypto.dsig.XMLSignatureFactory;
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.apache.commons.io.IOUtils;
 import org.bouncycastle.util.encoders.Base64;
@@ -37,9 +35,11 @@ import org.w3c.dom.Text;
 
 import br.ufsc.labsec.component.Application;
 import br.ufsc.labsec.signature.AlgorithmIdentifierMapper;
+import br.ufsc.labsec.signature.XmlToolkit;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.attributes.signed.DataObjectFormat;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.exceptions.SignatureModeException;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.exceptions.ToBeSignedException;
+import br.ufsc.labsec.signature.repository.http.UriContentCache;
 
 
 /**
@@ -122,8 +122,7 @@ public class FileToBeSigned extends XadesContentToBeSigned {
 		// Identifica que o atributo 'correctAttributeId'
 		// é um atributo identificador. É necessário para
 		// a validação das referências na assinatura
-		XPathFactory xPathFactory = XPathFactory.newInstance();
-		XPath xpath = xPathFactory.newXPath();
+		XPath xpath = XmlToolkit.getXPath();
 		try {
 			XPathExpression exprAssertion = xpath.compile("/*/*");
 			Element assertionNode = (Element) exprAssertion.evaluate(this.document, XPathConstants.NODE);
@@ -269,9 +268,7 @@ public class FileToBeSigned extends XadesContentToBeSigned {
 	private Document getDocumentToSign() throws ToBeSignedException {
 		Document document = null;
 		try {
-			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-			factory.setNamespaceAware(true);
-			DocumentBuilder builder = factory.newDocumentBuilder();
+			DocumentBuilder builder = XmlToolkit.getDocumentBuilder();
 			document = builder.parse(this.file);
 		} catch (Exception e) {
 			throw new ToBeSignedException(e);
@@ -315,7 +312,8 @@ public class FileToBeSigned extends XadesContentToBeSigned {
 				if(this.detachedUrl.startsWith("https")) {
 					this.detachedUrl = this.detachedUrl.replaceFirst("^https", "http");
 				}
-				return factory.newReference (this.detachedUrl, digestMethod);
+				return factory.newReference(this.detachedUrl, digestMethod, null, null, null,
+						this.getUrlDigest(digestMethod));
 			}
 			return factory.newReference(getUri(baseUri), digestMethod,
 					this.getMode().getTransforms(this.getOperations()), this.getMode().getType(), id,
@@ -356,6 +354,30 @@ public class FileToBeSigned extends XadesContentToBeSigned {
 		return digester.digest(fileBytes);
 	}
 
+	/**
+	 * Retorna o resumo criptográfico do conteúdo da URL assinada. O conteúdo é
+	 * obtido pela {@link UriContentCache}, que evita um novo download a cada
+	 * assinatura sobre a mesma URL
+	 * @param digestMethod o algoritmo de resumo
+	 * @return O resumo criptográfico do conteúdo
+	 * @throws ToBeSignedException exceção em caso de algoritmo desconhecido ou erro
+	 * na obtenção do conteúdo
+	 */
+	private byte[] getUrlDigest(DigestMethod digestMethod) throws ToBeSignedException {
+		MessageDigest digester;
+		try {
+			digester = MessageDigest.getInstance(AlgorithmIdentifierMapper.getAlgorithmNameFromIdentifier(digestMethod
+					.getAlgorithm()));
+		} catch (NoSuchAlgorithmException noSuchAlgorithmException) {
+			throw new ToBeSignedException("Algoritmo desconhecido", noSuchAlgorithmException);
+		}
+		try {
+			return digester.digest(UriContentCache.getInstance().get(this.detachedUrl));
+		} catch (IOException e) {
+			throw new ToBeSignedException("Não foi possível obter o conteúdo de " + this.detachedUrl, e);
+		}
+	}
+
 	/**
 	 * Informa se a referência criada para o arquivo que esse conteúdo representa
 	 * deve ser absoluta ou não
@@ -1,12 +1,12 @@
 package br.ufsc.labsec.signature.conformanceVerifier.xades;
 
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
+import br.ufsc.labsec.signature.XmlToolkit;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.exceptions.XmlProcessingException;
 
 /**
@@ -50,12 +50,10 @@ public class Marshaller
 	 */
 	private static Document getNewDocument() throws XmlProcessingException
 	{
-		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-		factory.setNamespaceAware(true);
 		DocumentBuilder documentBuilder;
 		Document document;
 		try{
-			documentBuilder = factory.newDocumentBuilder();
+			documentBuilder = XmlToolkit.getDocumentBuilder();
 			document = documentBuilder.newDocument();
 		}catch(ParserConfigurationException jaxbException){
 			throw new XmlProcessingException(jaxbException);
@@ -15,7 +15,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
-import java.security.Security;
 import java.security.Signature;
 import java.security.cert.X509Certificate;
 import java.sql.Time;
@@ -30,9 +29,9 @@ import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
 import javax.xml.validation.Validator;
 
+import br.ufsc.labsec.signature.JcaProviders;
 import br.ufsc.labsec.signature.SystemTime;
 import br.ufsc.labsec.signature.exceptions.*;
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.util.encoders.Base64;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
@@ -135,7 +134,7 @@ public class SignatureVerifier extends AbstractVerifier {
         this.signaturePolicy.setActualPolicy(this.signature.getSignaturePolicyIdentifier(),
                 this.signature.getSignaturePolicyUri(), AdESType.XAdES);
         AttributeMap.initialize();
-        Security.addProvider(new BouncyCastleProvider());
+        JcaProviders.install();
     }
 
     /**
@@ -0,0 +1,607 @@
+package br.ufsc.labsec.signature.conformanceVerifier.xades;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import br.ufsc.labsec.component.Application;
+import br.ufsc.labsec.signature.AlgorithmIdentifierMapper;
+import br.ufsc.labsec.signature.XmlToolkit;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Leitura de um documento XAdES envelopado sem a construção da árvore DOM do
+ * documento inteiro. O documento é lido em sequência duas vezes:
+ *
+ * <ol>
+ * <li>a primeira leitura copia apenas as assinaturas (ds:Signature) para um
+ * documento DOM pequeno, cujo elemento raiz é um elemento sintético que
+ * agrupa as assinaturas na ordem em que aparecem;</li>
+ * <li>a segunda leitura calcula, já canonizado e sem as assinaturas
+ * excluídas pela transformação, o resumo criptográfico de cada referência ao
+ * documento inteiro (URI=""), já que o algoritmo e as transformações só são
+ * conhecidos depois que as assinaturas são lidas.</li>
+ * </ol>
+ *
+ * A memória usada é proporcional ao tamanho das assinaturas. Documentos com
+ * construções que este modo não reproduz fielmente, como DTDs, atributos
+ * xml:* herdados pelas assinaturas, referências a elementos fora das
+ * assinaturas ou transformações diferentes da envelopada e do filtro XPath
+ * usado por este projeto, não são aceitos, e devem ser processados pela
+ * árvore DOM.
+ */
+final class StreamingXadesDocument {
+
+	/**
+	 * Origem do documento, aberta uma vez para cada leitura
+	 */
+	interface Source {
+		InputStream open() throws IOException;
+	}
+
+	private static final String SIGNATURES_ROOT = "signatures";
+	private static final String ENVELOPED_SIGNATURE = "http://www.w3.org/2000/09/xmldsig#enveloped-signature";
+	private static final String XPATH_FILTER = "http://www.w3.org/TR/1999/REC-xpath-19991116";
+	private static final String XPATH_WITHOUT_SIGNATURES = "not(ancestor-or-self::ds:Signature)";
+	private static final String EXCLUSIVE_NS = "http://www.w3.org/2001/10/xml-exc-c14n#";
+	private static final Set<String> INCLUSIVE_CANONICALIZATIONS = new HashSet<>(Arrays.asList(
+			"http://www.w3.org/TR/2001/REC-xml-c14n-20010315",
+			"http://www.w3.org/TR/2001/REC-xml-c14n-20010315#WithComments",
+			"http://www.w3.org/2006/12/xml-c14n11",
+			"http://www.w3.org/2006/12/xml-c14n11#WithComments"));
+	private static final Set<String> EXCLUSIVE_CANONICALIZATIONS = new HashSet<>(Arrays.asList(
+			EXCLUSIVE_NS, EXCLUSIVE_NS + "WithComments"));
+
+	/**
+	 * Documento com as cópias das assinaturas
+	 */
+	private final Document document;
+	/**
+	 * Resumos das referências ao documento inteiro, indexados pelo elemento da
+	 * assinatura e pela posição da referência no SignedInfo
+	 */
+	private final Map<Element, Map<Integer, byte[]>> digests;
+
+	private StreamingXadesDocument(Document document, Map<Element, Map<Integer, byte[]>> digests) {
+		this.document = document;
+		this.digests = digests;
+	}
+
+	/**
+	 * Lê o documento, extraindo as assinaturas e calculando os resumos das
+	 * referências ao documento inteiro
+	 * @param source A origem do documento
+	 * @return O documento lido, ou nulo caso ele não possa ser processado
+	 *         neste modo e deva ser carregado como uma árvore DOM
+	 */
+	static StreamingXadesDocument scan(Source source) {
+		try {
+			Document document = extractSignatures(source);
+			if (document == null) {
+				return null;
+			}
+			XmlIdIndex index = XmlIdIndex.of(document);
+			if (!index.getDuplicates().isEmpty()) {
+				// a leitura completa recusa o documento
+				return null;
+			}
+
+			List<DigestTask> tasks = new ArrayList<>();
+			List<Element> signatures = children(document.getDocumentElement());
+			for (int i = 0; i < signatures.size(); i++) {
+				if (!collectTasks(signatures.get(i), i, index, tasks)) {
+					return null;
+				}
+			}
+
+			Map<Element, Map<Integer, byte[]>> digests = new IdentityHashMap<>();
+			if (!tasks.isEmpty()) {
+				digestDocument(source, tasks);
+				for (DigestTask task : tasks) {
+					digests.computeIfAbsent(task.signature, signature -> new HashMap<>())
+							.put(task.reference, task.canonicalizer.finish());
+				}
+			}
+			return new StreamingXadesDocument(document, digests);
+		} catch (XMLStreamException | IOException | ParserConfigurationException e) {
+			Application.logger.log(Level.WARNING, "Não foi possível ler o documento XAdES em sequência. "
+					+ "O documento será carregado por completo.", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Retorna o documento com as cópias das assinaturas
+	 * @return O documento das assinaturas
+	 */
+	Document getDocument() {
+		return this.document;
+	}
+
+	/**
+	 * Retorna o resumo calculado para uma referência ao documento inteiro
+	 * @param signature O elemento da assinatura
+	 * @param reference A posição da referência no SignedInfo
+	 * @return O resumo, ou nulo caso a referência não seja ao documento inteiro
+	 */
+	byte[] getEnvelopedDigest(Element signature, int reference) {
+		Map<Integer, byte[]> signatureDigests = this.digests.get(signature);
+		return signatureDigests != null ? signatureDigests.get(reference) : null;
+	}
+
+	/**
+	 * Primeira leitura: copia as assinaturas de nível mais alto para um novo
+	 * documento, junto com as declarações de espaços de nomes herdadas
+	 * @param source A origem do documento
+	 * @return O documento das assinaturas, ou nulo caso o documento não possa
+	 *         ser processado neste modo
+	 */
+	private static Document extractSignatures(Source source)
+			throws IOException, XMLStreamException, ParserConfigurationException {
+		Document document = XmlToolkit.newDocument();
+		Element root = document.createElement(SIGNATURES_ROOT);
+		document.appendChild(root);
+
+		try (InputStream input = source.open()) {
+			XMLStreamReader reader = XmlToolkit.createXMLStreamReader(input);
+			try {
+				Deque<Map<String, String>> scopes = new ArrayDeque<>();
+				Map<String, String> scope = Collections.emptyMap();
+				int xmlAttributeAncestors = 0;
+				Deque<Boolean> xmlAttributes = new ArrayDeque<>();
+				Node current = null;
+
+				while (reader.hasNext()) {
+					switch (reader.next()) {
+					case XMLStreamConstants.DTD:
+					case XMLStreamConstants.ENTITY_REFERENCE:
+						return null;
+					case XMLStreamConstants.START_ELEMENT:
+						Map<String, String> parentScope = scope;
+						scopes.push(scope);
+						scope = inScope(scope, reader);
+						if (current == null && isSignature(reader)) {
+							if (xmlAttributeAncestors > 0) {
+								return null;
+							}
+							Element signature = copyElement(document, reader);
+							for (Map.Entry<String, String> namespace : parentScope.entrySet()) {
+								declareInherited(signature, namespace.getKey(), namespace.getValue());
+							}
+							root.appendChild(signature);
+							current = signature;
+						} else if (current != null) {
+							current = current.appendChild(copyElement(document, reader));
+						}
+						boolean hasXmlAttribute = hasXmlAttribute(reader);
+						xmlAttributes.push(hasXmlAttribute);
+						if (hasXmlAttribute) {
+							xmlAttributeAncestors++;
+						}
+						break;
+					case XMLStreamConstants.END_ELEMENT:
+						scope = scopes.pop();
+						if (xmlAttributes.pop()) {
+							xmlAttributeAncestors--;
+						}
+						if (current != null) {
+							current = current.getParentNode() == root ? null : current.getParentNode();
+						}
+						break;
+					case XMLStreamConstants.CHARACTERS:
+					case XMLStreamConstants.SPACE:
+						if (current != null) {
+							current.appendChild(document.createTextNode(reader.getText()));
+						}
+						break;
+					case XMLStreamConstants.CDATA:
+						if (current != null) {
+							current.appendChild(document.createCDATASection(reader.getText()));
+						}
+						break;
+					case XMLStreamConstants.COMMENT:
+						if (current != null) {
+							current.appendChild(document.createComment(reader.getText()));
+						}
+						break;
+					case XMLStreamConstants.PROCESSING_INSTRUCTION:
+						if (current != null) {
+							current.appendChild(document.createProcessingInstruction(
+									reader.getPITarget(), valueOf(reader.getPIData())));
+						}
+						break;
+					default:
+						break;
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		}
+		return document;
+	}
+
+	/**
+	 * Verifica se as referências de uma assinatura podem ser resolvidas neste
+	 * modo, criando uma tarefa de cálculo para cada referência ao documento
+	 * inteiro
+	 * @param signature O elemento da assinatura
+	 * @param position A posição da assinatura entre as assinaturas de nível mais alto
+	 * @param index O índice de identificadores do documento das assinaturas
+	 * @param tasks A lista que recebe as tarefas
+	 * @return Indica se a assinatura pode ser verificada neste modo
+	 */
+	private static boolean collectTasks(Element signature, int position, XmlIdIndex index,
+			List<DigestTask> tasks) {
+		NodeList nested = signature.getElementsByTagNameNS(NamespacePrefixMapperImp.XMLDSIG_NS, "Signature");
+		for (int i = 0; i < nested.getLength(); i++) {
+			for (Element reference : references((Element) nested.item(i))) {
+				String uri = reference.getAttributeNode("URI") != null ? reference.getAttribute("URI") : null;
+				if (uri == null || uri.isEmpty() || uri.startsWith("#xpointer")) {
+					return false;
+				}
+			}
+		}
+
+		List<Element> references = references(signature);
+		for (int i = 0; i < references.size(); i++) {
+			Element reference = references.get(i);
+			if (reference.getAttributeNode("URI") == null) {
+				return false;
+			}
+			String uri = reference.getAttribute("URI");
+			if (uri.isEmpty()) {
+				DigestTask task = DigestTask.create(signature, position, i, reference);
+				if (task == null) {
+					return false;
+				}
+				tasks.add(task);
+			} else if (uri.startsWith("#xpointer")) {
+				return false;
+			} else if (uri.charAt(0) == '#' && index.get(uri.substring(1)) == null) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Segunda leitura: repassa o documento a todas as tarefas de cálculo,
+	 * omitindo as assinaturas excluídas por cada uma
+	 * @param source A origem do documento
+	 * @param tasks As tarefas de cálculo
+	 */
+	private static void digestDocument(Source source, List<DigestTask> tasks)
+			throws IOException, XMLStreamException {
+		try (InputStream input = source.open()) {
+			XMLStreamReader reader = XmlToolkit.createXMLStreamReader(input);
+			try {
+				Deque<Map<String, String>> scopes = new ArrayDeque<>();
+				Map<String, String> scope = Collections.emptyMap();
+				int signature = -1;
+				int signatureDepth = 0;
+				List<XmlStreamCanonicalizer> active = new ArrayList<>(tasks.size());
+
+				while (reader.hasNext()) {
+					int event = reader.next();
+					if (event == XMLStreamConstants.START_ELEMENT) {
+						scopes.push(scope);
+						scope = inScope(scope, reader);
+						if (signatureDepth > 0) {
+							signatureDepth++;
+						} else if (isSignature(reader)) {
+							signature++;
+							signatureDepth = 1;
+						}
+					}
+
+					active.clear();
+					for (DigestTask task : tasks) {
+						if (!task.excludes(signatureDepth > 0 ? signature : -1)) {
+							active.add(task.canonicalizer);
+						}
+					}
+
+					switch (event) {
+					case XMLStreamConstants.START_ELEMENT:
+						if (!active.isEmpty()) {
+							String prefix = valueOf(reader.getPrefix());
+							List<XmlStreamCanonicalizer.Attribute> attributes = attributes(reader);
+							for (XmlStreamCanonicalizer canonicalizer : active) {
+								canonicalizer.startElement(prefix, reader.getLocalName(), scope, attributes);
+							}
+						}
+						break;
+					case XMLStreamConstants.END_ELEMENT:
+						for (XmlStreamCanonicalizer canonicalizer : active) {
+							canonicalizer.endElement(valueOf(reader.getPrefix()), reader.getLocalName());
+						}
+						scope = scopes.pop();
+						if (signatureDepth > 0) {
+							signatureDepth--;
+						}
+						break;
+					case XMLStreamConstants.CHARACTERS:
+					case XMLStreamConstants.SPACE:
+					case XMLStreamConstants.CDATA:
+						for (XmlStreamCanonicalizer canonicalizer : active) {
+							canonicalizer.text(reader.getTextCharacters(), reader.getTextStart(),
+									reader.getTextLength());
+						}
+						break;
+					case XMLStreamConstants.PROCESSING_INSTRUCTION:
+						for (XmlStreamCanonicalizer canonicalizer : active) {
+							canonicalizer.processingInstruction(reader.getPITarget(), reader.getPIData());
+						}
+						break;
+					default:
+						break;
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		}
+	}
+
+	private static boolean isSignature(XMLStreamReader reader) {
+		return NamespacePrefixMapperImp.XMLDSIG_NS.equals(reader.getNamespaceURI())
+				&& "Signature".equals(reader.getLocalName());
+	}
+
+	private static boolean hasXmlAttribute(XMLStreamReader reader) {
+		for (int i = 0; i < reader.getAttributeCount(); i++) {
+			if (XMLConstants.XML_NS_URI.equals(reader.getAttributeNamespace(i))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Calcula os espaços de nomes visíveis no elemento atual
+	 * @param parent Os espaços de nomes visíveis no elemento pai
+	 * @param reader O leitor posicionado no início do elemento
+	 * @return Os espaços de nomes indexados pelo prefixo, com o espaço de nomes
+	 *         padrão no prefixo ""
+	 */
+	private static Map<String, String> inScope(Map<String, String> parent, XMLStreamReader reader) {
+		if (reader.getNamespaceCount() == 0) {
+			return parent;
+		}
+		Map<String, String> scope = new HashMap<>(parent);
+		for (int i = 0; i < reader.getNamespaceCount(); i++) {
+			scope.put(valueOf(reader.getNamespacePrefix(i)), valueOf(reader.getNamespaceURI(i)));
+		}
+		return scope;
+	}
+
+	private static List<XmlStreamCanonicalizer.Attribute> attributes(XMLStreamReader reader) {
+		List<XmlStreamCanonicalizer.Attribute> attributes = new ArrayList<>(reader.getAttributeCount());
+		for (int i = 0; i < reader.getAttributeCount(); i++) {
+			attributes.add(new XmlStreamCanonicalizer.Attribute(valueOf(reader.getAttributeNamespace(i)),
+					valueOf(reader.getAttributePrefix(i)), reader.getAttributeLocalName(i),
+					reader.getAttributeValue(i)));
+		}
+		return attributes;
+	}
+
+	private static Element copyElement(Document document, XMLStreamReader reader) {
+		String prefix = valueOf(reader.getPrefix());
+		String namespace = reader.getNamespaceURI();
+		Element element = document.createElementNS(namespace == null || namespace.isEmpty() ? null : namespace,
+				prefix.isEmpty() ? reader.getLocalName() : prefix + ":" + reader.getLocalName());
+		for (int i = 0; i < reader.getNamespaceCount(); i++) {
+			String declaredPrefix = valueOf(reader.getNamespacePrefix(i));
+			element.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI,
+					declaredPrefix.isEmpty() ? XMLConstants.XMLNS_ATTRIBUTE
+							: XMLConstants.XMLNS_ATTRIBUTE + ":" + declaredPrefix,
+					valueOf(reader.getNamespaceURI(i)));
+		}
+		for (int i = 0; i < reader.getAttributeCount(); i++) {
+			String attributeNamespace = reader.getAttributeNamespace(i);
+			String attributePrefix = valueOf(reader.getAttributePrefix(i));
+			element.setAttributeNS(attributeNamespace == null || attributeNamespace.isEmpty() ? null
+					: attributeNamespace, attributePrefix.isEmpty() ? reader.getAttributeLocalName(i)
+					: attributePrefix + ":" + reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+		}
+		return element;
+	}
+
+	/**
+	 * Declara na cópia da assinatura um espaço de nomes herdado dos seus
+	 * ancestrais, caso a própria assinatura não o redeclare
+	 */
+	private static void declareInherited(Element signature, String prefix, String namespace) {
+		if (prefix.equals(XMLConstants.XML_NS_PREFIX) || (prefix.isEmpty() && namespace.isEmpty())) {
+			return;
+		}
+		String name = prefix.isEmpty() ? XMLConstants.XMLNS_ATTRIBUTE : XMLConstants.XMLNS_ATTRIBUTE + ":" + prefix;
+		if (signature.getAttributeNodeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI,
+				prefix.isEmpty() ? XMLConstants.XMLNS_ATTRIBUTE : prefix) == null) {
+			signature.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, name, namespace);
+		}
+	}
+
+	private static List<Element> references(Element signature) {
+		List<Element> references = new ArrayList<>();
+		for (Element child : children(signature)) {
+			if (isDsElement(child, "SignedInfo")) {
+				for (Element reference : children(child)) {
+					if (isDsElement(reference, "Reference")) {
+						references.add(reference);
+					}
+				}
+			}
+		}
+		return references;
+	}
+
+	private static List<Element> children(Element parent) {
+		List<Element> children = new ArrayList<>();
+		for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+			if (node.getNodeType() == Node.ELEMENT_NODE) {
+				children.add((Element) node);
+			}
+		}
+		return children;
+	}
+
+	private static boolean isDsElement(Element element, String localName) {
+		return NamespacePrefixMapperImp.XMLDSIG_NS.equals(element.getNamespaceURI())
+				&& localName.equals(element.getLocalName());
+	}
+
+	private static String valueOf(String value) {
+		return value != null ? value : "";
+	}
+
+	/**
+	 * Cálculo do resumo de uma referência ao documento inteiro
+	 */
+	private static final class DigestTask {
+
+		/**
+		 * O elemento da assinatura que contém a referência
+		 */
+		private final Element signature;
+		/**
+		 * A posição da referência no SignedInfo
+		 */
+		private final int reference;
+		/**
+		 * A posição da assinatura excluída do documento, ou -1 caso todas as
+		 * assinaturas sejam excluídas
+		 */
+		private final int excludedSignature;
+		private final XmlStreamCanonicalizer canonicalizer;
+
+		private DigestTask(Element signature, int reference, int excludedSignature,
+				XmlStreamCanonicalizer canonicalizer) {
+			this.signature = signature;
+			this.reference = reference;
+			this.excludedSignature = excludedSignature;
+			this.canonicalizer = canonicalizer;
+		}
+
+		/**
+		 * Cria a tarefa a partir das transformações da referência
+		 * @param signature O elemento da assinatura
+		 * @param position A posição da assinatura entre as assinaturas de nível mais alto
+		 * @param index A posição da referência no SignedInfo
+		 * @param reference O elemento da referência
+		 * @return A tarefa, ou nulo caso as transformações ou o algoritmo de
+		 *         resumo não sejam suportados neste modo
+		 */
+		static DigestTask create(Element signature, int position, int index, Element reference) {
+			List<Element> transforms = new ArrayList<>();
+			MessageDigest digest = null;
+			for (Element child : children(reference)) {
+				if (isDsElement(child, "Transforms")) {
+					for (Element transform : children(child)) {
+						if (isDsElement(transform, "Transform")) {
+							transforms.add(transform);
+						}
+					}
+				} else if (isDsElement(child, "DigestMethod")) {
+					String algorithm = AlgorithmIdentifierMapper.getAlgorithmNameFromIdentifier(
+							child.getAttribute("Algorithm"));
+					try {
+						digest = algorithm != null ? MessageDigest.getInstance(algorithm) : null;
+					} catch (NoSuchAlgorithmException e) {
+						return null;
+					}
+				}
+			}
+			if (digest == null || transforms.isEmpty() || transforms.size() > 2) {
+				return null;
+			}
+
+			int excludedSignature;
+			Element first = transforms.get(0);
+			String firstAlgorithm = first.getAttribute("Algorithm");
+			if (ENVELOPED_SIGNATURE.equals(firstAlgorithm)) {
+				excludedSignature = position;
+			} else if (XPATH_FILTER.equals(firstAlgorithm) && isSignatureFilter(first)) {
+				excludedSignature = -1;
+			} else {
+				return null;
+			}
+
+			boolean exclusive = false;
+			Set<String> inclusivePrefixes = Collections.emptySet();
+			if (transforms.size() == 2) {
+				Element second = transforms.get(1);
+				String secondAlgorithm = second.getAttribute("Algorithm");
+				if (EXCLUSIVE_CANONICALIZATIONS.contains(secondAlgorithm)) {
+					exclusive = true;
+					inclusivePrefixes = inclusivePrefixes(second);
+				} else if (!INCLUSIVE_CANONICALIZATIONS.contains(secondAlgorithm)) {
+					return null;
+				}
+			}
+			return new DigestTask(signature, index, excludedSignature,
+					new XmlStreamCanonicalizer(digest, exclusive, inclusivePrefixes));
+		}
+
+		/**
+		 * Indica se a tarefa omite a assinatura dada
+		 * @param signature A posição da assinatura atual, ou -1 fora das assinaturas
+		 * @return Verdadeiro se o conteúdo atual deve ser omitido
+		 */
+		boolean excludes(int signature) {
+			return signature >= 0 && (this.excludedSignature < 0 || this.excludedSignature == signature);
+		}
+
+		private static boolean isSignatureFilter(Element transform) {
+			List<Element> expressions = children(transform);
+			if (expressions.size() != 1 || !isDsElement(expressions.get(0), "XPath")) {
+				return false;
+			}
+			Element expression = expressions.get(0);
+			return XPATH_WITHOUT_SIGNATURES.equals(expression.getTextContent().trim())
+					&& NamespacePrefixMapperImp.XMLDSIG_NS.equals(expression.lookupNamespaceURI("ds"));
+		}
+
+		private static Set<String> inclusivePrefixes(Element transform) {
+			Set<String> prefixes = new HashSet<>();
+			for (Element child : children(transform)) {
+				if (EXCLUSIVE_NS.equals(child.getNamespaceURI())
+						&& "InclusiveNamespaces".equals(child.getLocalName())) {
+					for (String prefix : child.getAttribute("PrefixList").trim().split("\\s+")) {
+						if (prefix.equals("#default")) {
+							prefixes.add("");
+						} else if (!prefix.isEmpty()) {
+							prefixes.add(prefix);
+						}
+					}
+				}
+			}
+			return prefixes;
+		}
+
+	}
+
+}
@@ -30,7 +30,6 @@ import javax.xml.crypto.dsig.keyinfo.KeyInfo;
 import javax.xml.crypto.dsig.keyinfo.KeyInfoFactory;
 import javax.xml.crypto.dsig.keyinfo.X509Data;
 import javax.xml.crypto.dsig.spec.C14NMethodParameterSpec;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
 import br.ufsc.labsec.signature.SystemTime;
@@ -41,6 +40,7 @@ import org.w3c.dom.NodeList;
 
 import br.ufsc.labsec.signature.ContentToBeSigned;
 import br.ufsc.labsec.signature.SignaturePolicyInterface;
+import br.ufsc.labsec.signature.XmlToolkit;
 import br.ufsc.labsec.signature.conformanceVerifier.signaturePolicy.decoder.SignerRules.CertInfoReq;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.attributes.SignatureAttribute;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.attributes.signed.DataObjectFormat;
@@ -209,6 +209,8 @@ public class XadesContainerGenerator implements ContainerGenerator {
 			signature = getXmlSignature();	
 			DOMSignContext signatureContext = getSignatureContext();
 			signature.sign(signatureContext);
+			// o documento pode ter sido indexado antes de receber a nova assinatura
+			XmlIdIndex.invalidate(this.documentToSign);
 			xadesSignatureContainer = new XadesSignatureContainer(this.documentToSign);
 			// xadesSignatureContainer = new
 			// XadesSignatureContainer(signatureContext.getParent().getOwnerDocument());
@@ -238,9 +240,7 @@ public class XadesContainerGenerator implements ContainerGenerator {
 	 * @throws ParserConfigurationException Exceção em caso de erro na geração do documento
 	 */
 	protected Document getNewDocument() throws ParserConfigurationException {
-		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-		factory.setNamespaceAware(true);
-		return factory.newDocumentBuilder().newDocument();
+		return XmlToolkit.newDocument();
 	}
 
 	/**
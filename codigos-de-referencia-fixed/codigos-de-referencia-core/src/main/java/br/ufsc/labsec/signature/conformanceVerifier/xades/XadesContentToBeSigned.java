@@ -19,13 +19,13 @@ import javax.xml.crypto.dsig.XMLObject;
 import javax.xml.crypto.dsig.XMLSignatureFactory;
 import javax.xml.crypto.dsig.spec.XPathType;
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
 import br.ufsc.labsec.signature.ContentToBeSigned;
+import br.ufsc.labsec.signature.XmlToolkit;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.SignatureModeXAdES;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.exceptions.NodeOperationException;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.exceptions.SignatureModeException;
@@ -184,10 +184,9 @@ public abstract class XadesContentToBeSigned implements ContentToBeSigned {
      * @throws XadesToBeSignedException Exceção em caso de erro na geração do documento
      */
     protected Document getNewDocument() throws XadesToBeSignedException {
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
         DocumentBuilder builder = null;
         try {
-            builder = factory.newDocumentBuilder();
+            builder = XmlToolkit.getDocumentBuilder();
         } catch (ParserConfigurationException e) {
             throw new XadesToBeSignedException(e);
         }
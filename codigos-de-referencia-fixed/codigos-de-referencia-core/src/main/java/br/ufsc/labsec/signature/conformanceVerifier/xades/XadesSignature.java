@@ -15,20 +15,18 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.math.BigInteger;
-import java.net.HttpURLConnection;
 import java.net.URISyntaxException;
-import java.net.URL;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CRL;
 import java.security.cert.CRLException;
-import java.security.cert.Certificate;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509CRL;
 import java.security.cert.X509Certificate;
 import java.sql.Time;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.logging.Level;
@@ -41,10 +39,6 @@ import javax.xml.crypto.dsig.XMLSignature.SignatureValue;
 import javax.xml.crypto.dsig.dom.DOMValidateContext;
 import javax.xml.crypto.dsig.keyinfo.KeyInfo;
 import javax.xml.crypto.dsig.keyinfo.X509Data;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.apache.commons.io.IOUtils;
 import org.bouncycastle.asn1.x500.X500Name;
@@ -59,6 +53,8 @@ import org.w3c.dom.NodeList;
 
 import br.ufsc.labsec.component.Application;
 import br.ufsc.labsec.signature.AlgorithmIdentifierMapper;
+import br.ufsc.labsec.signature.CertificateInterner;
+import br.ufsc.labsec.signature.JcaProviders;
 import br.ufsc.labsec.signature.conformanceVerifier.report.SignatureReport;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.attributes.CounterSignatureInterface;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.attributes.SignatureAttribute;
@@ -76,6 +72,7 @@ import br.ufsc.labsec.signature.exceptions.EncodingException;
 import br.ufsc.labsec.signature.exceptions.PbadException;
 import br.ufsc.labsec.signature.exceptions.SignatureAttributeException;
 import br.ufsc.labsec.signature.exceptions.VerificationException;
+import br.ufsc.labsec.signature.repository.http.UriContentCache;
 
 /**
  * Esta classe representa uma assinatura do tipo XAdES.
@@ -213,13 +210,21 @@ public class XadesSignature implements Signature {
 			}
 			Iterator<Reference> i = references.iterator();
 			Reference reference = null;
+			int referenceIndex = 0;
 			while (valid && i.hasNext()) {
 				reference = i.next();
 				boolean validReference = false;
-				validReference = validateReferenceDetachedOrAttached(
-						validateContext, reference);
+				byte[] streamedDigest = this.container != null
+						? this.container.getStreamedDigest(this.signatureElement, referenceIndex) : null;
+				if (streamedDigest != null) {
+					validReference = MessageDigest.isEqual(reference.getDigestValue(), streamedDigest);
+				} else {
+					validReference = validateReferenceDetachedOrAttached(
+							validateContext, reference);
+				}
 				sigReport.addReferences(validReference);
 				valid &= validReference;
+				referenceIndex++;
 			}
 			if (references.isEmpty()) {
 				sigReport.setMessageDigest(null);
@@ -317,36 +322,12 @@ public class XadesSignature implements Signature {
 		if (isDetached(reference.getURI())) {
 			validReference = this.validateReference(reference);
 		} else {
-			try {
-				// The ID attribute needs to be identified as such so that
-				// reference.validate(validateContext) can work properly
-				String uri = reference.getURI();
-				if (uri != null && uri.length() != 0 && uri.charAt(0) == '#') {
-					String id = uri.substring(1);
-
-					XPath xpath = XPathFactory.newInstance().newXPath();
-					NodeList referencedNodes = (NodeList) xpath.evaluate("//*[@Id='" + id + "']", this.xml, XPathConstants.NODESET);
-					if (referencedNodes != null) {
-						for (int i = 0; i < referencedNodes.getLength(); i++) {
-							((Element)referencedNodes.item(i)).setIdAttribute("Id", true);
-						}
-					}
-					referencedNodes = (NodeList) xpath.evaluate("//*[@ID='" + id + "']", this.xml, XPathConstants.NODESET);
-					if (referencedNodes != null) {
-						for (int i = 0; i < referencedNodes.getLength(); i++) {
-							((Element)referencedNodes.item(i)).setIdAttribute("ID", true);
-						}
-					}
-					referencedNodes = (NodeList) xpath.evaluate("//*[@id='" + id + "']", this.xml, XPathConstants.NODESET);
-					if (referencedNodes != null) {
-						for (int i = 0; i < referencedNodes.getLength(); i++) {
-							((Element)referencedNodes.item(i)).setIdAttribute("id", true);
-						}
-					}
-				}
-			} catch (XPathExpressionException e) {
-				Application.logger.log(Level.WARNING, "Erro na busca pelo atributo da tag que indica o identificador"
-						+ "do conteúdo", e);
+			// The ID attribute needs to be identified as such so that
+			// reference.validate(validateContext) can work properly.
+			// The index registers every Id/ID/id attribute of the document.
+			String uri = reference.getURI();
+			if (uri != null && uri.length() != 0 && uri.charAt(0) == '#') {
+				XmlIdIndex.of(this.xml).get(uri.substring(1));
 			}
 
 			validReference = reference.validate(validateContext);
@@ -422,12 +403,9 @@ public class XadesSignature implements Signature {
 
 		if (uri.startsWith("http") || uri.startsWith("https")) {
 			try {
-				URL url = new URL(uri);
-				HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-				InputStream stream = connection.getInputStream();
-				obtainedDigestValue = digester.digest(IOUtils.toByteArray(stream));
+				obtainedDigestValue = digester.digest(UriContentCache.getInstance().get(uri));
 			} catch (IOException e) {
-				e.printStackTrace();
+				Application.logger.log(Level.WARNING, "Não foi possível obter o conteúdo destacado " + uri, e);
 			}
 		} else {
 			obtainedDigestValue = digester.digest(this.container.getContent());
@@ -833,6 +811,7 @@ public class XadesSignature implements Signature {
 						.getOwnerDocument()
 						.importNode(attribute.getEncoded(), true);
 				unsignedPropertiesNodeList.item(0).appendChild(importedNode);
+				XmlIdIndex.invalidate(this.xml);
 			} else {
 				throw new UniqueAttributeException(
 						UniqueAttributeException.DUPLICATED_ATTRIBUTE
@@ -1079,6 +1058,7 @@ public class XadesSignature implements Signature {
 						attributeIdentifier).item(index);
 		Element parent = (Element) oldAttribute.getParentNode();
 		parent.replaceChild(newAttribute, oldAttribute);
+		XmlIdIndex.invalidate(this.xml);
 	}
 
 	/**
@@ -1163,22 +1143,16 @@ public class XadesSignature implements Signature {
 	 * @return Indica se é "enveloped"
 	 */
 	private boolean isEnveloped(String uri) {
-		boolean isEnveloped = true;
-		uri = uri.substring(1);
-		String id = null;
-		Element objectElement = null;
-		NodeList objectsList = this.signatureElement
-				.getElementsByTagName("ds:Object");
-		for (int i = 0; i < objectsList.getLength(); i++) {
-			objectElement = (Element) objectsList.item(i);
-			id = objectElement.getAttribute(ID);
-			if (id.compareTo("") != 0) {
-				if (id.compareTo(uri) == 0) {
-					isEnveloped = false;
-				}
+		Element referenced = XmlIdIndex.of(this.xml).get(uri.substring(1));
+		if (referenced == null || !"ds:Object".equals(referenced.getTagName())) {
+			return true;
+		}
+		for (Node node = referenced.getParentNode(); node != null; node = node.getParentNode()) {
+			if (node == this.signatureElement) {
+				return false;
 			}
 		}
-		return isEnveloped;
+		return true;
 	}
 
 	/**
@@ -1245,6 +1219,7 @@ public class XadesSignature implements Signature {
 		if (!parentNode.hasChildNodes()) {
 			parentNode.getParentNode().removeChild(parentNode);
 		}
+		XmlIdIndex.invalidate(this.xml);
 	}
 
 	/**
@@ -1496,16 +1471,17 @@ public class XadesSignature implements Signature {
 				.getElementsByTagNameNS(NamespacePrefixMapperImp.XMLDSIG_NS,
 						SIGNED_INFO);
 		Element signedInfo = (Element) signedInfoNodeList.item(0);
-		NodeList referencesNodeList = signedInfo.getElementsByTagNameNS(
-				NamespacePrefixMapperImp.XMLDSIG_NS, REFERENCE);
-		for (int i = 0; i < referencesNodeList.getLength(); i++) {
-			Element reference = (Element) referencesNodeList.item(i);
-
-			String id = reference.getAttribute(ID);
-			if (uris.contains(id)) {
+		XmlIdIndex index = XmlIdIndex.of(this.xml);
+		for (String uri : new HashSet<String>(uris)) {
+			Element reference = index.get(uri);
+			if (reference != null && reference.getParentNode() == signedInfo
+					&& REFERENCE.equals(reference.getLocalName())) {
 				elementsToHash.add(reference);
 			}
 		}
+		// as referências são resumidas na ordem em que aparecem no documento
+		elementsToHash.sort((a, b) ->
+				(a.compareDocumentPosition(b) & Node.DOCUMENT_POSITION_FOLLOWING) != 0 ? -1 : 1);
 		return getReferencesHash(hashAlgorithmId, elementsToHash);
 	}
 
@@ -1626,18 +1602,17 @@ public class XadesSignature implements Signature {
 	public static void addX509DataContent(ArrayList<X509Certificate> certificates, List<X509CRL> crls, X509Data x509Data) {
 		for (Object x509DataContent : x509Data.getContent()) {
 			if (x509DataContent instanceof X509Certificate && certificates != null) {
-				certificates.add((X509Certificate) x509DataContent);
+				certificates.add(CertificateInterner.intern((X509Certificate) x509DataContent));
 			} else if (x509DataContent instanceof X509CRL && crls != null) {
 				crls.add((X509CRL) x509DataContent);
 			} else if (x509DataContent instanceof DOMStructure) {
 				Node node = ((DOMStructure) x509DataContent).getNode();
 				try {
 					byte[] bytes = Base64.getDecoder().decode(node.getTextContent());
-					CertificateFactory certificateFactory = CertificateFactory.getInstance("x509");
+					CertificateFactory certificateFactory = JcaProviders.certificateFactory("X.509");
 
 					if (node.getNodeName().equals("X509Certificate") && certificates != null) {
-						Certificate cert = certificateFactory.generateCertificate(new ByteArrayInputStream(bytes));
-						certificates.add((X509Certificate) cert);
+						certificates.add(CertificateInterner.intern(bytes));
 					} else if (node.getNodeName().equals("X509CRL") && crls != null) {
 						CRL crl = certificateFactory.generateCRL(new ByteArrayInputStream(bytes));
 						crls.add((X509CRL) crl);
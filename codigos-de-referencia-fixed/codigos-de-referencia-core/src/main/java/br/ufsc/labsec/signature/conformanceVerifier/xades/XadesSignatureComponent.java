@@ -1,6 +1,7 @@
 package br.ufsc.labsec.signature.conformanceVerifier.xades;
 
 import java.util.List;
+import java.util.logging.Level;
 
 import br.ufsc.labsec.component.Application;
 import br.ufsc.labsec.component.Component;
@@ -25,6 +26,11 @@ import br.ufsc.labsec.signature.Verifier;
  */
 public class XadesSignatureComponent extends Component {
 
+	/**
+	 * Tamanho padrão a partir do qual os documentos são lidos em sequência, em bytes
+	 */
+	public static final long DEFAULT_STREAMING_THRESHOLD = 64L * 1024 * 1024;
+
     @Requirement
     public List<CertificateCollection> certificateCollection;
     @Requirement
@@ -110,6 +116,25 @@ public class XadesSignatureComponent extends Component {
 	public void startOperation() {
 	}
 
+	/**
+	 * Retorna o tamanho a partir do qual os documentos são lidos em sequência,
+	 * configurado no parâmetro <code>streamingThreshold</code> do componente
+	 * @return O tamanho em bytes, ou zero para sempre carregar o documento por completo
+	 */
+	public long getStreamingThreshold() {
+		List<String> values = this.getApplication().getComponentParams(this, "streamingThreshold");
+		if (values == null || values.isEmpty() || values.get(0).trim().isEmpty()) {
+			return DEFAULT_STREAMING_THRESHOLD;
+		}
+		try {
+			return Long.parseLong(values.get(0).trim());
+		} catch (NumberFormatException e) {
+			Application.logger.log(Level.WARNING, "Tamanho inválido para a leitura em sequência de documentos XAdES: "
+					+ values.get(0), e);
+			return DEFAULT_STREAMING_THRESHOLD;
+		}
+	}
+
 	/**
 	 * Retorna as informações do assinante
 	 * @return As informações do assinante
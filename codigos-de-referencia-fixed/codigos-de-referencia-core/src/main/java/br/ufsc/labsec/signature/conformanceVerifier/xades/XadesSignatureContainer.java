@@ -17,14 +17,14 @@ import java.util.Set;
 import java.util.logging.Level;
 
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 
 import br.ufsc.labsec.component.Application;
+import br.ufsc.labsec.signature.SpooledContent;
+import br.ufsc.labsec.signature.XmlToolkit;
 import br.ufsc.labsec.signature.exceptions.VerificationException;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -50,6 +50,11 @@ public class XadesSignatureContainer implements SignatureContainer {
 	 * O conteúdo assinado
 	 */
 	private byte[] content;
+	/**
+	 * O documento lido em sequência, quando apenas as assinaturas foram
+	 * carregadas como árvore DOM
+	 */
+	private StreamingXadesDocument streamed;
 
 	/**
 	 * Constrói um contêiner de assinaturas a partir de um file. Esse file deve
@@ -61,13 +66,12 @@ public class XadesSignatureContainer implements SignatureContainer {
 	 */
 	public XadesSignatureContainer(File signatureContainer)
 			throws XadesSignatureContainerException {
-		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-		factory.setNamespaceAware(true);
 		DocumentBuilder builder;
 		try {
-			builder = factory.newDocumentBuilder();
+			builder = XmlToolkit.getDocumentBuilder();
 			Document document = builder.parse(signatureContainer);
 			this.xml = document;
+			requireUniqueIds(document);
 		} catch (Exception e) {
 			throw new XadesSignatureContainerException(e);
 		}
@@ -83,16 +87,15 @@ public class XadesSignatureContainer implements SignatureContainer {
 	 */
 	public XadesSignatureContainer(InputStream signatureContainer)
 			throws XadesSignatureContainerException, VerificationException {
-		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-		factory.setNamespaceAware(true);
 		DocumentBuilder builder;
 		try {
-			builder = factory.newDocumentBuilder();
+			builder = XmlToolkit.getDocumentBuilder();
 			Document document = builder.parse(signatureContainer);
 			this.xml = document;
+			requireUniqueIds(document);
 		} catch (ParserConfigurationException e) {
 			Application.logger.log(Level.SEVERE, "Ocorreu um erro ao processar a assinatura na criação do " +
-					"DocumentBuilderFactory no XadesSignatureContainer.", e);
+					"DocumentBuilder no XadesSignatureContainer.", e);
 			throw new XadesSignatureContainerException(e);
 		} catch (SAXException | IOException e) {
 			Application.loggerInfo.log(Level.WARNING, "Não foi possível abrir a assinatura como um org.w3c.dom.Document.");
@@ -110,6 +113,7 @@ public class XadesSignatureContainer implements SignatureContainer {
 	 */
 	public XadesSignatureContainer(Document signatures) {
 		this.xml = signatures;
+		XmlIdIndex.of(signatures);
 	}
 
 	/**
@@ -123,6 +127,91 @@ public class XadesSignatureContainer implements SignatureContainer {
 		this(new ByteArrayInputStream(target));
 	}
 
+	private XadesSignatureContainer(StreamingXadesDocument streamed) {
+		this(streamed.getDocument());
+		this.streamed = streamed;
+	}
+
+	/**
+	 * Abre um contêiner de assinaturas a partir dos bytes de um arquivo XML.
+	 * Documentos a partir do tamanho dado são lidos em sequência, carregando
+	 * como árvore DOM apenas as assinaturas; os documentos que não podem ser
+	 * verificados dessa forma são carregados por completo.
+	 * @param target Os bytes do arquivo XML
+	 * @param streamingThreshold O tamanho a partir do qual o documento é lido
+	 *            em sequência, em bytes, ou zero para sempre carregá-lo por completo
+	 * @return O contêiner de assinaturas
+	 * @throws XadesSignatureContainerException Exceção em caso de erro na criação do contêiner
+	 * @throws VerificationException Exceção caso o arquivo não seja um documento XML
+	 */
+	public static XadesSignatureContainer open(byte[] target, long streamingThreshold)
+			throws XadesSignatureContainerException, VerificationException {
+		if (streamingThreshold > 0 && target.length >= streamingThreshold) {
+			StreamingXadesDocument streamed = StreamingXadesDocument.scan(() -> new ByteArrayInputStream(target));
+			if (streamed != null) {
+				return new XadesSignatureContainer(streamed);
+			}
+			Application.logger.log(Level.INFO, "O documento XAdES não pode ser lido em sequência " +
+					"e será carregado por completo.");
+		}
+		return new XadesSignatureContainer(target);
+	}
+
+	/**
+	 * Abre um contêiner de assinaturas a partir de um arquivo XML que pode estar
+	 * armazenado em disco. Documentos a partir do tamanho dado são lidos em
+	 * sequência diretamente do arquivo, uma vez para extrair as assinaturas e
+	 * outra para resumir o documento, sem que o documento seja carregado em
+	 * memória; os demais são carregados como árvore DOM a partir do arquivo.
+	 * @param target O arquivo XML
+	 * @param streamingThreshold O tamanho a partir do qual o documento é lido
+	 *            em sequência, em bytes, ou zero para sempre carregá-lo por completo
+	 * @return O contêiner de assinaturas
+	 * @throws XadesSignatureContainerException Exceção em caso de erro na criação do contêiner
+	 * @throws VerificationException Exceção caso o arquivo não seja um documento XML
+	 */
+	public static XadesSignatureContainer open(SpooledContent target, long streamingThreshold)
+			throws XadesSignatureContainerException, VerificationException {
+		if (streamingThreshold > 0 && target.length() >= streamingThreshold) {
+			StreamingXadesDocument streamed = StreamingXadesDocument.scan(target::openStream);
+			if (streamed != null) {
+				return new XadesSignatureContainer(streamed);
+			}
+			Application.logger.log(Level.INFO, "O documento XAdES não pode ser lido em sequência " +
+					"e será carregado por completo.");
+		}
+		try (InputStream input = target.openStream()) {
+			return new XadesSignatureContainer(input);
+		} catch (IOException e) {
+			throw new VerificationException(e);
+		}
+	}
+
+	/**
+	 * Indexa os identificadores do documento, recusando-o caso algum
+	 * identificador esteja presente em mais de um elemento
+	 * @param document O documento
+	 * @throws VerificationException Exceção caso haja identificadores repetidos
+	 */
+	private static void requireUniqueIds(Document document) throws VerificationException {
+		Set<String> duplicates = XmlIdIndex.of(document).getDuplicates();
+		if (!duplicates.isEmpty()) {
+			throw new VerificationException("O documento possui identificadores repetidos: " + duplicates);
+		}
+	}
+
+	/**
+	 * Retorna o resumo de uma referência ao documento inteiro calculado durante
+	 * a leitura em sequência do documento
+	 * @param signature O elemento da assinatura
+	 * @param reference A posição da referência no SignedInfo
+	 * @return O resumo, ou nulo caso o documento tenha sido carregado por
+	 *         completo ou a referência não seja ao documento inteiro
+	 */
+	byte[] getStreamedDigest(Element signature, int reference) {
+		return this.streamed != null ? this.streamed.getEnvelopedDigest(signature, reference) : null;
+	}
+
 	/**
 	 * Retorna a assinatura no índice dado
 	 * @param index O índice da assinatura
@@ -244,10 +333,12 @@ public class XadesSignatureContainer implements SignatureContainer {
 	 * assinaturas em disco.
 	 */
 	public byte[] getBytes() throws EncodingException {
+		if (this.streamed != null) {
+			throw new EncodingException("O documento foi lido em sequência e apenas as assinaturas estão disponíveis.");
+		}
 		ByteArrayOutputStream output = null;
 		try {
-			Transformer transformer = TransformerFactory.newInstance()
-					.newTransformer();
+			Transformer transformer = XmlToolkit.getTransformer();
 			output = new ByteArrayOutputStream();
 			transformer.transform(new DOMSource(this.xml), new StreamResult(
 					output));
@@ -264,9 +355,11 @@ public class XadesSignatureContainer implements SignatureContainer {
 	 *         do arquivo para o stream
 	 */
 	public void encode(OutputStream outputStream) throws EncodingException {
+		if (this.streamed != null) {
+			throw new EncodingException("O documento foi lido em sequência e apenas as assinaturas estão disponíveis.");
+		}
 		try {
-			Transformer transformer = TransformerFactory.newInstance()
-					.newTransformer();
+			Transformer transformer = XmlToolkit.getTransformer();
 			transformer.transform(new DOMSource(this.xml), new StreamResult(
 					outputStream));
 		} catch (Exception e) {
@@ -115,6 +115,7 @@ public class XadesSignatureToBeSigned extends XadesContentToBeSigned
 		Element counterSignature =
 				owerDocument.createElementNS(NamespacePrefixMapperImp.XADES_NS, "XAdES:CounterSignature");
 		Node counterSignatureNode = unsignedSignatureProperties.appendChild(counterSignature);
+		XmlIdIndex.invalidate(owerDocument);
 		return (Element) counterSignatureNode;
 	}
 }
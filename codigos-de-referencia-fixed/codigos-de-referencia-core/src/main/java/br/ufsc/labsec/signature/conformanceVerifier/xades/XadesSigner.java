@@ -15,15 +15,12 @@ import java.util.Set;
 import java.util.logging.Level;
 
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
-import javax.xml.xpath.XPathFactory;
 
 import br.ufsc.labsec.signature.AlgorithmIdentifierMapper;
 import br.ufsc.labsec.signature.CertificateValidation;
@@ -31,6 +28,7 @@ import br.ufsc.labsec.signature.SignatureDataWrapper;
 import br.ufsc.labsec.signature.SignaturePolicyInterface;
 import br.ufsc.labsec.signature.SignaturePolicyInterface.AdESType;
 import br.ufsc.labsec.signature.SystemTime;
+import br.ufsc.labsec.signature.XmlToolkit;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.exceptions.SignerException;
 import br.ufsc.labsec.signature.conformanceVerifier.validationService.CertificationPathException;
 import br.ufsc.labsec.signature.conformanceVerifier.validationService.ValidationDataService;
@@ -217,17 +215,14 @@ public class XadesSigner extends AbstractXadesSigner implements Signer {
 
 			if(this.mode == SignatureModeXAdES.INTERNALLYDETACHED) {
 				Document toBeSigned = null;
-				DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-				documentBuilderFactory.setNamespaceAware(true);
-				DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
+				DocumentBuilder documentBuilder = XmlToolkit.getDocumentBuilder();
 				try {
 					toBeSigned = documentBuilder.parse(new FileInputStream(contentFile));
 				} catch (IOException | SAXException e) {
 					Application.logger.log(Level.SEVERE, e.getMessage(), e);
 				}
 
-				XPathFactory xPathFactory = XPathFactory.newInstance();
-				XPath xpath = xPathFactory.newXPath();
+				XPath xpath = XmlToolkit.getXPath();
 
 				XPathExpression exprAssertion = xpath.compile("/*");
 				Element assertionNode = (Element) exprAssertion.evaluate(toBeSigned, XPathConstants.NODE);
@@ -258,8 +253,7 @@ public class XadesSigner extends AbstractXadesSigner implements Signer {
 				FileWriter writer = new FileWriter(tempFile);
 				StreamResult result = new StreamResult(writer);
 
-				TransformerFactory transformerFactory = TransformerFactory.newInstance();
-				Transformer transformer = transformerFactory.newTransformer();
+				Transformer transformer = XmlToolkit.getTransformer();
 				transformer.transform(source, result);
 
 				this.contentToBeSigned = new FileToBeSigned(tempFile, mode, correctID, assertionID);
@@ -1,6 +1,7 @@
 package br.ufsc.labsec.signature.conformanceVerifier.xades;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.security.cert.CertPath;
 import java.security.cert.Certificate;
@@ -12,6 +13,7 @@ import java.util.*;
 import java.util.logging.Level;
 
 import br.ufsc.labsec.signature.SignaturePolicyInterface.AdESType;
+import br.ufsc.labsec.signature.SpooledContent;
 import br.ufsc.labsec.signature.SystemTime;
 import br.ufsc.labsec.signature.conformanceVerifier.cms.exceptions.SignatureNotICPBrException;
 import br.ufsc.labsec.signature.conformanceVerifier.validationService.ValidationDataService;
@@ -51,6 +53,11 @@ import br.ufsc.labsec.signature.exceptions.VerificationException;
 /**
  * Esta classe implementa os métodos para verificação de um documento assinado XAdES.
  * Estende {@link AbstractXadesSigner} e implementa {@link Verifier}.
+ * <p>
+ * As assinaturas de um documento são verificadas uma a uma, na ordem do
+ * documento, pois o verificador guarda o estado da assinatura em verificação.
+ * Apenas a obtenção das cadeias e das LCRs dos demais assinantes é feita em
+ * paralelo, por <code>prefetchSigners</code>.
  */
 public class XadesVerifier extends AbstractXadesSigner implements Verifier {
 
@@ -488,13 +495,42 @@ public class XadesVerifier extends AbstractXadesSigner implements Verifier {
 	 */
 	@Override
 	public Report report(byte[] target, byte[] content, ReportType type) throws VerificationException {
+		return this.report(() -> this.selectTarget(target, content));
+	}
+
+	/**
+	 * Cria um objeto {@link Report} com as informações da verificação de um
+	 * documento que pode estar armazenado em disco. Documentos grandes são lidos
+	 * em sequência a partir do arquivo, sem serem carregados em memória
+	 * @param target O documento a ser verificado
+	 * @param content O conteúdo assinado do documento XAdES
+	 * @param type Tipo de relatório desejado
+	 * @return O relatório da verificação
+	 * @throws VerificationException Exceção caso haja algum problema na verificação
+	 */
+	@Override
+	public Report report(SpooledContent target, SpooledContent content, ReportType type)
+			throws VerificationException {
+		return this.report(() -> this.selectTarget(target, content));
+	}
+
+	/**
+	 * Verifica todas as assinaturas do documento, selecionando-o novamente antes de cada uma
+	 * @param selector Seleciona o documento a ser verificado
+	 * @return O relatório da verificação
+	 * @throws VerificationException Exceção caso haja algum problema na verificação
+	 */
+	private Report report(TargetSelector selector) throws VerificationException {
 		createReport();
 
-		this.selectTarget(target, content);
+		selector.select();
 		List<String> signaturesAvailable = this.getSignaturesAvailable();
-		for (String signature : signaturesAvailable) {
-			this.selectSignature(signature);
-			this.selectTarget(target, content);
+		for (int i = 0; i < signaturesAvailable.size(); i++) {
+			this.selectSignature(signaturesAvailable.get(i));
+			selector.select();
+			if (i == 0 && signaturesAvailable.size() > 1) {
+				this.prefetchSigners(1);
+			}
 		}
 
 		this.xadesSignatureComponent.signaturePolicyInterface
@@ -504,6 +540,31 @@ public class XadesVerifier extends AbstractXadesSigner implements Verifier {
 
 	}
 
+	/**
+	 * Obtém em paralelo as cadeias de certificação e as LCRs dos assinantes
+	 * das assinaturas a partir do índice dado. As âncoras de confiança são as da
+	 * política já selecionada pela primeira assinatura. Apenas os repositórios que
+	 * não dependem da assinatura em verificação são consultados. As assinaturas
+	 * continuam sendo verificadas em ordem, encontrando esses dados nas caches.
+	 * @param from O índice da primeira assinatura
+	 */
+	private void prefetchSigners(int from) {
+		try {
+			List<X509Certificate> signers = new ArrayList<X509Certificate>();
+			for (int i = from; i < this.signatureContainer.getSignatureCount(); i++) {
+				List<X509Certificate> certificates = this.signatureContainer.getSignatureAt(i).getCertificatesAtKeyInfo();
+				if (!certificates.isEmpty() && certificates.get(0) != null) {
+					signers.add(certificates.get(0));
+				}
+			}
+			this.component.certificateValidation.prefetch(signers,
+					this.xadesSignatureComponent.signaturePolicyInterface.getSigningTrustAnchors(),
+					new Time(SystemTime.getSystemTime()));
+		} catch (Exception e) {
+			Application.logger.log(Level.WARNING, "Não foi possível obter antecipadamente os dados dos assinantes", e);
+		}
+	}
+
 	/**
 	 * Inicializa um objeto {@link Report}
 	 */
@@ -523,11 +584,45 @@ public class XadesVerifier extends AbstractXadesSigner implements Verifier {
 	 */
 	public void selectTarget(byte[] target, byte[] content) throws VerificationException {
 		try {
-			this.signatureContainer = new XadesSignatureContainer(target);
+			this.selectContainer(XadesSignatureContainer.open(target,
+					this.component.getStreamingThreshold()), content);
 		} catch (XadesSignatureContainerException e) {
 			Application.logger.log(Level.SEVERE, e.getMessage(), e);
 			throw new VerificationException(e);
 		}
+	}
+
+	/**
+	 * Inicializa o documento XAdES assinado a partir de um arquivo que pode estar
+	 * armazenado em disco. Documentos a partir do tamanho configurado no
+	 * componente são relidos do arquivo em cada passagem da leitura em sequência
+	 * @param target O documento XAdES assinado
+	 * @param content O conteúdo assinado no documento, ou nulo
+	 * @throws VerificationException Exceção caso o documento não seja uma assinatura válida
+	 */
+	@Override
+	public void selectTarget(SpooledContent target, SpooledContent content) throws VerificationException {
+		try {
+			this.selectContainer(XadesSignatureContainer.open(target,
+					this.component.getStreamingThreshold()),
+					content != null ? content.toByteArray() : null);
+		} catch (XadesSignatureContainerException e) {
+			Application.logger.log(Level.SEVERE, e.getMessage(), e);
+			throw new VerificationException(e);
+		} catch (IOException e) {
+			throw new VerificationException(e);
+		}
+	}
+
+	/**
+	 * Define o contêiner de assinaturas a ser verificado
+	 * @param container O contêiner aberto
+	 * @param content Os bytes do conteúdo assinado no documento, ou nulo
+	 * @throws VerificationException Exceção caso o contêiner não possua assinaturas
+	 */
+	private void selectContainer(XadesSignatureContainer container, byte[] content)
+			throws VerificationException {
+		this.signatureContainer = container;
 
 		if(this.signatureContainer.getSignatureCount() == 0) {
 			throw new VerificationException("Impossivel decodificar a assinatura.");
@@ -614,8 +709,33 @@ public class XadesVerifier extends AbstractXadesSigner implements Verifier {
 	 */
 	@Override
 	public boolean supports(byte[] sig, byte[] detached) throws SignatureNotICPBrException {
+		return this.supports(() -> this.selectTarget(sig, detached));
+	}
+
+	/**
+	 * Verifica se o documento assinado, que pode estar armazenado em disco, é
+	 * uma assinatura XAdES. O conteúdo destacado não é usado nessa verificação
+	 * @param sig O documento assinado
+	 * @param detached O conteúdo destacado
+	 * @return Indica se o documento assinado é uma assinatura XAdES
+	 * @throws SignatureNotICPBrException Exceção caso a assinatura não seja feita
+	 * com um certificado ICP-Brasil
+	 */
+	@Override
+	public boolean supports(SpooledContent sig, SpooledContent detached) throws SignatureNotICPBrException {
+		return this.supports(() -> this.selectTarget(sig, (SpooledContent) null));
+	}
+
+	/**
+	 * Verifica se o documento selecionado é uma assinatura XAdES ICP-Brasil
+	 * @param selector Seleciona o documento
+	 * @return Indica se o documento assinado é uma assinatura XAdES
+	 * @throws SignatureNotICPBrException Exceção caso a assinatura não seja feita
+	 * com um certificado ICP-Brasil
+	 */
+	private boolean supports(TargetSelector selector) throws SignatureNotICPBrException {
 		try {
-			this.selectTarget(sig, detached);
+			selector.select();
 			List<XadesSignature> signatures = this.signatureContainer.getSignatures();
 
 			if (!signatures.isEmpty()) {
@@ -633,6 +753,20 @@ public class XadesVerifier extends AbstractXadesSigner implements Verifier {
 		return false;
 	}
 
+	/**
+	 * Verifica se o documento assinado é uma assinatura XAdES. O conteúdo
+	 * destacado não é usado nessa verificação e, portanto, não é carregado em memória
+	 * @param sig Os bytes do documento assinado
+	 * @param detached O conteúdo destacado
+	 * @return Indica se o documento assinado é uma assinatura XAdES
+	 * @throws SignatureNotICPBrException Exceção caso a assinatura não seja feita
+	 * com um certificado ICP-Brasil
+	 */
+	@Override
+	public boolean supports(byte[] sig, SpooledContent detached) throws SignatureNotICPBrException {
+		return this.supports(sig, (byte[]) null);
+	}
+
 	/**
 	 * Verifica se a assinatura foi feita com um certificado ICP-Brasil e se é uma assinatura XAdES
 	 * @param s A assinatura a ser verificada
@@ -665,4 +799,11 @@ public class XadesVerifier extends AbstractXadesSigner implements Verifier {
 
 		return certPath != null;
 	}
+
+	/**
+	 * Seleciona o documento a ser verificado
+	 */
+	private interface TargetSelector {
+		void select() throws VerificationException;
+	}
 }
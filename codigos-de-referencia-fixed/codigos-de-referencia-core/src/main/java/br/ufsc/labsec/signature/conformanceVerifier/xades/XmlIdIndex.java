@@ -0,0 +1,172 @@
+package br.ufsc.labsec.signature.conformanceVerifier.xades;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Índice dos elementos de um documento XML pelos seus atributos
+ * identificadores (Id, ID ou id). O índice é construído em uma única
+ * passagem pelo documento, registrando os atributos como identificadores
+ * DOM, de modo que as referências de uma assinatura sejam resolvidas sem
+ * percorrer o documento a cada referência.
+ *
+ * Um identificador presente em mais de um elemento é ambíguo: o índice e a
+ * resolução DOM poderiam escolher elementos diferentes, permitindo que a
+ * referência verificada não seja o elemento exibido. Esses identificadores
+ * não são resolvidos por nenhum dos dois caminhos, e os contêineres recusam
+ * documentos em que eles ocorrem (veja {@link #getDuplicates()}).
+ *
+ * O índice é associado ao próprio documento, sendo compartilhado por todos
+ * os contêineres e assinaturas criados a partir dele. Quem altera um
+ * documento já indexado deve descartar o índice com
+ * {@link #invalidate(Document)}, para que ele seja reconstruído na próxima
+ * consulta.
+ */
+public final class XmlIdIndex {
+
+	private static final String USER_DATA_KEY = XmlIdIndex.class.getName();
+	private static final String[] ID_ATTRIBUTES = { "Id", "ID", "id" };
+
+	/**
+	 * O documento indexado
+	 */
+	private final Document document;
+	/**
+	 * Mapa que relaciona o valor do identificador com o único elemento que o possui
+	 */
+	private final Map<String, Element> elements;
+	/**
+	 * Identificadores presentes em mais de um elemento
+	 */
+	private final Set<String> duplicates;
+
+	private XmlIdIndex(Document document) {
+		this.document = document;
+		this.duplicates = new HashSet<>();
+		this.elements = this.build();
+	}
+
+	/**
+	 * Retorna o índice do documento, construindo-o caso ainda não exista
+	 * @param document O documento
+	 * @return O índice do documento
+	 */
+	public static XmlIdIndex of(Document document) {
+		XmlIdIndex index = (XmlIdIndex) document.getUserData(USER_DATA_KEY);
+		if (index == null) {
+			index = new XmlIdIndex(document);
+			document.setUserData(USER_DATA_KEY, index, null);
+		}
+		return index;
+	}
+
+	/**
+	 * Descarta o índice do documento após uma alteração
+	 * @param document O documento alterado
+	 */
+	public static void invalidate(Document document) {
+		if (document != null) {
+			document.setUserData(USER_DATA_KEY, null, null);
+		}
+	}
+
+	/**
+	 * Retorna o elemento com o identificador dado
+	 * @param id O valor do identificador
+	 * @return O elemento, ou nulo caso nenhum elemento ou mais de um elemento
+	 *         possua o identificador
+	 */
+	public Element get(String id) {
+		return this.elements.get(id);
+	}
+
+	/**
+	 * Retorna os identificadores presentes em mais de um elemento do documento
+	 * @return O conjunto dos identificadores repetidos, vazio caso não haja
+	 */
+	public Set<String> getDuplicates() {
+		return Collections.unmodifiableSet(this.duplicates);
+	}
+
+	/**
+	 * Percorre o documento registrando os atributos identificadores
+	 * @return O mapa dos identificadores para os elementos
+	 */
+	private Map<String, Element> build() {
+		Map<String, Element> elements = new HashMap<>();
+		Node node = this.document.getDocumentElement();
+		while (node != null) {
+			if (node.getNodeType() == Node.ELEMENT_NODE) {
+				this.register((Element) node, elements);
+			}
+			node = next(node);
+		}
+		if (!this.duplicates.isEmpty()) {
+			this.unregisterDuplicates();
+			elements.keySet().removeAll(this.duplicates);
+		}
+		return elements;
+	}
+
+	private void register(Element element, Map<String, Element> elements) {
+		NamedNodeMap attributes = element.getAttributes();
+		for (String name : ID_ATTRIBUTES) {
+			Attr attribute = (Attr) attributes.getNamedItem(name);
+			if (attribute != null) {
+				element.setIdAttributeNode(attribute, true);
+				Element previous = elements.putIfAbsent(attribute.getValue(), element);
+				if (previous != null && previous != element) {
+					this.duplicates.add(attribute.getValue());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Remove o registro DOM dos identificadores repetidos, para que
+	 * {@link Document#getElementById(String)} também não os resolva
+	 */
+	private void unregisterDuplicates() {
+		Node node = this.document.getDocumentElement();
+		while (node != null) {
+			if (node.getNodeType() == Node.ELEMENT_NODE) {
+				NamedNodeMap attributes = node.getAttributes();
+				for (String name : ID_ATTRIBUTES) {
+					Attr attribute = (Attr) attributes.getNamedItem(name);
+					if (attribute != null && this.duplicates.contains(attribute.getValue())) {
+						((Element) node).setIdAttributeNode(attribute, false);
+					}
+				}
+			}
+			node = next(node);
+		}
+	}
+
+	/**
+	 * Retorna o próximo nodo em pré-ordem, sem recursão
+	 * @param node O nodo atual
+	 * @return O próximo nodo, ou nulo ao final do documento
+	 */
+	private static Node next(Node node) {
+		if (node.getFirstChild() != null) {
+			return node.getFirstChild();
+		}
+		while (node != null) {
+			if (node.getNextSibling() != null) {
+				return node.getNextSibling();
+			}
+			node = node.getParentNode();
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,286 @@
+package br.ufsc.labsec.signature.conformanceVerifier.xades;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Canonização XML (inclusiva 1.0/1.1 ou exclusiva, sem comentários) de um
+ * documento lido em sequência, com a saída repassada diretamente ao cálculo
+ * do resumo criptográfico. É usada para as referências ao documento inteiro
+ * (URI="") de assinaturas envelopadas, cujo conjunto de nodos é o documento
+ * sem algumas subárvores de assinatura, de modo que o ancestral de saída de
+ * cada elemento é sempre o seu pai.
+ *
+ * Para o documento inteiro, as versões 1.0 e 1.1 da canonização inclusiva
+ * produzem o mesmo resultado, já que as regras que as diferenciam tratam
+ * apenas dos atributos xml:* herdados por elementos cujo pai não está no
+ * conjunto de nodos.
+ */
+final class XmlStreamCanonicalizer {
+
+	private static final String XML_PREFIX = "xml";
+
+	/**
+	 * O cálculo do resumo
+	 */
+	private final MessageDigest digest;
+	private final Writer out;
+	/**
+	 * Indica se a canonização é exclusiva
+	 */
+	private final boolean exclusive;
+	/**
+	 * Prefixos tratados pelas regras inclusivas na canonização exclusiva
+	 */
+	private final Set<String> inclusivePrefixes;
+	/**
+	 * Declarações de espaços de nomes já escritas pelos elementos abertos
+	 */
+	private final Deque<Map<String, String>> rendered = new ArrayDeque<>();
+	private int depth;
+	private boolean rootClosed;
+
+	/**
+	 * Construtor
+	 * @param digest O cálculo do resumo que recebe a saída
+	 * @param exclusive Indica se a canonização é exclusiva
+	 * @param inclusivePrefixes Prefixos da lista InclusiveNamespaces, com o
+	 *            espaço de nomes padrão representado por ""
+	 */
+	XmlStreamCanonicalizer(MessageDigest digest, boolean exclusive, Set<String> inclusivePrefixes) {
+		this.digest = digest;
+		this.exclusive = exclusive;
+		this.inclusivePrefixes = inclusivePrefixes;
+		OutputStream digestStream = new DigestOutputStream(OutputStream.nullOutputStream(), digest);
+		this.out = new BufferedWriter(new OutputStreamWriter(digestStream, StandardCharsets.UTF_8), 8192);
+	}
+
+	/**
+	 * Escreve a abertura de um elemento
+	 * @param prefix O prefixo do elemento, ou "" caso não tenha
+	 * @param localName O nome local do elemento
+	 * @param inScope Os espaços de nomes visíveis no elemento, indexados pelo
+	 *            prefixo, com o espaço de nomes padrão no prefixo ""
+	 * @param attributes Os atributos do elemento
+	 * @throws IOException Exceção em caso de erro na escrita
+	 */
+	void startElement(String prefix, String localName, Map<String, String> inScope,
+			List<Attribute> attributes) throws IOException {
+		Map<String, String> parent = this.rendered.isEmpty() ? Collections.emptyMap() : this.rendered.peek();
+
+		Set<String> candidates = new LinkedHashSet<>();
+		if (this.exclusive) {
+			candidates.add(prefix);
+			for (Attribute attribute : attributes) {
+				if (!attribute.prefix.isEmpty()) {
+					candidates.add(attribute.prefix);
+				}
+			}
+			candidates.addAll(this.inclusivePrefixes);
+		} else {
+			candidates.add("");
+			candidates.addAll(inScope.keySet());
+		}
+
+		TreeMap<String, String> declarations = new TreeMap<>();
+		for (String candidate : candidates) {
+			if (XML_PREFIX.equals(candidate)) {
+				continue;
+			}
+			String value = inScope.getOrDefault(candidate, "");
+			if (!candidate.isEmpty() && value.isEmpty()) {
+				continue;
+			}
+			if (!value.equals(parent.getOrDefault(candidate, ""))) {
+				declarations.put(candidate, value);
+			}
+		}
+
+		Map<String, String> current = parent;
+		if (!declarations.isEmpty()) {
+			current = new HashMap<>(parent);
+			current.putAll(declarations);
+		}
+		this.rendered.push(current);
+		this.depth++;
+
+		this.out.write('<');
+		this.out.write(qualifiedName(prefix, localName));
+		for (Map.Entry<String, String> declaration : declarations.entrySet()) {
+			this.out.write(declaration.getKey().isEmpty() ? " xmlns" : " xmlns:" + declaration.getKey());
+			this.out.write("=\"");
+			this.writeEscaped(declaration.getValue(), true);
+			this.out.write('"');
+		}
+		List<Attribute> sorted = new ArrayList<>(attributes);
+		sorted.sort(null);
+		for (Attribute attribute : sorted) {
+			this.out.write(' ');
+			this.out.write(qualifiedName(attribute.prefix, attribute.localName));
+			this.out.write("=\"");
+			this.writeEscaped(attribute.value, true);
+			this.out.write('"');
+		}
+		this.out.write('>');
+	}
+
+	/**
+	 * Escreve o fechamento de um elemento
+	 * @param prefix O prefixo do elemento, ou "" caso não tenha
+	 * @param localName O nome local do elemento
+	 * @throws IOException Exceção em caso de erro na escrita
+	 */
+	void endElement(String prefix, String localName) throws IOException {
+		this.out.write("</");
+		this.out.write(qualifiedName(prefix, localName));
+		this.out.write('>');
+		this.rendered.pop();
+		if (--this.depth == 0) {
+			this.rootClosed = true;
+		}
+	}
+
+	/**
+	 * Escreve um trecho de texto. Textos fora do elemento raiz são descartados.
+	 * @param text Os caracteres do texto
+	 * @param start A posição inicial do trecho
+	 * @param length O tamanho do trecho
+	 * @throws IOException Exceção em caso de erro na escrita
+	 */
+	void text(char[] text, int start, int length) throws IOException {
+		if (this.depth > 0) {
+			for (int i = start; i < start + length; i++) {
+				this.writeEscaped(text[i], false);
+			}
+		}
+	}
+
+	/**
+	 * Escreve uma instrução de processamento
+	 * @param target O alvo da instrução
+	 * @param data O conteúdo da instrução, possivelmente vazio
+	 * @throws IOException Exceção em caso de erro na escrita
+	 */
+	void processingInstruction(String target, String data) throws IOException {
+		if (this.depth == 0 && this.rootClosed) {
+			this.out.write('\n');
+		}
+		this.out.write("<?");
+		this.out.write(target);
+		if (data != null && !data.isEmpty()) {
+			this.out.write(' ');
+			this.out.write(data);
+		}
+		this.out.write("?>");
+		if (this.depth == 0 && !this.rootClosed) {
+			this.out.write('\n');
+		}
+	}
+
+	/**
+	 * Conclui a canonização
+	 * @return O resumo criptográfico do documento canonizado
+	 * @throws IOException Exceção em caso de erro na escrita
+	 */
+	byte[] finish() throws IOException {
+		this.out.flush();
+		return this.digest.digest();
+	}
+
+	private void writeEscaped(String value, boolean attribute) throws IOException {
+		for (int i = 0; i < value.length(); i++) {
+			this.writeEscaped(value.charAt(i), attribute);
+		}
+	}
+
+	private void writeEscaped(char c, boolean attribute) throws IOException {
+		switch (c) {
+		case '&':
+			this.out.write("&amp;");
+			break;
+		case '<':
+			this.out.write("&lt;");
+			break;
+		case '>':
+			if (attribute) {
+				this.out.write(c);
+			} else {
+				this.out.write("&gt;");
+			}
+			break;
+		case '"':
+			if (attribute) {
+				this.out.write("&quot;");
+			} else {
+				this.out.write(c);
+			}
+			break;
+		case '\t':
+			this.out.write(attribute ? "&#x9;" : "\t");
+			break;
+		case '\n':
+			this.out.write(attribute ? "&#xA;" : "\n");
+			break;
+		case '\r':
+			this.out.write("&#xD;");
+			break;
+		default:
+			this.out.write(c);
+		}
+	}
+
+	private static String qualifiedName(String prefix, String localName) {
+		return prefix.isEmpty() ? localName : prefix + ":" + localName;
+	}
+
+	/**
+	 * Atributo de um elemento, ordenado como na canonização: primeiro os
+	 * atributos sem espaço de nomes, e então pelo espaço de nomes e pelo nome
+	 * local
+	 */
+	static final class Attribute implements Comparable<Attribute> {
+
+		final String namespaceUri;
+		final String prefix;
+		final String localName;
+		final String value;
+
+		/**
+		 * Construtor
+		 * @param namespaceUri O espaço de nomes do atributo, ou "" caso não tenha
+		 * @param prefix O prefixo do atributo, ou "" caso não tenha
+		 * @param localName O nome local do atributo
+		 * @param value O valor normalizado do atributo
+		 */
+		Attribute(String namespaceUri, String prefix, String localName, String value) {
+			this.namespaceUri = namespaceUri;
+			this.prefix = prefix;
+			this.localName = localName;
+			this.value = value;
+		}
+
+		@Override
+		public int compareTo(Attribute other) {
+			int comparison = this.namespaceUri.compareTo(other.namespaceUri);
+			return comparison != 0 ? comparison : this.localName.compareTo(other.localName);
+		}
+
+	}
+
+}
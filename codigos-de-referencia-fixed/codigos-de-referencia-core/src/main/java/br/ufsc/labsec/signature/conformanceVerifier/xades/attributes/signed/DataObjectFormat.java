@@ -9,13 +9,13 @@ Apoio: Colégio Notarial do Brasil (CNB) e Instituto Nacional de Tecnologia da I
 
 package br.ufsc.labsec.signature.conformanceVerifier.xades.attributes.signed;
 
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 
+import br.ufsc.labsec.signature.XmlToolkit;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.AbstractVerifier;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.NamespacePrefixMapperImp;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.SignatureVerifier;
@@ -209,7 +209,7 @@ public class DataObjectFormat implements SignatureAttribute {
 
         Document document = null;
         try {
-            document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+            document = XmlToolkit.newDocument();
         } catch (ParserConfigurationException e) {
             throw new SignatureAttributeException("Problema em gerar o documento");
         }
@@ -9,7 +9,6 @@ Apoio: Colégio Notarial do Brasil (CNB) e Instituto Nacional de Tecnologia da I
 
 package br.ufsc.labsec.signature.conformanceVerifier.xades.attributes.signed;
 
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
 import org.bouncycastle.util.encoders.Base64;
@@ -18,6 +17,7 @@ import org.w3c.dom.Element;
 
 //import br.ufsc.labsec.conformanceVerifier.signaturePolicy.SignaturePolicyProxy;
 import br.ufsc.labsec.signature.SignaturePolicyInterface;
+import br.ufsc.labsec.signature.XmlToolkit;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.AbstractVerifier;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.NamespacePrefixMapperImp;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.SignatureVerifier;
@@ -219,7 +219,7 @@ public class SignaturePolicyIdentifier implements SignatureAttribute {
 
         Document document = null;
         try {
-            document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+            document = XmlToolkit.newDocument();
         } catch (ParserConfigurationException e) {
             throw new SignatureAttributeException("Problema em gerar o documento");
         }
@@ -11,7 +11,6 @@ package br.ufsc.labsec.signature.conformanceVerifier.xades.attributes.signed;
 
 import java.util.List;
 
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
 import org.bouncycastle.asn1.ASN1Object;
@@ -23,6 +22,7 @@ import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import br.ufsc.labsec.signature.XmlToolkit;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.AbstractVerifier;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.NamespacePrefixMapperImp;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.attributes.SignatureAttribute;
@@ -177,7 +177,7 @@ public class SignerRole implements SignatureAttribute {
 
         Document document = null;
         try {
-            document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+            document = XmlToolkit.newDocument();
         } catch (ParserConfigurationException e) {
             throw new SignatureAttributeException("Problema em gerar o documento");
         }
@@ -20,7 +20,6 @@ import java.security.cert.X509Certificate;
 import java.util.List;
 
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
 import org.bouncycastle.util.encoders.Base64;
@@ -31,6 +30,7 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 import br.ufsc.labsec.signature.SignaturePolicyInterface;
+import br.ufsc.labsec.signature.XmlToolkit;
 import br.ufsc.labsec.signature.conformanceVerifier.signaturePolicy.decoder.SignerRules.CertRefReq;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.AbstractVerifier;
 import br.ufsc.labsec.signature.AlgorithmIdentifierMapper;
@@ -161,11 +161,9 @@ public class SigningCertificate implements SigningCertificateInterface {
      * @throws SignatureAttributeException Caso ocorra algum erro relativo aos atributos da assinatura.
      */
     public SigningCertificate(List<X509Certificate> certs, String digestAlgorithm) throws SignatureAttributeException {
-        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-        documentBuilderFactory.setNamespaceAware(true);
         DocumentBuilder documentBuilder = null;
         try {
-            documentBuilder = documentBuilderFactory.newDocumentBuilder();
+            documentBuilder = XmlToolkit.getDocumentBuilder();
         } catch (ParserConfigurationException parserConfigurationException) {
             throw new SignatureAttributeException(SignatureAttributeException.ATTRIBUTE_BUILDING_FAILURE + SigningCertificate.IDENTIFIER,
                     parserConfigurationException.getStackTrace());
@@ -16,7 +16,6 @@ import javax.xml.datatype.DatatypeConfigurationException;
 import javax.xml.datatype.DatatypeFactory;
 import javax.xml.datatype.XMLGregorianCalendar;
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
 import org.w3c.dom.DOMException;
@@ -25,6 +24,7 @@ import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import br.ufsc.labsec.signature.XmlToolkit;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.AbstractVerifier;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.NamespacePrefixMapperImp;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.SignatureVerifier;
@@ -94,11 +94,9 @@ public class SigningTime implements SignatureAttribute {
      * @throws SignatureAttributeException
      */
     public SigningTime(XMLGregorianCalendar signingTimeValue) throws SignatureAttributeException {
-        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-        documentBuilderFactory.setNamespaceAware(true);
         DocumentBuilder documentBuilder = null;
         try {
-            documentBuilder = documentBuilderFactory.newDocumentBuilder();
+            documentBuilder = XmlToolkit.getDocumentBuilder();
         } catch (ParserConfigurationException parserConfigurationException) {
             throw new SignatureAttributeException(SignatureAttributeException.ATTRIBUTE_BUILDING_FAILURE + SigningTime.IDENTIFIER,
                     parserConfigurationException.getStackTrace());
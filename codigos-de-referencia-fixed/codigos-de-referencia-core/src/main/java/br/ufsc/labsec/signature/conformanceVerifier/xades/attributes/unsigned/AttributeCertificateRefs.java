@@ -17,7 +17,6 @@ import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.List;
 
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
 import org.bouncycastle.util.encoders.Base64;
@@ -26,6 +25,7 @@ import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import br.ufsc.labsec.signature.XmlToolkit;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.AbstractVerifier;
 import br.ufsc.labsec.signature.AlgorithmIdentifierMapper;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.NamespacePrefixMapperImp;
@@ -253,7 +253,7 @@ public class AttributeCertificateRefs implements SignatureAttribute {
 
         Document document = null;
         try {
-            document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+            document = XmlToolkit.newDocument();
         } catch (ParserConfigurationException e) {
             throw new SignatureAttributeException("Problema na construção do document", e.getStackTrace());
         }
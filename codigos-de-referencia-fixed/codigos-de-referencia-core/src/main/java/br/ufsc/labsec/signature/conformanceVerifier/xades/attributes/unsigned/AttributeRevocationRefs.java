@@ -22,7 +22,6 @@ import java.util.List;
 import java.util.Set;
 import java.util.TimeZone;
 
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
 import org.bouncycastle.asn1.ASN1ObjectIdentifier;
@@ -42,8 +41,10 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 
+import br.ufsc.labsec.signature.XmlToolkit;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.AbstractVerifier;
 import br.ufsc.labsec.signature.AlgorithmIdentifierMapper;
+import br.ufsc.labsec.signature.RevocationDigests;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.NamespacePrefixMapperImp;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.SignatureVerifier;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.attributes.signed.CommitmentTypeIndication;
@@ -321,16 +322,12 @@ public class AttributeRevocationRefs implements br.ufsc.labsec.signature.conform
             crlRef.setCrlNumber(crlNumber);
         }
         crlRef.setAlgorithm(algorithm);
-        MessageDigest digester = null;
         byte[] hash = null;
         try {
-            digester = MessageDigest.getInstance(AlgorithmIdentifierMapper.getAlgorithmNameFromIdentifier(algorithm));
+            hash = RevocationDigests.digest(crl, algorithm);
         } catch (NoSuchAlgorithmException noSuchAlgorithmException) {
             throw new SignatureAttributeException("O Algoritmo de hash não é conhecido: " + algorithm,
                     noSuchAlgorithmException.getStackTrace());
-        }
-        try {
-            hash = digester.digest(crl.getEncoded());
         } catch (CRLException crlException) {
             throw new SignatureAttributeException("Não foi possível codificar a crl", crlException.getStackTrace());
         }
@@ -447,7 +444,7 @@ public class AttributeRevocationRefs implements br.ufsc.labsec.signature.conform
 
         Document document = null;
         try {
-            document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+            document = XmlToolkit.newDocument();
         } catch (ParserConfigurationException e) {
             throw new SignatureAttributeException("Problema em construir o documento", e.getStackTrace());
         }
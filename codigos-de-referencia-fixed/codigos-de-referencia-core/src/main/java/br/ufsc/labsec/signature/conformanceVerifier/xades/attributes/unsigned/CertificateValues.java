@@ -9,20 +9,17 @@ Apoio: Colégio Notarial do Brasil (CNB) e Instituto Nacional de Tecnologia da I
 
 package br.ufsc.labsec.signature.conformanceVerifier.xades.attributes.unsigned;
 
-import java.io.ByteArrayInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateEncodingException;
 import java.security.cert.CertificateException;
-import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
 import org.bouncycastle.util.encoders.Base64;
@@ -30,6 +27,8 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 
+import br.ufsc.labsec.signature.CertificateInterner;
+import br.ufsc.labsec.signature.XmlToolkit;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.AbstractVerifier;
 import br.ufsc.labsec.signature.AlgorithmIdentifierMapper;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.NamespacePrefixMapperImp;
@@ -163,16 +162,9 @@ public class CertificateValues implements SignatureAttribute {
         this.certificateValues = new ArrayList<X509Certificate>();
         for (int i = 0; i < certificateValuesNodeList.getLength(); i++) {
             Element certificateElement = (Element) certificateValuesNodeList.item(i);
-            CertificateFactory certificateFactory = null;
-            try {
-                certificateFactory = CertificateFactory.getInstance("X.509");
-            } catch (CertificateException e) {
-                throw new EncodingException("Não foi possível instanciar o certificateFactory.", e);
-            }
-            ByteArrayInputStream byteInputStream = new ByteArrayInputStream(Base64.decode(certificateElement.getTextContent()));
             Certificate certificate = null;
             try {
-                certificate = certificateFactory.generateCertificate(byteInputStream);
+                certificate = CertificateInterner.intern(Base64.decode(certificateElement.getTextContent()));
             } catch (CertificateException e) {
                 throw new EncodingException("Não foi possível gerar certificado.", e);
             }
@@ -282,11 +274,9 @@ public class CertificateValues implements SignatureAttribute {
      */
     @Override
     public Element getEncoded() throws SignatureAttributeException {
-        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-        documentBuilderFactory.setNamespaceAware(true);
         DocumentBuilder documentBuilder = null;
         try {
-            documentBuilder = documentBuilderFactory.newDocumentBuilder();
+            documentBuilder = XmlToolkit.getDocumentBuilder();
         } catch (ParserConfigurationException parserConfigurationException) {
             throw new SignatureAttributeException(SignatureAttributeException.ATTRIBUTE_BUILDING_FAILURE + CertificateValues.IDENTIFIER,
                     parserConfigurationException.getStackTrace());
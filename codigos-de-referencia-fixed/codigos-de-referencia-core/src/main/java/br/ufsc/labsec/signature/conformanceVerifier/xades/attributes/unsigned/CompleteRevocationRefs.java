@@ -9,7 +9,10 @@ Apoio: Colégio Notarial do Brasil (CNB) e Instituto Nacional de Tecnologia da I
 
 package br.ufsc.labsec.signature.conformanceVerifier.xades.attributes.unsigned;
 
+import br.ufsc.labsec.component.Application;
 import br.ufsc.labsec.signature.AlgorithmIdentifierMapper;
+import br.ufsc.labsec.signature.RevocationDigests;
+import br.ufsc.labsec.signature.XmlToolkit;
 import br.ufsc.labsec.signature.conformanceVerifier.signaturePolicy.decoder.CertRevReq;
 import br.ufsc.labsec.signature.conformanceVerifier.signaturePolicy.decoder.RevReq;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.*;
@@ -26,16 +29,15 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.IOException;
 import java.math.BigInteger;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.*;
 import java.sql.Time;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.logging.Level;
 
 /**
  * 
@@ -337,14 +339,10 @@ public class CompleteRevocationRefs implements SignatureAttribute, CRLSelector {
         ocspRef.setAlgorithm(algorithm);
 
         byte[] ocspDigestValue = null;
-        MessageDigest digester = null;
         try {
-            digester = MessageDigest.getInstance(AlgorithmIdentifierMapper.getAlgorithmNameFromIdentifier(algorithm));
+            ocspDigestValue = RevocationDigests.digest(basicOCSPResponse, algorithm);
         } catch (NoSuchAlgorithmException noSuchAlgorithmException) {
             throw new SignatureAttributeException(UNKNOWN_HASH_ALGORITHM + algorithm, noSuchAlgorithmException.getStackTrace());
-        }
-        try {
-            ocspDigestValue = digester.digest(basicOCSPResponse.getEncoded());
         } catch (IOException ioException) {
             throw new SignatureAttributeException("Não foi possível codificar a resposta OCSP", ioException.getStackTrace());
         }
@@ -386,15 +384,11 @@ public class CompleteRevocationRefs implements SignatureAttribute, CRLSelector {
             crlRef.setCrlNumber(crlNumber);
         }
         crlRef.setAlgorithm(algorithm);
-        MessageDigest digester = null;
         byte[] hash = null;
         try {
-            digester = MessageDigest.getInstance(AlgorithmIdentifierMapper.getAlgorithmNameFromIdentifier(algorithm));
+            hash = RevocationDigests.digest(crl, algorithm);
         } catch (NoSuchAlgorithmException noSuchAlgorithmException) {
             throw new SignatureAttributeException(UNKNOWN_HASH_ALGORITHM + algorithm, noSuchAlgorithmException.getStackTrace());
-        }
-        try {
-            hash = digester.digest(crl.getEncoded());
         } catch (CRLException crlException) {
             throw new SignatureAttributeException("Não foi possível codificar a crl", crlException.getStackTrace());
         }
@@ -850,7 +844,7 @@ public class CompleteRevocationRefs implements SignatureAttribute, CRLSelector {
     public Element getEncoded() throws SignatureAttributeException {
         Document document = null;
         try {
-            document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+            document = XmlToolkit.newDocument();
         } catch (ParserConfigurationException e) {
             throw new SignatureAttributeException("Documento não pode ser construído", e.getStackTrace());
         }
@@ -976,12 +970,13 @@ public class CompleteRevocationRefs implements SignatureAttribute, CRLSelector {
         if (result) {
             try {
                 X509CRL x509Crl = (X509CRL) crl;
-                result = findIdentifier(x509Crl.getEncoded());
+                result = this.findIdentifier(RevocationDigests.digest(x509Crl, this.algorithm));
             } catch (CRLException crlException) {
-                crlException.printStackTrace();
+                Application.logger.log(Level.WARNING, "Não foi possível codificar a LCR", crlException);
                 result = false;
-            } catch (SignatureAttributeException signatureAttributeException) {
-                signatureAttributeException.printStackTrace();
+            } catch (NoSuchAlgorithmException noSuchAlgorithmException) {
+                Application.logger.log(Level.WARNING, "Algoritmo de resumo das referências de LCR não suportado",
+                        noSuchAlgorithmException);
                 result = false;
             }
         }
@@ -1012,7 +1007,9 @@ public class CompleteRevocationRefs implements SignatureAttribute, CRLSelector {
     public boolean match(BasicOCSPResponse response) throws SignatureAttributeException {
         boolean result = false;
         try {
-            result = this.findIdentifier(response.getEncoded());
+            result = this.findIdentifier(RevocationDigests.digest(response, this.algorithm));
+        } catch (NoSuchAlgorithmException noSuchAlgorithmException) {
+            throw new SignatureAttributeException(SignatureAttributeException.NO_SUCH_ALGORITHM, noSuchAlgorithmException.getStackTrace());
         } catch (IOException ioException) {
 
             throw new SignatureAttributeException(SignatureAttributeException.PROBLEMS_TO_DECODE, ioException.getStackTrace());
@@ -1022,21 +1019,12 @@ public class CompleteRevocationRefs implements SignatureAttribute, CRLSelector {
 
     /**
      * Verifica se a lista de OCSPs e CRLs contém o objeto dado
-     * @param encodedRevocationData Os bytes do objeto a ser procurado
+     * @param obtainedHash O resumo do objeto a ser procurado
      * @return Indica se a lista contém o objeto
-     * @throws SignatureAttributeException
      */
-    private boolean findIdentifier(byte[] encodedRevocationData) throws SignatureAttributeException {
-        boolean result = false;
-        try {
-            MessageDigest digester = MessageDigest.getInstance(AlgorithmIdentifierMapper.getAlgorithmNameFromIdentifier(this.algorithm));
-            byte[] obtainedHash = digester.digest(encodedRevocationData);
-            String obtainedHashBase64 = new String(Base64.encode(obtainedHash));
-            result = this.crlAndOcspIdSet.contains(obtainedHashBase64);
-        } catch (NoSuchAlgorithmException noSuchAlgorithmException) {
-            throw new SignatureAttributeException(SignatureAttributeException.NO_SUCH_ALGORITHM, noSuchAlgorithmException.getStackTrace());
-        }
-        return result;
+    private boolean findIdentifier(byte[] obtainedHash) {
+        String obtainedHashBase64 = new String(Base64.encode(obtainedHash));
+        return this.crlAndOcspIdSet.contains(obtainedHashBase64);
     }
 
     /**
@@ -11,7 +11,7 @@ package br.ufsc.labsec.signature.conformanceVerifier.xades.attributes.unsigned;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.security.MessageDigest;
+import java.nio.ByteBuffer;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CRL;
 import java.security.cert.CRLException;
@@ -19,11 +19,14 @@ import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509CRL;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
 
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
 import org.apache.commons.codec.binary.Hex;
@@ -36,8 +39,11 @@ import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import br.ufsc.labsec.component.Application;
+import br.ufsc.labsec.signature.JcaProviders;
+import br.ufsc.labsec.signature.XmlToolkit;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.AbstractVerifier;
-import br.ufsc.labsec.signature.AlgorithmIdentifierMapper;
+import br.ufsc.labsec.signature.RevocationDigests;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.NamespacePrefixMapperImp;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.SignatureVerifier;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.XadesSignature;
@@ -174,7 +180,7 @@ public class RevocationValues implements SignatureAttribute {
                 	
 	                CertificateFactory certificateFactory = null;
 	                try {
-	                    certificateFactory = CertificateFactory.getInstance("X.509");
+	                    certificateFactory = JcaProviders.certificateFactory("X.509");
 	                } catch (CertificateException e) {
 	                    e.printStackTrace(); // TODO
 	                }
@@ -325,7 +331,6 @@ public class RevocationValues implements SignatureAttribute {
                 CompleteRevocationRefs.IDENTIFIER, 0);
         CompleteRevocationRefs completeRevocationRefs = new CompleteRevocationRefs(completeRevocationRefsEncoding);
         List<CRLRefs> crlRefs = completeRevocationRefs.getCrlRefs();
-        boolean equalBytes = false;
         if (crlRefs != null) {
             if (crlRefs.size() > 0) {
                 if (this.crlValues == null) {
@@ -346,33 +351,20 @@ public class RevocationValues implements SignatureAttribute {
                     revocationValuesException.setCritical(this.isSigned());
                     throw revocationValuesException;
                 }
-                Iterator<X509CRL> crlValuesIterator = this.crlValues.iterator();
+                Map<String, Set<String>> crlDigestsByAlgorithm = new HashMap<>();
                 for (CRLRefs crlRef : crlRefs) {
                     String algorithm = crlRef.getAlgorithm();
-                    String digestMethodName = AlgorithmIdentifierMapper.getAlgorithmNameFromIdentifier(algorithm);
-                    String crlRefTypeDigestValue = crlRef.getDigestValue();
-                    String encapsulatedHexString = "";
-                    while ((!equalBytes) && crlValuesIterator.hasNext()) {
-                        X509CRL crl = crlValuesIterator.next();
-                        byte[] encapsulatedPKIDataTypeHash = null;
-                        try {
-                            encapsulatedPKIDataTypeHash = this.getHash(crl.getEncoded(), digestMethodName);
-                            encapsulatedHexString =
-                                    java.util.Base64.getEncoder().encodeToString(encapsulatedPKIDataTypeHash);
-                        } catch (CRLException e) {
-                            e.printStackTrace(); // TODO
-                        }
-                        equalBytes =
-                                crlRefTypeDigestValue.equals(encapsulatedHexString);
+                    Set<String> crlDigests = crlDigestsByAlgorithm.get(algorithm);
+                    if (crlDigests == null) {
+                        crlDigests = this.getCrlDigests(algorithm);
+                        crlDigestsByAlgorithm.put(algorithm, crlDigests);
                     }
-                    if (!equalBytes) {
+                    if (!crlDigests.contains(crlRef.getDigestValue())) {
                         RevocationValuesException revocationValuesException = new RevocationValuesException(
                                 RevocationValuesException.MISSING_CRL_CERTIFICATE);
                         revocationValuesException.setCritical(this.isSigned());
                         throw revocationValuesException;
                     }
-                    equalBytes = false;
-                    crlValuesIterator = this.crlValues.iterator();
                 }
             }
         }
@@ -397,68 +389,86 @@ public class RevocationValues implements SignatureAttribute {
                     revocationValuesException.setCritical(this.isSigned());
                     throw revocationValuesException;
                 }
-                Iterator<BasicOCSPResponse> ocspValuesIterator = this.ocspValues.iterator();
+                Map<String, Set<ByteBuffer>> ocspDigestsByAlgorithm = new HashMap<>();
                 for (OCSPRefs ocspRef : ocspRefsList) {
                     String algorithm = ocspRef.getAlgorithm();
-                    String digestMethodName = AlgorithmIdentifierMapper.getAlgorithmNameFromIdentifier(algorithm);
-                    byte[] ocspRefTypeDigestValue = ocspRef.getDigestValue().getBytes();
-                    while ((!equalBytes) && ocspValuesIterator.hasNext()) {
-                        BasicOCSPResponse basicOcspResponse = ocspValuesIterator.next();
-                        byte[] encapsulatedPKIDataTypeHash = null;
-                        try {
-                            encapsulatedPKIDataTypeHash = this.getHash(basicOcspResponse.getEncoded(), digestMethodName);
-                        } catch (IOException e) {
-                            e.printStackTrace(); // TODO
-                        }
-                        equalBytes = this.compareBytes(ocspRefTypeDigestValue, encapsulatedPKIDataTypeHash);
+                    Set<ByteBuffer> ocspDigests = ocspDigestsByAlgorithm.get(algorithm);
+                    if (ocspDigests == null) {
+                        ocspDigests = this.getOcspDigests(algorithm);
+                        ocspDigestsByAlgorithm.put(algorithm, ocspDigests);
                     }
-                    if (!equalBytes) {
+                    if (!ocspDigests.contains(ByteBuffer.wrap(ocspRef.getDigestValue().getBytes()))) {
                         RevocationValuesException revocationValuesException = new RevocationValuesException(
                                 RevocationValuesException.MISSING_OCSP_RESPONSE);
                         revocationValuesException.setCritical(this.isSigned());
                         throw revocationValuesException;
                     }
-                    equalBytes = false;
-                    ocspValuesIterator = this.ocspValues.iterator();
                 }
             }
         }
     }
 
     /**
-     * Verifica se os bytes são iguais
-     * @param expected O byte experado
-     * @param actual O byte atual
-     * @return Indica se são iguais
+     * Calcula os resumos das LCRs do atributo, codificados em Base64
+     * @param algorithm O identificador do algoritmo de resumo
+     * @return O conjunto dos resumos
+     * @throws SignatureAttributeException Exceção caso o algoritmo não seja suportado
+     * ou alguma LCR não possa ser codificada
      */
-    private boolean compareBytes(byte[] expected, byte[] actual) {
-        boolean result = expected.length == actual.length;
-        int i = 0;
-        while (result && i < expected.length) {
-            result &= expected[i] == actual[i++];
+    private Set<String> getCrlDigests(String algorithm) throws SignatureAttributeException {
+        Set<String> crlDigests = new HashSet<>();
+        for (X509CRL crl : this.crlValues) {
+            try {
+                crlDigests.add(java.util.Base64.getEncoder().encodeToString(RevocationDigests.digest(crl, algorithm)));
+            } catch (CRLException e) {
+                throw this.undigestableValue("Não foi possível codificar a LCR " + crl.getIssuerX500Principal(), e);
+            } catch (NoSuchAlgorithmException noSuchAlgorithmException) {
+                throw this.noSuchAlgorithm(noSuchAlgorithmException);
+            }
         }
-        return result;
+        return crlDigests;
     }
 
     /**
-     * Calcula o hash dos bytes
-     * @param encoded Os bytes a serem utilizados no cálculo
-     * @param algorithm O algoritmo a ser utilizado
-     * @return O valor do hash dos bytes dados
-     * @throws SignatureAttributeException
+     * Calcula os resumos das respostas OCSP do atributo
+     * @param algorithm O identificador do algoritmo de resumo
+     * @return O conjunto dos resumos
+     * @throws SignatureAttributeException Exceção caso o algoritmo não seja suportado
+     * ou alguma resposta OCSP não possa ser codificada
      */
-    private byte[] getHash(byte[] encoded, String algorithm) throws SignatureAttributeException {
-        MessageDigest messageDigest = null;
-        try {
-            messageDigest = MessageDigest.getInstance(algorithm);
-        } catch (NoSuchAlgorithmException noSuchAlgorithmException) {
-            SignatureAttributeException signatureAttributeException = new SignatureAttributeException(
-                    noSuchAlgorithmException.getMessage(), noSuchAlgorithmException.getStackTrace());
-            signatureAttributeException.setCritical(this.isSigned());
-            throw signatureAttributeException;
+    private Set<ByteBuffer> getOcspDigests(String algorithm) throws SignatureAttributeException {
+        Set<ByteBuffer> ocspDigests = new HashSet<>();
+        for (BasicOCSPResponse basicOcspResponse : this.ocspValues) {
+            try {
+                ocspDigests.add(ByteBuffer.wrap(RevocationDigests.digest(basicOcspResponse, algorithm)));
+            } catch (IOException e) {
+                throw this.undigestableValue("Não foi possível codificar a resposta OCSP", e);
+            } catch (NoSuchAlgorithmException noSuchAlgorithmException) {
+                throw this.noSuchAlgorithm(noSuchAlgorithmException);
+            }
         }
-        messageDigest.update(encoded);
-        return messageDigest.digest();
+        return ocspDigests;
+    }
+
+    /**
+     * Registra e cria a exceção de um valor de revogação que não pode ser
+     * codificado para o cálculo do resumo
+     * @param message A mensagem de erro
+     * @param cause A causa do erro
+     * @return A exceção, crítica caso o atributo seja assinado
+     */
+    private SignatureAttributeException undigestableValue(String message, Exception cause) {
+        Application.logger.log(Level.SEVERE, message, cause);
+        SignatureAttributeException signatureAttributeException = new SignatureAttributeException(message, cause);
+        signatureAttributeException.setCritical(this.isSigned());
+        return signatureAttributeException;
+    }
+
+    private SignatureAttributeException noSuchAlgorithm(NoSuchAlgorithmException noSuchAlgorithmException) {
+        SignatureAttributeException signatureAttributeException = new SignatureAttributeException(
+                noSuchAlgorithmException.getMessage(), noSuchAlgorithmException.getStackTrace());
+        signatureAttributeException.setCritical(this.isSigned());
+        return signatureAttributeException;
     }
 
     /**
@@ -468,11 +478,9 @@ public class RevocationValues implements SignatureAttribute {
      */
     @Override
     public Element getEncoded() throws SignatureAttributeException {
-        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-        documentBuilderFactory.setNamespaceAware(true);
         DocumentBuilder documentBuilder = null;
         try {
-            documentBuilder = documentBuilderFactory.newDocumentBuilder();
+            documentBuilder = XmlToolkit.getDocumentBuilder();
         } catch (ParserConfigurationException parserConfigurationException) {
             throw new SignatureAttributeException(SignatureAttributeException.ATTRIBUTE_BUILDING_FAILURE + RevocationValues.IDENTIFIER,
                     parserConfigurationException.getStackTrace());
@@ -11,7 +11,6 @@ package br.ufsc.labsec.signature.conformanceVerifier.xades.attributes.unsigned;
 
 import java.io.IOException;
 import java.security.MessageDigest;
-import java.security.Security;
 import java.security.cert.CertStore;
 import java.security.cert.Certificate;
 import java.security.cert.X509CertSelector;
@@ -21,9 +20,10 @@ import java.util.Collections;
 import java.util.List;
 
 import javax.security.auth.x500.X500Principal;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
+import br.ufsc.labsec.signature.JcaProviders;
+import br.ufsc.labsec.signature.XmlToolkit;
 import br.ufsc.labsec.signature.conformanceVerifier.report.SignatureReport;
 import br.ufsc.labsec.signature.exceptions.*;
 import org.bouncycastle.asn1.ASN1Sequence;
@@ -33,7 +33,6 @@ import org.bouncycastle.cms.CMSException;
 import org.bouncycastle.cms.CMSSignatureAlgorithmNameGenerator;
 import org.bouncycastle.cms.DefaultCMSSignatureAlgorithmNameGenerator;
 import org.bouncycastle.cms.SignerInformationVerifier;
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.operator.ContentVerifierProvider;
 import org.bouncycastle.operator.DefaultSignatureAlgorithmIdentifierFinder;
 import org.bouncycastle.operator.DigestCalculatorProvider;
@@ -169,7 +168,7 @@ public class SignatureTimeStamp extends TimeStamp implements SignatureAttribute
 			report.setSchema(SignatureReport.SchemaState.INVALID);
 		}
 
-		Security.addProvider(new BouncyCastleProvider());
+		JcaProviders.install();
 
 		TimeStampVerifierInterface timeStampVerifier = null;
 		try {
@@ -373,7 +372,7 @@ public class SignatureTimeStamp extends TimeStamp implements SignatureAttribute
 		ContentVerifierProvider contentVerifierProvider = contentVerifierProviderBuilder
 				.build(certificate);
 		DigestCalculatorProvider digestCalculatorProvider = new JcaDigestCalculatorProviderBuilder()
-				.setProvider("BC").build();
+				.setProvider(JcaProviders.bouncyCastle()).build();
 
 		CMSSignatureAlgorithmNameGenerator cmsSignatureAlgorithmNameGenerator = new DefaultCMSSignatureAlgorithmNameGenerator();
         SignatureAlgorithmIdentifierFinder signatureAlgorithmIdentifierFinder = new DefaultSignatureAlgorithmIdentifierFinder();
@@ -393,8 +392,7 @@ public class SignatureTimeStamp extends TimeStamp implements SignatureAttribute
 	public Element getEncoded() throws SignatureAttributeException {
 		Document document = null;
 		try {
-			document = DocumentBuilderFactory.newInstance()
-					.newDocumentBuilder().newDocument();
+			document = XmlToolkit.newDocument();
 		} catch (ParserConfigurationException e) {
 			e.printStackTrace(); // TODO
 		}
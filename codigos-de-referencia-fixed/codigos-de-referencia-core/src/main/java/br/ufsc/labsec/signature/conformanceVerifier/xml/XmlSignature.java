@@ -10,10 +10,11 @@ import br.ufsc.labsec.signature.conformanceVerifier.signaturePolicy.decoder.Cert
 import br.ufsc.labsec.signature.conformanceVerifier.signaturePolicy.decoder.RevReq;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.NamespacePrefixMapperImp;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.XadesSignature;
+import br.ufsc.labsec.signature.conformanceVerifier.xades.XmlIdIndex;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.exceptions.SignatureAttributeNotFoundException;
 import br.ufsc.labsec.signature.exceptions.VerificationException;
+import br.ufsc.labsec.signature.repository.http.UriContentCache;
 
-import org.apache.commons.io.IOUtils;
 import org.w3c.dom.*;
 
 import javax.xml.crypto.*;
@@ -22,14 +23,8 @@ import javax.xml.crypto.dsig.*;
 import javax.xml.crypto.dsig.dom.DOMValidateContext;
 import javax.xml.crypto.dsig.keyinfo.KeyInfo;
 import javax.xml.crypto.dsig.keyinfo.X509Data;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 import java.io.*;
 import java.math.BigInteger;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.security.*;
 import java.security.cert.*;
 import java.security.cert.Certificate;
@@ -228,34 +223,12 @@ public class XmlSignature {
                 if (isDetached(reference.getURI())) {
                     validReference = this.validateDetachedReference(reference);
                 } else {
-                    try {
-                        // The ID attribute needs to be identified as such so that
-                        // reference.validate(validateContext) can work properly
-                        String uri = reference.getURI();
-                        if (uri != null && uri.length() != 0 && uri.charAt(0) == '#') {
-                            String id = uri.substring(1);
-
-                            XPath xpath = XPathFactory.newInstance().newXPath();
-                            NodeList referencedNodes = (NodeList) xpath.evaluate("//*[@Id='" + id + "']", this.xml, XPathConstants.NODESET);
-                            if (referencedNodes != null) {
-                                for (int j = 0; j < referencedNodes.getLength(); j++) {
-                                    ((Element)referencedNodes.item(j)).setIdAttribute("Id", true);
-                                }
-                            }
-                            referencedNodes = (NodeList) xpath.evaluate("//*[@ID='" + id + "']", this.xml, XPathConstants.NODESET);
-                            if (referencedNodes != null) {
-                                for (int j = 0; j < referencedNodes.getLength(); j++) {
-                                    ((Element)referencedNodes.item(j)).setIdAttribute("ID", true);
-                                }
-                            }
-                            referencedNodes = (NodeList) xpath.evaluate("//*[@id='" + id + "']", this.xml, XPathConstants.NODESET);
-                            if (referencedNodes != null) {
-                                for (int j = 0; j < referencedNodes.getLength(); j++) {
-                                    ((Element)referencedNodes.item(j)).setIdAttribute("id", true);
-                                }
-                            }
-                        }
-                    } catch (XPathExpressionException e) {
+                    // The ID attribute needs to be identified as such so that
+                    // reference.validate(validateContext) can work properly.
+                    // The index registers every Id/ID/id attribute of the document.
+                    String uri = reference.getURI();
+                    if (uri != null && uri.length() != 0 && uri.charAt(0) == '#') {
+                        XmlIdIndex.of(this.xml).get(uri.substring(1));
                     }
 
                     validReference = reference.validate(validateContext);
@@ -347,12 +320,9 @@ public class XmlSignature {
 
         if (uri.startsWith("http") || uri.startsWith("https")) {
             try {
-				URL url = new URL(uri);
-				HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-				InputStream stream = connection.getInputStream();
-				obtainedDigestValue = digester.digest(IOUtils.toByteArray(stream));
+				obtainedDigestValue = digester.digest(UriContentCache.getInstance().get(uri));
 			} catch (IOException e) {
-				e.printStackTrace();
+				Application.logger.log(Level.WARNING, "Não foi possível obter o conteúdo destacado " + uri, e);
 			}
 		} else {
 			obtainedDigestValue = digester.digest(this.container.getContent());
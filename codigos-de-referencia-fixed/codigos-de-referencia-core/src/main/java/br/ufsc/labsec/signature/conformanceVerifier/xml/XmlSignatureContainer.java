@@ -1,6 +1,7 @@
 package br.ufsc.labsec.signature.conformanceVerifier.xml;
 
 import br.ufsc.labsec.component.Application;
+import br.ufsc.labsec.signature.XmlToolkit;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.NamespacePrefixMapperImp;
 import br.ufsc.labsec.signature.exceptions.EncodingException;
 import br.ufsc.labsec.signature.exceptions.VerificationException;
@@ -13,7 +14,6 @@ import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.*;
 import javax.xml.transform.dom.DOMSource;
@@ -60,10 +60,8 @@ public class XmlSignatureContainer {
      * @throws VerificationException Exceção caso os bytes do arquivo sejam inválidos
      */
     public XmlSignatureContainer(InputStream signatureContainer, InputStream detachedContainer, XmlSignatureComponent xmlSignatureComponent) throws VerificationException {
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        factory.setNamespaceAware(true);
         try {
-            DocumentBuilder builder = factory.newDocumentBuilder();
+            DocumentBuilder builder = XmlToolkit.getDocumentBuilder();
             this.xml = builder.parse(signatureContainer);
             this.xmlSignatureComponent = xmlSignatureComponent;
             this.setContent(detachedContainer);
@@ -84,11 +82,9 @@ public class XmlSignatureContainer {
      * @throws VerificationException Exceção caso os bytes do arquivo sejam inválidos
      */
     public XmlSignatureContainer(String target, String signedContent, XmlSignatureComponent xmlSignatureComponent) throws VerificationException {
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        factory.setNamespaceAware(true);
         try {
             File signatureContainer = new File(target);
-            DocumentBuilder builder = factory.newDocumentBuilder();
+            DocumentBuilder builder = XmlToolkit.getDocumentBuilder();
             this.xml = builder.parse(signatureContainer);
             this.xmlSignatureComponent = xmlSignatureComponent;
             this.setContent(new FileInputStream(new File(signedContent)));
@@ -113,7 +109,7 @@ public class XmlSignatureContainer {
             this.content = contentBytes;
         } else {
             try {
-                Transformer transformer = TransformerFactory.newInstance().newTransformer();
+                Transformer transformer = XmlToolkit.getTransformer();
                 ByteArrayOutputStream output = new ByteArrayOutputStream();
                 transformer.transform(new DOMSource(this.xml), new StreamResult(output));
                 this.content = output.toByteArray();
@@ -179,8 +175,7 @@ public class XmlSignatureContainer {
      */
     public void encode(OutputStream outputStream) throws EncodingException {
         try {
-            Transformer transformer = TransformerFactory.newInstance()
-                    .newTransformer();
+            Transformer transformer = XmlToolkit.getTransformer();
             transformer.transform(new DOMSource(this.xml), new StreamResult(
                     outputStream));
         } catch (Exception e) {
@@ -2,6 +2,7 @@ package br.ufsc.labsec.signature.conformanceVerifier.xml;
 
 import br.ufsc.labsec.component.Application;
 import br.ufsc.labsec.signature.Constants;
+import br.ufsc.labsec.signature.JcaProviders;
 import br.ufsc.labsec.signature.SystemTime;
 import br.ufsc.labsec.signature.Verifier;
 import br.ufsc.labsec.signature.conformanceVerifier.cms.exceptions.SignatureNotICPBrException;
@@ -11,10 +12,8 @@ import br.ufsc.labsec.signature.conformanceVerifier.validationService.Validation
 import br.ufsc.labsec.signature.conformanceVerifier.xades.attributes.signed.SignaturePolicyIdentifier;
 import br.ufsc.labsec.signature.exceptions.AIAException;
 import br.ufsc.labsec.signature.exceptions.VerificationException;
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
 
 import java.io.*;
-import java.security.Security;
 import java.security.cert.CertPath;
 import java.security.cert.TrustAnchor;
 import java.security.cert.X509Certificate;
@@ -140,7 +139,7 @@ public class XmlVerifier implements Verifier {
      */
     @Override
     public Report report(byte[] target, byte[] signedContent, Report.ReportType type) throws VerificationException {
-        Security.addProvider(new BouncyCastleProvider());
+        JcaProviders.install();
         this.createReport();
         this.selectTarget(target, signedContent);
 
@@ -1,8 +1,12 @@
 package br.ufsc.labsec.signature.repository.PKCS12IdentityService;
 
 import br.ufsc.labsec.component.Application;
+import br.ufsc.labsec.signature.JcaProviders;
 import br.ufsc.labsec.signature.RevocationInformation;
 import br.ufsc.labsec.signature.SystemTime;
+import br.ufsc.labsec.signature.conformanceVerifier.metrics.Span;
+import br.ufsc.labsec.signature.conformanceVerifier.metrics.VerificationMetrics;
+import br.ufsc.labsec.signature.repository.http.HttpFetcher;
 import org.bouncycastle.asn1.DERIA5String;
 import org.bouncycastle.asn1.x509.Extension;
 import org.bouncycastle.asn1.x509.*;
@@ -18,12 +22,11 @@ import javax.naming.directory.InitialDirContext;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.security.cert.Certificate;
 import java.security.cert.*;
@@ -31,6 +34,7 @@ import java.sql.Time;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.stream.Stream;
 
@@ -39,8 +43,7 @@ import static java.lang.Math.abs;
 public class CRLCacheManagement implements RevocationInformation {
 
     private static final String crlFileHeader = "crl-";
-    private static final int maximumTimeout = 3000;  // DOC-ICP-05 v5.4, item 4.9.1.4.2
-    private static Set<Path> cache = new HashSet<>();
+    private static Set<Path> cache = ConcurrentHashMap.newKeySet();
     private static Path tmpDir;
 
     public CRLCacheManagement(String cachePath) {
@@ -78,13 +81,23 @@ public class CRLCacheManagement implements RevocationInformation {
         result.fromWeb = false;
 
         if (result.crl == null || !validPeriod((X509CRL) result.crl, timeReference)) {
+            VerificationMetrics.cacheMiss("crl");
+            Span span = VerificationMetrics.span(VerificationMetrics.CRL_FETCH);
             try {
                 result.crl = getFromWeb((X509Certificate) certificate);
+                if (result.crl == null) {
+                    span.fail();
+                }
             } catch (IOException | CRLException e) {
                 Application.logger.log(Level.SEVERE,
                         "LCR não pode ser obtida da web", e.getMessage());
+                span.fail();
+            } finally {
+                span.close();
             }
             result.fromWeb = true;
+        } else {
+            VerificationMetrics.cacheHit("crl");
         }
 
         if (result.crl == null || !validPeriod((X509CRL) result.crl, timeReference)) {
@@ -112,7 +125,7 @@ public class CRLCacheManagement implements RevocationInformation {
         if (cache.contains(tmpFile)) {
             X509CRL x509CRL;
             try (InputStream is = Files.newInputStream(tmpFile)) {
-                CertificateFactory cf = CertificateFactory.getInstance("X509");
+                CertificateFactory cf = JcaProviders.certificateFactory("X.509");
                 x509CRL = (X509CRL) cf.generateCRL(is);
                 BasicFileAttributes attrs = Files.readAttributes(tmpFile, BasicFileAttributes.class);
                 // Java's `FileTime lastAccessTime()` returns time in GMT+0 Timezone. We need to convert it to
@@ -159,20 +172,36 @@ public class CRLCacheManagement implements RevocationInformation {
             } catch (NamingException e) {
                 Application.logger.log(Level.SEVERE,
                         "Falha na obtenção de CRL através de LDAP", e.getMessage());
+            } catch (IOException e) {
+                Application.logger.log(Level.WARNING,
+                        "Falha no download da CRL. Tentando o próximo ponto de distribuição", e.getMessage());
             }
         }
 
         if (crl != null) {
             Path tmpFile = getTempFilePath(certificate);
-            try (OutputStream os = Files.newOutputStream(tmpFile)) {
-                os.write(crl.getEncoded());
-            }
+            writeAtomically(tmpFile, crl.getEncoded());
             cache.add(tmpFile);
         }
 
         return crl;
     }
 
+    // a concurrent reader must never see a half-written CRL file
+    private static void writeAtomically(Path target, byte[] content) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), ".tmp", null);
+        try {
+            Files.write(temp, content);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
     private List<String> getCrlDistributionPoints(Certificate certificate) {
         List<String> crlUrls = new ArrayList<>();
         X509Certificate cert = (X509Certificate) certificate;
@@ -221,36 +250,13 @@ public class CRLCacheManagement implements RevocationInformation {
 
     private X509CRL downloadCRLFromWeb(String crlURL)
             throws IOException, CertificateException, CRLException {
-        CRL temp;
-
-        URL url = new URL(crlURL);
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.setConnectTimeout(maximumTimeout);
-        int response = connection.getResponseCode();
-
-        // fail if not found or first redirect followed does not work
-        if (response == HttpURLConnection.HTTP_NOT_FOUND) {
+        byte[] content = HttpFetcher.getInstance().getConditional(crlURL);
+        if (content == null) {
             return null;
         }
 
-        if (response >= HttpURLConnection.HTTP_MULT_CHOICE
-                && response <= HttpURLConnection.HTTP_SEE_OTHER) {
-            String newUrl = connection.getHeaderField("Location");
-            connection = (HttpURLConnection) new URL(newUrl).openConnection();
-            connection.setConnectTimeout(maximumTimeout);
-            response = connection.getResponseCode();
-        }
-
-        if (response != HttpURLConnection.HTTP_OK) {
-            return null;
-        }
-
-        try (InputStream download = connection.getInputStream()) {
-            CertificateFactory cf = CertificateFactory.getInstance("X509");
-            temp = cf.generateCRL(download);
-        }
-
-        return (X509CRL) temp;
+        CertificateFactory cf = JcaProviders.certificateFactory("X.509");
+        return (X509CRL) cf.generateCRL(new ByteArrayInputStream(content));
     }
 
     private X509CRL downloadCRLFromLDAP(String ldapURL)
@@ -268,7 +274,7 @@ public class CRLCacheManagement implements RevocationInformation {
             return null;
         }
         InputStream inStream = new ByteArrayInputStream(val);
-        CertificateFactory cf = CertificateFactory.getInstance("X509");
+        CertificateFactory cf = JcaProviders.certificateFactory("X.509");
         return (X509CRL) cf.generateCRL(inStream);
     }
 
@@ -0,0 +1,106 @@
+package br.ufsc.labsec.signature.repository.bundle;
+
+import br.ufsc.labsec.signature.CertificateCollection;
+import br.ufsc.labsec.signature.exceptions.CertificateCollectionException;
+
+import java.security.GeneralSecurityException;
+import java.security.cert.CertSelector;
+import java.security.cert.Certificate;
+import java.security.cert.X509CertSelector;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Coleção de certificados somente leitura respaldada por um pacote de validação
+ */
+public class BundleCertificateCollection implements CertificateCollection {
+
+    private final ValidationBundleRepository repository;
+
+    /**
+     * Construtor
+     * @param repository Componente que fornece o pacote
+     */
+    public BundleCertificateCollection(ValidationBundleRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Encontra um certificado no pacote a partir de um seletor. Seletores por
+     * identificador de chave ou por titular usam o índice do pacote, os demais
+     * percorrem todos os certificados.
+     * @param certSelector Seletor de certificado
+     * @return Certificado encontrado, com valor nulo caso não esteja presente
+     */
+    @Override
+    public Certificate getCertificate(CertSelector certSelector) {
+        ValidationBundle bundle = this.repository.getBundle();
+        if (bundle.isEmpty()) {
+            return null;
+        }
+        List<X509Certificate> candidates = null;
+        if (certSelector instanceof X509CertSelector) {
+            X509CertSelector selector = (X509CertSelector) certSelector;
+            byte[] keyIdentifier = selector.getSubjectKeyIdentifier();
+            if (keyIdentifier != null) {
+                keyIdentifier = ValidationBundle.unwrapKeyIdentifier(keyIdentifier);
+            }
+            if (keyIdentifier != null) {
+                candidates = bundle.getCertificatesByKeyIdentifier(keyIdentifier);
+            } else if (selector.getSubject() != null) {
+                candidates = bundle.getCertificatesBySubject(selector.getSubject());
+            }
+        }
+        if (candidates == null) {
+            candidates = bundle.getCertificates();
+        }
+        for (X509Certificate certificate : candidates) {
+            if (certSelector.match(certificate)) {
+                return certificate;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public List<Certificate> getCertificateList() {
+        return new ArrayList<>(this.repository.getBundle().getCertificates());
+    }
+
+    /**
+     * Busca o emissor de um certificado pelo nome do emissor, conferindo o
+     * identificador de chave da autoridade e a assinatura do certificado
+     * @param certificate O certificado
+     * @return O certificado do emissor
+     * @throws CertificateCollectionException Exceção caso o emissor não esteja no pacote
+     */
+    @Override
+    public X509Certificate getIssuerCertificate(X509Certificate certificate) throws CertificateCollectionException {
+        byte[] authorityKeyIdentifier = ValidationBundle.authorityKeyIdentifier(certificate);
+        List<X509Certificate> candidates = this.repository.getBundle()
+                .getCertificatesBySubject(certificate.getIssuerX500Principal());
+        for (X509Certificate candidate : candidates) {
+            if (authorityKeyIdentifier != null
+                    && !Arrays.equals(authorityKeyIdentifier, ValidationBundle.subjectKeyIdentifier(candidate))) {
+                continue;
+            }
+            try {
+                certificate.verify(candidate.getPublicKey());
+                return candidate;
+            } catch (GeneralSecurityException e) {
+                // mesmo nome e chave diferente, segue para o próximo candidato
+            }
+        }
+        throw new CertificateCollectionException(CertificateCollectionException.CERTIFICATE_NOT_FOUND);
+    }
+
+    /**
+     * Ignorado, pois o pacote é somente leitura
+     * @param certificates lista de certificados
+     */
+    @Override
+    public void addCertificates(List<X509Certificate> certificates) { }
+
+}
@@ -0,0 +1,66 @@
+package br.ufsc.labsec.signature.repository.bundle;
+
+import br.ufsc.labsec.signature.RevocationInformation;
+import br.ufsc.labsec.signature.conformanceVerifier.metrics.VerificationMetrics;
+
+import java.security.cert.Certificate;
+import java.security.cert.X509CRL;
+import java.security.cert.X509Certificate;
+import java.sql.Time;
+import java.util.List;
+
+/**
+ * Informações de revogação somente leitura respaldadas por um pacote de validação.
+ * O pacote fornece apenas LCRs.
+ */
+public class BundleRevocationInformation implements RevocationInformation {
+
+    private final ValidationBundleRepository repository;
+
+    /**
+     * Construtor
+     * @param repository Componente que fornece o pacote
+     */
+    public BundleRevocationInformation(ValidationBundleRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Retorna a LCR mais recente do emissor do certificado que seja válida no momento dado
+     * @param certificate O certificado
+     * @param timeReference O momento de referência
+     * @return A LCR encontrada, ou nulo caso o pacote não possua uma LCR válida
+     */
+    @Override
+    public CRLResult getCRLFromCertificate(Certificate certificate, Time timeReference) {
+        ValidationBundle bundle = this.repository.getBundle();
+        if (bundle.isEmpty()) {
+            return null;
+        }
+        List<X509CRL> crls = bundle.getCRLs(((X509Certificate) certificate).getIssuerX500Principal());
+        X509CRL selected = null;
+        for (X509CRL crl : crls) {
+            boolean valid = timeReference.after(crl.getThisUpdate())
+                    && (crl.getNextUpdate() == null || timeReference.before(crl.getNextUpdate()));
+            if (valid && (selected == null || crl.getThisUpdate().after(selected.getThisUpdate()))) {
+                selected = crl;
+            }
+        }
+        if (selected == null) {
+            VerificationMetrics.cacheMiss("bundle");
+            return null;
+        }
+        VerificationMetrics.cacheHit("bundle");
+        CRLResult result = new CRLResult();
+        result.crl = selected;
+        result.fromWeb = false;
+        return result;
+    }
+
+    /**
+     * Ignorado, pois o pacote é somente leitura
+     */
+    @Override
+    public void addCrl(List<X509Certificate> certValuesCertificates, List<X509CRL> crlsList) { }
+
+}
@@ -0,0 +1,434 @@
+package br.ufsc.labsec.signature.repository.bundle;
+
+import br.ufsc.labsec.component.Application;
+import br.ufsc.labsec.signature.CertificateInterner;
+import br.ufsc.labsec.signature.JcaProviders;
+import org.bouncycastle.asn1.ASN1OctetString;
+import org.bouncycastle.util.encoders.Hex;
+
+import javax.security.auth.x500.X500Principal;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CRLException;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509CRL;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+
+/**
+ * Visão somente leitura de um pacote de material de validação (âncoras de
+ * confiança, certificados intermediários, LCRs, LPAs e políticas de
+ * assinatura) gerado por {@link ValidationBundleWriter}.
+ *
+ * O arquivo é mapeado em memória e nenhuma entrada é decodificada na
+ * abertura: as buscas usam uma tabela de espalhamento gravada no próprio
+ * arquivo e apenas as entradas encontradas são decodificadas.
+ *
+ * Formato (inteiros em big-endian):
+ * <pre>
+ * cabeçalho   magic (int), versão (int), quantidade de posições (int),
+ *             quantidade de entradas (int), início das entradas (long),
+ *             data de criação (long)
+ * tabela      para cada posição: espalhamento da chave (long), deslocamento
+ *             da entrada (long), com deslocamento 0 indicando posição vazia
+ * entradas    tipo (byte), tamanho (int), conteúdo
+ * </pre>
+ * A tabela usa endereçamento aberto com sondagem linear, e uma mesma
+ * entrada pode ser indexada por várias chaves. O espalhamento de cada
+ * chave são os primeiros 64 bits do seu SHA-256; os resultados de busca
+ * por nome ou identificador ainda são conferidos contra o conteúdo
+ * decodificado.
+ */
+public final class ValidationBundle {
+
+    static final int MAGIC = 0x4C425644;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int SLOT_SIZE = 16;
+    static final int RECORD_HEADER_SIZE = 5;
+
+    /**
+     * Tipos de entrada do pacote. O código 4 era usado por respostas OCSP, que
+     * não são consultadas na validação; entradas com esse código são ignoradas.
+     */
+    public enum EntryType {
+        TRUST_ANCHOR(1), CERTIFICATE(2), CRL(3), LPA(5), POLICY(6), AIA(7);
+
+        final byte code;
+
+        EntryType(int code) {
+            this.code = (byte) code;
+        }
+    }
+
+    /**
+     * Pacote vazio, usado quando nenhum arquivo está disponível
+     */
+    static final ValidationBundle EMPTY = new ValidationBundle(null, ByteBuffer.allocate(0), 0, 0, 0, 0);
+
+    private final Path path;
+    private final ByteBuffer buffer;
+    private final int slotCount;
+    private final int entryCount;
+    private final long recordsOffset;
+    private final long createdAt;
+
+    private ValidationBundle(Path path, ByteBuffer buffer, int slotCount, int entryCount,
+                             long recordsOffset, long createdAt) {
+        this.path = path;
+        this.buffer = buffer;
+        this.slotCount = slotCount;
+        this.entryCount = entryCount;
+        this.recordsOffset = recordsOffset;
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Mapeia em memória o pacote no caminho dado. Apenas o cabeçalho é lido.
+     * @param path Caminho do pacote
+     * @return O pacote aberto
+     * @throws IOException Exceção em caso de erro na leitura ou de formato inválido
+     */
+    public static ValidationBundle open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Tamanho inválido para o pacote de validação " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Formato desconhecido para o pacote de validação " + path);
+            }
+            int slotCount = buffer.getInt(8);
+            int entryCount = buffer.getInt(12);
+            long recordsOffset = buffer.getLong(16);
+            long createdAt = buffer.getLong(24);
+            if (Integer.bitCount(slotCount) != 1
+                    || recordsOffset != HEADER_SIZE + (long) slotCount * SLOT_SIZE || recordsOffset > size) {
+                throw new IOException("Tabela de índices inconsistente no pacote de validação " + path);
+            }
+            return new ValidationBundle(path, buffer, slotCount, entryCount, recordsOffset, createdAt);
+        }
+    }
+
+    /**
+     * Retorna o caminho do arquivo mapeado
+     * @return O caminho, ou nulo para o pacote vazio
+     */
+    public Path getPath() {
+        return this.path;
+    }
+
+    /**
+     * Retorna a quantidade de entradas do pacote
+     * @return A quantidade de entradas
+     */
+    public int getEntryCount() {
+        return this.entryCount;
+    }
+
+    /**
+     * Retorna a data de criação do pacote
+     * @return A data em milissegundos desde a época
+     */
+    public long getCreatedAt() {
+        return this.createdAt;
+    }
+
+    /**
+     * Indica se o pacote não possui entradas
+     * @return Verdadeiro se o pacote está vazio
+     */
+    public boolean isEmpty() {
+        return this.entryCount == 0;
+    }
+
+    /**
+     * Busca as entradas de um tipo indexadas pela chave dada
+     * @param key A chave
+     * @param type O tipo das entradas
+     * @return O conteúdo das entradas encontradas, sem cópia
+     */
+    List<ByteBuffer> find(String key, EntryType type) {
+        List<ByteBuffer> result = new ArrayList<>();
+        if (this.slotCount == 0) {
+            return result;
+        }
+        long hash = hash(key);
+        int mask = this.slotCount - 1;
+        int slot = (int) (hash & mask);
+        for (int probes = 0; probes < this.slotCount; probes++) {
+            int position = HEADER_SIZE + slot * SLOT_SIZE;
+            long offset = this.buffer.getLong(position + 8);
+            if (offset == 0) {
+                break;
+            }
+            if (this.buffer.getLong(position) == hash) {
+                ByteBuffer payload = this.payload(offset);
+                if (payload == null) {
+                    Application.logger.log(Level.WARNING, "Entrada fora dos limites no pacote de validação " + this.path);
+                    break;
+                }
+                if (this.buffer.get((int) offset) == type.code) {
+                    result.add(payload);
+                }
+            }
+            slot = (slot + 1) & mask;
+        }
+        return result;
+    }
+
+    /**
+     * Percorre sequencialmente as entradas de um tipo
+     * @param type O tipo das entradas
+     * @return O conteúdo das entradas, sem cópia
+     */
+    List<ByteBuffer> all(EntryType type) {
+        List<ByteBuffer> result = new ArrayList<>();
+        long offset = this.recordsOffset;
+        long limit = this.buffer.capacity();
+        while (offset + RECORD_HEADER_SIZE <= limit) {
+            ByteBuffer payload = this.payload(offset);
+            if (payload == null) {
+                Application.logger.log(Level.WARNING, "Entrada fora dos limites no pacote de validação " + this.path);
+                break;
+            }
+            if (this.buffer.get((int) offset) == type.code) {
+                result.add(payload);
+            }
+            offset += RECORD_HEADER_SIZE + payload.remaining();
+        }
+        return result;
+    }
+
+    /**
+     * Retorna o conteúdo da entrada no deslocamento dado
+     * @param offset O deslocamento da entrada
+     * @return O conteúdo, sem cópia, ou nulo caso a entrada não esteja
+     * inteiramente dentro da região de entradas do arquivo
+     */
+    private ByteBuffer payload(long offset) {
+        long limit = this.buffer.capacity();
+        if (offset < this.recordsOffset || offset + RECORD_HEADER_SIZE > limit) {
+            return null;
+        }
+        int length = this.buffer.getInt((int) offset + 1);
+        if (length < 0 || offset + RECORD_HEADER_SIZE + length > limit) {
+            return null;
+        }
+        ByteBuffer slice = this.buffer.duplicate();
+        int begin = (int) offset + RECORD_HEADER_SIZE;
+        slice.position(begin).limit(begin + length);
+        return slice.slice();
+    }
+
+    /**
+     * Retorna as âncoras de confiança do pacote
+     * @return A lista de âncoras de confiança
+     */
+    public List<X509Certificate> getTrustAnchors() {
+        return toCertificates(this.all(EntryType.TRUST_ANCHOR));
+    }
+
+    /**
+     * Retorna todos os certificados do pacote, incluindo as âncoras de confiança
+     * @return A lista de certificados
+     */
+    public List<X509Certificate> getCertificates() {
+        List<X509Certificate> certificates = toCertificates(this.all(EntryType.CERTIFICATE));
+        certificates.addAll(this.getTrustAnchors());
+        return certificates;
+    }
+
+    /**
+     * Busca certificados, incluindo âncoras de confiança, pelo nome do titular
+     * @param subject O nome do titular
+     * @return Os certificados cujo titular é o nome dado
+     */
+    public List<X509Certificate> getCertificatesBySubject(X500Principal subject) {
+        String key = subjectKey(subject);
+        List<ByteBuffer> found = this.find(key, EntryType.CERTIFICATE);
+        found.addAll(this.find(key, EntryType.TRUST_ANCHOR));
+        List<X509Certificate> certificates = toCertificates(found);
+        certificates.removeIf(certificate -> !certificate.getSubjectX500Principal().equals(subject));
+        return certificates;
+    }
+
+    /**
+     * Busca certificados, incluindo âncoras de confiança, pelo identificador da chave do titular
+     * @param keyIdentifier O identificador da chave
+     * @return Os certificados com o identificador dado
+     */
+    public List<X509Certificate> getCertificatesByKeyIdentifier(byte[] keyIdentifier) {
+        String key = skiKey(keyIdentifier);
+        List<ByteBuffer> found = this.find(key, EntryType.CERTIFICATE);
+        found.addAll(this.find(key, EntryType.TRUST_ANCHOR));
+        List<X509Certificate> certificates = toCertificates(found);
+        certificates.removeIf(certificate -> !Arrays.equals(keyIdentifier, subjectKeyIdentifier(certificate)));
+        return certificates;
+    }
+
+    /**
+     * Busca as LCRs emitidas pelo emissor dado
+     * @param issuer O nome do emissor
+     * @return As LCRs do emissor
+     */
+    public List<X509CRL> getCRLs(X500Principal issuer) {
+        List<X509CRL> crls = new ArrayList<>();
+        try {
+            CertificateFactory factory = JcaProviders.certificateFactory("X.509");
+            for (ByteBuffer entry : this.find(crlKey(issuer), EntryType.CRL)) {
+                X509CRL crl = (X509CRL) factory.generateCRL(new ByteBufferInputStream(entry));
+                if (crl.getIssuerX500Principal().equals(issuer)) {
+                    crls.add(crl);
+                }
+            }
+        } catch (CertificateException | CRLException e) {
+            Application.logger.log(Level.WARNING, "LCR inválida no pacote de validação " + this.path, e);
+        }
+        return crls;
+    }
+
+    /**
+     * Abre o conteúdo armazenado para uma URL, quando presente no pacote
+     * @param url A URL
+     * @return Um stream sobre o conteúdo, ou nulo caso a URL não esteja no pacote
+     */
+    public InputStream openUrl(String url) {
+        if (url == null || this.isEmpty()) {
+            return null;
+        }
+        String key = urlKey(url);
+        for (EntryType type : EntryType.values()) {
+            List<ByteBuffer> found = this.find(key, type);
+            if (!found.isEmpty()) {
+                return new ByteBufferInputStream(found.get(0));
+            }
+        }
+        return null;
+    }
+
+    private List<X509Certificate> toCertificates(List<ByteBuffer> entries) {
+        List<X509Certificate> certificates = new ArrayList<>();
+        try {
+            for (ByteBuffer entry : entries) {
+                byte[] encoded = new byte[entry.remaining()];
+                entry.duplicate().get(encoded);
+                certificates.add(CertificateInterner.intern(encoded));
+            }
+        } catch (CertificateException e) {
+            Application.logger.log(Level.WARNING, "Certificado inválido no pacote de validação " + this.path, e);
+        }
+        return certificates;
+    }
+
+    static String subjectKey(X500Principal subject) {
+        return "subject:" + subject.getName(X500Principal.CANONICAL);
+    }
+
+    static String skiKey(byte[] keyIdentifier) {
+        return "ski:" + Hex.toHexString(keyIdentifier);
+    }
+
+    static String crlKey(X500Principal issuer) {
+        return "crl:" + issuer.getName(X500Principal.CANONICAL);
+    }
+
+    static String urlKey(String url) {
+        return "url:" + url.trim();
+    }
+
+    /**
+     * Calcula o espalhamento de uma chave, nunca nulo
+     * @param key A chave
+     * @return Os primeiros 64 bits do SHA-256 da chave
+     */
+    static long hash(String key) {
+        byte[] digest = digest("SHA-256", key.getBytes(StandardCharsets.UTF_8));
+        long hash = ByteBuffer.wrap(digest).getLong();
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static byte[] digest(String algorithm, byte[] data) {
+        try {
+            return MessageDigest.getInstance(algorithm).digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Retorna o identificador da chave do titular do certificado
+     * @param certificate O certificado
+     * @return O identificador, ou nulo caso o certificado não possua a extensão
+     */
+    static byte[] subjectKeyIdentifier(X509Certificate certificate) {
+        return CertificateInterner.getSubjectKeyIdentifier(certificate);
+    }
+
+    /**
+     * Retorna o identificador da chave do emissor do certificado
+     * @param certificate O certificado
+     * @return O identificador, ou nulo caso o certificado não possua a extensão
+     */
+    static byte[] authorityKeyIdentifier(X509Certificate certificate) {
+        return CertificateInterner.getAuthorityKeyIdentifier(certificate);
+    }
+
+    /**
+     * Extrai o identificador de chave de um seletor, que o armazena como OCTET STRING codificada
+     * @param encoded O identificador codificado
+     * @return O identificador, ou nulo caso a codificação seja inválida
+     */
+    static byte[] unwrapKeyIdentifier(byte[] encoded) {
+        try {
+            return ASN1OctetString.getInstance(encoded).getOctets();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Stream de leitura sobre uma região do arquivo mapeado
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!this.buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, this.buffer.remaining());
+            this.buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return this.buffer.remaining();
+        }
+    }
+
+}
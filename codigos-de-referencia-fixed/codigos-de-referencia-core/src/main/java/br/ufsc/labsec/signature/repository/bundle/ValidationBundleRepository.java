@@ -0,0 +1,263 @@
+package br.ufsc.labsec.signature.repository.bundle;
+
+import br.ufsc.labsec.component.Application;
+import br.ufsc.labsec.component.Component;
+import br.ufsc.labsec.signature.CertificateCollection;
+import br.ufsc.labsec.signature.RevocationInformation;
+import br.ufsc.labsec.signature.conformanceVerifier.metrics.VerificationMetrics;
+import org.bouncycastle.util.encoders.Hex;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+/**
+ * Componente que fornece material de validação a partir de um pacote
+ * {@link ValidationBundle}, para uso em nós de verificação sem acesso à rede.
+ *
+ * O pacote é mapeado uma única vez por processo e compartilhado entre as
+ * aplicações. A cada {@link #RELOAD_INTERVAL} milissegundos verifica-se se
+ * o arquivo foi substituído; nesse caso o novo pacote é mapeado e passa a
+ * ser usado pelas próximas buscas, enquanto as buscas em andamento
+ * continuam usando o pacote anterior.
+ *
+ * Nenhum pacote é usado por padrão. As âncoras de confiança do pacote só são
+ * aceitas quando o resumo SHA-256 do certificado está entre os resumos fixados
+ * no parâmetro <code>bundleTrustAnchors</code>; as demais são tratadas apenas
+ * como certificados para a construção dos caminhos.
+ */
+public class ValidationBundleRepository extends Component {
+
+    /**
+     * Intervalo mínimo entre as verificações de substituição do arquivo, em milissegundos
+     */
+    public static final long RELOAD_INTERVAL = 5000;
+
+    /**
+     * Pacotes abertos no processo, indexados pelo caminho do arquivo
+     */
+    private static final Map<Path, BundleHolder> bundles = new ConcurrentHashMap<>();
+    /**
+     * Caminho do pacote configurado mais recentemente
+     */
+    private static volatile Path activePath;
+    /**
+     * Resumos SHA-256, em hexadecimal, das âncoras de confiança aceitas do pacote ativo
+     */
+    private static volatile Set<String> pinnedTrustAnchors = Collections.emptySet();
+
+    private BundleCertificateCollection certificateCollection;
+    private BundleRevocationInformation revocationInformation;
+
+    /**
+     * Construtor
+     * @param application Uma aplicação com seus componentes
+     */
+    public ValidationBundleRepository(Application application) {
+        super(application);
+        this.defineRoleProvider(CertificateCollection.class.getName(), this.getCertificateCollection());
+        this.defineRoleProvider(RevocationInformation.class.getName(), this.getRevocationInformation());
+    }
+
+    /**
+     * Retorna a coleção de certificados do pacote
+     * @return A coleção de certificados
+     */
+    public BundleCertificateCollection getCertificateCollection() {
+        if (this.certificateCollection == null) {
+            this.certificateCollection = new BundleCertificateCollection(this);
+        }
+        return this.certificateCollection;
+    }
+
+    /**
+     * Retorna as informações de revogação do pacote
+     * @return As informações de revogação
+     */
+    public BundleRevocationInformation getRevocationInformation() {
+        if (this.revocationInformation == null) {
+            this.revocationInformation = new BundleRevocationInformation(this);
+        }
+        return this.revocationInformation;
+    }
+
+    /**
+     * Retorna o caminho do pacote configurado para o componente
+     * @return O caminho do pacote
+     */
+    public String getBundlePath() {
+        return this.application.getComponentParam(this, "bundlePath");
+    }
+
+    /**
+     * Retorna o pacote atual deste componente
+     * @return O pacote, vazio caso nenhum caminho esteja configurado ou o arquivo não exista
+     */
+    public ValidationBundle getBundle() {
+        Path path = toPath(this.getBundlePath());
+        return path == null ? ValidationBundle.EMPTY : getBundle(path);
+    }
+
+    /**
+     * Torna o pacote deste componente o pacote ativo do processo, consultado pelas
+     * buscas de âncoras de confiança, LPAs, políticas e cadeias de AIA
+     */
+    @Override
+    public void startOperation() {
+        Set<String> pinned = new HashSet<>();
+        String digests = this.application.getComponentParam(this, "bundleTrustAnchors");
+        if (digests != null) {
+            for (String digest : digests.split("[,\\s]+")) {
+                if (!digest.isEmpty()) {
+                    pinned.add(digest.toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        pinnedTrustAnchors = Collections.unmodifiableSet(pinned);
+        activePath = toPath(this.getBundlePath());
+    }
+
+    private static Path toPath(String bundlePath) {
+        return bundlePath == null || bundlePath.trim().isEmpty() ? null : Paths.get(bundlePath.trim());
+    }
+
+    @Override
+    public void clear() {
+        this.certificateCollection = null;
+        this.revocationInformation = null;
+    }
+
+    /**
+     * Retorna o pacote no caminho dado, mapeando-o novamente caso o arquivo tenha sido substituído
+     * @param path O caminho do pacote
+     * @return O pacote, vazio caso o arquivo não exista ou seja inválido
+     */
+    public static ValidationBundle getBundle(Path path) {
+        return bundles.computeIfAbsent(path, BundleHolder::new).current();
+    }
+
+    /**
+     * Retorna o pacote ativo do processo
+     * @return O pacote ativo, vazio caso nenhum pacote tenha sido configurado
+     */
+    public static ValidationBundle getActiveBundle() {
+        Path path = activePath;
+        return path == null ? ValidationBundle.EMPTY : getBundle(path);
+    }
+
+    /**
+     * Retorna as âncoras de confiança do pacote ativo cujo resumo foi fixado na
+     * configuração. As demais são descartadas, pois o arquivo do pacote não é
+     * assinado.
+     * @return As âncoras de confiança fixadas
+     */
+    public static List<X509Certificate> getPinnedTrustAnchors() {
+        Set<String> pinned = pinnedTrustAnchors;
+        List<X509Certificate> anchors = new ArrayList<>();
+        for (X509Certificate anchor : getActiveBundle().getTrustAnchors()) {
+            String digest;
+            try {
+                digest = Hex.toHexString(MessageDigest.getInstance("SHA-256").digest(anchor.getEncoded()));
+            } catch (CertificateEncodingException | NoSuchAlgorithmException e) {
+                continue;
+            }
+            if (pinned.contains(digest)) {
+                anchors.add(anchor);
+            } else {
+                VerificationMetrics.increment("bundle.trustanchor.unpinned");
+                Application.logger.log(Level.WARNING, "Âncora de confiança não fixada ignorada no pacote de validação: "
+                        + anchor.getSubjectX500Principal());
+            }
+        }
+        return anchors;
+    }
+
+    /**
+     * Busca no pacote ativo o conteúdo de uma URL, evitando o acesso à rede
+     * @param url A URL
+     * @return O conteúdo, ou nulo caso a URL não esteja no pacote ativo
+     */
+    public static InputStream openUrl(String url) {
+        ValidationBundle bundle = getActiveBundle();
+        if (bundle.isEmpty()) {
+            return null;
+        }
+        InputStream stream = bundle.openUrl(url);
+        if (stream != null) {
+            VerificationMetrics.cacheHit("bundle");
+        } else {
+            VerificationMetrics.cacheMiss("bundle");
+        }
+        return stream;
+    }
+
+    /**
+     * Mantém o pacote mapeado de um caminho e a identificação do arquivo que o originou
+     */
+    private static final class BundleHolder {
+        private final Path path;
+        private volatile ValidationBundle bundle;
+        private volatile Object fileKey;
+        private volatile long lastModified;
+        private volatile long lastCheck;
+
+        BundleHolder(Path path) {
+            this.path = path;
+            this.bundle = ValidationBundle.EMPTY;
+            this.lastCheck = 0;
+        }
+
+        ValidationBundle current() {
+            long now = System.currentTimeMillis();
+            if (now - this.lastCheck >= RELOAD_INTERVAL) {
+                this.reload(now);
+            }
+            return this.bundle;
+        }
+
+        private synchronized void reload(long now) {
+            if (now - this.lastCheck < RELOAD_INTERVAL) {
+                return;
+            }
+            this.lastCheck = now;
+            if (!Files.isRegularFile(this.path)) {
+                this.bundle = ValidationBundle.EMPTY;
+                this.fileKey = null;
+                return;
+            }
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(this.path, BasicFileAttributes.class);
+                long modified = attributes.lastModifiedTime().toMillis();
+                if (this.bundle != ValidationBundle.EMPTY && Objects.equals(attributes.fileKey(), this.fileKey)
+                        && modified == this.lastModified) {
+                    return;
+                }
+                this.bundle = ValidationBundle.open(this.path);
+                this.fileKey = attributes.fileKey();
+                this.lastModified = modified;
+                Application.logger.log(Level.INFO, "Pacote de validação carregado de " + this.path
+                        + " com " + this.bundle.getEntryCount() + " entradas");
+            } catch (IOException e) {
+                Application.logger.log(Level.WARNING, "Não foi possível carregar o pacote de validação " + this.path, e);
+            }
+        }
+    }
+
+}
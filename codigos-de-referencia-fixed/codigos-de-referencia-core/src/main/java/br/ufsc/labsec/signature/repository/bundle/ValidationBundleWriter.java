@@ -0,0 +1,294 @@
+package br.ufsc.labsec.signature.repository.bundle;
+
+import br.ufsc.labsec.signature.repository.bundle.ValidationBundle.EntryType;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.CRLException;
+import java.security.cert.X509CRL;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Gera pacotes de material de validação no formato lido por {@link ValidationBundle}.
+ *
+ * O pacote é escrito em um arquivo temporário no mesmo diretório do destino
+ * e depois renomeado, de modo que um verificador em execução nunca observe
+ * um pacote parcialmente escrito.
+ *
+ * Uso pela linha de comando:
+ *      {@code java ValidationBundleWriter <pacote de saída> <diretório de entrada>}
+ *
+ * O diretório de entrada pode conter os subdiretórios {@code trust-anchors},
+ * {@code certificates}, {@code crls}, {@code lpa}, {@code policies}
+ * e {@code aia}, além de um arquivo {@code urls.properties} que associa o
+ * caminho relativo de cada arquivo às URLs de onde ele seria obtido, separadas
+ * por vírgula. LPAs, políticas e cadeias de AIA só são encontradas pela URL.
+ */
+public class ValidationBundleWriter {
+
+    /**
+     * Entrada a ser gravada, com as chaves que a indexam
+     */
+    private static final class Entry {
+        private final EntryType type;
+        private final byte[] content;
+        private final Set<String> keys;
+
+        Entry(EntryType type, byte[] content) {
+            this.type = type;
+            this.content = content;
+            this.keys = new LinkedHashSet<>();
+        }
+    }
+
+    private final List<Entry> entries;
+
+    /**
+     * Construtor
+     */
+    public ValidationBundleWriter() {
+        this.entries = new ArrayList<>();
+    }
+
+    /**
+     * Adiciona uma âncora de confiança
+     * @param certificate O certificado da âncora
+     * @param urls URLs de onde a âncora seria obtida
+     * @return Esta instância
+     * @throws CertificateEncodingException Exceção em caso de erro na codificação do certificado
+     */
+    public ValidationBundleWriter addTrustAnchor(X509Certificate certificate, String... urls)
+            throws CertificateEncodingException {
+        return this.addCertificate(EntryType.TRUST_ANCHOR, certificate, urls);
+    }
+
+    /**
+     * Adiciona um certificado intermediário
+     * @param certificate O certificado
+     * @param urls URLs de onde o certificado seria obtido
+     * @return Esta instância
+     * @throws CertificateEncodingException Exceção em caso de erro na codificação do certificado
+     */
+    public ValidationBundleWriter addCertificate(X509Certificate certificate, String... urls)
+            throws CertificateEncodingException {
+        return this.addCertificate(EntryType.CERTIFICATE, certificate, urls);
+    }
+
+    private ValidationBundleWriter addCertificate(EntryType type, X509Certificate certificate, String... urls)
+            throws CertificateEncodingException {
+        Entry entry = new Entry(type, certificate.getEncoded());
+        entry.keys.add(ValidationBundle.subjectKey(certificate.getSubjectX500Principal()));
+        byte[] keyIdentifier = ValidationBundle.subjectKeyIdentifier(certificate);
+        if (keyIdentifier != null) {
+            entry.keys.add(ValidationBundle.skiKey(keyIdentifier));
+        }
+        return this.add(entry, urls);
+    }
+
+    /**
+     * Adiciona uma LCR
+     * @param crl A LCR
+     * @param urls Pontos de distribuição de onde a LCR seria obtida
+     * @return Esta instância
+     * @throws CRLException Exceção em caso de erro na codificação da LCR
+     */
+    public ValidationBundleWriter addCrl(X509CRL crl, String... urls) throws CRLException {
+        Entry entry = new Entry(EntryType.CRL, crl.getEncoded());
+        entry.keys.add(ValidationBundle.crlKey(crl.getIssuerX500Principal()));
+        return this.add(entry, urls);
+    }
+
+    /**
+     * Adiciona o conteúdo obtido de uma URL, como uma LPA, uma política de assinatura
+     * ou a cadeia publicada no AIA de um certificado
+     * @param type O tipo do conteúdo
+     * @param content O conteúdo
+     * @param urls URLs de onde o conteúdo seria obtido
+     * @return Esta instância
+     */
+    public ValidationBundleWriter addUrlContent(EntryType type, byte[] content, String... urls) {
+        return this.add(new Entry(type, content), urls);
+    }
+
+    private ValidationBundleWriter add(Entry entry, String... urls) {
+        for (String url : urls) {
+            entry.keys.add(ValidationBundle.urlKey(url));
+        }
+        this.entries.add(entry);
+        return this;
+    }
+
+    /**
+     * Grava o pacote, substituindo atomicamente o arquivo de destino
+     * @param target O caminho do pacote
+     * @throws IOException Exceção em caso de erro na escrita
+     */
+    public void write(Path target) throws IOException {
+        int keyCount = 0;
+        for (Entry entry : this.entries) {
+            keyCount += entry.keys.size();
+        }
+        int slotCount = 16;
+        while (slotCount < keyCount * 2) {
+            slotCount <<= 1;
+        }
+        long recordsOffset = ValidationBundle.HEADER_SIZE + (long) slotCount * ValidationBundle.SLOT_SIZE;
+
+        long[] slotHashes = new long[slotCount];
+        long[] slotOffsets = new long[slotCount];
+        long offset = recordsOffset;
+        for (Entry entry : this.entries) {
+            for (String key : entry.keys) {
+                long hash = ValidationBundle.hash(key);
+                int slot = (int) (hash & (slotCount - 1));
+                while (slotOffsets[slot] != 0) {
+                    slot = (slot + 1) & (slotCount - 1);
+                }
+                slotHashes[slot] = hash;
+                slotOffsets[slot] = offset;
+            }
+            offset += ValidationBundle.RECORD_HEADER_SIZE + entry.content.length;
+        }
+        if (offset > Integer.MAX_VALUE) {
+            throw new IOException("O pacote de validação excede o tamanho máximo de 2 GB");
+        }
+
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate((int) recordsOffset);
+            header.putInt(ValidationBundle.MAGIC)
+                    .putInt(ValidationBundle.VERSION)
+                    .putInt(slotCount)
+                    .putInt(this.entries.size())
+                    .putLong(recordsOffset)
+                    .putLong(System.currentTimeMillis());
+            for (int i = 0; i < slotCount; i++) {
+                header.putLong(slotHashes[i]).putLong(slotOffsets[i]);
+            }
+            header.flip();
+            writeFully(channel, header);
+            for (Entry entry : this.entries) {
+                ByteBuffer recordHeader = ByteBuffer.allocate(ValidationBundle.RECORD_HEADER_SIZE);
+                recordHeader.put(entry.type.code).putInt(entry.content.length).flip();
+                writeFully(channel, recordHeader);
+                writeFully(channel, ByteBuffer.wrap(entry.content));
+            }
+            channel.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+
+        try {
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Gera um pacote a partir de um diretório de entrada
+     * @param args Caminho do pacote de saída e do diretório de entrada
+     * @throws IOException Exceção em caso de erro na leitura ou escrita dos arquivos
+     * @throws GeneralSecurityException Exceção em caso de certificado ou LCR mal formados
+     */
+    public static void main(String[] args) throws IOException, GeneralSecurityException {
+        if (args.length != 2) {
+            System.err.println("Uso: ValidationBundleWriter <pacote de saída> <diretório de entrada>");
+            System.exit(1);
+        }
+        Path source = Paths.get(args[1]);
+        Properties urls = new Properties();
+        Path urlsFile = source.resolve("urls.properties");
+        if (Files.isRegularFile(urlsFile)) {
+            try (InputStream stream = new FileInputStream(urlsFile.toFile())) {
+                urls.load(stream);
+            }
+        }
+
+        ValidationBundleWriter writer = new ValidationBundleWriter();
+        CertificateFactory factory = CertificateFactory.getInstance("X.509");
+        for (Path file : list(source.resolve("trust-anchors"))) {
+            writer.addTrustAnchor(readCertificate(factory, file), urlsOf(urls, source, file));
+        }
+        for (Path file : list(source.resolve("certificates"))) {
+            writer.addCertificate(readCertificate(factory, file), urlsOf(urls, source, file));
+        }
+        for (Path file : list(source.resolve("crls"))) {
+            try (InputStream stream = Files.newInputStream(file)) {
+                writer.addCrl((X509CRL) factory.generateCRL(stream), urlsOf(urls, source, file));
+            }
+        }
+        if (!list(source.resolve("ocsp")).isEmpty()) {
+            System.err.println("Respostas OCSP não são usadas na validação; o diretório ocsp foi ignorado");
+        }
+        for (Path file : list(source.resolve("lpa"))) {
+            writer.addUrlContent(EntryType.LPA, Files.readAllBytes(file), urlsOf(urls, source, file));
+        }
+        for (Path file : list(source.resolve("policies"))) {
+            writer.addUrlContent(EntryType.POLICY, Files.readAllBytes(file), urlsOf(urls, source, file));
+        }
+        for (Path file : list(source.resolve("aia"))) {
+            writer.addUrlContent(EntryType.AIA, Files.readAllBytes(file), urlsOf(urls, source, file));
+        }
+
+        Path target = Paths.get(args[0]);
+        writer.write(target);
+        System.out.println(writer.entries.size() + " entradas gravadas em " + target);
+    }
+
+    private static List<Path> list(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (Files.isDirectory(directory)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, Files::isRegularFile)) {
+                stream.forEach(files::add);
+            }
+        }
+        files.sort(null);
+        return files;
+    }
+
+    private static X509Certificate readCertificate(CertificateFactory factory, Path file)
+            throws IOException, GeneralSecurityException {
+        try (InputStream stream = Files.newInputStream(file)) {
+            return (X509Certificate) factory.generateCertificate(stream);
+        }
+    }
+
+    private static String[] urlsOf(Properties urls, Path source, Path file) {
+        String value = urls.getProperty(source.relativize(file).toString().replace('\\', '/'));
+        if (value == null || value.trim().isEmpty()) {
+            return new String[0];
+        }
+        return Arrays.stream(value.split(",")).map(String::trim).filter(url -> !url.isEmpty()).toArray(String[]::new);
+    }
+
+}
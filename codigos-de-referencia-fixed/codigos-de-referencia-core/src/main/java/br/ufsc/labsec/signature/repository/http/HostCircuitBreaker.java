@@ -0,0 +1,86 @@
+package br.ufsc.labsec.signature.repository.http;
+
+/**
+ * Disjuntor de um servidor. Após uma sequência de falhas consecutivas o
+ * disjuntor abre e as requisições ao servidor são recusadas sem conexão
+ * até o fim do período de espera; depois disso uma única requisição de
+ * teste é permitida e o seu resultado fecha ou reabre o disjuntor.
+ */
+class HostCircuitBreaker {
+
+    private final int failureThreshold;
+    private final long openInterval;
+
+    private int failures;
+    private long openUntil;
+    private long lastFailure;
+    private boolean probing;
+
+    /**
+     * Construtor
+     * @param failureThreshold Quantidade de falhas consecutivas que abre o disjuntor
+     * @param openInterval Tempo em que o disjuntor permanece aberto, em milissegundos
+     */
+    HostCircuitBreaker(int failureThreshold, long openInterval) {
+        this.failureThreshold = failureThreshold;
+        this.openInterval = openInterval;
+    }
+
+    /**
+     * Indica se uma requisição pode ser feita ao servidor
+     * @param now O instante atual
+     * @return Verdadeiro se a requisição pode ser feita
+     */
+    synchronized boolean allow(long now) {
+        if (this.failures < this.failureThreshold) {
+            return true;
+        }
+        if (now < this.openUntil || this.probing) {
+            return false;
+        }
+        this.probing = true;
+        return true;
+    }
+
+    /**
+     * Registra uma requisição bem-sucedida, fechando o disjuntor
+     */
+    synchronized void success() {
+        this.failures = 0;
+        this.probing = false;
+    }
+
+    /**
+     * Registra uma falha de conexão com o servidor
+     * @param now O instante atual
+     */
+    synchronized void failure(long now) {
+        this.failures++;
+        this.lastFailure = now;
+        this.probing = false;
+        if (this.failures >= this.failureThreshold) {
+            this.openUntil = now + this.openInterval;
+        }
+    }
+
+    /**
+     * Encerra uma requisição permitida por {@link #allow(long)}. Caso a
+     * requisição de teste termine sem registrar sucesso ou falha, como em uma
+     * exceção inesperada, uma nova requisição de teste volta a ser permitida.
+     */
+    synchronized void release() {
+        this.probing = false;
+    }
+
+    /**
+     * Indica se o disjuntor não guarda mais nenhuma informação útil, podendo
+     * ser descartado: não há requisição de teste em andamento e a última falha
+     * ocorreu há mais de um período de espera depois do fechamento previsto
+     * @param now O instante atual
+     * @return Verdadeiro se o disjuntor pode ser descartado
+     */
+    synchronized boolean isStale(long now) {
+        return !this.probing && now >= Math.max(this.openUntil, this.lastFailure) + this.openInterval;
+    }
+
+}
@@ -0,0 +1,419 @@
+package br.ufsc.labsec.signature.repository.http;
+
+import br.ufsc.labsec.signature.conformanceVerifier.metrics.VerificationMetrics;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.conn.SystemDefaultRoutePlanner;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serviço compartilhado de download de LCRs, cadeias de certificados (AIA),
+ * LPAs, políticas de assinatura e âncoras de confiança.
+ *
+ * Usa um único cliente HTTP com conexões persistentes reaproveitadas, tempos
+ * limite de conexão e de leitura, uma quantidade limitada de redirecionamentos
+ * e um limite de conexões simultâneas por servidor. Servidores que falham
+ * seguidamente são suspensos por um disjuntor, e endereços inexistentes
+ * são lembrados por um curto período. Os disjuntores e os endereços
+ * inexistentes são limitados em quantidade, descartando os menos usados, e
+ * expiram quando deixam de ter efeito. Downloads condicionais guardam o
+ * ETag e a data de modificação do conteúdo, que é reaproveitado quando o
+ * servidor responde que ele não mudou.
+ *
+ * Endereços que não sejam HTTP, como FTP, são obtidos por {@link URLConnection}
+ * com os mesmos tempos limite.
+ */
+public final class HttpFetcher {
+
+    /**
+     * Tempo limite de conexão, em milissegundos
+     */
+    public static final int CONNECT_TIMEOUT = 3000;  // DOC-ICP-05 v5.4, item 4.9.1.4.2
+    /**
+     * Tempo limite de leitura, em milissegundos
+     */
+    public static final int READ_TIMEOUT = 10000;
+    /**
+     * Quantidade máxima de redirecionamentos seguidos
+     */
+    public static final int MAX_REDIRECTS = 5;
+    /**
+     * Quantidade máxima de conexões simultâneas por servidor
+     */
+    public static final int MAX_CONNECTIONS_PER_HOST = 4;
+
+    private static final int MAX_CONNECTIONS = 32;
+    /**
+     * Tempo máximo de espera por uma conexão livre do servidor
+     */
+    private static final int POOL_TIMEOUT = 10000;
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final long OPEN_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+    private static final long NOT_FOUND_INTERVAL = TimeUnit.SECONDS.toMillis(60);
+    /**
+     * Quantidade máxima de servidores com disjuntor
+     */
+    private static final int MAX_BREAKERS = 256;
+    /**
+     * Quantidade máxima de endereços inexistentes lembrados
+     */
+    private static final int MAX_NOT_FOUND = 1024;
+    /**
+     * Quantidade máxima de bytes guardados para downloads condicionais
+     */
+    private static final long MAX_CONDITIONAL_BYTES = 64L * 1024 * 1024;
+
+    private static final HttpFetcher instance = new HttpFetcher();
+
+    private final CloseableHttpClient client;
+    private final Map<String, HostCircuitBreaker> breakers = new LinkedHashMap<String, HostCircuitBreaker>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, HostCircuitBreaker> eldest) {
+            return this.size() > MAX_BREAKERS || eldest.getValue().isStale(System.currentTimeMillis());
+        }
+    };
+    private final Map<String, Long> notFound = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return this.size() > MAX_NOT_FOUND || eldest.getValue() <= System.currentTimeMillis();
+        }
+    };
+    private final Map<String, ConditionalEntry> conditional = new LinkedHashMap<>(16, 0.75f, true);
+    private long conditionalBytes;
+
+    private HttpFetcher() {
+        PoolingHttpClientConnectionManager manager = new PoolingHttpClientConnectionManager();
+        manager.setMaxTotal(MAX_CONNECTIONS);
+        manager.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_HOST);
+        manager.setDefaultSocketConfig(SocketConfig.custom().setSoTimeout(READ_TIMEOUT).build());
+
+        RequestConfig config = RequestConfig.custom()
+                .setConnectTimeout(CONNECT_TIMEOUT)
+                .setSocketTimeout(READ_TIMEOUT)
+                .setConnectionRequestTimeout(POOL_TIMEOUT)
+                .setRedirectsEnabled(true)
+                .setMaxRedirects(MAX_REDIRECTS)
+                .setCircularRedirectsAllowed(false)
+                .build();
+
+        this.client = HttpClients.custom()
+                .setConnectionManager(manager)
+                .setDefaultRequestConfig(config)
+                .setRoutePlanner(new SystemDefaultRoutePlanner(ProxySelector.getDefault()))
+                .setRetryHandler(new DefaultHttpRequestRetryHandler(1, false))
+                .disableCookieManagement()
+                .evictExpiredConnections()
+                .evictIdleConnections(30, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * Retorna a instância do processo
+     * @return O serviço de download
+     */
+    public static HttpFetcher getInstance() {
+        return instance;
+    }
+
+    /**
+     * Realiza o download do conteúdo de um endereço
+     * @param url O endereço
+     * @return O conteúdo obtido, ou nulo caso o endereço não exista
+     * @throws IOException Exceção em caso de erro na conexão, resposta inesperada
+     * do servidor ou servidor suspenso pelo disjuntor
+     */
+    public byte[] get(String url) throws IOException {
+        Validated response = this.fetch(url, null, null);
+        return response == null ? null : response.content;
+    }
+
+    /**
+     * Realiza o download condicional do conteúdo de um endereço. Caso o conteúdo
+     * já tenha sido obtido e o servidor informe que ele não mudou, o conteúdo
+     * anterior é retornado. O array retornado é compartilhado e não deve ser alterado.
+     * @param url O endereço
+     * @return O conteúdo obtido, ou nulo caso o endereço não exista
+     * @throws IOException Exceção em caso de erro na conexão, resposta inesperada
+     * do servidor ou servidor suspenso pelo disjuntor
+     */
+    public byte[] getConditional(String url) throws IOException {
+        ConditionalEntry cached = this.getConditionalEntry(url);
+        Validated response = cached == null ? this.fetch(url, null, null)
+                : this.fetch(url, cached.etag, cached.lastModified);
+        if (response == null) {
+            return null;
+        }
+        if (response.isNotModified()) {
+            VerificationMetrics.cacheHit("http.conditional");
+            return cached.content;
+        }
+        VerificationMetrics.cacheMiss("http.conditional");
+        this.putConditionalEntry(url, response.etag, response.lastModified, response.content);
+        return response.content;
+    }
+
+    /**
+     * Realiza o download condicional do conteúdo de um endereço com os
+     * validadores guardados por quem chama, sem usar os guardados por este
+     * serviço. Usado pelas caches que mantêm o conteúdo e os seus validadores
+     * por conta própria.
+     * @param url O endereço
+     * @param etag O ETag do conteúdo guardado, ou nulo
+     * @param lastModified A data de modificação do conteúdo guardado, ou nulo
+     * @return A resposta, que indica se o conteúdo guardado continua válido, ou
+     * nulo caso o endereço não exista
+     * @throws IOException Exceção em caso de erro na conexão, resposta inesperada
+     * do servidor ou servidor suspenso pelo disjuntor
+     */
+    public Validated getValidated(String url, String etag, String lastModified) throws IOException {
+        return this.fetch(url, etag, lastModified);
+    }
+
+    private Validated fetch(String url, String etag, String lastModified) throws IOException {
+        URI uri;
+        try {
+            uri = new URL(url).toURI();
+        } catch (URISyntaxException e) {
+            throw new MalformedURLException(e.getMessage());
+        }
+        String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+        if (!scheme.equals("http") && !scheme.equals("https")) {
+            return new Validated(fetchWithUrlConnection(url), null, null);
+        }
+
+        long now = System.currentTimeMillis();
+        if (this.isNotFound(url, now)) {
+            VerificationMetrics.cacheHit("http.notfound");
+            return null;
+        }
+
+        String host = uri.getHost() == null ? "" : uri.getHost().toLowerCase(Locale.ROOT);
+        if (uri.getPort() != -1) {
+            host += ":" + uri.getPort();
+        }
+        HostCircuitBreaker breaker = this.getBreaker(host, now);
+        if (!breaker.allow(now)) {
+            VerificationMetrics.incrementForHost("http.circuit.rejected", host);
+            throw new IOException("O servidor " + host + " está indisponível. Nova tentativa após "
+                    + TimeUnit.MILLISECONDS.toSeconds(OPEN_INTERVAL) + " segundos");
+        }
+        try {
+            return this.fetch(url, uri, breaker, etag, lastModified, now);
+        } finally {
+            breaker.release();
+        }
+    }
+
+    private Validated fetch(String url, URI uri, HostCircuitBreaker breaker, String etag, String lastModified,
+                            long now) throws IOException {
+        HttpGet request = new HttpGet(uri);
+        if (etag != null) {
+            request.setHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        }
+        if (lastModified != null) {
+            request.setHeader(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+        }
+
+        CloseableHttpResponse response;
+        try {
+            response = this.client.execute(request);
+        } catch (IOException e) {
+            breaker.failure(System.currentTimeMillis());
+            throw e;
+        }
+
+        try (response) {
+            int status = response.getStatusLine().getStatusCode();
+            HttpEntity entity = response.getEntity();
+            if (status != HttpStatus.SC_OK) {
+                EntityUtils.consumeQuietly(entity);
+            }
+
+            if (status >= HttpStatus.SC_INTERNAL_SERVER_ERROR) {
+                breaker.failure(System.currentTimeMillis());
+            } else {
+                breaker.success();
+            }
+            if (status == HttpStatus.SC_NOT_MODIFIED && (etag != null || lastModified != null)) {
+                return new Validated(null, headerValue(response.getFirstHeader(HttpHeaders.ETAG), etag),
+                        headerValue(response.getFirstHeader(HttpHeaders.LAST_MODIFIED), lastModified));
+            }
+            if (status == HttpStatus.SC_NOT_FOUND || status == HttpStatus.SC_GONE) {
+                this.markNotFound(url, now + NOT_FOUND_INTERVAL);
+                return null;
+            }
+            if (status != HttpStatus.SC_OK) {
+                throw new IOException("Não foi possível realizar o download de " + url
+                        + ". Código retornado na conexão: " + status);
+            }
+
+            byte[] content;
+            try {
+                content = entity == null ? new byte[0] : EntityUtils.toByteArray(entity);
+            } catch (IOException e) {
+                breaker.failure(System.currentTimeMillis());
+                throw e;
+            }
+            VerificationMetrics.bytesDownloaded(url, content.length);
+            return new Validated(content, headerValue(response.getFirstHeader(HttpHeaders.ETAG), null),
+                    headerValue(response.getFirstHeader(HttpHeaders.LAST_MODIFIED), null));
+        }
+    }
+
+    private static String headerValue(Header header, String defaultValue) {
+        return header == null ? defaultValue : header.getValue();
+    }
+
+    private static byte[] fetchWithUrlConnection(String url) throws IOException {
+        URLConnection connection = new URL(url).openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT);
+        connection.setReadTimeout(READ_TIMEOUT);
+        try (InputStream input = connection.getInputStream()) {
+            byte[] content = IOUtils.toByteArray(input);
+            VerificationMetrics.bytesDownloaded(url, content.length);
+            return content;
+        }
+    }
+
+    private boolean isNotFound(String url, long now) {
+        synchronized (this.notFound) {
+            Long until = this.notFound.get(url);
+            if (until != null && now >= until) {
+                this.notFound.remove(url);
+                return false;
+            }
+            return until != null;
+        }
+    }
+
+    private void markNotFound(String url, long until) {
+        synchronized (this.notFound) {
+            this.notFound.put(url, until);
+        }
+    }
+
+    private HostCircuitBreaker getBreaker(String host, long now) {
+        synchronized (this.breakers) {
+            HostCircuitBreaker breaker = this.breakers.get(host);
+            if (breaker == null || breaker.isStale(now)) {
+                breaker = new HostCircuitBreaker(FAILURE_THRESHOLD, OPEN_INTERVAL);
+                this.breakers.put(host, breaker);
+            }
+            return breaker;
+        }
+    }
+
+    private synchronized ConditionalEntry getConditionalEntry(String url) {
+        return this.conditional.get(url);
+    }
+
+    private synchronized void putConditionalEntry(String url, String etag, String lastModified, byte[] content) {
+        ConditionalEntry previous = this.conditional.remove(url);
+        if (previous != null) {
+            this.conditionalBytes -= previous.content.length;
+        }
+        if ((etag == null && lastModified == null) || content.length > MAX_CONDITIONAL_BYTES) {
+            return;
+        }
+        this.conditional.put(url, new ConditionalEntry(etag, lastModified, content));
+        this.conditionalBytes += content.length;
+
+        Iterator<ConditionalEntry> eldest = this.conditional.values().iterator();
+        while (this.conditionalBytes > MAX_CONDITIONAL_BYTES && eldest.hasNext()) {
+            this.conditionalBytes -= eldest.next().content.length;
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Conteúdo obtido anteriormente e os validadores informados pelo servidor
+     */
+    private static final class ConditionalEntry {
+
+        private final String etag;
+        private final String lastModified;
+        private final byte[] content;
+
+        private ConditionalEntry(String etag, String lastModified, byte[] content) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.content = content;
+        }
+
+    }
+
+    /**
+     * Resposta de um download condicional com os validadores informados pelo servidor
+     */
+    public static final class Validated {
+
+        private final byte[] content;
+        private final String etag;
+        private final String lastModified;
+
+        private Validated(byte[] content, String etag, String lastModified) {
+            this.content = content;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * Indica se o servidor respondeu que o conteúdo guardado não mudou
+         * @return Verdadeiro caso o conteúdo guardado continue válido
+         */
+        public boolean isNotModified() {
+            return this.content == null;
+        }
+
+        /**
+         * Retorna o conteúdo obtido
+         * @return O conteúdo, ou nulo caso não tenha mudado
+         */
+        public byte[] getContent() {
+            return this.content;
+        }
+
+        /**
+         * Retorna o ETag informado pelo servidor
+         * @return O ETag, ou nulo caso não tenha sido informado
+         */
+        public String getEtag() {
+            return this.etag;
+        }
+
+        /**
+         * Retorna a data de modificação informada pelo servidor
+         * @return A data no formato HTTP, ou nula caso não tenha sido informada
+         */
+        public String getLastModified() {
+            return this.lastModified;
+        }
+
+    }
+
+}
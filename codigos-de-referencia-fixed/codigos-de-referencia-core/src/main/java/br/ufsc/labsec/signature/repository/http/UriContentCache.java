@@ -0,0 +1,417 @@
+package br.ufsc.labsec.signature.repository.http;
+
+import br.ufsc.labsec.component.Application;
+import br.ufsc.labsec.signature.PrivateDirectory;
+import br.ufsc.labsec.signature.conformanceVerifier.metrics.VerificationMetrics;
+import org.bouncycastle.util.encoders.Hex;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Cache do conteúdo referenciado por URL em assinaturas XML e XAdES destacadas.
+ *
+ * A assinatura e a verificação de uma assinatura destacada sobre uma URL
+ * obtêm o conteúdo do endereço para calcular o seu resumo. Em lotes sobre o
+ * mesmo documento ou esquema, o servidor remoto passa a ser o gargalo. Esta
+ * cache guarda o conteúdo endereçado pelo seu resumo SHA-256, de modo que
+ * endereços diferentes com o mesmo conteúdo compartilham uma única cópia.
+ * Dentro do tempo de vida configurado o conteúdo é usado sem consultar o
+ * servidor; depois dele, é revalidado por um download condicional com o ETag
+ * e a data de modificação guardados junto ao conteúdo, que é reaproveitado
+ * quando o servidor responde que ele não mudou.
+ *
+ * Com um diretório de armazenamento, o conteúdo obtido também é gravado em
+ * disco: em <code>objects/</code>, com o resumo como nome, e em
+ * <code>urls/</code>, com o resumo do endereço como nome e o resumo do
+ * conteúdo, o endereço e os validadores como texto. Como o conteúdo
+ * armazenado é usado no lugar do conteúdo do endereço, o diretório deve
+ * pertencer ao usuário do processo e ser acessível apenas por ele; diretórios
+ * compartilhados são recusados. O armazenamento pode ser preenchido por
+ * uma execução com acesso à rede ou copiado de outro servidor. No modo
+ * offline, os endereços são resolvidos apenas pela memória e pelo
+ * armazenamento, sem nenhum acesso à rede, e um endereço ausente é um erro.
+ * O resumo do conteúdo lido do disco é sempre conferido.
+ */
+public final class UriContentCache {
+
+    /**
+     * Quantidade padrão de bytes mantidos em memória
+     */
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    /**
+     * Tempo padrão em que um conteúdo é usado sem revalidação, em milissegundos
+     */
+    public static final long DEFAULT_TTL = TimeUnit.MINUTES.toMillis(10);
+
+    private static final String OBJECTS = "objects";
+    private static final String URLS = "urls";
+
+    private static final UriContentCache instance = new UriContentCache();
+
+    /**
+     * Resumo e data da última validação de cada endereço
+     */
+    private final Map<String, UrlEntry> urls = new HashMap<>();
+    /**
+     * Conteúdos indexados pelo resumo, na ordem de acesso
+     */
+    private final Map<String, byte[]> contents = new LinkedHashMap<>(16, 0.75f, true);
+    private long contentBytes;
+    private long maxBytes;
+    private long ttl;
+    private boolean offline;
+    private Path store;
+
+    private UriContentCache() {
+        this.configure(DEFAULT_MAX_BYTES, DEFAULT_TTL, false, null);
+    }
+
+    /**
+     * Retorna a instância do processo
+     * @return A cache de conteúdo referenciado por URL
+     */
+    public static UriContentCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Configura a cache, descartando o conteúdo em memória. O armazenamento
+     * em disco é mantido. Fora do modo offline, um tamanho ou tempo de vida
+     * não positivo desabilita a cache em memória.
+     * @param maxBytes Quantidade máxima de bytes mantidos em memória
+     * @param ttl Tempo em que um conteúdo é usado sem revalidação, em milissegundos
+     * @param offline Indica se os endereços devem ser resolvidos apenas pela
+     *                memória e pelo armazenamento em disco
+     * @param storeDirectory O diretório do armazenamento; nulo ou vazio para não usar o disco
+     */
+    public synchronized void configure(long maxBytes, long ttl, boolean offline, String storeDirectory) {
+        this.maxBytes = maxBytes;
+        this.ttl = ttl;
+        this.offline = offline;
+        this.urls.clear();
+        this.contents.clear();
+        this.contentBytes = 0;
+
+        Path dir = null;
+        if (storeDirectory != null && !storeDirectory.trim().isEmpty()) {
+            dir = Paths.get(storeDirectory.trim());
+            try {
+                PrivateDirectory.prepare(dir);
+                PrivateDirectory.prepare(dir.resolve(OBJECTS));
+                PrivateDirectory.prepare(dir.resolve(URLS));
+            } catch (IOException e) {
+                Application.logger.log(Level.WARNING, "Não foi possível usar o diretório " + storeDirectory
+                        + " para o armazenamento do conteúdo referenciado por URL", e);
+                dir = null;
+            }
+        }
+        this.store = dir;
+    }
+
+    /**
+     * Indica se os endereços são resolvidos sem acesso à rede
+     * @return Verdadeiro no modo offline
+     */
+    public synchronized boolean isOffline() {
+        return this.offline;
+    }
+
+    /**
+     * Obtém o conteúdo de um endereço. O array retornado é compartilhado e não
+     * deve ser alterado.
+     * @param url O endereço
+     * @return O conteúdo
+     * @throws FileNotFoundException Exceção caso o endereço não exista ou, no
+     * modo offline, não esteja no armazenamento
+     * @throws IOException Exceção em caso de erro no download
+     */
+    public byte[] get(String url) throws IOException {
+        long now = System.currentTimeMillis();
+        boolean offline;
+        long ttl;
+        byte[] content;
+        StoredEntry previous;
+        synchronized (this) {
+            offline = this.offline;
+            ttl = this.ttl;
+            content = this.getFresh(url, now, offline);
+            previous = content == null ? this.getStale(url) : null;
+        }
+        if (content != null) {
+            VerificationMetrics.cacheHit("uri");
+            return content;
+        }
+
+        StoredEntry stored = this.readStore(url);
+        if (stored != null && (offline || now - stored.validatedAt < ttl)) {
+            VerificationMetrics.cacheHit("uri.store");
+            synchronized (this) {
+                this.putMemory(url, stored, stored.validatedAt);
+            }
+            return stored.content;
+        }
+        if (offline) {
+            VerificationMetrics.increment("uri.offline.miss");
+            throw new FileNotFoundException("O conteúdo de " + url
+                    + " não está no armazenamento local e o acesso à rede está desabilitado");
+        }
+
+        if (previous == null) {
+            previous = stored;
+        }
+        HttpFetcher.Validated response = previous == null ? HttpFetcher.getInstance().getValidated(url, null, null)
+                : HttpFetcher.getInstance().getValidated(url, previous.etag, previous.lastModified);
+        if (response == null) {
+            synchronized (this) {
+                this.urls.remove(url);
+            }
+            throw new FileNotFoundException("O endereço " + url + " não existe");
+        }
+        StoredEntry current;
+        if (response.isNotModified()) {
+            VerificationMetrics.cacheHit("uri.revalidated");
+            current = new StoredEntry(previous.digest, previous.content, now,
+                    response.getEtag(), response.getLastModified());
+        } else {
+            VerificationMetrics.cacheMiss("uri");
+            content = response.getContent();
+            current = new StoredEntry(Hex.toHexString(sha256().digest(content)), content, now,
+                    response.getEtag(), response.getLastModified());
+        }
+        synchronized (this) {
+            this.putMemory(url, current, now);
+        }
+        this.writeStore(url, current, stored);
+        return current.content;
+    }
+
+    /**
+     * Retorna o conteúdo em memória de um endereço que dispensa revalidação
+     * @param url O endereço
+     * @param now O instante atual, em milissegundos
+     * @param offline Indica se a revalidação está desabilitada
+     * @return O conteúdo, ou nulo caso precise ser obtido novamente
+     */
+    private byte[] getFresh(String url, long now, boolean offline) {
+        UrlEntry entry = this.urls.get(url);
+        if (entry == null) {
+            return null;
+        }
+        byte[] content = this.contents.get(entry.digest);
+        if (content == null) {
+            this.urls.remove(url);
+            return null;
+        }
+        return offline || now - entry.validatedAt < this.ttl ? content : null;
+    }
+
+    /**
+     * Retorna o conteúdo em memória de um endereço que precisa de revalidação,
+     * com os seus validadores
+     * @param url O endereço
+     * @return O conteúdo, ou nulo caso não esteja em memória
+     */
+    private StoredEntry getStale(String url) {
+        UrlEntry entry = this.urls.get(url);
+        byte[] content = entry == null ? null : this.contents.get(entry.digest);
+        return content == null ? null
+                : new StoredEntry(entry.digest, content, entry.validatedAt, entry.etag, entry.lastModified);
+    }
+
+    private void putMemory(String url, StoredEntry entry, long validatedAt) {
+        String digest = entry.digest;
+        byte[] content = entry.content;
+        if (!this.offline && (this.maxBytes <= 0 || this.ttl <= 0)) {
+            return;
+        }
+        if (this.maxBytes > 0 && content.length > this.maxBytes) {
+            this.urls.remove(url);
+            return;
+        }
+        this.urls.put(url, new UrlEntry(digest, validatedAt, entry.etag, entry.lastModified));
+        if (this.contents.put(digest, content) == null) {
+            this.contentBytes += content.length;
+        }
+
+        // conteúdos removidos deixam os endereços que apontam para eles sem
+        // efeito; essas entradas são descartadas na próxima consulta
+        Iterator<byte[]> eldest = this.contents.values().iterator();
+        while (this.maxBytes > 0 && this.contentBytes > this.maxBytes && eldest.hasNext()) {
+            this.contentBytes -= eldest.next().length;
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Lê o conteúdo de um endereço do armazenamento em disco
+     * @param url O endereço
+     * @return O conteúdo armazenado, ou nulo caso não exista, não corresponda
+     * ao endereço ou não corresponda ao seu resumo
+     */
+    private StoredEntry readStore(String url) {
+        Path dir;
+        synchronized (this) {
+            dir = this.store;
+        }
+        if (dir == null) {
+            return null;
+        }
+        Path index = dir.resolve(URLS).resolve(urlName(url));
+        try {
+            if (!Files.isRegularFile(index)) {
+                return null;
+            }
+            List<String> lines = Files.readAllLines(index, StandardCharsets.UTF_8);
+            if (lines.size() < 2 || !lines.get(1).equals(url)) {
+                return null;
+            }
+            String digest = lines.get(0).trim();
+            if (!digest.matches("[0-9a-f]{64}")) {
+                return null;
+            }
+            byte[] content = Files.readAllBytes(dir.resolve(OBJECTS).resolve(digest));
+            if (!digest.equals(Hex.toHexString(sha256().digest(content)))) {
+                Application.logger.log(Level.WARNING, "O conteúdo armazenado de " + url
+                        + " não corresponde ao seu resumo e foi ignorado");
+                return null;
+            }
+            return new StoredEntry(digest, content, Files.getLastModifiedTime(index).toMillis(),
+                    validator(lines, 2), validator(lines, 3));
+        } catch (IOException | IllegalArgumentException e) {
+            Application.logger.log(Level.WARNING, "Não foi possível ler o conteúdo armazenado de " + url, e);
+            return null;
+        }
+    }
+
+    /**
+     * Retorna um validador de uma linha do índice de um endereço
+     * @param lines As linhas do índice
+     * @param line A linha do validador
+     * @return O validador, ou nulo caso não tenha sido informado
+     */
+    private static String validator(List<String> lines, int line) {
+        return lines.size() > line && !lines.get(line).isEmpty() ? lines.get(line) : null;
+    }
+
+    /**
+     * Grava o conteúdo de um endereço e os seus validadores no armazenamento em disco
+     * @param url O endereço
+     * @param entry O conteúdo e os seus validadores
+     * @param previous O conteúdo armazenado anteriormente, ou nulo
+     */
+    private void writeStore(String url, StoredEntry entry, StoredEntry previous) {
+        String digest = entry.digest;
+        byte[] content = entry.content;
+        Path dir;
+        synchronized (this) {
+            dir = this.store;
+        }
+        if (dir == null) {
+            return;
+        }
+        try {
+            Path object = dir.resolve(OBJECTS).resolve(digest);
+            if (!Files.exists(object)) {
+                writeAtomically(object, content);
+            }
+            Path index = dir.resolve(URLS).resolve(urlName(url));
+            if (previous != null && previous.digest.equals(digest) && Objects.equals(previous.etag, entry.etag)
+                    && Objects.equals(previous.lastModified, entry.lastModified)) {
+                Files.setLastModifiedTime(index, FileTime.fromMillis(System.currentTimeMillis()));
+            } else {
+                String text = digest + "\n" + url + "\n" + (entry.etag == null ? "" : entry.etag) + "\n"
+                        + (entry.lastModified == null ? "" : entry.lastModified) + "\n";
+                writeAtomically(index, text.getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            Application.logger.log(Level.WARNING, "Não foi possível armazenar o conteúdo de " + url, e);
+        }
+    }
+
+    private static void writeAtomically(Path target, byte[] content) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), ".tmp", null);
+        try {
+            Files.write(temp, content);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static String urlName(String url) {
+        return Hex.toHexString(sha256().digest(url.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Resumo do conteúdo de um endereço, o instante da sua última validação e
+     * os validadores informados pelo servidor
+     */
+    private static final class UrlEntry {
+
+        private final String digest;
+        private final long validatedAt;
+        private final String etag;
+        private final String lastModified;
+
+        private UrlEntry(String digest, long validatedAt, String etag, String lastModified) {
+            this.digest = digest;
+            this.validatedAt = validatedAt;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+    }
+
+    /**
+     * Conteúdo de um endereço, o instante da sua última validação e os
+     * validadores informados pelo servidor
+     */
+    private static final class StoredEntry {
+
+        private final String digest;
+        private final byte[] content;
+        private final long validatedAt;
+        private final String etag;
+        private final String lastModified;
+
+        private StoredEntry(String digest, byte[] content, long validatedAt, String etag, String lastModified) {
+            this.digest = digest;
+            this.content = content;
+            this.validatedAt = validatedAt;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+    }
+
+}
@@ -25,6 +25,8 @@ import java.io.InputStream;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 
 /**
@@ -120,6 +122,10 @@ public final class StamperComponent extends Component {
      * URL do arquivo a ser assinado em caso de assinatura XML ou XAdES destacada
      */
     private String url;
+    /**
+     * Destino dos arquivos assinados; quando nulo, eles são adicionados à lista da aplicação
+     */
+    private Consumer<SignatureDataWrapper> signatureConsumer;
 
     /**
      * Todos os componentes são criados por uma aplicação. A aplicação está dispónivel
@@ -174,7 +180,8 @@ public final class StamperComponent extends Component {
         this.filename = filename;
         this.policy = signerRequestInformation.getSignaturePolicy();
         this.toBeSigned = createResettableInputStream(signerRequestInformation.getFileToBeSigned());
-        this.password = signerRequestInformation.getCertificatePassword();
+        // requisições com sessão de assinatura não informam a senha, já desbloqueada
+        this.password = Objects.toString(signerRequestInformation.getCertificatePassword(), "");
         this.keyStore = keyStore;
         this.format = format;
         this.suite = suite;
@@ -200,6 +207,17 @@ public final class StamperComponent extends Component {
         this.location = location;
     }
 
+    /**
+     * Define o destino dos arquivos assinados. Com um destino definido, cada
+     * arquivo é entregue assim que é gerado, em vez de ser acumulado na lista
+     * da aplicação até o fim do lote; o destino passa a ser responsável por
+     * fechá-lo.
+     * @param signatureConsumer O destino, ou nulo para voltar a usar a lista da aplicação
+     */
+    public void setSignatureConsumer(Consumer<SignatureDataWrapper> signatureConsumer) {
+        this.signatureConsumer = signatureConsumer;
+    }
+
     /**
      * Apaga as informações da assinatura
      */
@@ -273,7 +291,13 @@ public final class StamperComponent extends Component {
                         dataWrapper = padesSigner.getSignature(filename, toBeSigned, policy);
                     }
             }
-            this.getApplication().getSignatureWrapperList().add(dataWrapper);
+            if (this.signatureConsumer == null) {
+                this.getApplication().getSignatureWrapperList().add(dataWrapper);
+            } else if (dataWrapper != null) {
+                this.signatureConsumer.accept(dataWrapper);
+            } else {
+                throw new SignerException("Não foi possível assinar o arquivo " + this.filename);
+            }
         } catch (KeyStoreException e) {
             Application.loggerInfo.log(Level.WARNING, "Erro ao assinar arquivo : " + e.getMessage());
         }
@@ -86,6 +86,7 @@ public class FrontpageIdentifier implements SignerRequestInformation {
         this.addStringField("sig_pol_servlet");
         this.addStringField("sig_format_servlet");
         this.addStringField("suite_sel");
+        this.addStringField("signing_session");
     }
 
     /**
@@ -97,6 +98,15 @@ public class FrontpageIdentifier implements SignerRequestInformation {
         return this.userPartFields.get("signer_certificate").getInputStream();
     }
 
+    /**
+     * Retorna o identificador da sessão de assinatura, usada no lugar do
+     * certificado e da senha do assinante
+     * @return O identificador, ou nulo caso a requisição não use uma sessão
+     */
+    public String getSigningSession() {
+        return this.userStringFields.get("signing_session");
+    }
+
     /**
      * Retorna o arquivo a ser assinado
      * @return O arquivo a ser assinado
@@ -0,0 +1,85 @@
+package br.ufsc.labsec.signature.signer.ServletStorage;
+
+import br.ufsc.labsec.signature.signer.FileFormat;
+import br.ufsc.labsec.signature.signer.SignerType;
+import jakarta.servlet.http.Part;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Informações de assinatura de um dos arquivos de um lote. O arquivo e o seu
+ * nome vêm da parte da requisição; os demais dados são os da requisição,
+ * comuns a todos os arquivos.
+ */
+public class PartSignerRequestInformation implements SignerRequestInformation {
+
+    /**
+     * Informações comuns a todos os arquivos do lote
+     */
+    private final SignerRequestInformation request;
+    /**
+     * Parte da requisição com o arquivo a ser assinado
+     */
+    private final Part part;
+
+    /**
+     * Construtor
+     * @param request As informações da requisição
+     * @param part A parte com o arquivo a ser assinado
+     */
+    public PartSignerRequestInformation(SignerRequestInformation request, Part part) {
+        this.request = request;
+        this.part = part;
+    }
+
+    @Override
+    public InputStream getFileToBeSigned() throws IOException {
+        return this.part.getInputStream();
+    }
+
+    @Override
+    public String getFilename() {
+        String filename = ServletUtilities.getFileName(this.part);
+        if (filename == null) {
+            return "";
+        }
+        return filename + ServletUtilities.fileExtension(this.getSignaturePolicy());
+    }
+
+    @Override
+    public String getCertificatePassword() {
+        return this.request.getCertificatePassword();
+    }
+
+    @Override
+    public String getXmlUrl() {
+        return this.request.getXmlUrl();
+    }
+
+    @Override
+    public SignerType getSignaturePolicy() {
+        return this.request.getSignaturePolicy();
+    }
+
+    @Override
+    public FileFormat getSignatureFormat() {
+        return this.request.getSignatureFormat();
+    }
+
+    @Override
+    public String getSignatureSuite() {
+        return this.request.getSignatureSuite();
+    }
+
+    @Override
+    public String getPdfReason() {
+        return this.request.getPdfReason();
+    }
+
+    @Override
+    public String getPdfLocation() {
+        return this.request.getPdfLocation();
+    }
+
+}
@@ -50,6 +50,29 @@ public final class ServletUtilities {
         }
     }
 
+    /**
+     * Copia o arquivo em blocos para o {@link OutputStream} dado, fechando ambos
+     * @param out O {@link OutputStream} a ser escrito
+     * @param file O arquivo a ser copiado
+     */
+    public static void writeFile(OutputStream out, InputStream file) {
+        try (InputStream in = file; OutputStream o = out) {
+            IOUtils.copy(in, o);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Retorna o stream da assinatura gerada, que fica no conteúdo destacado
+     * quando a assinatura é destacada
+     * @param dataWrapper O arquivo assinado
+     * @return O stream da assinatura
+     */
+    public static InputStream signatureStream(SignatureDataWrapper dataWrapper) {
+        return dataWrapper.hasDetachedData() ? dataWrapper.det() : dataWrapper.sig();
+    }
+
     /**
      * Preenche a estrutura com os arquivos assinados
      * @param zipOut Mapa que relaciona o nome dos arquivos com seu conteúdo
@@ -58,15 +81,11 @@ public final class ServletUtilities {
     public static void fillZip(ZipOutputStream zipOut, List<SignatureDataWrapper> signatureDataWrappers) {
 
         for (SignatureDataWrapper dataWrapper : signatureDataWrappers) {
-            try {
-                byte[] signature;
-                if (dataWrapper.det() != null) {
-                    signature = IOUtils.toByteArray(dataWrapper.det());
-                } else {
-                    signature = IOUtils.toByteArray(dataWrapper.sig());
-                }
-                prepareToClose(zipOut, dataWrapper.name(), signature);
-            } catch (IOException e) {
+            addToZip(zipOut, dataWrapper.name());
+            try (InputStream signature = signatureStream(dataWrapper)) {
+                IOUtils.copy(signature, zipOut);
+                zipOut.closeEntry();
+            } catch (IOException | UncheckedIOException e) {
                 Application.logger.log(Level.SEVERE,
                         "Não foi possível adicionar o arquivo de assinatura à resposta.", e);
             }
@@ -0,0 +1,159 @@
+package br.ufsc.labsec.signature.signer.ServletStorage;
+
+import br.ufsc.labsec.component.Application;
+import br.ufsc.labsec.signature.SignatureDataWrapper;
+import org.apache.pdfbox.io.IOUtils;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Escreve os arquivos assinados de um lote em um ZIP à medida que são
+ * gerados, de modo que apenas o arquivo em andamento fica na aplicação. Cada
+ * arquivo é fechado assim que copiado para a sua entrada.
+ *
+ * O resultado de cada arquivo do lote, assinado ou com erro, é registrado na
+ * entrada {@link #MANIFEST_NAME}, escrita ao final: uma falha em um arquivo não
+ * impede a entrega dos demais.
+ */
+public class SignatureZipWriter implements Closeable {
+
+    /**
+     * Nome da entrada com o resultado de cada arquivo
+     */
+    public static final String MANIFEST_NAME = "manifest.json";
+
+    private final ZipOutputStream zipOut;
+    private final JSONArray files = new JSONArray();
+    /**
+     * Nomes das entradas já escritas, que não podem se repetir no ZIP
+     */
+    private final Set<String> entries = new HashSet<>();
+
+    /**
+     * Construtor
+     * @param out O stream de destino do ZIP, fechado em {@link #close()}
+     */
+    public SignatureZipWriter(OutputStream out) {
+        this.zipOut = new ZipOutputStream(out);
+        this.entries.add(MANIFEST_NAME);
+    }
+
+    /**
+     * Copia o arquivo assinado para uma nova entrada e o fecha
+     * @param dataWrapper O arquivo assinado
+     */
+    public void add(SignatureDataWrapper dataWrapper) {
+        String name = dataWrapper.name();
+        String entry = this.entryName(name);
+        try (InputStream signature = ServletUtilities.signatureStream(dataWrapper)) {
+            this.zipOut.putNextEntry(new ZipEntry(entry));
+            IOUtils.copy(signature, this.zipOut);
+            this.zipOut.closeEntry();
+            this.files.put(new JSONObject().put("name", name).put("entry", entry).put("status", "signed"));
+        } catch (IOException | UncheckedIOException e) {
+            Application.logger.log(Level.SEVERE,
+                    "Não foi possível adicionar o arquivo de assinatura " + name + " à resposta.", e);
+            this.addError(name, "writeError", e.getMessage());
+        } finally {
+            dataWrapper.close();
+        }
+    }
+
+    /**
+     * Registra um arquivo do lote que não pôde ser assinado
+     * @param name O nome do arquivo
+     * @param error O identificador do erro, o mesmo da resposta de um único arquivo
+     * @param message A mensagem do erro
+     */
+    public void addError(String name, String error, String message) {
+        this.files.put(new JSONObject().put("name", name).put("status", "error").put("error", error)
+                .put("message", String.valueOf(message)));
+    }
+
+    /**
+     * Retorna a quantidade de arquivos registrados no manifesto
+     * @return A quantidade de arquivos assinados ou com erro
+     */
+    public int size() {
+        return this.files.length();
+    }
+
+    /**
+     * Retorna o tratador de erros de assinatura de um arquivo do lote, que
+     * registra o erro no manifesto
+     * @param name O nome do arquivo
+     * @return O tratador de erros
+     */
+    public ServletUtilities.ErrorHandler errorHandler(String name) {
+        return new ServletUtilities.ServletSignatureErrorHandler() {
+            @Override
+            public void handleError() {
+                String code = this.isCertPathError() ? "certPathError"
+                        : this.isMalformedFileError() ? "malformedFile" : "signatureError";
+                SignatureZipWriter.this.addError(name, code, this.error.getMessage());
+            }
+        };
+    }
+
+    /**
+     * Retorna o tratador de erros de algoritmo de um arquivo do lote, que
+     * registra o erro no manifesto com o mesmo identificador da resposta de um
+     * único arquivo
+     * @param name O nome do arquivo
+     * @return O tratador de erros
+     */
+    public ServletUtilities.ErrorHandler algorithmErrorHandler(String name) {
+        return new ServletUtilities.ServletAlgorithmErrorHandler() {
+            @Override
+            public void handleError() {
+                SignatureZipWriter.this.addError(name, "algorithmError", this.error.getMessage());
+            }
+        };
+    }
+
+    /**
+     * Escreve o manifesto e encerra o ZIP
+     * @throws IOException Exceção em caso de erro na escrita
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            this.zipOut.putNextEntry(new ZipEntry(MANIFEST_NAME));
+            this.zipOut.write(new JSONObject().put("files", this.files).toString(4)
+                    .getBytes(StandardCharsets.UTF_8));
+            this.zipOut.closeEntry();
+        } finally {
+            this.zipOut.close();
+        }
+    }
+
+    /**
+     * Retorna um nome de entrada ainda não usado, acrescentando um contador
+     * antes da extensão quando o nome se repete
+     * @param name O nome do arquivo
+     * @return O nome da entrada
+     */
+    private String entryName(String name) {
+        String candidate = name == null || name.isEmpty() ? "assinatura" : name;
+        int dot = candidate.lastIndexOf('.');
+        String base = dot > 0 ? candidate.substring(0, dot) : candidate;
+        String extension = dot > 0 ? candidate.substring(dot) : "";
+        for (int i = 2; !this.entries.add(candidate); i++) {
+            candidate = base + " (" + i + ")" + extension;
+        }
+        return candidate;
+    }
+
+}
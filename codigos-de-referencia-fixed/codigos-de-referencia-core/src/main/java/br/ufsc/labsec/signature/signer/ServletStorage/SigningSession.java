@@ -0,0 +1,246 @@
+package br.ufsc.labsec.signature.signer.ServletStorage;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.KeyStoreSpi;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.UnrecoverableKeyException;
+import java.security.cert.Certificate;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Enumeration;
+
+/**
+ * Sessão de assinatura com o {@link KeyStore} do assinante já desbloqueado.
+ *
+ * A chave privada e a cadeia de certificados são extraídas uma única vez do
+ * PKCS#12 e mantidas em um {@link KeyStore} somente leitura em memória, de modo
+ * que os assinadores obtêm a chave sem repetir a derivação da senha. A chave é
+ * devolvida independentemente da senha informada: o acesso à sessão é
+ * autorizado pelo seu identificador.
+ *
+ * As chaves do JDK não implementam {@link javax.security.auth.Destroyable#destroy()},
+ * por isso a sessão guarda apenas a codificação PKCS#8 da chave, que é zerada
+ * no encerramento, e reconstrói a chave a cada uso. As chaves reconstruídas e as
+ * cópias internas do {@link KeyFactory} continuam na memória até serem
+ * recolhidas pelo coletor de lixo.
+ */
+public final class SigningSession {
+
+    private final String token;
+    private final long expiresAt;
+    private final UnlockedKeyStoreSpi spi;
+    private final KeyStore keyStore;
+
+    /**
+     * Construtor
+     * @param token O identificador da sessão
+     * @param alias O apelido da entrada do assinante
+     * @param privateKey A chave privada do assinante, já desbloqueada
+     * @param chain A cadeia de certificados do assinante
+     * @param expiresAt O instante de expiração, em milissegundos
+     * @throws KeyStoreException Exceção em caso de erro na criação do {@link KeyStore}
+     */
+    SigningSession(String token, String alias, PrivateKey privateKey, Certificate[] chain, long expiresAt)
+            throws KeyStoreException {
+        this.token = token;
+        this.expiresAt = expiresAt;
+        this.spi = new UnlockedKeyStoreSpi(alias, privateKey, chain);
+        this.keyStore = new KeyStore(this.spi, null, "session") { };
+        try {
+            this.keyStore.load(null, null);
+        } catch (Exception e) {
+            throw new KeyStoreException(e);
+        }
+    }
+
+    /**
+     * Retorna o identificador da sessão
+     * @return O identificador
+     */
+    public String getToken() {
+        return this.token;
+    }
+
+    /**
+     * Retorna o instante de expiração da sessão
+     * @return O instante, em milissegundos
+     */
+    public long getExpiresAt() {
+        return this.expiresAt;
+    }
+
+    /**
+     * Indica se a sessão expirou
+     * @param now O instante atual, em milissegundos
+     * @return Verdadeiro se a sessão expirou
+     */
+    boolean isExpired(long now) {
+        return now >= this.expiresAt;
+    }
+
+    /**
+     * Retorna o {@link KeyStore} do assinante, usado no lugar do PKCS#12 enviado
+     * @return O {@link KeyStore}, vazio após a destruição da sessão
+     */
+    public KeyStore getKeyStore() {
+        return this.keyStore;
+    }
+
+    /**
+     * Descarta a chave privada e a cadeia de certificados, zerando a
+     * codificação da chave
+     */
+    void destroy() {
+        this.spi.clear();
+    }
+
+    /**
+     * {@link KeyStoreSpi} somente leitura com uma única entrada de chave já desbloqueada
+     */
+    private static final class UnlockedKeyStoreSpi extends KeyStoreSpi {
+
+        private final String alias;
+        private final Date creationDate = new Date();
+        private final String algorithm;
+        /**
+         * Codificação PKCS#8 da chave, nula após o encerramento
+         */
+        private byte[] encoded;
+        /**
+         * A chave, mantida apenas quando a sua implementação não permite a codificação
+         */
+        private PrivateKey privateKey;
+        private volatile boolean available = true;
+        private volatile Certificate[] chain;
+
+        UnlockedKeyStoreSpi(String alias, PrivateKey privateKey, Certificate[] chain) {
+            this.alias = alias;
+            this.algorithm = privateKey.getAlgorithm();
+            this.encoded = privateKey.getEncoded();
+            this.privateKey = this.encoded == null ? privateKey : null;
+            this.chain = chain;
+        }
+
+        synchronized void clear() {
+            this.available = false;
+            if (this.encoded != null) {
+                Arrays.fill(this.encoded, (byte) 0);
+                this.encoded = null;
+            }
+            this.privateKey = null;
+            this.chain = null;
+        }
+
+        private boolean isEntry(String alias) {
+            return this.available && this.alias.equals(alias);
+        }
+
+        @Override
+        public synchronized Key engineGetKey(String alias, char[] password)
+                throws NoSuchAlgorithmException, UnrecoverableKeyException {
+            if (!this.isEntry(alias)) {
+                return null;
+            }
+            if (this.encoded == null) {
+                return this.privateKey;
+            }
+            try {
+                return KeyFactory.getInstance(this.algorithm).generatePrivate(new PKCS8EncodedKeySpec(this.encoded));
+            } catch (InvalidKeySpecException e) {
+                UnrecoverableKeyException exception = new UnrecoverableKeyException(
+                        "Não foi possível reconstruir a chave da sessão de assinatura");
+                exception.initCause(e);
+                throw exception;
+            }
+        }
+
+        @Override
+        public Certificate[] engineGetCertificateChain(String alias) {
+            Certificate[] chain = this.chain;
+            return this.isEntry(alias) && chain != null ? chain.clone() : null;
+        }
+
+        @Override
+        public Certificate engineGetCertificate(String alias) {
+            Certificate[] chain = this.chain;
+            return this.isEntry(alias) && chain != null && chain.length > 0 ? chain[0] : null;
+        }
+
+        @Override
+        public Date engineGetCreationDate(String alias) {
+            return this.isEntry(alias) ? new Date(this.creationDate.getTime()) : null;
+        }
+
+        @Override
+        public void engineSetKeyEntry(String alias, Key key, char[] password, Certificate[] chain)
+                throws KeyStoreException {
+            throw new KeyStoreException("O KeyStore da sessão de assinatura é somente leitura");
+        }
+
+        @Override
+        public void engineSetKeyEntry(String alias, byte[] key, Certificate[] chain) throws KeyStoreException {
+            throw new KeyStoreException("O KeyStore da sessão de assinatura é somente leitura");
+        }
+
+        @Override
+        public void engineSetCertificateEntry(String alias, Certificate cert) throws KeyStoreException {
+            throw new KeyStoreException("O KeyStore da sessão de assinatura é somente leitura");
+        }
+
+        @Override
+        public void engineDeleteEntry(String alias) throws KeyStoreException {
+            throw new KeyStoreException("O KeyStore da sessão de assinatura é somente leitura");
+        }
+
+        @Override
+        public Enumeration<String> engineAliases() {
+            return Collections.enumeration(this.available
+                    ? Collections.singletonList(this.alias) : Collections.emptyList());
+        }
+
+        @Override
+        public boolean engineContainsAlias(String alias) {
+            return this.isEntry(alias);
+        }
+
+        @Override
+        public int engineSize() {
+            return this.available ? 1 : 0;
+        }
+
+        @Override
+        public boolean engineIsKeyEntry(String alias) {
+            return this.isEntry(alias);
+        }
+
+        @Override
+        public boolean engineIsCertificateEntry(String alias) {
+            return false;
+        }
+
+        @Override
+        public String engineGetCertificateAlias(Certificate cert) {
+            return cert != null && cert.equals(this.engineGetCertificate(this.alias)) ? this.alias : null;
+        }
+
+        @Override
+        public void engineStore(OutputStream stream, char[] password) {
+            throw new UnsupportedOperationException("O KeyStore da sessão de assinatura não pode ser exportado");
+        }
+
+        @Override
+        public void engineLoad(InputStream stream, char[] password) {
+        }
+
+    }
+
+}
@@ -0,0 +1,199 @@
+package br.ufsc.labsec.signature.signer.ServletStorage;
+
+import br.ufsc.labsec.signature.conformanceVerifier.metrics.VerificationMetrics;
+import br.ufsc.labsec.signature.signer.signatureSwitch.SwitchHelper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.SecureRandom;
+import java.security.cert.Certificate;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mantém as sessões de assinatura, nas quais o PKCS#12 do assinante é
+ * desbloqueado uma única vez e usado em várias requisições seguidas através de
+ * um identificador opaco.
+ *
+ * A quantidade de sessões é limitada e cada sessão expira após o tempo de vida
+ * configurado, contado a partir da sua abertura. As sessões expiradas são
+ * destruídas periodicamente, mesmo sem novas requisições, e também podem ser
+ * encerradas explicitamente.
+ */
+public final class SigningSessionManager {
+
+    /**
+     * Quantidade padrão de sessões abertas ao mesmo tempo
+     */
+    public static final int DEFAULT_MAX_SESSIONS = 16;
+    /**
+     * Tempo de vida padrão de uma sessão, em milissegundos
+     */
+    public static final long DEFAULT_TTL = TimeUnit.MINUTES.toMillis(10);
+    /**
+     * Intervalo entre as buscas por sessões expiradas, em milissegundos
+     */
+    private static final long SWEEP_INTERVAL = TimeUnit.SECONDS.toMillis(15);
+    /**
+     * Tamanho do identificador de uma sessão, em bytes
+     */
+    private static final int TOKEN_LENGTH = 32;
+
+    private static final SigningSessionManager instance = new SigningSessionManager();
+
+    private final Map<String, SigningSession> sessions = new HashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final ScheduledExecutorService sweeper;
+    private int maxSessions;
+    private long ttl;
+
+    private SigningSessionManager() {
+        this.configure(DEFAULT_MAX_SESSIONS, DEFAULT_TTL);
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "signing-session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sweeper.scheduleWithFixedDelay(this::purge, SWEEP_INTERVAL, SWEEP_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Retorna a instância do processo
+     * @return O gerenciador de sessões
+     */
+    public static SigningSessionManager getInstance() {
+        return instance;
+    }
+
+    /**
+     * Configura o gerenciador. As sessões já abertas mantêm a sua expiração.
+     * @param maxSessions Quantidade máxima de sessões abertas; zero desabilita as sessões
+     * @param ttl Tempo de vida de uma sessão, em milissegundos
+     */
+    public synchronized void configure(int maxSessions, long ttl) {
+        this.maxSessions = Math.max(0, maxSessions);
+        this.ttl = ttl;
+    }
+
+    /**
+     * Abre uma sessão, desbloqueando o PKCS#12 do assinante. A senha é apagada
+     * do array dado ao final.
+     * @param p12 O PKCS#12 do assinante
+     * @param password A senha do PKCS#12
+     * @return A sessão aberta
+     * @throws IOException Exceção em caso de erro na leitura do PKCS#12 ou de senha incorreta
+     * @throws RejectedExecutionException Exceção caso o limite de sessões tenha sido atingido
+     */
+    public SigningSession open(InputStream p12, char[] password) throws IOException {
+        synchronized (this) {
+            this.purge();
+            if (this.sessions.size() >= this.maxSessions) {
+                VerificationMetrics.increment("signing.session.rejected");
+                throw new RejectedExecutionException("Limite de " + this.maxSessions + " sessões de assinatura atingido");
+            }
+        }
+
+        // a derivação da senha é demorada e é feita fora do bloqueio
+        String alias;
+        PrivateKey privateKey;
+        Certificate[] chain;
+        try {
+            KeyStore p12KeyStore = KeyStore.getInstance("PKCS12");
+            p12KeyStore.load(p12, password);
+            alias = SwitchHelper.getAlias(p12KeyStore);
+            privateKey = alias == null ? null : (PrivateKey) p12KeyStore.getKey(alias, password);
+            chain = alias == null ? null : p12KeyStore.getCertificateChain(alias);
+        } catch (GeneralSecurityException | ClassCastException e) {
+            throw new IOException("Não foi possível desbloquear o PKCS#12 do assinante", e);
+        } finally {
+            Arrays.fill(password, '\0');
+        }
+        if (privateKey == null || chain == null || chain.length == 0) {
+            throw new IOException("O PKCS#12 não contém a chave privada e o certificado do assinante");
+        }
+
+        byte[] bytes = new byte[TOKEN_LENGTH];
+        this.random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        synchronized (this) {
+            SigningSession session;
+            try {
+                session = new SigningSession(token, alias, privateKey, chain, System.currentTimeMillis() + this.ttl);
+            } catch (GeneralSecurityException e) {
+                throw new IOException("Não foi possível criar a sessão de assinatura", e);
+            }
+            if (this.sessions.size() >= this.maxSessions) {
+                session.destroy();
+                VerificationMetrics.increment("signing.session.rejected");
+                throw new RejectedExecutionException("Limite de " + this.maxSessions + " sessões de assinatura atingido");
+            }
+            this.sessions.put(token, session);
+            VerificationMetrics.increment("signing.session.opened");
+            return session;
+        }
+    }
+
+    /**
+     * Retorna uma sessão aberta
+     * @param token O identificador da sessão
+     * @return A sessão, ou nulo caso não exista ou tenha expirado
+     */
+    public synchronized SigningSession get(String token) {
+        if (token == null) {
+            return null;
+        }
+        SigningSession session = this.sessions.get(token);
+        if (session != null && session.isExpired(System.currentTimeMillis())) {
+            this.sessions.remove(token);
+            this.expire(session);
+            return null;
+        }
+        return session;
+    }
+
+    /**
+     * Encerra uma sessão, descartando a chave do assinante
+     * @param token O identificador da sessão
+     * @return Verdadeiro se a sessão existia
+     */
+    public synchronized boolean destroy(String token) {
+        SigningSession session = token == null ? null : this.sessions.remove(token);
+        if (session == null) {
+            return false;
+        }
+        session.destroy();
+        VerificationMetrics.increment("signing.session.destroyed");
+        return true;
+    }
+
+    /**
+     * Destrói as sessões expiradas
+     */
+    private synchronized void purge() {
+        long now = System.currentTimeMillis();
+        Iterator<SigningSession> iterator = this.sessions.values().iterator();
+        while (iterator.hasNext()) {
+            SigningSession session = iterator.next();
+            if (session.isExpired(now)) {
+                iterator.remove();
+                this.expire(session);
+            }
+        }
+    }
+
+    private void expire(SigningSession session) {
+        session.destroy();
+        VerificationMetrics.increment("signing.session.expired");
+    }
+
+}
@@ -3,8 +3,11 @@ package br.ufsc.labsec.signature.signer;
 import br.ufsc.labsec.component.AbstractComponentConfiguration;
 import br.ufsc.labsec.component.Application;
 import br.ufsc.labsec.component.Component;
+import br.ufsc.labsec.signature.JcaProviders;
 import br.ufsc.labsec.signature.SignatureDataWrapper;
+import br.ufsc.labsec.signature.SpooledContent;
 import br.ufsc.labsec.signature.conformanceVerifier.validationService.TrustAnchorComponent;
+import br.ufsc.labsec.signature.repository.http.UriContentCache;
 import br.ufsc.labsec.signature.signer.PolicyStorage.StamperComponent;
 import br.ufsc.labsec.signature.signer.ServletStorage.*;
 import jakarta.servlet.ServletException;
@@ -13,7 +16,6 @@ import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.Part;
-import org.apache.commons.io.input.NullInputStream;
 import org.apache.pdfbox.io.IOUtils;
 import org.json.JSONObject;
 import java.io.IOException;
@@ -22,6 +24,7 @@ import java.io.OutputStream;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.zip.ZipOutputStream;
 import java.security.KeyStore;
@@ -43,9 +46,28 @@ public class SignerServlet extends HttpServlet {
      */
     @Override
     public void init() {
+        JcaProviders.install();
         this.configTrustAnchorComponent(this.getServletContext().getInitParameter("trustAnchorsDirectory"),
                 this.getServletContext().getInitParameter("trustAnchorsURLs"));
         this.configureTimeStampProvider(this.getServletContext().getInitParameter("tsaSSLCertificates"));
+        SpooledContent.configure(this.getServletContext().getInitParameter("uploadMemoryThreshold"),
+                this.getServletContext().getInitParameter("uploadDirectory"));
+        this.configUriContentCache();
+    }
+
+    /**
+     * Configura a cache do conteúdo das URLs assinadas em assinaturas destacadas a
+     * partir dos parâmetros de contexto <code>uriCacheMaxBytes</code>, <code>uriCacheTtl</code>
+     * (em segundos), <code>uriCacheDirectory</code> e <code>uriCacheOffline</code>
+     */
+    private void configUriContentCache() {
+        String maxBytes = this.getServletContext().getInitParameter("uriCacheMaxBytes");
+        String ttl = this.getServletContext().getInitParameter("uriCacheTtl");
+        UriContentCache.getInstance().configure(
+                maxBytes == null ? UriContentCache.DEFAULT_MAX_BYTES : Long.parseLong(maxBytes.trim()),
+                ttl == null ? UriContentCache.DEFAULT_TTL : TimeUnit.SECONDS.toMillis(Long.parseLong(ttl.trim())),
+                Boolean.parseBoolean(this.getServletContext().getInitParameter("uriCacheOffline")),
+                this.getServletContext().getInitParameter("uriCacheDirectory"));
     }
 
     /**
@@ -78,19 +100,34 @@ public class SignerServlet extends HttpServlet {
         Application app = new Application(new ArrayList<SignatureDataWrapper>());
         app.setup();
 
+        try {
+            this.sign(req, resp, app);
+        } finally {
+            // libera os arquivos temporários mesmo quando a assinatura ou a escrita da resposta falham
+            for (SignatureDataWrapper signatureDataWrapper : app.getSignatureWrapperList()) {
+                signatureDataWrapper.close();
+            }
+        }
+    }
+
+    /**
+     * Assina os arquivos enviados na requisição e escreve o resultado na resposta
+     * @param req representa a requisição HTTP
+     * @param resp representa a resposta HTTP
+     * @param app a aplicação da requisição, cujos arquivos de assinatura são liberados por quem a chama
+     * @throws ServletException exceção em caso de erro no retorno das partes da requisição
+     * @throws IOException exceção em caso de erro na extração dos arquivos de assinatura
+     * das partes da requisição
+     */
+    private void sign(HttpServletRequest req, HttpServletResponse resp, Application app) throws ServletException, IOException {
         Component sc = app.getComponent(StamperComponent.class.getName());
 
         FrontpageIdentifier frontpageIdentifier = new FrontpageIdentifier(req);
         frontpageIdentifier.fillFields();
 
-        InputStream p12 = frontpageIdentifier.getSignerCertificate();
-
         Part fileTbsPart = frontpageIdentifier.getFilePart();
         ServletUtilities.isFieldEmpty(req, resp, fileTbsPart.toString());
 
-        KeyStore ks = ServletUtilities.keyStoreInitializer();
-        String passwordString = frontpageIdentifier.getCertificatePassword();
-
         Map<String, Boolean> error = new HashMap<>();
         List<SignatureDataWrapper> signatureDataWrappers = new ArrayList<>();
 
@@ -101,7 +138,30 @@ public class SignerServlet extends HttpServlet {
                 new ServletUtilities.ServletAlgorithmErrorHandler();
 
         try {
-            ServletUtilities.loadKeyStore(Objects.requireNonNull(ks), p12, passwordString.toCharArray());
+            KeyStore ks;
+            String sessionToken = frontpageIdentifier.getSigningSession();
+            if (sessionToken != null && !sessionToken.isEmpty()) {
+                SigningSession session = SigningSessionManager.getInstance().get(sessionToken);
+                if (session == null) {
+                    resp.setCharacterEncoding(UTF8_CHARSET.name());
+                    resp.setContentType("application/json");
+                    resp.getWriter().write(String.valueOf(new JSONObject().put("sessionError", true)));
+                    return;
+                }
+                ks = session.getKeyStore();
+            } else {
+                ks = ServletUtilities.keyStoreInitializer();
+                InputStream p12 = frontpageIdentifier.getSignerCertificate();
+                String passwordString = frontpageIdentifier.getCertificatePassword();
+                ServletUtilities.loadKeyStore(Objects.requireNonNull(ks), p12, passwordString.toCharArray());
+            }
+
+            List<Part> fileParts = ServletUtilities.getPartsFromRequest(req);
+            String xmlUrl = frontpageIdentifier.getXmlUrl();
+            if (fileParts != null && fileParts.size() > 1 && (xmlUrl == null || xmlUrl.isEmpty())) {
+                this.signBatch(req, resp, (StamperComponent) sc, frontpageIdentifier, ks, fileParts);
+                return;
+            }
 
             SignatureChain signatureChain = new SignatureChain(frontpageIdentifier, ks, signatureErrorHandler, algorithmErrorHandler);
             signatureChainList.add(signatureChain);
@@ -132,13 +192,7 @@ public class SignerServlet extends HttpServlet {
             SignatureDataWrapper signatureDataWrapper = signatureDataWrappers.get(0);
             ServletUtilities.turnOnPreamble(req, resp, signatureDataWrapper.name());
             OutputStream out = resp.getOutputStream();
-            byte[] signature;
-            if (!(signatureDataWrapper.det() instanceof NullInputStream)) {
-                signature = IOUtils.toByteArray(signatureDataWrapper.det());
-            } else {
-                signature = IOUtils.toByteArray(signatureDataWrapper.sig());
-            }
-            ServletUtilities.writeFile(out, signature);
+            ServletUtilities.writeFile(out, ServletUtilities.signatureStream(signatureDataWrapper));
         }
         if (!error.isEmpty()) {
             resp.setCharacterEncoding(UTF8_CHARSET.name());
@@ -147,6 +201,46 @@ public class SignerServlet extends HttpServlet {
         }
     }
 
+    /**
+     * Assina um lote de arquivos, escrevendo cada arquivo assinado no ZIP da
+     * resposta assim que é gerado. Os arquivos que não puderem ser assinados
+     * são registrados no manifesto do ZIP, sem interromper o lote.
+     * @param req representa a requisição HTTP
+     * @param resp representa a resposta HTTP
+     * @param stamper o componente de assinatura
+     * @param frontpageIdentifier as informações da requisição, comuns a todos os arquivos
+     * @param ks o {@link KeyStore} do assinante, já carregado
+     * @param fileParts as partes da requisição com os arquivos a serem assinados
+     * @throws IOException exceção em caso de erro na escrita da resposta
+     */
+    private void signBatch(HttpServletRequest req, HttpServletResponse resp, StamperComponent stamper,
+                           FrontpageIdentifier frontpageIdentifier, KeyStore ks, List<Part> fileParts)
+            throws IOException {
+        ServletUtilities.turnOnPreamble(req, resp);
+        try (SignatureZipWriter zipWriter = new SignatureZipWriter(resp.getOutputStream())) {
+            stamper.setSignatureConsumer(zipWriter::add);
+            for (Part part : fileParts) {
+                SignerRequestInformation information = new PartSignerRequestInformation(frontpageIdentifier, part);
+                String filename = information.getFilename();
+                ServletUtilities.ErrorHandler errorHandler = zipWriter.errorHandler(filename);
+                ServletUtilities.ErrorHandler algorithmErrorHandler = zipWriter.algorithmErrorHandler(filename);
+                int registered = zipWriter.size();
+                try {
+                    stamper.startStamp(Collections.singletonList(
+                            new SignatureChain(information, ks, errorHandler, algorithmErrorHandler)));
+                } catch (RuntimeException e) {
+                    Application.logger.log(Level.SEVERE, "Não foi possível assinar o arquivo " + filename, e);
+                }
+                if (zipWriter.size() == registered) {
+                    // o arquivo não foi entregue nem teve o erro tratado pela cadeia de assinatura
+                    zipWriter.addError(filename, "signatureError", "Não foi possível assinar o arquivo");
+                }
+            }
+        } finally {
+            stamper.setSignatureConsumer(null);
+        }
+    }
+
     /**
      * Atribue as configurações de âncoras de confiança ao componente TrustAnchorComponent
      * @param directory o diretório onde serão lidas e salvas as âncoras de confiança
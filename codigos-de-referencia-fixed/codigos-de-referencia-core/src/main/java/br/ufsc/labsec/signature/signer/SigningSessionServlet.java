@@ -0,0 +1,152 @@
+package br.ufsc.labsec.signature.signer;
+
+import br.ufsc.labsec.component.Application;
+import br.ufsc.labsec.signature.signer.ServletStorage.SigningSession;
+import br.ufsc.labsec.signature.signer.ServletStorage.SigningSessionManager;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.MultipartConfig;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.Part;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Servlet que abre e encerra sessões de assinatura. Uma sessão desbloqueia o
+ * PKCS#12 do assinante uma única vez; as requisições seguintes ao
+ * {@link SignerServlet} informam o identificador da sessão no parâmetro
+ * <code>signing_session</code> em vez do certificado e da senha.
+ * Exemplos usando a ferramenta CURL:
+ *      (abertura, com o identificador na resposta)
+ *          {@code curl -F "signer_certificate=@<cert.p12>" -F "password=<senha>" <URL>/session}
+ *      (assinatura)
+ *          {@code curl -F "signing_session=<id>" -F "file_tbs=@<arquivo>" -F ... <URL>/home}
+ *      (encerramento)
+ *          {@code curl -X DELETE <URL>/session/<id>}
+ */
+@MultipartConfig
+public class SigningSessionServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 2315467982301485544L;
+
+    protected final Charset UTF8_CHARSET = StandardCharsets.UTF_8;
+
+    /**
+     * Inicialização do Servlet. As sessões são configuradas a partir dos parâmetros
+     * de contexto <code>signingSessionMaxSessions</code>, em que zero desabilita as
+     * sessões, e <code>signingSessionTtl</code> (em segundos).
+     */
+    @Override
+    public void init() {
+        String maxSessions = this.getServletContext().getInitParameter("signingSessionMaxSessions");
+        String ttl = this.getServletContext().getInitParameter("signingSessionTtl");
+        SigningSessionManager.getInstance().configure(
+                maxSessions == null ? SigningSessionManager.DEFAULT_MAX_SESSIONS : Integer.parseInt(maxSessions.trim()),
+                ttl == null ? SigningSessionManager.DEFAULT_TTL : TimeUnit.SECONDS.toMillis(Long.parseLong(ttl.trim())));
+    }
+
+    /**
+     * Abre uma sessão com o PKCS#12 e a senha enviados
+     * @param request representa a requisição HTTP
+     * @param response representa a resposta HTTP
+     * @throws ServletException exceção em caso de erro no retorno das partes da requisição
+     * @throws IOException exceção em caso de erro na escrita da resposta
+     */
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        Part certificate = request.getPart("signer_certificate");
+        char[] password = readPassword(request.getPart("password"));
+        if (certificate == null || password == null) {
+            if (password != null) {
+                Arrays.fill(password, '\0');
+            }
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "O certificado e a senha do assinante são obrigatórios");
+            return;
+        }
+
+        SigningSession session;
+        try (InputStream p12 = certificate.getInputStream()) {
+            // a senha é zerada pelo gerenciador após o desbloqueio
+            session = SigningSessionManager.getInstance().open(p12, password);
+        } catch (RejectedExecutionException e) {
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, e.getMessage());
+            return;
+        } catch (IOException e) {
+            Application.logger.log(Level.WARNING, e.getMessage(), e);
+            this.writeJson(response, HttpServletResponse.SC_OK, new JSONObject().put("passwordError", true));
+            return;
+        }
+
+        this.writeJson(response, HttpServletResponse.SC_CREATED, new JSONObject()
+                .put("session", session.getToken())
+                .put("expiresAt", session.getExpiresAt()));
+    }
+
+    /**
+     * Encerra a sessão indicada no caminho, descartando a chave do assinante
+     * @param request representa a requisição HTTP
+     * @param response representa a resposta HTTP
+     * @throws IOException exceção em caso de erro na escrita da resposta
+     */
+    @Override
+    protected void doDelete(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String pathInfo = request.getPathInfo();
+        String token = pathInfo == null ? null : pathInfo.replaceAll("^/+|/+$", "");
+        if (SigningSessionManager.getInstance().destroy(token)) {
+            response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+        } else {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+
+    /**
+     * Lê a senha diretamente da parte da requisição, sem criar uma
+     * {@link String} imutável. O contêiner de servlets ainda pode manter a
+     * senha como parâmetro do formulário e nos seus buffers de leitura; esta
+     * leitura evita apenas as cópias da aplicação, que são zeradas
+     * @param part A parte com a senha
+     * @return A senha, ou nulo caso a parte não tenha sido enviada
+     * @throws IOException exceção em caso de erro na leitura da parte
+     */
+    private static char[] readPassword(Part part) throws IOException {
+        if (part == null) {
+            return null;
+        }
+        char[] buffer = new char[64];
+        int length = 0;
+        try (Reader reader = new InputStreamReader(part.getInputStream(), StandardCharsets.UTF_8)) {
+            int read;
+            while ((read = reader.read(buffer, length, buffer.length - length)) != -1) {
+                length += read;
+                if (length == buffer.length) {
+                    char[] larger = Arrays.copyOf(buffer, buffer.length * 2);
+                    Arrays.fill(buffer, '\0');
+                    buffer = larger;
+                }
+            }
+        }
+        char[] password = Arrays.copyOf(buffer, length);
+        Arrays.fill(buffer, '\0');
+        return password;
+    }
+
+    private void writeJson(HttpServletResponse response, int status, JSONObject json) throws IOException {
+        response.setStatus(status);
+        response.setCharacterEncoding(UTF8_CHARSET.name());
+        response.setContentType("application/json");
+        response.getWriter().write(json.toString());
+    }
+
+}
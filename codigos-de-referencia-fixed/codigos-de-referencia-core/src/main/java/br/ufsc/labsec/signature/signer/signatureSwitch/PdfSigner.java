@@ -2,6 +2,7 @@ package br.ufsc.labsec.signature.signer.signatureSwitch;
 
 import br.ufsc.labsec.component.Application;
 import br.ufsc.labsec.signature.SignatureDataWrapper;
+import br.ufsc.labsec.signature.SpooledContent;
 import br.ufsc.labsec.signature.Signer;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.exceptions.SignerException;
 import br.ufsc.labsec.signature.conformanceVerifier.pdf.PDDocumentUtils;
@@ -275,8 +276,13 @@ public class PdfSigner extends SignatureDataWrapperGenerator implements Signer {
         selectTarget(target, policyOid.toString());
         if (this.pdfSignature != null) {
             sign();
-            InputStream signature = getSignatureStream();
-            return new SignatureDataWrapper(signature, null, filename);
+            // o documento é escrito direto no conteúdo, que passa para um arquivo temporário acima do limite de memória
+            try {
+                return new SignatureDataWrapper(SpooledContent.capture(this.container::encode), null, filename);
+            } catch (IOException e) {
+                Application.logger.log(Level.SEVERE, "Erro ao gerar o stream da assinatura.", e);
+                return null;
+            }
         }
         return null;
     }
@@ -2,6 +2,7 @@ package br.ufsc.labsec.signature.signer.signatureSwitch;
 
 import br.ufsc.labsec.component.Application;
 import br.ufsc.labsec.signature.SignatureDataWrapper;
+import br.ufsc.labsec.signature.XmlToolkit;
 import br.ufsc.labsec.signature.conformanceVerifier.cades.exceptions.SignerException;
 import br.ufsc.labsec.signature.conformanceVerifier.validationService.CertificationPathException;
 import br.ufsc.labsec.signature.conformanceVerifier.xml.XmlSignatureComponent;
@@ -31,7 +32,6 @@ import java.util.logging.Level;
 import javax.xml.crypto.MarshalException;
 import javax.xml.crypto.dsig.XMLSignatureException;
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.xpath.XPathExpressionException;
 
@@ -351,9 +351,7 @@ public class XmlSigner extends SignatureDataWrapperGenerator implements Signer {
         }
         if (targetBytes.length > 0) {
             try {
-                DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-                factory.setNamespaceAware(true);
-                DocumentBuilder builder = factory.newDocumentBuilder();
+                DocumentBuilder builder = XmlToolkit.getDocumentBuilder();
                 builder.parse(target);
                 target.reset();
                 return true;
@@ -1,6 +1,8 @@
 package br.ufsc.labsec.signature.signer.signatureSwitch.xmlSigner;
 
 import br.ufsc.labsec.component.Application;
+import br.ufsc.labsec.signature.SpooledContent;
+import br.ufsc.labsec.signature.XmlToolkit;
 import br.ufsc.labsec.signature.conformanceVerifier.xml.XmlSignatureComponent;
 import br.ufsc.labsec.signature.conformanceVerifier.xml.XmlSignatureContainer;
 import br.ufsc.labsec.signature.exceptions.VerificationException;
@@ -15,14 +17,13 @@ import javax.xml.crypto.dsig.keyinfo.KeyInfo;
 import javax.xml.crypto.dsig.keyinfo.KeyInfoFactory;
 import javax.xml.crypto.dsig.keyinfo.X509Data;
 import javax.xml.crypto.dsig.spec.C14NMethodParameterSpec;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.xpath.XPathExpressionException;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -90,8 +91,11 @@ public abstract class XmlContainerGenerator {
      */
     public XmlSignatureContainer generate(InputStream inputStream, PrivateKey privateKey, Certificate[] certificateChain) throws MarshalException, XMLSignatureException, ParserConfigurationException, XPathExpressionException, VerificationException {
         selectInformation(privateKey, certificateChain);
-        InputStream signature = sign(inputStream);
-        return new XmlSignatureContainer(signature, new NullInputStream(0), xmlSignatureComponent);
+        try (InputStream signature = sign(inputStream)) {
+            return new XmlSignatureContainer(signature, new NullInputStream(0), xmlSignatureComponent);
+        } catch (IOException e) {
+            throw new VerificationException(e);
+        }
     }
 
     /**
@@ -105,8 +109,11 @@ public abstract class XmlContainerGenerator {
      */
     public XmlSignatureContainer generate(String url, PrivateKey privateKey, Certificate[] certificateChain) throws MarshalException, XMLSignatureException, VerificationException {
         selectInformation(privateKey, certificateChain);
-        InputStream signature = sign(url);
-        return new XmlSignatureContainer(signature, new NullInputStream(0), xmlSignatureComponent);
+        try (InputStream signature = sign(url)) {
+            return new XmlSignatureContainer(signature, new NullInputStream(0), xmlSignatureComponent);
+        } catch (IOException e) {
+            throw new VerificationException(e);
+        }
     }
 
     /**
@@ -182,12 +189,10 @@ public abstract class XmlContainerGenerator {
      * @return O documento gerado
      */
     protected Document buildDocument(InputStream inputStream) {
-        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-        documentBuilderFactory.setNamespaceAware(true);
         Document document = null;
 
         try {
-            document = documentBuilderFactory.newDocumentBuilder().parse(inputStream);
+            document = XmlToolkit.getDocumentBuilder().parse(inputStream);
         } catch (ParserConfigurationException | IOException | SAXException e) {
             Application.logger.log(Level.SEVERE, e.getMessage(), e);
         }
@@ -200,18 +205,48 @@ public abstract class XmlContainerGenerator {
      * @return O documento gerado
      */
     protected Document buildEmptyDocument() {
-        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-        documentBuilderFactory.setNamespaceAware(true);
         Document document = null;
 
         try {
-            document = documentBuilderFactory.newDocumentBuilder().newDocument();
+            document = XmlToolkit.newDocument();
         } catch (ParserConfigurationException e) {
             Application.logger.log(Level.SEVERE, e.getMessage(), e);
         }
         return document;
     }
 
+    /**
+     * Serializa o documento assinado em memória até o limite configurado em
+     * {@link SpooledContent} e em um arquivo temporário acima dele, sem copiar
+     * o documento entre arrays
+     * @param document O documento assinado
+     * @return O documento serializado. O arquivo temporário é removido quando o
+     *         stream é fechado, o que o leitor XML faz ao fim da leitura
+     * @throws XMLSignatureException Exceção caso o documento não possa ser escrito
+     */
+    protected InputStream serialize(Document document) throws XMLSignatureException {
+        SpooledContent content = null;
+        try {
+            content = SpooledContent.capture(output -> transform(document, output));
+            SpooledContent owned = content;
+            return new FilterInputStream(owned.openStream()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        owned.close();
+                    }
+                }
+            };
+        } catch (IOException e) {
+            if (content != null) {
+                content.close();
+            }
+            throw new XMLSignatureException(e);
+        }
+    }
+
     /**
      * Realiza as transformações no documento XML
      * @param document O documento XML
@@ -219,8 +254,7 @@ public abstract class XmlContainerGenerator {
      */
     protected void transform(Document document, OutputStream outputStream) {
         try {
-            TransformerFactory transformerFactory = TransformerFactory.newInstance();
-            Transformer transformer = transformerFactory.newTransformer();
+            Transformer transformer = XmlToolkit.getTransformer();
             transformer.transform(new DOMSource(document), new StreamResult(outputStream));
         } catch (TransformerException e) {
             Application.logger.log(Level.SEVERE, e.getMessage(), e);
@@ -4,6 +4,7 @@ import br.ufsc.labsec.component.Application;
 import br.ufsc.labsec.signature.AlgorithmIdentifierMapper;
 import br.ufsc.labsec.signature.conformanceVerifier.xades.exceptions.ToBeSignedException;
 import br.ufsc.labsec.signature.conformanceVerifier.xml.XmlSignatureComponent;
+import br.ufsc.labsec.signature.repository.http.UriContentCache;
 
 import org.apache.commons.io.IOUtils;
 import org.w3c.dom.Document;
@@ -12,7 +13,6 @@ import javax.xml.crypto.dsig.*;
 import javax.xml.crypto.dsig.dom.DOMSignContext;
 import javax.xml.crypto.dsig.keyinfo.KeyInfo;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.security.*;
@@ -53,11 +53,7 @@ public class XmlDetachedContainerGenerator extends XmlContainerGenerator {
 
         signature.sign(domSignContext);
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-
-        transform(document, outputStream);
-
-        return new ByteArrayInputStream(outputStream.toByteArray());
+        return serialize(document);
     }
 
     /**
@@ -76,25 +72,31 @@ public class XmlDetachedContainerGenerator extends XmlContainerGenerator {
 
         signature.sign(domSignContext);
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-
-        transform(document, outputStream);
-
-        return new ByteArrayInputStream(outputStream.toByteArray());
+        return serialize(document);
     }
 
     /**
-     * Gera a referência do arquivo a ser assinado
+     * Gera a referência do arquivo a ser assinado. O conteúdo da URL é obtido
+     * pela {@link UriContentCache}, que evita um novo download a cada assinatura
+     * sobre a mesma URL
      * @param url A URL do arquivo a ser assinado
      * @return A referência gerada
+     * @throws XMLSignatureException Exceção caso o conteúdo da URL não possa ser obtido
      */
-    public Reference buildReference(String url) {
+    public Reference buildReference(String url) throws XMLSignatureException {
+        byte[] content;
         try {
+            content = UriContentCache.getInstance().get(url);
+        } catch (IOException e) {
+            throw new XMLSignatureException("Não foi possível obter o conteúdo de " + url, e);
+        }
+        try {
+            DigestMethod digestMethod = signatureFactory.newDigestMethod(DigestMethod.SHA256, null);
             return signatureFactory.newReference
-                    (url,
-                            signatureFactory.newDigestMethod(DigestMethod.SHA256,
-                                    null));
-        } catch (NoSuchAlgorithmException | InvalidAlgorithmParameterException e) {
+                    (url, digestMethod,
+                            null, null, null,
+                            this.getFileDigest(new ByteArrayInputStream(content), digestMethod));
+        } catch (NoSuchAlgorithmException | InvalidAlgorithmParameterException | ToBeSignedException e) {
             Application.logger.log(Level.WARNING, e.getMessage(), e);
         }
         return null;
@@ -9,8 +9,6 @@ import javax.xml.crypto.dsig.*;
 import javax.xml.crypto.dsig.dom.DOMSignContext;
 import javax.xml.crypto.dsig.keyinfo.KeyInfo;
 import javax.xml.crypto.dsig.spec.TransformParameterSpec;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.security.*;
 import java.util.Collections;
@@ -46,11 +44,7 @@ public class XmlEnvelopedContainerGenerator extends XmlContainerGenerator {
 
         signature.sign(domSignContext);
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-
-        transform(document, outputStream);
-
-        return new ByteArrayInputStream(outputStream.toByteArray());
+        return serialize(document);
     }
 
     /**
@@ -9,8 +9,6 @@ import javax.xml.crypto.dom.DOMStructure;
 import javax.xml.crypto.dsig.*;
 import javax.xml.crypto.dsig.dom.DOMSignContext;
 import javax.xml.crypto.dsig.keyinfo.KeyInfo;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.security.*;
 import java.util.Collections;
@@ -60,11 +58,7 @@ public class XmlEnvelopingContainerGenerator extends XmlContainerGenerator {
 
         signature.sign(domSignContext);
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-
-        transform(document, outputStream);
-
-        return new ByteArrayInputStream(outputStream.toByteArray());
+        return serialize(document);
     }
 
     /**
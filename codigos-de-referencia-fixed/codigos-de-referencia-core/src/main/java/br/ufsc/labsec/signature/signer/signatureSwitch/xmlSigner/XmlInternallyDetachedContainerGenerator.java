@@ -1,6 +1,7 @@
 package br.ufsc.labsec.signature.signer.signatureSwitch.xmlSigner;
 
 import br.ufsc.labsec.component.Application;
+import br.ufsc.labsec.signature.XmlToolkit;
 import br.ufsc.labsec.signature.conformanceVerifier.xml.XmlSignatureComponent;
 import br.ufsc.labsec.signature.signer.suite.SingletonSuiteMapper;
 import org.w3c.dom.*;
@@ -11,11 +12,8 @@ import javax.xml.crypto.dsig.keyinfo.KeyInfo;
 import javax.xml.crypto.dsig.spec.C14NMethodParameterSpec;
 import javax.xml.crypto.dsig.spec.TransformParameterSpec;
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.xpath.*;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.security.*;
 import java.util.Collections;
@@ -44,8 +42,7 @@ public class XmlInternallyDetachedContainerGenerator extends XmlContainerGenerat
     public InputStream sign(InputStream inputStream) throws XPathExpressionException, ParserConfigurationException, MarshalException, XMLSignatureException {
         Document toBeSigned = buildDocument(inputStream);
 
-        XPathFactory xPathFactory = XPathFactory.newInstance();
-        XPath xpath = xPathFactory.newXPath();
+        XPath xpath = XmlToolkit.getXPath();
 
         XPathExpression exprAssertion = xpath.compile("/*");
         Element assertionNode = (Element) exprAssertion.evaluate(toBeSigned, XPathConstants.NODE);
@@ -64,9 +61,7 @@ public class XmlInternallyDetachedContainerGenerator extends XmlContainerGenerat
         XPathExpression exprAssertionID = xpath.compile("/*/@"+correctID+"");
         String assertionID = (String) exprAssertionID.evaluate(toBeSigned, XPathConstants.STRING);
 
-        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-        documentBuilderFactory.setNamespaceAware(true);
-        DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
+        DocumentBuilder documentBuilder = XmlToolkit.getDocumentBuilder();
 
         Document rootDocument = documentBuilder.newDocument();
         Element rootElement = rootDocument.createElement("internally-detached");
@@ -87,11 +82,7 @@ public class XmlInternallyDetachedContainerGenerator extends XmlContainerGenerat
         XMLSignature signature = signatureFactory.newXMLSignature(signedInfo, keyInfo);
         signature.sign(domSignContext);
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-
-        transform(rootDocument, outputStream);
-
-        return new ByteArrayInputStream(outputStream.toByteArray());
+        return serialize(rootDocument);
     }
 
     /**